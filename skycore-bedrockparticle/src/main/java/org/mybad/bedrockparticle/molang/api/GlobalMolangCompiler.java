@@ -1,17 +1,39 @@
 package org.mybad.bedrockparticle.molang.api;
 
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.mybad.bedrockparticle.molang.impl.MolangExpressionCache;
+import org.mybad.bedrockparticle.molang.impl.compiler.MolangClassCache;
+import org.mybad.bedrockparticle.molang.impl.compiler.ProfiledMolangExpression;
+
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
- * Stores a global instance of the compiler for ease of access.
+ * <p>Stores a global instance of the compiler for ease of access.</p>
+ * <p>Global compilers reuse expressions compiled from the same source text, so identical expressions across resources share one generated class.</p>
  *
  * @author Ocelot
  * @since 3.0.0
  */
 public final class GlobalMolangCompiler {
 
-    private static final Map<Integer, MolangCompiler> GLOBAL_COMPILERS = new ConcurrentHashMap<>();
+    /**
+     * The default number of expressions retained per set of compiler flags.
+     */
+    public static final int DEFAULT_CACHE_LIMIT = 4096;
+    /**
+     * The default number of evaluations before an expression from a {@linkplain MolangCompiler#TIERED_FLAG tiered} compiler is compiled.
+     */
+    public static final int DEFAULT_PROMOTION_THRESHOLD = 64;
+
+    private static final Map<Integer, MolangExpressionCache> GLOBAL_COMPILERS = new ConcurrentHashMap<>();
+    private static volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+    private static volatile int promotionThreshold = DEFAULT_PROMOTION_THRESHOLD;
+    private static volatile BiConsumer<String, Throwable> warningHandler = (message, error) -> System.err.println(message + ": " + error);
 
     /**
      * Retrieves a compiler with the {@linkplain MolangCompiler#DEFAULT_FLAGS default flags}.
@@ -29,16 +51,159 @@ public final class GlobalMolangCompiler {
      * @return The compiler instance
      * @see MolangCompiler#OPTIMIZE_FLAG
      * @see MolangCompiler#WRITE_CLASSES_FLAG
+     * @see MolangCompiler#TIERED_FLAG
+     * @see MolangCompiler#PROFILE_FLAG
      * @see MolangCompiler#DEFAULT_FLAGS
      */
     public static MolangCompiler get(int flags) {
-        return GLOBAL_COMPILERS.computeIfAbsent(flags, MolangCompiler::create);
+        if ((flags & MolangCompiler.PROFILE_FLAG) != 0) {
+            // Profiled expressions share the cached classes and only add the instrumented wrapper for the current owner
+            MolangCompiler compiler = get(flags & ~MolangCompiler.PROFILE_FLAG);
+            return input -> ProfiledMolangExpression.wrap(compiler.compile(input));
+        }
+        return GLOBAL_COMPILERS.computeIfAbsent(flags, key -> new MolangExpressionCache(MolangCompiler.create(key), cacheLimit));
+    }
+
+    /**
+     * Sets the maximum number of compiled expressions retained per set of compiler flags.
+     *
+     * @param limit The new limit. A value of <code>0</code> disables expression caching
+     */
+    public static void setCacheLimit(int limit) {
+        cacheLimit = Math.max(0, limit);
+        for (MolangExpressionCache cache : GLOBAL_COMPILERS.values()) {
+            cache.setLimit(cacheLimit);
+        }
+    }
+
+    /**
+     * Sets the number of evaluations before an expression from a {@linkplain MolangCompiler#TIERED_FLAG tiered} compiler is compiled.
+     * Only affects expressions compiled after this call.
+     *
+     * @param threshold The new threshold. A value of <code>0</code> compiles every expression immediately
+     */
+    public static void setPromotionThreshold(int threshold) {
+        promotionThreshold = Math.max(0, threshold);
+    }
+
+    /**
+     * @return The number of evaluations before an expression from a {@linkplain MolangCompiler#TIERED_FLAG tiered} compiler is compiled
+     */
+    public static int getPromotionThreshold() {
+        return promotionThreshold;
     }
 
     /**
-     * Deletes the current instance of the compiler to allow compiled expression classes to be garbage collected.
+     * Sets the file the classes generated by all compilers are persisted to, so later sessions can define them without compiling again.
+     * The file is discarded automatically when the compiler changes. Only affects expressions compiled after this call.
+     *
+     * @param file The cache file or <code>null</code> to stop persisting classes
+     */
+    public static void setPersistentCache(@Nullable Path file) {
+        MolangClassCache.open(file);
+    }
+
+    /**
+     * Sets the handler notified when a compiler recovers from a failure, such as a tiered expression that cannot be compiled and stays interpreted
+     * or a class cache that cannot be read or written. By default, warnings are printed to {@link System#err}.
+     *
+     * @param warningHandler The consumer of the warning message and the error that caused it
+     */
+    public static void setWarningHandler(BiConsumer<String, Throwable> warningHandler) {
+        GlobalMolangCompiler.warningHandler = Objects.requireNonNull(warningHandler, "warningHandler");
+    }
+
+    /**
+     * Notifies the warning handler.
+     *
+     * @param message The description of what failed
+     * @param error   The error that caused it
+     */
+    @ApiStatus.Internal
+    public static void warn(String message, Throwable error) {
+        warningHandler.accept(message, error);
+    }
+
+    /**
+     * @return A snapshot of the expression cache statistics across all global compilers
+     */
+    public static CacheStats getCacheStats() {
+        int size = 0;
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        for (MolangExpressionCache cache : GLOBAL_COMPILERS.values()) {
+            size += cache.size();
+            hits += cache.getHits();
+            misses += cache.getMisses();
+            evictions += cache.getEvictions();
+        }
+        return new CacheStats(size, hits, misses, evictions);
+    }
+
+    /**
+     * Deletes the current instance of the compiler and its cached expressions to allow compiled expression classes to be garbage collected.
      */
     public static void clear() {
         GLOBAL_COMPILERS.clear();
     }
+
+    /**
+     * Immutable snapshot of the global expression cache.
+     */
+    public static final class CacheStats {
+
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        private CacheStats(int size, long hits, long misses, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        /**
+         * @return The number of expressions currently cached
+         */
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return The number of compile calls answered from the cache
+         */
+        public long getHits() {
+            return this.hits;
+        }
+
+        /**
+         * @return The number of compile calls that generated a new class
+         */
+        public long getMisses() {
+            return this.misses;
+        }
+
+        /**
+         * @return The number of expressions dropped to stay within the limit
+         */
+        public long getEvictions() {
+            return this.evictions;
+        }
+
+        /**
+         * @return The fraction of compile calls answered from the cache, or <code>0</code> if nothing was compiled yet
+         */
+        public float getHitRate() {
+            long total = this.hits + this.misses;
+            return total == 0 ? 0.0F : (float) this.hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats[size=" + this.size + ", hits=" + this.hits + ", misses=" + this.misses + ", evictions=" + this.evictions + "]";
+        }
+    }
 }
@@ -21,6 +21,16 @@ public interface MolangCompiler {
      * Whether to write the java bytecode to a class file. This is only for debugging.
      */
     int WRITE_CLASSES_FLAG = 0b10;
+    /**
+     * Whether to interpret expressions until they were evaluated {@linkplain GlobalMolangCompiler#getPromotionThreshold() often enough} and only then compile them in the background.
+     * This saves generating classes for the many expressions that are only evaluated a few times.
+     */
+    int TIERED_FLAG = 0b100;
+    /**
+     * Whether to wrap expressions in an instrumented variant that reports evaluation counts and time to the {@link MolangProfiler}.
+     * Expressions compiled without this flag are not measured and have no profiling overhead.
+     */
+    int PROFILE_FLAG = 0b1000;
 
     /**
      * All default compilation flags. This may change in future versions as more options are added.
@@ -52,6 +62,8 @@ public interface MolangCompiler {
      * @return The compiler instance
      * @see MolangCompiler#OPTIMIZE_FLAG
      * @see MolangCompiler#WRITE_CLASSES_FLAG
+     * @see MolangCompiler#TIERED_FLAG
+     * @see MolangCompiler#PROFILE_FLAG
      * @see MolangCompiler#DEFAULT_FLAGS
      */
     static MolangCompiler create(int flags) {
@@ -67,6 +79,8 @@ public interface MolangCompiler {
      * @return The compiler instance
      * @see MolangCompiler#OPTIMIZE_FLAG
      * @see MolangCompiler#WRITE_CLASSES_FLAG
+     * @see MolangCompiler#TIERED_FLAG
+     * @see MolangCompiler#PROFILE_FLAG
      * @see MolangCompiler#DEFAULT_FLAGS
      */
     static MolangCompiler create(int flags, ClassLoader parent) {
@@ -129,6 +129,36 @@ public interface MolangEnvironment {
         return this.get("variable");
     }
 
+    /**
+     * @return The layout of {@link #getSlotFrame()} or <code>null</code> if all variables are looked up by name
+     * @since 3.2.0
+     */
+    default MolangSlotLayout getSlotLayout() {
+        return null;
+    }
+
+    /**
+     * Retrieves the values of all slotted variables. Compiled expressions read slotted names from this array instead of {@link #getVariable()} and {@link #getQuery()}.
+     * This must not be <code>null</code> if {@link #getSlotLayout()} is not <code>null</code>.
+     *
+     * @return The slot values or <code>null</code> if all variables are looked up by name
+     * @since 3.2.0
+     */
+    default float[] getSlotFrame() {
+        return null;
+    }
+
+    /**
+     * Draws the next random value for <code>math.random</code>, <code>math.random_integer</code> and the die rolls.
+     * Environments that must be reproducible return values from their own seeded generator.
+     *
+     * @return A random value from <code>0</code> inclusive to <code>1</code> exclusive
+     * @since 3.2.0
+     */
+    default double nextRandom() {
+        return Math.random();
+    }
+
     /**
      * Retrieves an expression by the specified parameter index.
      *
@@ -206,6 +236,22 @@ public interface MolangEnvironment {
         return expression.get(this);
     }
 
+    /**
+     * <p>Resolves the float value of the specified expression for every row of the specified slot columns.</p>
+     * <p>Compiled expressions evaluate all rows in a single generated loop, which is much cheaper than calling {@link #resolve(MolangExpression)} per row.</p>
+     *
+     * @param expression The expression to evaluate
+     * @param columns    The per-row values of every slot in {@link #getSlotLayout()} or <code>null</code> for slots shared by all rows
+     * @param count      The number of rows to evaluate
+     * @param out        The array to store the value of each row into
+     * @throws MolangRuntimeException If any error occurs when resolving the value
+     * @see MolangExpression#getBatch(MolangEnvironment, float[][], int, float[])
+     * @since 3.2.0
+     */
+    default void resolveBatch(MolangExpression expression, float[][] columns, int count, float[] out) throws MolangRuntimeException {
+        expression.getBatch(this, columns, count, out);
+    }
+
     /**
      * <p>Resolves the float value of the specified expression in this environment. Catches any exception thrown and returns <code>0.0</code>.</p>
      * <p>This allows environments to fine-tune how expressions are evaluated.</p>
@@ -5,6 +5,7 @@ import org.mybad.bedrockparticle.molang.api.bridge.MolangVariable;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
 import org.mybad.bedrockparticle.molang.impl.node.*;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
@@ -31,6 +32,55 @@ public interface MolangExpression {
     @ApiStatus.Internal
     float get(MolangEnvironment environment) throws MolangRuntimeException;
 
+    /**
+     * <p>Resolves the float value of this expression once for every row of the specified columns.</p>
+     * <p>Each column holds the values of one slot of the environment {@link MolangSlotLayout}, indexed by row.
+     * Slots without a column are read from {@link MolangEnvironment#getSlotFrame()} and every other variable is looked up in the environment as usual.
+     * Values written to slotted variables are stored back into their column.</p>
+     *
+     * @param environment The environment to execute in
+     * @param columns     The per-row values of every slot or <code>null</code> for slots shared by all rows. Must be at least as long as the slot layout
+     * @param count       The number of rows to evaluate
+     * @param out         The array to store the value of each row into
+     * @throws MolangRuntimeException If any error occurs when resolving the value
+     * @since 3.2.0
+     */
+    @ApiStatus.Internal
+    default void getBatch(MolangEnvironment environment, float[][] columns, int count, float[] out) throws MolangRuntimeException {
+        float[] frame = environment.getSlotLayout() != null ? environment.getSlotFrame() : null;
+        if (frame == null) {
+            for (int row = 0; row < count; row++) {
+                out[row] = this.get(environment);
+            }
+            return;
+        }
+
+        // Copy each row into the frame and restore the shared values afterward
+        int slots = Math.min(columns.length, frame.length);
+        float[] shared = frame.clone();
+        try {
+            for (int row = 0; row < count; row++) {
+                for (int slot = 0; slot < slots; slot++) {
+                    if (columns[slot] != null) {
+                        frame[slot] = columns[slot][row];
+                    }
+                }
+                out[row] = this.get(environment);
+                for (int slot = 0; slot < slots; slot++) {
+                    if (columns[slot] != null) {
+                        columns[slot][row] = frame[slot];
+                    }
+                }
+            }
+        } finally {
+            for (int slot = 0; slot < slots; slot++) {
+                if (columns[slot] != null) {
+                    frame[slot] = shared[slot];
+                }
+            }
+        }
+    }
+
     /**
      * Resolves the constant float value of this expression if {@link #isConstant()} returns <code>true</code>.
      *
@@ -79,6 +129,21 @@ public interface MolangExpression {
         return false;
     }
 
+    /**
+     * <p>Lists the variables this expression reads if its value depends on nothing else.</p>
+     * <p>An expression with slot dependencies only reads variables through their qualified name, uses constants, operators and deterministic math functions,
+     * and writes nothing but temp variables. If every listed name is part of an environment {@link MolangSlotLayout},
+     * the value for each row of {@link #getBatch(MolangEnvironment, float[][], int, float[])} depends only on the columns of that row.</p>
+     *
+     * @return The qualified names of the variables read, for example <code>variable.particle_age</code>,
+     * or <code>null</code> if the value can depend on anything else such as randomness, functions, <code>this</code> or writes to the environment
+     * @since 3.2.0
+     */
+    @Nullable
+    default String[] getSlotDependencies() {
+        return this.isConstant() ? new String[0] : null;
+    }
+
     /**
      * Creates a copy of this expression if there is an internal state.
      *
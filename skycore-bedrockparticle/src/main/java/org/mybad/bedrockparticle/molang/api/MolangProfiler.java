@@ -0,0 +1,316 @@
+package org.mybad.bedrockparticle.molang.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Opt-in profiler that attributes the cost of evaluating expressions to their source and the resource that owns them.</p>
+ * <p>Only expressions compiled with {@link MolangCompiler#PROFILE_FLAG} are measured. Those are wrapped in an instrumented variant at compile time,
+ * so expressions compiled without the flag keep their normal evaluation path and cost nothing while profiling is off.
+ * Use {@link #isEnabled()} to decide which flags to compile with and reload resources after toggling it.</p>
+ *
+ * @author Ocelot
+ * @since 3.2.0
+ */
+public final class MolangProfiler {
+
+    private static final String UNKNOWN_OWNER = "unknown";
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> OWNER = new ThreadLocal<>();
+    private static final ThreadLocal<Entry> CURRENT = new ThreadLocal<>();
+
+    private static volatile boolean enabled;
+
+    private MolangProfiler() {
+    }
+
+    /**
+     * @return Whether new expressions should be compiled with {@link MolangCompiler#PROFILE_FLAG}
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether new expressions should be compiled with {@link MolangCompiler#PROFILE_FLAG}. Expressions that were already compiled are not affected.
+     *
+     * @param enabled Whether to profile expressions compiled from now on
+     */
+    public static void setEnabled(boolean enabled) {
+        MolangProfiler.enabled = enabled;
+    }
+
+    /**
+     * Sets the resource that owns expressions compiled on the current thread, for example a particle id or a head bar definition.
+     *
+     * @param owner The new owner or <code>null</code> to clear it
+     * @return The previous owner, which should be restored once the resource is loaded
+     */
+    @Nullable
+    public static String setOwner(@Nullable String owner) {
+        String previous = OWNER.get();
+        if (owner == null) {
+            OWNER.remove();
+        } else {
+            OWNER.set(owner);
+        }
+        return previous;
+    }
+
+    /**
+     * Creates the profiling entry for an expression compiled on the current thread.
+     *
+     * @param source The source of the expression
+     * @return The entry to record evaluations into
+     */
+    @ApiStatus.Internal
+    public static Entry createEntry(String source) {
+        String owner = OWNER.get();
+        String resolvedOwner = owner != null ? owner : UNKNOWN_OWNER;
+        return ENTRIES.computeIfAbsent(resolvedOwner + '\0' + source, key -> new Entry(resolvedOwner, source));
+    }
+
+    /**
+     * Marks the entry whose expression is being evaluated on the current thread.
+     *
+     * @param entry The entry or <code>null</code> once evaluation finished
+     * @return The entry that was being evaluated before, to support expressions referencing other expressions
+     */
+    @ApiStatus.Internal
+    @Nullable
+    public static Entry enter(@Nullable Entry entry) {
+        Entry previous = CURRENT.get();
+        CURRENT.set(entry);
+        return previous;
+    }
+
+    /**
+     * Counts an unknown name read by the profiled expression currently evaluating on this thread.
+     */
+    @ApiStatus.Internal
+    public static void recordUnknown() {
+        Entry entry = CURRENT.get();
+        if (entry != null) {
+            entry.unknownHits.increment();
+        }
+    }
+
+    /**
+     * Discards all recorded samples.
+     */
+    public static void reset() {
+        for (Entry entry : ENTRIES.values()) {
+            entry.calls.reset();
+            entry.nanos.reset();
+            entry.unknownHits.reset();
+        }
+    }
+
+    /**
+     * Discards all recorded samples and the expressions they belong to. Call this after resources were reloaded.
+     */
+    public static void clear() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * @param sort The order of the report
+     * @return A snapshot of every expression that was evaluated or read an unknown name since the last reset
+     */
+    public static List<Sample> getExpressionReport(Sort sort) {
+        List<Sample> samples = new ArrayList<>();
+        for (Entry entry : ENTRIES.values()) {
+            Sample sample = entry.snapshot();
+            if (sample.calls > 0 || sample.unknownHits > 0) {
+                samples.add(sample);
+            }
+        }
+        samples.sort(sort.comparator);
+        return samples;
+    }
+
+    /**
+     * @param sort The order of the report
+     * @return A snapshot of the totals for every owner. {@link Sample#getSource()} is <code>null</code> for these samples
+     */
+    public static List<Sample> getOwnerReport(Sort sort) {
+        Map<String, Sample> owners = new HashMap<>();
+        for (Sample sample : getExpressionReport(sort)) {
+            Sample total = owners.get(sample.owner);
+            owners.put(sample.owner, total == null
+                ? new Sample(sample.owner, null, sample.calls, sample.nanos, sample.unknownHits)
+                : new Sample(sample.owner, null, total.calls + sample.calls, total.nanos + sample.nanos, total.unknownHits + sample.unknownHits));
+        }
+        List<Sample> samples = new ArrayList<>(owners.values());
+        samples.sort(sort.comparator);
+        return samples;
+    }
+
+    /**
+     * Writes the owner totals followed by every expression as tab separated text.
+     *
+     * @param output The output to write to
+     * @param sort   The order of both tables
+     * @throws IOException If the output fails
+     */
+    public static void writeReport(Appendable output, Sort sort) throws IOException {
+        output.append("# owners\nowner\tcalls\ttotal_ms\tavg_ns\tunknown\n");
+        for (Sample sample : getOwnerReport(sort)) {
+            writeSample(output, sample);
+            output.append('\n');
+        }
+        output.append("\n# expressions\nowner\tcalls\ttotal_ms\tavg_ns\tunknown\tsource\n");
+        for (Sample sample : getExpressionReport(sort)) {
+            writeSample(output, sample);
+            output.append('\t').append(sample.source.replace('\n', ' ').replace('\t', ' ')).append('\n');
+        }
+    }
+
+    private static void writeSample(Appendable output, Sample sample) throws IOException {
+        output.append(sample.owner)
+            .append('\t').append(Long.toString(sample.calls))
+            .append('\t').append(String.format(Locale.ROOT, "%.3f", sample.getTotalMillis()))
+            .append('\t').append(String.format(Locale.ROOT, "%.1f", sample.getAverageNanos()))
+            .append('\t').append(Long.toString(sample.unknownHits));
+    }
+
+    /**
+     * Live counters of a single expression compiled for a single owner.
+     */
+    @ApiStatus.Internal
+    public static final class Entry {
+
+        private final String owner;
+        private final String source;
+        private final LongAdder calls;
+        private final LongAdder nanos;
+        private final LongAdder unknownHits;
+
+        private Entry(String owner, String source) {
+            this.owner = owner;
+            this.source = source;
+            this.calls = new LongAdder();
+            this.nanos = new LongAdder();
+            this.unknownHits = new LongAdder();
+        }
+
+        /**
+         * Records evaluations of the expression.
+         *
+         * @param calls The number of values evaluated
+         * @param nanos The time spent evaluating them
+         */
+        public void record(int calls, long nanos) {
+            this.calls.add(calls);
+            this.nanos.add(nanos);
+        }
+
+        private Sample snapshot() {
+            return new Sample(this.owner, this.source, this.calls.sum(), this.nanos.sum(), this.unknownHits.sum());
+        }
+    }
+
+    /**
+     * Immutable snapshot of the counters of an expression or an owner.
+     */
+    public static final class Sample {
+
+        private final String owner;
+        private final String source;
+        private final long calls;
+        private final long nanos;
+        private final long unknownHits;
+
+        private Sample(String owner, @Nullable String source, long calls, long nanos, long unknownHits) {
+            this.owner = owner;
+            this.source = source;
+            this.calls = calls;
+            this.nanos = nanos;
+            this.unknownHits = unknownHits;
+        }
+
+        /**
+         * @return The resource that compiled the expression
+         */
+        public String getOwner() {
+            return this.owner;
+        }
+
+        /**
+         * @return The source of the expression or <code>null</code> for owner totals
+         */
+        @Nullable
+        public String getSource() {
+            return this.source;
+        }
+
+        /**
+         * @return The number of values evaluated
+         */
+        public long getCalls() {
+            return this.calls;
+        }
+
+        /**
+         * @return The total time spent evaluating in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return The number of times an unknown name was read
+         */
+        public long getUnknownHits() {
+            return this.unknownHits;
+        }
+
+        public double getTotalMillis() {
+            return this.nanos / 1_000_000.0;
+        }
+
+        public double getAverageNanos() {
+            return this.calls == 0 ? 0.0 : (double) this.nanos / this.calls;
+        }
+
+        @Override
+        public String toString() {
+            return "Sample[owner=" + this.owner + ", source=" + this.source + ", calls=" + this.calls + ", nanos=" + this.nanos + ", unknownHits=" + this.unknownHits + "]";
+        }
+    }
+
+    /**
+     * The orders reports can be sorted by. All orders are descending.
+     */
+    public enum Sort {
+        TOTAL_TIME(Comparator.comparingLong(Sample::getNanos)),
+        CALLS(Comparator.comparingLong(Sample::getCalls)),
+        AVERAGE_TIME(Comparator.comparingDouble(Sample::getAverageNanos)),
+        UNKNOWN_VARIABLES(Comparator.comparingLong(Sample::getUnknownHits));
+
+        private final Comparator<Sample> comparator;
+
+        Sort(Comparator<Sample> comparator) {
+            this.comparator = Objects.requireNonNull(comparator).reversed();
+        }
+
+        /**
+         * @return The next order, wrapping around after the last one
+         */
+        public Sort next() {
+            Sort[] values = values();
+            return values[(this.ordinal() + 1) % values.length];
+        }
+    }
+}
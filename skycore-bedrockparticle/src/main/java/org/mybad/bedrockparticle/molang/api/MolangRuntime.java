@@ -24,6 +24,8 @@ public class MolangRuntime implements MolangEnvironment {
     private final ImmutableMolangObject query;
     private final ImmutableMolangObject global;
     private final MolangObject variable;
+    private MolangSlotLayout slotLayout;
+    private float[] slotFrame;
 
     private MolangRuntime(ImmutableMolangObject query, ImmutableMolangObject global, MolangObject variable, Map<String, MolangObject> libraries) {
         this.thisValue = 0.0F;
@@ -133,6 +135,33 @@ public class MolangRuntime implements MolangEnvironment {
         return this.variable;
     }
 
+    @Override
+    public MolangSlotLayout getSlotLayout() {
+        return this.slotLayout;
+    }
+
+    @Override
+    public float[] getSlotFrame() {
+        return this.slotFrame;
+    }
+
+    /**
+     * Makes compiled expressions read the variables in the specified layout from a frame instead of looking them up by name.
+     * Values written to slotted variables by expressions are stored in both the frame and the variable object.
+     *
+     * @param layout The layout of the frame or <code>null</code> to look up all variables by name
+     * @param frame  The slot values. The caller owns this array and updates it directly
+     * @throws IllegalArgumentException If the frame is too small for the layout
+     * @since 3.2.0
+     */
+    public void setSlots(MolangSlotLayout layout, float[] frame) {
+        if (layout != null && (frame == null || frame.length < layout.size())) {
+            throw new IllegalArgumentException("Slot frame must have at least " + layout.size() + " values");
+        }
+        this.slotLayout = layout;
+        this.slotFrame = layout != null ? frame : null;
+    }
+
     @Override
     public float getParameter(int parameter) throws MolangRuntimeException {
         if (parameter < 0 || parameter >= this.parameters.size()) {
@@ -197,6 +226,8 @@ public class MolangRuntime implements MolangEnvironment {
         private final MolangVariableStorage global;
         private final MolangVariableStorage variable;
         private final Map<String, MolangObject> libraries;
+        private MolangSlotLayout slotLayout;
+        private float[] slotFrame;
 
         public Builder() {
             this.query = new MolangVariableStorage(true);
@@ -210,6 +241,23 @@ public class MolangRuntime implements MolangEnvironment {
             this.global = new MolangVariableStorage(copy.global);
             this.variable = new MolangVariableStorage(copy.variable);
             this.libraries = new HashMap<>(copy.libraries);
+            this.slotLayout = copy.slotLayout;
+            this.slotFrame = copy.slotFrame;
+        }
+
+        /**
+         * Sets the slot frame compiled expressions read variables from.
+         *
+         * @param layout The layout of the frame or <code>null</code> to look up all variables by name
+         * @param frame  The slot values. The caller owns this array and updates it directly
+         * @return This builder
+         * @see MolangRuntime#setSlots(MolangSlotLayout, float[])
+         * @since 3.2.0
+         */
+        public Builder setSlots(MolangSlotLayout layout, float[] frame) {
+            this.slotLayout = layout;
+            this.slotFrame = frame;
+            return this;
         }
 
         @Override
@@ -355,7 +403,11 @@ public class MolangRuntime implements MolangEnvironment {
 
         @Override
         public MolangRuntime create() {
-            return new MolangRuntime(new ImmutableMolangObject(this.query), new ImmutableMolangObject(this.global), this.variable, this.libraries);
+            MolangRuntime runtime = new MolangRuntime(new ImmutableMolangObject(this.query), new ImmutableMolangObject(this.global), this.variable, this.libraries);
+            if (this.slotLayout != null) {
+                runtime.setSlots(this.slotLayout, this.slotFrame);
+            }
+            return runtime;
         }
 
         /**
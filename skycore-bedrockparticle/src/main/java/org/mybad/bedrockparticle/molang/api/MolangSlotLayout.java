@@ -0,0 +1,199 @@
+package org.mybad.bedrockparticle.molang.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>Assigns fixed indices to <code>variable.*</code> and <code>query.*</code> names so compiled expressions can read them from a <code>float[]</code> frame
+ * instead of looking them up by name.</p>
+ * <p>A layout is immutable and should be shared by every environment with the same set of names.
+ * Compiled expressions resolve their names against a layout the first time they are evaluated with it.</p>
+ *
+ * @author Ocelot
+ * @see MolangEnvironment#getSlotLayout()
+ * @see MolangEnvironment#getSlotFrame()
+ * @since 3.2.0
+ */
+public final class MolangSlotLayout {
+
+    private final Map<String, Integer> slots;
+    private final List<String> names;
+    private final int size;
+    private final MolangSlotLayout base;
+
+    private MolangSlotLayout(Map<String, Integer> slots, List<String> names, int size, @Nullable MolangSlotLayout base) {
+        this.slots = slots;
+        this.names = names;
+        this.size = size;
+        this.base = base != null ? base : this;
+    }
+
+    /**
+     * Finds the slot a variable is stored in.
+     *
+     * @param object The object the variable is accessed through, for example <code>v</code> or <code>query</code>
+     * @param name   The name of the variable
+     * @return The slot index or <code>-1</code> if the variable is not part of this layout
+     */
+    public int indexOf(String object, String name) {
+        String canonical = canonicalObject(object);
+        if (canonical == null) {
+            return -1;
+        }
+        Integer index = this.slots.get(canonical + "." + name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Finds the slot a fully qualified variable is stored in.
+     *
+     * @param qualifiedName The name including the object, for example <code>variable.particle_age</code>
+     * @return The slot index or <code>-1</code> if the variable is not part of this layout
+     */
+    public int indexOf(String qualifiedName) {
+        int dot = qualifiedName.indexOf('.');
+        if (dot <= 0) {
+            return -1;
+        }
+        return this.indexOf(qualifiedName.substring(0, dot), qualifiedName.substring(dot + 1));
+    }
+
+    /**
+     * @return The number of slots a frame for this layout needs
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return All qualified names in this layout in the order they were added
+     */
+    public List<String> getNames() {
+        return this.names;
+    }
+
+    /**
+     * <p>Finds the layout this one was originally extended from with {@link #builder(MolangSlotLayout)}.</p>
+     * <p>Extending a layout never moves or shadows its names, so every name of the base has the same index in all layouts that share it.</p>
+     *
+     * @return The root layout of this layout or this layout if it was not built from a parent
+     */
+    public MolangSlotLayout getBase() {
+        return this.base;
+    }
+
+    /**
+     * @return A new zeroed frame large enough for this layout
+     */
+    public float[] createFrame() {
+        return new float[this.size];
+    }
+
+    /**
+     * Converts object aliases into the name used by the layout.
+     *
+     * @param object The object name as written in an expression
+     * @return The canonical object name or <code>null</code> if the object cannot be stored in slots
+     */
+    public static String canonicalObject(String object) {
+        switch (object.toLowerCase(Locale.ROOT)) {
+            case "v":
+            case "variable":
+                return "variable";
+            case "q":
+            case "query":
+            case "c":
+            case "context":
+                return "query";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return A new layout builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder that starts with all slots of the specified layout at the same indices, so frames of the new layout can be filled like frames of the parent.
+     *
+     * @param parent The layout to extend
+     * @return A new layout builder
+     */
+    public static Builder builder(MolangSlotLayout parent) {
+        Builder builder = new Builder();
+        builder.base = parent.base;
+        builder.slots.putAll(parent.slots);
+        builder.names.addAll(parent.names);
+        builder.size = parent.size;
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return "MolangSlotLayout" + this.slots;
+    }
+
+    /**
+     * Constructs a new {@link MolangSlotLayout}.
+     *
+     * @author Ocelot
+     * @since 3.2.0
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> slots;
+        private final List<String> names;
+        private int size;
+        private MolangSlotLayout base;
+
+        private Builder() {
+            this.slots = new HashMap<>();
+            this.names = new ArrayList<>();
+            this.size = 0;
+        }
+
+        /**
+         * Allocates a new slot shared by all the specified names.
+         *
+         * @param names The qualified names to store in the slot, for example <code>variable.particle_age</code> and <code>query.particle_age</code>
+         * @return The index of the new slot
+         * @throws IllegalArgumentException If a name is not a variable or query or is already in the layout
+         */
+        public int add(String... names) {
+            if (names.length == 0) {
+                throw new IllegalArgumentException("At least one name is required");
+            }
+            int index = this.size++;
+            for (String name : names) {
+                int dot = name.indexOf('.');
+                String object = dot > 0 ? canonicalObject(name.substring(0, dot)) : null;
+                if (object == null) {
+                    throw new IllegalArgumentException("Only variable and query names can be stored in slots: " + name);
+                }
+                String key = object + "." + name.substring(dot + 1);
+                if (this.slots.putIfAbsent(key, index) != null) {
+                    throw new IllegalArgumentException("Duplicate slot name: " + key);
+                }
+                this.names.add(key);
+            }
+            return index;
+        }
+
+        /**
+         * @return A new layout with all added slots
+         */
+        public MolangSlotLayout build() {
+            return new MolangSlotLayout(Collections.unmodifiableMap(new HashMap<>(this.slots)), Collections.unmodifiableList(new ArrayList<>(this.names)), this.size, this.base);
+        }
+    }
+}
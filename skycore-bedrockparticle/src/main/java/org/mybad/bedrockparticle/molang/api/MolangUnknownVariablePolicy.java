@@ -0,0 +1,24 @@
+package org.mybad.bedrockparticle.molang.api;
+
+/**
+ * Decides how compiled expressions handle reads of names that do not exist in their object.
+ *
+ * @author Ocelot
+ * @see MolangUnknownVariables
+ * @since 3.2.0
+ */
+public enum MolangUnknownVariablePolicy {
+
+    /**
+     * Throws a {@link org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException} like earlier versions did.
+     */
+    STRICT,
+    /**
+     * Reads the name as <code>0</code> and reports each unknown name of an expression once to the warning handler.
+     */
+    WARN_ONCE,
+    /**
+     * Silently reads the name as <code>0</code>, matching Bedrock Edition.
+     */
+    DEFAULT_ZERO
+}
@@ -0,0 +1,127 @@
+package org.mybad.bedrockparticle.molang.api;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Global handling of unknown names read by compiled expressions.</p>
+ * <p>Unknown names are resolved without constructing exceptions unless the policy is {@link MolangUnknownVariablePolicy#STRICT},
+ * and every expression that read an unknown name is recorded in {@link #getReport()} regardless of the policy.
+ * The report holds at most {@value #MAX_REPORTED} names so malformed or generated resources cannot grow it forever,
+ * later reads are only counted in {@link #getDroppedCount()}.</p>
+ *
+ * @author Ocelot
+ * @since 3.2.0
+ */
+public final class MolangUnknownVariables {
+
+    /**
+     * The maximum number of expression and name pairs kept in the report.
+     */
+    public static final int MAX_REPORTED = 1024;
+
+    private static final Map<String, Set<String>> REPORT = new ConcurrentHashMap<>();
+    private static final AtomicInteger REPORTED = new AtomicInteger();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static volatile MolangUnknownVariablePolicy policy = MolangUnknownVariablePolicy.WARN_ONCE;
+    private static volatile BiConsumer<String, String> warningHandler = (expression, name) -> System.err.println("Unknown MoLang expression " + name + " in: " + expression);
+
+    private MolangUnknownVariables() {
+    }
+
+    /**
+     * @return The policy used by all compiled expressions
+     */
+    public static MolangUnknownVariablePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sets how compiled expressions handle unknown names. This applies to expressions that were already compiled.
+     *
+     * @param policy The new policy
+     */
+    public static void setPolicy(MolangUnknownVariablePolicy policy) {
+        MolangUnknownVariables.policy = Objects.requireNonNull(policy, "policy");
+    }
+
+    /**
+     * Sets the handler notified by {@link MolangUnknownVariablePolicy#WARN_ONCE}. By default, warnings are printed to {@link System#err}.
+     *
+     * @param warningHandler The consumer of the expression source and the qualified unknown name
+     */
+    public static void setWarningHandler(BiConsumer<String, String> warningHandler) {
+        MolangUnknownVariables.warningHandler = Objects.requireNonNull(warningHandler, "warningHandler");
+    }
+
+    /**
+     * @return A snapshot of the source of every expression that read unknown names and the qualified names it read
+     */
+    public static Map<String, Set<String>> getReport() {
+        Map<String, Set<String>> report = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : REPORT.entrySet()) {
+            report.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(report);
+    }
+
+    /**
+     * @return The number of unknown reads that were not recorded because the report was full
+     */
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * Clears the report and the dropped count. Expressions will warn again the next time they read an unknown name.
+     */
+    public static void clearReport() {
+        REPORT.clear();
+        REPORTED.set(0);
+        DROPPED.set(0L);
+    }
+
+    /**
+     * Records that the specified expression read an unknown name and warns if this is the first time.
+     *
+     * @param expression The source of the expression
+     * @param name       The qualified name that could not be found
+     */
+    @ApiStatus.Internal
+    public static void report(String expression, String name) {
+        if (MolangProfiler.isEnabled()) {
+            MolangProfiler.recordUnknown();
+        }
+        Set<String> names = REPORT.get(expression);
+        if (names != null && names.contains(name)) {
+            return;
+        }
+        if (REPORTED.get() >= MAX_REPORTED) {
+            // Only the first dropped name warns, so a full report does not warn on every evaluation
+            if (DROPPED.getAndIncrement() == 0L && policy == MolangUnknownVariablePolicy.WARN_ONCE) {
+                warningHandler.accept(expression, name);
+            }
+            return;
+        }
+        if (names == null) {
+            names = REPORT.computeIfAbsent(expression, key -> ConcurrentHashMap.newKeySet());
+        }
+        if (names.add(name)) {
+            REPORTED.incrementAndGet();
+            if (policy == MolangUnknownVariablePolicy.WARN_ONCE) {
+                warningHandler.accept(expression, name);
+            }
+        }
+    }
+}
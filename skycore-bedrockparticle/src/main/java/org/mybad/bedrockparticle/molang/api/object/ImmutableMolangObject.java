@@ -2,6 +2,7 @@ package org.mybad.bedrockparticle.molang.api.object;
 
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 
@@ -48,6 +49,11 @@ public class ImmutableMolangObject implements MolangObject  {
         return this.parent.get(name);
     }
 
+    @Override
+    public @Nullable MolangExpression find(String name) throws MolangRuntimeException {
+        return this.parent.find(name);
+    }
+
     @Override
     public boolean has(String name) {
         return this.parent.has(name);
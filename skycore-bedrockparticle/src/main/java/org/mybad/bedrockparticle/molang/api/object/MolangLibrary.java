@@ -3,6 +3,7 @@ package org.mybad.bedrockparticle.molang.api.object;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
 import org.mybad.bedrockparticle.molang.impl.node.MolangFunctionNode;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -55,6 +56,11 @@ public abstract class MolangLibrary implements MolangObject {
         throw new MolangRuntimeException("Unknown MoLang expression: " + name);
     }
 
+    @Override
+    public @Nullable MolangExpression find(String name) {
+        return this.values.get(name);
+    }
+
     @Override
     public boolean has(String name) {
         return this.values.containsKey(name);
@@ -3,6 +3,7 @@ package org.mybad.bedrockparticle.molang.api.object;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 
@@ -23,6 +24,19 @@ public interface MolangObject {
      */
     MolangExpression get(String name) throws MolangRuntimeException;
 
+    /**
+     * Retrieves a value with the specified name without failing if it does not exist.
+     *
+     * @param name The name of the value to get
+     * @return The value found or <code>null</code> if there is no value with that name
+     * @throws MolangRuntimeException If the value exists, but could not be retrieved
+     * @since 3.2.0
+     */
+    @Nullable
+    default MolangExpression find(String name) throws MolangRuntimeException {
+        return this.has(name) ? this.get(name) : null;
+    }
+
     /**
      * Sets a value with the specified name.
      *
@@ -2,6 +2,7 @@ package org.mybad.bedrockparticle.molang.impl;
 
 import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
 import org.mybad.bedrockparticle.molang.api.MolangEnvironmentBuilder;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
 import org.mybad.bedrockparticle.molang.api.object.ImmutableMolangObject;
 import org.mybad.bedrockparticle.molang.api.object.MolangObject;
@@ -75,6 +76,21 @@ public class ImmutableMolangEnvironment implements MolangEnvironment  {
         return this.environment.getVariable();
     }
 
+    @Override
+    public MolangSlotLayout getSlotLayout() {
+        return this.environment.getSlotLayout();
+    }
+
+    @Override
+    public float[] getSlotFrame() {
+        return this.environment.getSlotFrame();
+    }
+
+    @Override
+    public double nextRandom() {
+        return this.environment.nextRandom();
+    }
+
     @Override
     public float getParameter(int parameter) throws MolangRuntimeException {
         return this.environment.getParameter(parameter);
@@ -1,12 +1,16 @@
 package org.mybad.bedrockparticle.molang.impl;
 
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
 import org.mybad.bedrockparticle.molang.api.MolangCompiler;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
 import org.mybad.bedrockparticle.molang.impl.ast.Node;
 import org.mybad.bedrockparticle.molang.impl.compiler.BytecodeCompiler;
+import org.mybad.bedrockparticle.molang.impl.compiler.MolangClassCache;
 import org.mybad.bedrockparticle.molang.impl.compiler.MolangLexer;
 import org.mybad.bedrockparticle.molang.impl.compiler.MolangParser;
+import org.mybad.bedrockparticle.molang.impl.compiler.ProfiledMolangExpression;
+import org.mybad.bedrockparticle.molang.impl.compiler.TieredMolangExpression;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
@@ -16,19 +20,47 @@ import org.jetbrains.annotations.ApiStatus;
 public class MolangCompilerImpl implements MolangCompiler {
 
     private final BytecodeCompiler compiler;
+    private final boolean tiered;
+    private final boolean profiled;
 
     public MolangCompilerImpl(int flags) {
-        this.compiler = new BytecodeCompiler(flags, resolveClassLoader());
+        this(flags, resolveClassLoader());
     }
 
     public MolangCompilerImpl(int flags, ClassLoader classLoader) {
         this.compiler = new BytecodeCompiler(flags, classLoader);
+        this.tiered = (flags & TIERED_FLAG) > 0;
+        this.profiled = (flags & PROFILE_FLAG) > 0;
     }
 
     public MolangExpression compile(String input) throws MolangSyntaxException {
+        MolangExpression expression = this.compileExpression(input);
+        return this.profiled ? ProfiledMolangExpression.wrap(expression) : expression;
+    }
+
+    private MolangExpression compileExpression(String input) throws MolangSyntaxException {
+        MolangClassCache cache = MolangClassCache.get();
+        String cacheKey = cache != null ? MolangClassCache.key(MolangExpressionCache.normalize(input), this.compiler.optimizes()) : null;
+        if (cacheKey != null) {
+            // Expressions compiled in an earlier session are defined straight from their bytes, tiered expressions included since they were hot before
+            MolangExpression cached = this.compiler.load(cache, cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         MolangLexer.Token[] tokens = MolangLexer.createTokens(input);
         Node node = MolangParser.parseTokens(tokens);
-        return this.compiler.build(node);
+        if (!this.tiered) {
+            return this.compiler.build(cacheKey, node.toString(), this.compiler.optimize(node));
+        }
+
+        Node optimized = this.compiler.optimize(node);
+        int threshold = GlobalMolangCompiler.getPromotionThreshold();
+        if (threshold <= 0 || (this.compiler.optimizes() && optimized.isConstant())) {
+            return this.compiler.build(cacheKey, node.toString(), optimized);
+        }
+        return new TieredMolangExpression(this.compiler, cacheKey, node.toString(), optimized, threshold);
     }
 
     private static ClassLoader resolveClassLoader() {
@@ -0,0 +1,167 @@
+package org.mybad.bedrockparticle.molang.impl;
+
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Wraps a compiler and reuses expressions compiled from the same normalized source text.</p>
+ * <p>A single instance is shared by every caller that compiles the same source. Shared expressions do carry some per-instance state:
+ * compiled expressions remember the slot layout they were last bound to, and tiered expressions count evaluations towards promotion.
+ * Both are thread-safe, but callers that alternate layouts rebind on every switch and the promotion threshold counts evaluations from all callers together.
+ * Retention is bounded by a least-recently-used limit. Evicted classes stay loaded until the wrapped compiler is released.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class MolangExpressionCache implements MolangCompiler {
+
+    private final MolangCompiler compiler;
+    private final Map<String, MolangExpression> expressions;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private volatile int limit;
+
+    public MolangExpressionCache(MolangCompiler compiler, int limit) {
+        this.compiler = compiler;
+        this.expressions = new LinkedHashMap<String, MolangExpression>(64, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MolangExpression> eldest) {
+                if (this.size() > MolangExpressionCache.this.limit) {
+                    MolangExpressionCache.this.evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.limit = Math.max(0, limit);
+    }
+
+    @Override
+    public MolangExpression compile(String input) throws MolangSyntaxException {
+        String key = normalize(input);
+        synchronized (this.expressions) {
+            MolangExpression cached = this.expressions.get(key);
+            if (cached != null) {
+                this.hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Compile outside the lock so a slow expression does not stall every other thread
+        MolangExpression expression = this.compiler.compile(input);
+        this.misses.incrementAndGet();
+        if (this.limit <= 0) {
+            return expression;
+        }
+
+        synchronized (this.expressions) {
+            MolangExpression existing = this.expressions.putIfAbsent(key, expression);
+            return existing != null ? existing : expression;
+        }
+    }
+
+    /**
+     * Changes the maximum number of expressions retained. Shrinking the limit evicts the least recently used entries immediately.
+     *
+     * @param limit The new limit. A value of <code>0</code> disables caching
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+        synchronized (this.expressions) {
+            while (this.expressions.size() > this.limit) {
+                String eldest = this.expressions.keySet().iterator().next();
+                this.expressions.remove(eldest);
+                this.evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (this.expressions) {
+            return this.expressions.size();
+        }
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    /**
+     * Normalizes the source of an expression the same way the lexer reads it, so formatting differences share one entry.
+     * Whitespace is only kept where removing it could join two tokens into a different one, that is between two names or numbers
+     * and between two operator characters (<code>- -</code> is not <code>--</code>). Casing and the contents of string literals are kept as-is.
+     *
+     * @param input The raw expression source
+     * @return The cache key for the source
+     */
+    public static String normalize(String input) {
+        StringBuilder builder = new StringBuilder(input.length());
+        boolean space = false;
+        boolean quoted = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '\n' || c == '\t') {
+                continue;
+            }
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (!quoted && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && builder.length() > 0 && canMerge(builder.charAt(builder.length() - 1), c)) {
+                builder.append(' ');
+            }
+            space = false;
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static boolean canMerge(char previous, char next) {
+        return (isWordChar(previous) && isWordChar(next)) || (isOperatorChar(previous) && isOperatorChar(next));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    private static boolean isOperatorChar(char c) {
+        switch (c) {
+            case '<':
+            case '>':
+            case '=':
+            case '!':
+            case '&':
+            case '|':
+            case '?':
+            case ':':
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.mybad.bedrockparticle.molang.impl;
 
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariablePolicy;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariables;
 import org.mybad.bedrockparticle.molang.api.bridge.MolangVariable;
 import org.mybad.bedrockparticle.molang.api.exception.MolangException;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
@@ -17,18 +20,18 @@ public class MolangUtil {
         return Math.max(min, Math.min(max, value));
     }
 
-    public static float dieRoll(int num, float low, float high) {
+    public static float dieRoll(MolangEnvironment environment, int num, float low, float high) {
         double sum = 0;
         for (int i = 0; i < num; i++) {
-            sum += low + Math.random() * (high - low);
+            sum += low + environment.nextRandom() * (high - low);
         }
         return (float) sum;
     }
 
-    public static int dieRollInt(int num, int low, int high) {
+    public static int dieRollInt(MolangEnvironment environment, int num, int low, int high) {
         double sum = 0;
         for (int i = 0; i < num; i++) {
-            sum += random(low, high);
+            sum += random(environment, low, high);
         }
         return (int) sum;
     }
@@ -58,7 +61,7 @@ public class MolangUtil {
         return wrapped;
     }
 
-    public static float random(float low, float high) {
+    public static float random(MolangEnvironment environment, float low, float high) {
         if (Float.isNaN(low) || Float.isNaN(high)) {
             return 0f;
         }
@@ -71,7 +74,7 @@ public class MolangUtil {
         if (delta == 0f) {
             return low;
         }
-        return (float) (low + Math.random() * delta);
+        return (float) (low + environment.nextRandom() * delta);
     }
 
     public static float triangleWave(float x, float wavelength) {
@@ -88,6 +91,14 @@ public class MolangUtil {
         }
     }
 
+    public static float unknownVariable(MolangExpression expression, String name) throws MolangRuntimeException {
+        MolangUnknownVariables.report(expression.toString(), name);
+        if (MolangUnknownVariables.getPolicy() == MolangUnknownVariablePolicy.STRICT) {
+            throw new MolangRuntimeException("Unknown MoLang expression: " + name);
+        }
+        return 0.0F;
+    }
+
     public static void setValue(MolangObject object, String name, float value) throws MolangRuntimeException {
         if (!object.has(name)) {
             object.set(name, new MolangVariableNode(MolangVariable.create(value)));
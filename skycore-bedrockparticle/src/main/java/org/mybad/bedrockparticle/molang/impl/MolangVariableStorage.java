@@ -5,6 +5,7 @@ import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
 import org.mybad.bedrockparticle.molang.api.object.MolangObject;
 import org.mybad.bedrockparticle.molang.impl.node.MolangFunctionNode;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -55,6 +56,11 @@ public class MolangVariableStorage implements MolangObject {
         throw new MolangRuntimeException("Unknown MoLang expression: " + name);
     }
 
+    @Override
+    public @Nullable MolangExpression find(String name) {
+        return this.storage.get(name);
+    }
+
     @Override
     public boolean has(String name) {
         return this.storage.containsKey(name);
@@ -117,7 +117,7 @@ public class BinaryOperationNode implements Node  {
                 method.visitJumpInsn(Opcodes.IFEQ, label_false);
 
                 //right == 0: goto false
-                writeNode(this.right, method, environment, breakLabel, continueLabel);
+                writeBranch(this.right, method, environment, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.FCONST_0);
                 method.visitInsn(Opcodes.FCMPL);
                 method.visitJumpInsn(Opcodes.IFEQ, label_false);
@@ -144,7 +144,7 @@ public class BinaryOperationNode implements Node  {
                 method.visitJumpInsn(Opcodes.IFNE, label_true);
 
                 //right != 0: goto true
-                writeNode(this.right, method, environment, breakLabel, continueLabel);
+                writeBranch(this.right, method, environment, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.FCONST_0);
                 method.visitInsn(Opcodes.FCMPL);
                 method.visitJumpInsn(Opcodes.IFNE, label_true);
@@ -174,10 +174,10 @@ public class BinaryOperationNode implements Node  {
                 Label label_false = new Label();
                 Label label_end = new Label();
                 method.visitJumpInsn(Opcodes.IFEQ, label_false);
-                writeNode(this.left, method, environment, breakLabel, continueLabel);
+                writeBranch(this.left, method, environment, breakLabel, continueLabel);
                 method.visitJumpInsn(Opcodes.GOTO, label_end);
                 method.visitLabel(label_false);
-                writeNode(this.right, method, environment, breakLabel, continueLabel);
+                writeBranch(this.right, method, environment, breakLabel, continueLabel);
                 method.visitLabel(label_end);
                 break;
             }
@@ -213,22 +213,23 @@ public class BinaryOperationNode implements Node  {
                         method.visitInsn(Opcodes.FSUB);
                         break;
                     case EQUALS:
-                        writeComparision(method, Opcodes.IFNE);
+                        writeComparision(method, Opcodes.FCMPL, Opcodes.IFNE);
                         break;
                     case NOT_EQUALS:
-                        writeComparision(method, Opcodes.IFEQ);
+                        writeComparision(method, Opcodes.FCMPL, Opcodes.IFEQ);
                         break;
+                    // FCMPG so NaN compares as false like in Java
                     case LESS_EQUALS:
-                        writeComparision(method, Opcodes.IFGT);
+                        writeComparision(method, Opcodes.FCMPG, Opcodes.IFGT);
                         break;
                     case LESS:
-                        writeComparision(method, Opcodes.IFGE);
+                        writeComparision(method, Opcodes.FCMPG, Opcodes.IFGE);
                         break;
                     case GREATER_EQUALS:
-                        writeComparision(method, Opcodes.IFLT);
+                        writeComparision(method, Opcodes.FCMPL, Opcodes.IFLT);
                         break;
                     case GREATER:
-                        writeComparision(method, Opcodes.IFLE);
+                        writeComparision(method, Opcodes.FCMPL, Opcodes.IFLE);
                         break;
                 }
                 break;
@@ -236,16 +237,17 @@ public class BinaryOperationNode implements Node  {
         }
     }
 
-    // Try to replace with the negate operation if multiplying/dividing by -1
+    // Try to replace with the negate operation if multiplying/dividing by -1. -1 / x is not a negation, so only multiplication checks the left side
     private boolean tryWriteNegate(MethodNode method, MolangBytecodeEnvironment environment, @Nullable Label breakLabel, @Nullable Label continueLabel) throws MolangException {
-        if (this.left.isConstant()) {
+        if (this.operator == BinaryOperation.MULTIPLY && this.left.isConstant()) {
             float left = this.left.evaluate(environment);
             if (left == -1.0F) {
                 this.right.writeBytecode(method, environment, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.FNEG);
                 return true;
             }
-        } else if (this.right.isConstant()) {
+        }
+        if (this.right.isConstant()) {
             float right = this.right.evaluate(environment);
             if (right == -1.0F) {
                 this.left.writeBytecode(method, environment, breakLabel, continueLabel);
@@ -264,10 +266,20 @@ public class BinaryOperationNode implements Node  {
         }
     }
 
-    private static void writeComparision(MethodNode method, int success) {
+    /**
+     * Writes an operand that is only evaluated on some paths. Reads it caches into locals are not initialized on the other
+     * paths, so they are kept in a separate environment and later reads load the variable again.
+     */
+    private static void writeBranch(Node node, MethodNode method, MolangBytecodeEnvironment environment, @Nullable Label breakLabel, @Nullable Label continueLabel) throws MolangException {
+        MolangBytecodeEnvironment localEnvironment = new MolangBytecodeEnvironment(environment);
+        writeNode(node, method, localEnvironment, breakLabel, continueLabel);
+        localEnvironment.writeModifiedVariables(method);
+    }
+
+    private static void writeComparision(MethodNode method, int compare, int success) {
         Label label_false = new Label();
         Label label_end = new Label();
-        method.visitInsn(Opcodes.FCMPL);
+        method.visitInsn(compare);
         method.visitJumpInsn(success, label_false);
         method.visitInsn(Opcodes.FCONST_1);
         method.visitJumpInsn(Opcodes.GOTO, label_end);
@@ -130,13 +130,13 @@ public class FunctionNode implements Node  {
         FunctionNode that = (FunctionNode) o;
         if (!java.util.Objects.equals(this.object, that.object)) return false;
         if (!java.util.Objects.equals(this.function, that.function)) return false;
-        if (!java.util.Objects.equals(this.arguments, that.arguments)) return false;
+        if (!java.util.Arrays.equals(this.arguments, that.arguments)) return false;
         return true;
     }
 
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(object, function, arguments);
+        return 31 * java.util.Objects.hash(object, function) + java.util.Arrays.hashCode(arguments);
     }
 
 }
@@ -1,5 +1,6 @@
 package org.mybad.bedrockparticle.molang.impl.ast;
 
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
 import org.mybad.bedrockparticle.molang.api.exception.MolangException;
 import org.mybad.bedrockparticle.molang.impl.MolangUtil;
 import org.mybad.bedrockparticle.molang.impl.compiler.BytecodeCompiler;
@@ -75,12 +76,28 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
 
     @Override
     public float evaluate(MolangBytecodeEnvironment environment) throws MolangException {
+        if (!this.function.isDeterministic()) {
+            throw new MolangException("Cannot statically evaluate math." + this.function.getName());
+        }
         float[] values = new float[this.arguments.length];
         for (int i = 0; i < values.length; i++) {
             values[i] = this.arguments[i].evaluate(environment);
         }
 
-        switch (this.function) {
+        return apply(null, this.function, values);
+    }
+
+    /**
+     * Applies the specified function to already evaluated arguments the same way the generated bytecode does.
+     *
+     * @param environment The environment random functions draw from, only <code>null</code> for deterministic functions
+     * @param function    The function to apply
+     * @param values      The values of all arguments
+     * @return The result of the function
+     * @throws MolangException If the function is not supported
+     */
+    public static float apply(@Nullable MolangEnvironment environment, MathOperation function, float[] values) throws MolangException {
+        switch (function) {
             case ABS:
                 return Math.abs(values[0]);
             case ACOS:
@@ -95,6 +112,10 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
                 return (float) Math.ceil(values[0]);
             case CLAMP:
                 return MolangUtil.clamp(values[0], values[1], values[2]);
+            case DIE_ROLL:
+                return MolangUtil.dieRoll(environment, (int) values[0], values[1], values[2]);
+            case DIE_ROLL_INTEGER:
+                return MolangUtil.dieRollInt(environment, (int) values[0], (int) values[1], (int) values[2]);
             case COS:
                 return (float) Math.cos(DEGREES_TO_RADIANS * values[0]);
             case SIN:
@@ -123,6 +144,10 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
                 return (float) Math.PI;
             case POW:
                 return (float) Math.pow(values[0], values[1]);
+            case RANDOM:
+                return MolangUtil.random(environment, values[0], values[1]);
+            case RANDOM_INTEGER:
+                return (int) MolangUtil.random(environment, (int) values[0], (int) values[1]);
             case ROUND:
                 return Math.round(values[0]);
             case SQRT:
@@ -134,7 +159,7 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
             case TRIANGLE_WAVE:
                 return MolangUtil.triangleWave(values[0], values[1]);
             default:
-                throw new MolangException("Unexpected value: " + this.function);
+                throw new MolangException("Unexpected value: " + function);
         }
     }
 
@@ -171,7 +196,6 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
             case CEIL:
             case EXP:
             case FLOOR:
-            case LN:
             case SQRT: {
                 this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2D);
@@ -179,6 +203,14 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
                 method.visitInsn(Opcodes.D2F);
                 break;
             }
+            // Java names the natural logarithm log
+            case LN: {
+                this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
+                method.visitInsn(Opcodes.F2D);
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", "log", "(D)D", false);
+                method.visitInsn(Opcodes.D2F);
+                break;
+            }
             // Single-argument Double, converted to radians
             case COS:
             case SIN: {
@@ -244,23 +276,23 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
                 break;
             }
             case DIE_ROLL: {
+                method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
                 this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
                 this.arguments[1].writeBytecode(method, env, breakLabel, continueLabel);
                 this.arguments[2].writeBytecode(method, env, breakLabel, continueLabel);
-                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "dieRoll", "(IFF)F", false);
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "dieRoll", "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;IFF)F", false);
                 break;
             }
             case DIE_ROLL_INTEGER: {
+                method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
                 this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
                 this.arguments[1].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
-                method.visitInsn(Opcodes.I2F);
                 this.arguments[2].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
-                method.visitInsn(Opcodes.I2F);
-                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "dieRoll", "(IFF)F", false);
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "dieRollInt", "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;III)I", false);
                 method.visitInsn(Opcodes.I2F);
                 break;
             }
@@ -289,19 +321,21 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
                 break;
             }
             case RANDOM: {
+                method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
                 this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
                 this.arguments[1].writeBytecode(method, env, breakLabel, continueLabel);
-                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "random", "(FF)F", false);
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "random", "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;FF)F", false);
                 break;
             }
             case RANDOM_INTEGER: {
+                method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
                 this.arguments[0].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
                 method.visitInsn(Opcodes.I2F);
                 this.arguments[1].writeBytecode(method, env, breakLabel, continueLabel);
                 method.visitInsn(Opcodes.F2I);
                 method.visitInsn(Opcodes.I2F);
-                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "random", "(FF)F", false);
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, "org/mybad/bedrockparticle/molang/impl/MolangUtil", "random", "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;FF)F", false);
                 method.visitInsn(Opcodes.F2I);
                 method.visitInsn(Opcodes.I2F);
                 break;
@@ -325,13 +359,13 @@ private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
         if (!(o instanceof MathNode)) return false;
         MathNode that = (MathNode) o;
         if (!java.util.Objects.equals(this.function, that.function)) return false;
-        if (!java.util.Objects.equals(this.arguments, that.arguments)) return false;
+        if (!java.util.Arrays.equals(this.arguments, that.arguments)) return false;
         return true;
     }
 
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(function, arguments);
+        return 31 * java.util.Objects.hashCode(function) + java.util.Arrays.hashCode(arguments);
     }
 
 }
@@ -64,13 +64,13 @@ public class NegateNode implements Node  {
         //value ?
         method.visitJumpInsn(Opcodes.IFEQ, label_right);
 
-        // 1
-        method.visitInsn(Opcodes.FCONST_1);
+        // 0
+        method.visitInsn(Opcodes.FCONST_0);
         method.visitJumpInsn(Opcodes.GOTO, label_end);
 
-        //: 0
+        //: 1
         method.visitLabel(label_right);
-        method.visitInsn(Opcodes.FCONST_0);
+        method.visitInsn(Opcodes.FCONST_1);
 
         method.visitLabel(label_end);
     }
@@ -59,7 +59,7 @@ public class ReturnNode implements Node  {
             }
         }
         environment.writeModifiedVariables(method);
-        method.visitInsn(Opcodes.FRETURN);
+        environment.writeReturn(method);
     }
 
     @Override
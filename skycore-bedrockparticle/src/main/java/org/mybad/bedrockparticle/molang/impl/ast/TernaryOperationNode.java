@@ -105,7 +105,7 @@ public class TernaryOperationNode implements Node  {
         method.visitLabel(label_right);
         {
             MolangBytecodeEnvironment localEnvironment = new MolangBytecodeEnvironment(environment);
-            this.right.writeBytecode(method, environment, breakLabel, continueLabel);
+            this.right.writeBytecode(method, localEnvironment, breakLabel, continueLabel);
             if (this.right.hasValue() && !this.hasValue()) {
                 method.visitInsn(Opcodes.POP);
             }
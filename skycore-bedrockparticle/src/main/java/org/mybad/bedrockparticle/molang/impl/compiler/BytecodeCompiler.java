@@ -2,9 +2,11 @@ package org.mybad.bedrockparticle.molang.impl.compiler;
 
 import org.mybad.bedrockparticle.molang.api.MolangCompiler;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
 import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
 import org.mybad.bedrockparticle.molang.impl.ast.Node;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
@@ -15,7 +17,9 @@ import org.objectweb.asm.tree.MethodNode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -26,129 +30,304 @@ import java.util.regex.Pattern;
 public class BytecodeCompiler extends ClassLoader {
 
     public static final int FLAG_OPTIMIZE = 1;
+    /**
+     * The version of the generated code. Must be increased whenever the bytecode generated for an expression changes,
+     * so classes persisted by {@link MolangClassCache} from an older compiler are discarded.
+     */
+    public static final int CODEGEN_VERSION = 5;
 
     public static final int THIS_INDEX = 0;
     public static final int RUNTIME_INDEX = 1;
     public static final int VARIABLE_START = 2;
 
     private static final Pattern DASH = Pattern.compile("-");
+    private static final String COMPILED_EXPRESSION = CompiledMolangExpression.class.getName().replace('.', '/');
 
     private final ThreadLocal<MolangBytecodeEnvironment> environment;
     private final boolean writeClasses;
+    private final Map<String, Class<?>> cachedClasses;
 
     public BytecodeCompiler(int flags, ClassLoader parent) {
         super(parent);
         this.environment = ThreadLocal.withInitial(() -> new MolangBytecodeEnvironment(flags));
         this.writeClasses = (flags & MolangCompiler.WRITE_CLASSES_FLAG) > 0;
+        this.cachedClasses = new HashMap<>();
     }
 
     public BytecodeCompiler(int flags) {
         this(flags, getSystemClassLoader());
     }
 
+    /**
+     * @return Whether this compiler optimizes expressions
+     */
+    public boolean optimizes() {
+        return this.environment.get().optimize();
+    }
+
     public MolangExpression build(Node node) throws MolangSyntaxException {
+        return this.build(node.toString(), this.optimize(node));
+    }
+
+    /**
+     * Runs the optimizer over the specified node if this compiler optimizes.
+     *
+     * @param node The parsed expression
+     * @return The node to pass into {@link #build(String, Node)}
+     * @throws MolangSyntaxException If the optimizer fails
+     */
+    public Node optimize(Node node) throws MolangSyntaxException {
         MolangBytecodeEnvironment environment = this.environment.get();
+        if (!environment.optimize()) {
+            return node;
+        }
         environment.reset();
         try {
-            if (environment.optimize() && node.isConstant()) {
-                return MolangExpression.of(node.evaluate(environment));
-            }
+            return MolangOptimizer.optimize(node, environment);
+        } catch (Throwable t) {
+            throw new MolangSyntaxException("Failed to convert expression '" + node + "' to bytecode", t);
+        }
+    }
+
+    /**
+     * Compiles an already optimized node.
+     *
+     * @param compiledSource The source text of the expression before optimization
+     * @param node           The result of {@link #optimize(Node)}
+     * @return The compiled expression
+     * @throws MolangSyntaxException If any error occurs
+     */
+    public MolangExpression build(String compiledSource, Node node) throws MolangSyntaxException {
+        return this.build(null, compiledSource, node);
+    }
 
-            ClassNode classNode = new ClassNode(Opcodes.ASM5);
-            classNode.version = Opcodes.V1_8;
-            classNode.superName = "java/lang/Object";
-            classNode.name = "Expression_" + DASH.matcher(UUID.randomUUID().toString()).replaceAll("");
-            classNode.access = Opcodes.ACC_PUBLIC;
-            classNode.interfaces.add(MolangExpression.class.getName().replaceAll("\\.", "/"));
-
-            MethodNode init = new MethodNode();
-            ensureInstructions(init);
-            init.access = Opcodes.ACC_PUBLIC;
-            init.name = "<init>";
-            init.desc = "()V";
-            init.visitVarInsn(Opcodes.ALOAD, 0);
-            init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
-            init.visitInsn(Opcodes.RETURN);
-            classNode.methods.add(init);
-
-            MethodNode method = new MethodNode();
-            ensureInstructions(method);
-            method.access = Opcodes.ACC_PUBLIC;
-            method.name = "get";
-            method.desc = "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;)F";
-            method.exceptions = java.util.Collections.singletonList("org/mybad/bedrockparticle/molang/api/exception/MolangRuntimeException");
-            node.writeBytecode(method, environment, null, null);
-            classNode.methods.add(method);
-
-            String compiledSource = node.toString();
-
-            MethodNode equals = new MethodNode();
-            ensureInstructions(equals);
-            Label equalsFail = new Label();
-            Label equalsReturn = new Label();
-            equals.access = Opcodes.ACC_PUBLIC;
-            equals.name = "equals";
-            equals.desc = "(Ljava/lang/Object;)Z";
-
-            equals.visitVarInsn(Opcodes.ALOAD, 1);
-            equals.visitTypeInsn(Opcodes.INSTANCEOF, "org/mybad/bedrockparticle/molang/api/MolangExpression");
-            equals.visitJumpInsn(Opcodes.IFEQ, equalsFail); // if !(obj instanceof MolangExpression) goto equalsFail
-
-            equals.visitLdcInsn(compiledSource);
-            equals.visitVarInsn(Opcodes.ALOAD, 1);
-            equals.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;", false);
-            equals.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
-            equals.visitJumpInsn(Opcodes.IFEQ, equalsFail); // if !source.equals(obj.toString()) goto equalsFail
-
-            BytecodeCompiler.writeIntConst(equals, 1);
-            equals.visitJumpInsn(Opcodes.GOTO, equalsReturn);
-
-            equals.visitLabel(equalsFail);
-            BytecodeCompiler.writeIntConst(equals, 0);
-
-            equals.visitLabel(equalsReturn);
-            equals.visitInsn(Opcodes.IRETURN);
-
-            classNode.methods.add(equals);
-
-            MethodNode hashCode = new MethodNode();
-            ensureInstructions(hashCode);
-            hashCode.access = Opcodes.ACC_PUBLIC;
-            hashCode.name = "hashCode";
-            hashCode.desc = "()I";
-            BytecodeCompiler.writeIntConst(hashCode, compiledSource.hashCode());
-            hashCode.visitInsn(Opcodes.IRETURN);
-            classNode.methods.add(hashCode);
-
-            MethodNode toString = new MethodNode();
-            ensureInstructions(toString);
-            toString.access = Opcodes.ACC_PUBLIC;
-            toString.name = "toString";
-            toString.desc = "()Ljava/lang/String;";
-            toString.visitLdcInsn(compiledSource);
-            toString.visitInsn(Opcodes.ARETURN);
-            classNode.methods.add(toString);
-
-            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
-            classNode.accept(cw);
-            byte[] data = cw.toByteArray();
-
-            if (this.writeClasses) {
-                Path path = Paths.get(classNode.name + ".class");
-                if (!Files.exists(path)) {
-                    Files.createFile(path);
+    /**
+     * Compiles an already optimized node and stores the result in the {@linkplain MolangClassCache persistent cache}.
+     *
+     * @param cacheKey       The {@linkplain MolangClassCache#key(String, boolean) key} to store the result under or <code>null</code> to not persist it
+     * @param compiledSource The source text of the expression before optimization
+     * @param node           The result of {@link #optimize(Node)}
+     * @return The compiled expression
+     * @throws MolangSyntaxException If any error occurs
+     */
+    public MolangExpression build(@Nullable String cacheKey, String compiledSource, Node node) throws MolangSyntaxException {
+        MolangBytecodeEnvironment environment = this.environment.get();
+        environment.reset();
+        MolangClassCache cache = cacheKey != null ? MolangClassCache.get() : null;
+        try {
+            if (environment.optimize() && node.isConstant()) {
+                float value = node.evaluate(environment);
+                if (cache != null) {
+                    cache.storeConstant(cacheKey, value);
                 }
-                Files.write(path, data);
+                return MolangExpression.of(value);
             }
 
-            return (MolangExpression) this.defineClass(classNode.name, data, 0, data.length).getConstructor().newInstance();
+            try {
+                return this.define(node, compiledSource, environment, true, cache, cacheKey);
+            } catch (Throwable t) {
+                // A return with values left on the stack, for example inside a loop, can't jump to the next row of the batch loop.
+                // These expressions are rare, so they fall back to evaluating every row through get
+                return this.define(node, compiledSource, environment, false, cache, cacheKey);
+            }
         } catch (Throwable t) {
             throw new MolangSyntaxException("Failed to convert expression '" + node + "' to bytecode", t);
         }
     }
 
+    /**
+     * Creates an expression from the {@linkplain MolangClassCache persistent cache} without parsing or generating anything.
+     *
+     * @param cache The cache to read from
+     * @param key   The {@linkplain MolangClassCache#key(String, boolean) key} of the expression
+     * @return The expression or <code>null</code> if it is not cached or the cached class could not be defined
+     */
+    @Nullable
+    public MolangExpression load(MolangClassCache cache, String key) {
+        MolangClassCache.Entry entry = cache.find(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isConstant()) {
+            return MolangExpression.of(entry.getConstant());
+        }
+
+        try {
+            Class<?> type;
+            synchronized (this.cachedClasses) {
+                // The same entry can be requested again after the expression cache evicted it, but a class can only be defined once per loader
+                type = this.cachedClasses.get(entry.getClassName());
+                if (type == null) {
+                    byte[] data = entry.getData();
+                    type = this.defineClass(entry.getClassName(), data, 0, data.length);
+                    this.cachedClasses.put(entry.getClassName(), type);
+                }
+            }
+            return (MolangExpression) type.getConstructor().newInstance();
+        } catch (Throwable t) {
+            cache.invalidate(key);
+            return null;
+        }
+    }
+
+    private MolangExpression define(Node node, String compiledSource, MolangBytecodeEnvironment environment, boolean batch, @Nullable MolangClassCache cache, @Nullable String cacheKey) throws Throwable {
+        environment.reset();
+        ClassNode classNode = new ClassNode(Opcodes.ASM5);
+        classNode.version = Opcodes.V1_8;
+        classNode.superName = COMPILED_EXPRESSION;
+        classNode.name = "Expression_" + DASH.matcher(UUID.randomUUID().toString()).replaceAll("");
+        classNode.access = Opcodes.ACC_PUBLIC;
+
+        MethodNode method = new MethodNode();
+        ensureInstructions(method);
+        method.access = Opcodes.ACC_PUBLIC;
+        method.name = "get";
+        method.desc = "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;)F";
+        method.exceptions = java.util.Collections.singletonList("org/mybad/bedrockparticle/molang/api/exception/MolangRuntimeException");
+        node.writeBytecode(method, environment, null, null);
+
+        // Slot names are only known once the body is written, so the binding is loaded afterward at the start of the method
+        List<String> slotNames = environment.slotNames();
+        if (!slotNames.isEmpty()) {
+            MethodNode prologue = new MethodNode();
+            ensureInstructions(prologue);
+            environment.writeSlotPrologue(prologue, classNode.name);
+            method.instructions.insert(prologue.instructions);
+        }
+        classNode.methods.add(method);
+
+        if (batch) {
+            classNode.methods.add(writeBatch(node, environment, classNode.name));
+        }
+
+        MethodNode init = new MethodNode();
+        ensureInstructions(init);
+        init.access = Opcodes.ACC_PUBLIC;
+        init.name = "<init>";
+        init.desc = "()V";
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        writeIntConst(init, slotNames.size());
+        init.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/String");
+        for (int i = 0; i < slotNames.size(); i++) {
+            init.visitInsn(Opcodes.DUP);
+            writeIntConst(init, i);
+            init.visitLdcInsn(slotNames.get(i));
+            init.visitInsn(Opcodes.AASTORE);
+        }
+        init.visitInsn(MolangOptimizer.slotDependencies(node) != null ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, COMPILED_EXPRESSION, "<init>", "([Ljava/lang/String;Z)V", false);
+        init.visitInsn(Opcodes.RETURN);
+        classNode.methods.add(init);
+
+        MethodNode equals = new MethodNode();
+        ensureInstructions(equals);
+        Label equalsFail = new Label();
+        Label equalsReturn = new Label();
+        equals.access = Opcodes.ACC_PUBLIC;
+        equals.name = "equals";
+        equals.desc = "(Ljava/lang/Object;)Z";
+
+        equals.visitVarInsn(Opcodes.ALOAD, 1);
+        equals.visitTypeInsn(Opcodes.INSTANCEOF, "org/mybad/bedrockparticle/molang/api/MolangExpression");
+        equals.visitJumpInsn(Opcodes.IFEQ, equalsFail); // if !(obj instanceof MolangExpression) goto equalsFail
+
+        equals.visitLdcInsn(compiledSource);
+        equals.visitVarInsn(Opcodes.ALOAD, 1);
+        equals.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;", false);
+        equals.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+        equals.visitJumpInsn(Opcodes.IFEQ, equalsFail); // if !source.equals(obj.toString()) goto equalsFail
+
+        BytecodeCompiler.writeIntConst(equals, 1);
+        equals.visitJumpInsn(Opcodes.GOTO, equalsReturn);
+
+        equals.visitLabel(equalsFail);
+        BytecodeCompiler.writeIntConst(equals, 0);
+
+        equals.visitLabel(equalsReturn);
+        equals.visitInsn(Opcodes.IRETURN);
+
+        classNode.methods.add(equals);
+
+        MethodNode hashCode = new MethodNode();
+        ensureInstructions(hashCode);
+        hashCode.access = Opcodes.ACC_PUBLIC;
+        hashCode.name = "hashCode";
+        hashCode.desc = "()I";
+        BytecodeCompiler.writeIntConst(hashCode, compiledSource.hashCode());
+        hashCode.visitInsn(Opcodes.IRETURN);
+        classNode.methods.add(hashCode);
+
+        MethodNode toString = new MethodNode();
+        ensureInstructions(toString);
+        toString.access = Opcodes.ACC_PUBLIC;
+        toString.name = "toString";
+        toString.desc = "()Ljava/lang/String;";
+        toString.visitLdcInsn(compiledSource);
+        toString.visitInsn(Opcodes.ARETURN);
+        classNode.methods.add(toString);
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        classNode.accept(cw);
+        byte[] data = cw.toByteArray();
+
+        if (this.writeClasses) {
+            Path path = Paths.get(classNode.name + ".class");
+            if (!Files.exists(path)) {
+                Files.createFile(path);
+            }
+            Files.write(path, data);
+        }
+
+        MolangExpression expression = (MolangExpression) this.defineClass(classNode.name, data, 0, data.length).getConstructor().newInstance();
+        if (cache != null) {
+            cache.storeClass(cacheKey, classNode.name, data);
+        }
+        return expression;
+    }
+
+    private static MethodNode writeBatch(Node node, MolangBytecodeEnvironment environment, String className) throws MolangException {
+        MethodNode method = new MethodNode();
+        ensureInstructions(method);
+        method.access = Opcodes.ACC_PUBLIC;
+        method.name = "getBatch";
+        method.desc = "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;[[FI[F)V";
+        method.exceptions = java.util.Collections.singletonList("org/mybad/bedrockparticle/molang/api/exception/MolangRuntimeException");
+
+        Label begin = new Label();
+        Label next = new Label();
+        Label end = new Label();
+        environment.resetBatch(next);
+        int row = environment.variables().get(MolangBytecodeEnvironment.ROW_NAME);
+
+        // for (int row = 0; row < count; row++)
+        method.visitInsn(Opcodes.ICONST_0);
+        method.visitVarInsn(Opcodes.ISTORE, row);
+        method.visitLabel(begin);
+        method.visitVarInsn(Opcodes.ILOAD, row);
+        method.visitVarInsn(Opcodes.ILOAD, environment.variables().get(MolangBytecodeEnvironment.COUNT_NAME));
+        method.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+
+        // Every path through the body ends with a return that stores the row and jumps to next
+        node.writeBytecode(method, environment, null, null);
+
+        method.visitLabel(next);
+        method.visitIincInsn(row, 1);
+        method.visitJumpInsn(Opcodes.GOTO, begin);
+        method.visitLabel(end);
+        method.visitInsn(Opcodes.RETURN);
+
+        if (!environment.slotNames().isEmpty()) {
+            MethodNode prologue = new MethodNode();
+            ensureInstructions(prologue);
+            environment.writeSlotPrologue(prologue, className);
+            method.instructions.insert(prologue.instructions);
+        }
+        return method;
+    }
+
     public static void writeFloatConst(MethodNode method, float value) {
-        if (value == 0.0F) {
+        // FCONST_0 is +0, a folded -0 has to be loaded as a constant to keep its sign
+        if (Float.floatToRawIntBits(value) == 0) {
             method.visitInsn(Opcodes.FCONST_0);
         } else if (value == 1.0F) {
             method.visitInsn(Opcodes.FCONST_1);
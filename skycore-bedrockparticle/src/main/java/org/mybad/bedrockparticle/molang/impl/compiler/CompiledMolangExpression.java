@@ -0,0 +1,125 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Base class of all generated expressions. Keeps track of the slot indices the expression variables resolved to in the last few layouts it was evaluated with,
+ * so an expression shared by environments with different layouts does not resolve its names again on every switch.
+ * Expressions that only read names of a shared {@linkplain MolangSlotLayout#getBase() base layout} keep a single binding for every layout extending it.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public abstract class CompiledMolangExpression implements MolangExpression {
+
+    /**
+     * The number of layouts an expression remembers its slots for.
+     */
+    static final int MAX_BINDINGS = 8;
+    private static final Binding[] NO_BINDINGS = new Binding[0];
+
+    private final String[] slotNames;
+    private final boolean slotsOnly;
+    private volatile Binding[] bindings = NO_BINDINGS;
+
+    protected CompiledMolangExpression(String[] slotNames) {
+        this(slotNames, false);
+    }
+
+    /**
+     * @param slotNames The qualified names of all variables the expression can read from slots
+     * @param slotsOnly Whether the value depends on nothing but those variables, see {@link MolangExpression#getSlotDependencies()}
+     */
+    protected CompiledMolangExpression(String[] slotNames, boolean slotsOnly) {
+        this.slotNames = slotNames;
+        this.slotsOnly = slotsOnly;
+    }
+
+    /**
+     * Links this expression to the slot layout of the specified environment. Called by generated code at the start of every evaluation.
+     *
+     * @param environment The environment the expression is evaluated in
+     * @return The frame index of every slot name, <code>-1</code> for names that are not in the layout, or <code>null</code> if nothing can be read from slots
+     */
+    @Nullable
+    public final int[] bindSlots(MolangEnvironment environment) {
+        MolangSlotLayout layout = environment.getSlotLayout();
+        if (layout == null) {
+            return null;
+        }
+
+        MolangSlotLayout base = layout.getBase();
+        Binding[] bindings = this.bindings;
+        for (Binding binding : bindings) {
+            if (binding.layout == layout || (binding.shared && binding.layout == base)) {
+                return binding.slots;
+            }
+        }
+
+        // Copy on write with the newest layout first, a lost race only costs resolving the names again later
+        int[] slots = resolve(layout, this.slotNames);
+        boolean shared = inBase(slots, base);
+        Binding binding = new Binding(shared ? base : layout, shared, slots);
+        Binding[] updated = new Binding[Math.min(bindings.length + 1, MAX_BINDINGS)];
+        updated[0] = binding;
+        System.arraycopy(bindings, 0, updated, 1, updated.length - 1);
+        this.bindings = updated;
+        return binding.slots;
+    }
+
+    /**
+     * @return The qualified names of all variables this expression can read from slots
+     */
+    public String[] getSlotNames() {
+        return this.slotNames.clone();
+    }
+
+    @Nullable
+    @Override
+    public String[] getSlotDependencies() {
+        return this.slotsOnly ? this.slotNames.clone() : null;
+    }
+
+    @Nullable
+    private static int[] resolve(MolangSlotLayout layout, String[] names) {
+        int[] slots = new int[names.length];
+        boolean found = false;
+        for (int i = 0; i < names.length; i++) {
+            slots[i] = layout.indexOf(names[i]);
+            found |= slots[i] >= 0;
+        }
+        return found ? slots : null;
+    }
+
+    /**
+     * @return Whether every name was found in the base layout, so the same indices are valid in all layouts extending it
+     */
+    private static boolean inBase(@Nullable int[] slots, MolangSlotLayout base) {
+        if (slots == null) {
+            return false;
+        }
+        for (int slot : slots) {
+            if (slot < 0 || slot >= base.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Binding {
+
+        private final MolangSlotLayout layout;
+        private final boolean shared;
+        private final int[] slots;
+
+        private Binding(MolangSlotLayout layout, boolean shared, int[] slots) {
+            this.layout = layout;
+            this.shared = shared;
+            this.slots = slots;
+        }
+    }
+}
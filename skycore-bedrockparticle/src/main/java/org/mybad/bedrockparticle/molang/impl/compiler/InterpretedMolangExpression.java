@@ -0,0 +1,684 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
+import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
+import org.mybad.bedrockparticle.molang.api.object.MolangObject;
+import org.mybad.bedrockparticle.molang.impl.MolangUtil;
+import org.mybad.bedrockparticle.molang.impl.ast.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Evaluates an expression by walking its tree instead of generating a class.</p>
+ * <p>The tree is lowered once into a tree of operations that reproduces the generated bytecode, including which reads
+ * are cached in locals and when modified variables are written back, so both produce identical results.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class InterpretedMolangExpression implements MolangExpression {
+
+    private static final int NONE = 0;
+    private static final int RETURN = 1;
+    private static final int BREAK = 2;
+    private static final int CONTINUE = 3;
+    private static final Op NOTHING = frame -> 0.0F;
+
+    private final String source;
+    private final Op root;
+    private final int locals;
+    private final String[] slotDependencies;
+
+    /**
+     * Lowers the specified node.
+     *
+     * @param source   The source text of the expression before optimization
+     * @param node     The node to interpret. This should be the same node passed into {@link BytecodeCompiler#build(String, Node)}
+     * @param optimize Whether the node will be compiled with optimizations
+     * @throws MolangSyntaxException If the node cannot be interpreted
+     */
+    public InterpretedMolangExpression(String source, Node node, boolean optimize) throws MolangSyntaxException {
+        Lowering lowering = new Lowering(optimize);
+        try {
+            this.root = lowering.lower(node, new Scope());
+        } catch (MolangSyntaxException e) {
+            throw e;
+        } catch (MolangException e) {
+            throw new MolangSyntaxException("Failed to interpret expression '" + node + "'", e);
+        }
+        this.source = source;
+        this.locals = lowering.locals;
+        this.slotDependencies = MolangOptimizer.slotDependencies(node);
+    }
+
+    @Override
+    public float get(MolangEnvironment environment) throws MolangRuntimeException {
+        Frame frame = new Frame(this, environment, new float[this.locals], new MolangObject[this.locals]);
+        try {
+            float value = this.root.run(frame);
+            return frame.signal == RETURN ? frame.returnValue : value;
+        } catch (MolangRuntimeException e) {
+            throw e;
+        } catch (MolangException e) {
+            throw new MolangRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String[] getSlotDependencies() {
+        return this.slotDependencies != null ? this.slotDependencies.clone() : null;
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MolangExpression && this.source.equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.source.hashCode();
+    }
+
+    /**
+     * Reads an object from the local the generated code stores it in. A local holding a float in the generated code fails verification,
+     * so the object is resolved by name in that case since such an expression is never promoted.
+     */
+    private static MolangObject getObject(Frame frame, int local, String object) throws MolangRuntimeException {
+        MolangObject value = frame.objects[local];
+        return value != null ? value : getObject(frame.environment, object);
+    }
+
+    private static MolangObject getObject(MolangEnvironment environment, String object) throws MolangRuntimeException {
+        if ("context".equalsIgnoreCase(object) || "c".equalsIgnoreCase(object)) {
+            return environment.getContext();
+        }
+        if ("query".equalsIgnoreCase(object) || "q".equalsIgnoreCase(object)) {
+            return environment.getQuery();
+        }
+        if ("global".equalsIgnoreCase(object)) {
+            return environment.getGlobal();
+        }
+        if ("variable".equalsIgnoreCase(object) || "v".equalsIgnoreCase(object)) {
+            return environment.getVariable();
+        }
+        return environment.get(object);
+    }
+
+    @FunctionalInterface
+    private interface Op {
+
+        float run(Frame frame) throws MolangException;
+    }
+
+    private static final class Frame {
+
+        private final InterpretedMolangExpression expression;
+        private final MolangEnvironment environment;
+        private final float[] locals;
+        private final MolangObject[] objects;
+        private int signal;
+        private float returnValue;
+
+        private Frame(InterpretedMolangExpression expression, MolangEnvironment environment, float[] locals, MolangObject[] objects) {
+            this.expression = expression;
+            this.environment = environment;
+            this.locals = locals;
+            this.objects = objects;
+            this.signal = NONE;
+        }
+    }
+
+    /**
+     * Mirrors the local variables and dirty set of {@link MolangBytecodeEnvironment} while lowering.
+     */
+    private static final class Scope {
+
+        private final Map<String, Integer> variables;
+        private final Set<String> modifiedVariables;
+
+        private Scope() {
+            this(new HashMap<>());
+        }
+
+        private Scope(Map<String, Integer> variables) {
+            this.variables = variables;
+            this.modifiedVariables = new LinkedHashSet<>();
+        }
+
+        private Scope copy() {
+            return new Scope(new HashMap<>(this.variables));
+        }
+    }
+
+    private static final class Lowering {
+
+        private final boolean optimize;
+        private final MolangBytecodeEnvironment constants;
+        private int locals;
+        private int loops;
+
+        private Lowering(boolean optimize) {
+            this.optimize = optimize;
+            this.constants = new MolangBytecodeEnvironment(optimize ? BytecodeCompiler.FLAG_OPTIMIZE : 0);
+        }
+
+        private int allocate(Scope scope, String name) {
+            Integer index = scope.variables.get(name);
+            if (index == null) {
+                // Locals are numbered by scope size like MolangBytecodeEnvironment#allocateVariable, so locals allocated in
+                // different branches share their indices
+                index = scope.variables.size();
+                scope.variables.put(name, index);
+                this.locals = Math.max(this.locals, index + 1);
+            }
+            return index;
+        }
+
+        /**
+         * Allocates the local the generated code stores the object in.
+         *
+         * @return The operation storing the object into its local, which only runs where the generated code first loads it
+         */
+        private Op allocateObject(Scope scope, String object) {
+            if (scope.variables.containsKey(object)) {
+                return NOTHING;
+            }
+            int local = this.allocate(scope, object);
+            return frame -> {
+                frame.objects[local] = getObject(frame.environment, object);
+                return 0.0F;
+            };
+        }
+
+        private Op constant(Node node) throws MolangException {
+            float value = node.evaluate(this.constants);
+            return frame -> value;
+        }
+
+        private Op lower(Node node, Scope scope) throws MolangException {
+            if (node instanceof ConstNode) {
+                float value = ((ConstNode) node).value();
+                return frame -> value;
+            }
+            if (node instanceof ThisNode) {
+                Integer index = scope.variables.get("this");
+                if (index != null) {
+                    int local = index;
+                    return frame -> frame.locals[local];
+                }
+                int local = this.allocate(scope, "this");
+                return frame -> frame.locals[local] = frame.environment.getThis();
+            }
+            if (node instanceof VariableGetNode) {
+                VariableGetNode get = (VariableGetNode) node;
+                return this.lowerGet(get.object(), get.name(), scope);
+            }
+            if (node instanceof VariableSetNode) {
+                return this.lowerSet((VariableSetNode) node, scope);
+            }
+            if (node instanceof ReturnNode) {
+                ReturnNode returnNode = (ReturnNode) node;
+                Op value;
+                if (this.optimize && returnNode.isConstant()) {
+                    value = this.constant(returnNode);
+                } else {
+                    Op op = this.lower(returnNode.value(), scope);
+                    value = returnNode.value().hasValue() ? op : frame -> {
+                        op.run(frame);
+                        return 0.0F;
+                    };
+                }
+                Op writeBack = this.writeModifiedVariables(scope);
+                return frame -> {
+                    float result = value.run(frame);
+                    if (frame.signal != NONE) {
+                        return result;
+                    }
+                    writeBack.run(frame);
+                    frame.signal = RETURN;
+                    frame.returnValue = result;
+                    return result;
+                };
+            }
+            if (node instanceof ScopeNode) {
+                Scope child = scope.copy();
+                Op body = this.lower(((ScopeNode) node).node(), child);
+                Op writeBack = this.writeModifiedVariables(child);
+                return frame -> {
+                    float result = body.run(frame);
+                    if (frame.signal == NONE) {
+                        writeBack.run(frame);
+                    }
+                    return result;
+                };
+            }
+            if (node instanceof CompoundNode) {
+                Node[] nodes = ((CompoundNode) node).nodes();
+                Op[] ops = new Op[nodes.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    ops[i] = this.lower(nodes[i], scope);
+                }
+                return frame -> {
+                    float result = 0.0F;
+                    for (Op op : ops) {
+                        result = op.run(frame);
+                        if (frame.signal != NONE) {
+                            break;
+                        }
+                    }
+                    return result;
+                };
+            }
+            if (node instanceof BinaryConditionalNode) {
+                BinaryConditionalNode conditional = (BinaryConditionalNode) node;
+                if (this.optimize && conditional.value().isConstant()) {
+                    if (conditional.value().evaluate(this.constants) == 0.0F) {
+                        return NOTHING;
+                    }
+                    return this.lower(conditional.branch(), scope);
+                }
+
+                // The generated code leaves the branch value as the result when the condition holds, for example in "v.x > 1 ? 10"
+                Op value = this.lower(conditional.value(), scope);
+                Op branch = this.lower(conditional.branch(), scope);
+                return frame -> value.run(frame) != 0.0F ? branch.run(frame) : 0.0F;
+            }
+            if (node instanceof TernaryOperationNode) {
+                return this.lowerTernary((TernaryOperationNode) node, scope);
+            }
+            if (node instanceof BinaryOperationNode) {
+                return this.lowerBinary((BinaryOperationNode) node, scope);
+            }
+            if (node instanceof NegateNode) {
+                if (this.optimize && node.isConstant()) {
+                    return this.constant(node);
+                }
+                Op value = this.lower(((NegateNode) node).value(), scope);
+                return frame -> value.run(frame) != 0.0F ? 0.0F : 1.0F;
+            }
+            if (node instanceof MathNode) {
+                MathNode math = (MathNode) node;
+                MathOperation function = math.function();
+                Op[] arguments = this.lowerAll(math.arguments(), scope, false);
+                return frame -> {
+                    float[] values = new float[arguments.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = arguments[i].run(frame);
+                    }
+                    return MathNode.apply(frame.environment, function, values);
+                };
+            }
+            if (node instanceof FunctionNode) {
+                FunctionNode function = (FunctionNode) node;
+                String object = function.object();
+                String name = function.function();
+                String fullName = name + "$" + function.arguments().length;
+                Op loadObject = this.allocateObject(scope, object);
+                int objectLocal = scope.variables.get(object);
+                this.allocate(scope, object + "." + fullName);
+                Op[] arguments = this.lowerAll(function.arguments(), scope, true);
+                return frame -> {
+                    MolangEnvironment environment = frame.environment;
+                    loadObject.run(frame);
+                    MolangExpression expression = MolangUtil.getFunction(getObject(frame, objectLocal, object), name, fullName);
+                    for (Op argument : arguments) {
+                        environment.loadParameter(argument.run(frame));
+                    }
+                    float result = environment.resolve(expression);
+                    environment.clearParameters();
+                    return result;
+                };
+            }
+            if (node instanceof LoopNode) {
+                LoopNode loop = (LoopNode) node;
+                Op iterations = this.lower(loop.iterations(), scope);
+                this.loops++;
+                Op body = this.lower(loop.body(), scope);
+                this.loops--;
+                return frame -> {
+                    int count = (int) iterations.run(frame);
+                    int i = 0;
+                    // The generated loop checks the count after the body, so it always runs at least once
+                    do {
+                        body.run(frame);
+                        if (frame.signal == BREAK) {
+                            frame.signal = NONE;
+                            break;
+                        }
+                        if (frame.signal == CONTINUE) {
+                            frame.signal = NONE;
+                        } else if (frame.signal == RETURN) {
+                            break;
+                        }
+                        i++;
+                    } while (count > i);
+                    return 0.0F;
+                };
+            }
+            if (node instanceof BreakNode) {
+                if (this.loops == 0) {
+                    throw new MolangSyntaxException("Cannot break outside of loop");
+                }
+                return frame -> {
+                    frame.signal = BREAK;
+                    return 0.0F;
+                };
+            }
+            if (node instanceof ContinueNode) {
+                if (this.loops == 0) {
+                    throw new MolangSyntaxException("Cannot continue outside of loop");
+                }
+                return frame -> {
+                    frame.signal = CONTINUE;
+                    return 0.0F;
+                };
+            }
+            throw new MolangSyntaxException("Cannot interpret " + node.getClass().getSimpleName() + " " + node);
+        }
+
+        private Op[] lowerAll(Node[] nodes, Scope scope, boolean fold) throws MolangException {
+            Op[] ops = new Op[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                ops[i] = fold && this.optimize && nodes[i].isConstant() ? this.constant(nodes[i]) : this.lower(nodes[i], scope);
+            }
+            return ops;
+        }
+
+        private Op lowerGet(String object, String name, Scope scope) {
+            String key = object + "." + name;
+            Integer index = scope.variables.get(key);
+            if (index != null) {
+                int local = index;
+                return frame -> frame.locals[local];
+            }
+            Op loadObject = this.allocateObject(scope, object);
+            int objectLocal = scope.variables.get(object);
+            return new LoadVariable(object, name, loadObject, objectLocal, this.allocate(scope, key));
+        }
+
+        private Op lowerSet(VariableSetNode set, Scope scope) throws MolangException {
+            // Inserted at the earliest opportunity like the generated code, which never reads it here
+            Op loadObject = "temp".equals(set.object()) ? NOTHING : this.allocateObject(scope, set.object());
+            Op value = this.lower(set.value(), scope);
+            String key = set.object() + "." + set.name();
+            int local = this.allocate(scope, key);
+            if (!"temp".equals(set.object())) {
+                scope.modifiedVariables.add(key);
+            }
+            boolean returnValue = set.returnValue();
+            return frame -> {
+                loadObject.run(frame);
+                float result = value.run(frame);
+                frame.locals[local] = result;
+                return returnValue ? result : 0.0F;
+            };
+        }
+
+        private Op lowerTernary(TernaryOperationNode ternary, Scope scope) throws MolangException {
+            boolean hasValue = ternary.hasValue();
+            if (this.optimize && ternary.value().isConstant()) {
+                Op branch = this.lower(ternary.value().evaluate(this.constants) != 0.0F ? ternary.left() : ternary.right(), scope);
+                return hasValue ? branch : frame -> {
+                    branch.run(frame);
+                    return 0.0F;
+                };
+            }
+
+            Op value = this.lower(ternary.value(), scope);
+            Scope leftScope = scope.copy();
+            Op left = this.lower(ternary.left(), leftScope);
+            Op leftWriteBack = this.writeModifiedVariables(leftScope);
+            Scope rightScope = scope.copy();
+            Op right = this.lower(ternary.right(), rightScope);
+            Op rightWriteBack = this.writeModifiedVariables(rightScope);
+            return frame -> {
+                float result;
+                if (value.run(frame) != 0.0F) {
+                    result = left.run(frame);
+                    if (frame.signal != NONE) {
+                        return result;
+                    }
+                    leftWriteBack.run(frame);
+                } else {
+                    result = right.run(frame);
+                    if (frame.signal != NONE) {
+                        return result;
+                    }
+                    rightWriteBack.run(frame);
+                }
+                return hasValue ? result : 0.0F;
+            };
+        }
+
+        private Op lowerBinary(BinaryOperationNode binary, Scope scope) throws MolangException {
+            if (this.optimize && binary.isConstant()) {
+                return this.constant(binary);
+            }
+
+            if (binary.operator() == BinaryOperation.NULL_COALESCING) {
+                if (!(binary.left() instanceof VariableGetNode)) {
+                    throw new MolangSyntaxException("Expected variable lookup, got " + binary.left());
+                }
+                VariableGetNode lookup = (VariableGetNode) binary.left();
+                Op has = this.lowerHas(lookup.object(), lookup.name(), scope);
+                Op left = this.lowerBranch(lookup, scope);
+                Op right = this.lowerBranch(binary.right(), scope);
+                return frame -> has.run(frame) != 0.0F ? left.run(frame) : right.run(frame);
+            }
+
+            Op left = this.lowerOperand(binary.left(), scope);
+            if (binary.operator() == BinaryOperation.AND) {
+                Op right = this.lowerBranch(binary.right(), scope);
+                return frame -> left.run(frame) != 0.0F && right.run(frame) != 0.0F ? 1.0F : 0.0F;
+            }
+            if (binary.operator() == BinaryOperation.OR) {
+                Op right = this.lowerBranch(binary.right(), scope);
+                return frame -> left.run(frame) != 0.0F || right.run(frame) != 0.0F ? 1.0F : 0.0F;
+            }
+
+            Op right = this.lowerOperand(binary.right(), scope);
+            switch (binary.operator()) {
+                case ADD:
+                    return frame -> left.run(frame) + right.run(frame);
+                case SUBTRACT:
+                    return frame -> left.run(frame) - right.run(frame);
+                case MULTIPLY:
+                    return frame -> left.run(frame) * right.run(frame);
+                case DIVIDE:
+                    return frame -> left.run(frame) / right.run(frame);
+                case LESS:
+                    return frame -> left.run(frame) < right.run(frame) ? 1.0F : 0.0F;
+                case LESS_EQUALS:
+                    return frame -> left.run(frame) <= right.run(frame) ? 1.0F : 0.0F;
+                case GREATER:
+                    return frame -> left.run(frame) > right.run(frame) ? 1.0F : 0.0F;
+                case GREATER_EQUALS:
+                    return frame -> left.run(frame) >= right.run(frame) ? 1.0F : 0.0F;
+                case EQUALS:
+                    return frame -> left.run(frame) == right.run(frame) ? 1.0F : 0.0F;
+                case NOT_EQUALS:
+                    return frame -> left.run(frame) != right.run(frame) ? 1.0F : 0.0F;
+                default:
+                    throw new MolangSyntaxException("Unknown operator: " + binary.operator());
+            }
+        }
+
+        private Op lowerOperand(Node node, Scope scope) throws MolangException {
+            return this.optimize && node.isConstant() ? this.constant(node) : this.lower(node, scope);
+        }
+
+        /**
+         * Lowers an operand that only runs on some paths in its own scope, like the generated code does.
+         */
+        private Op lowerBranch(Node node, Scope scope) throws MolangException {
+            Scope branch = scope.copy();
+            Op op = this.lowerOperand(node, branch);
+            Op writeBack = this.writeModifiedVariables(branch);
+            if (writeBack == NOTHING) {
+                return op;
+            }
+            return frame -> {
+                float result = op.run(frame);
+                if (frame.signal == NONE) {
+                    writeBack.run(frame);
+                }
+                return result;
+            };
+        }
+
+        private Op lowerHas(String object, String name, Scope scope) {
+            if ("temp".equals(object)) {
+                // Temporary variables exist if they were assigned anywhere before this point in the source
+                float has = scope.variables.containsKey("temp." + name) ? 1.0F : 0.0F;
+                return frame -> has;
+            }
+
+            String key = object + "." + name + "$has";
+            Integer index = scope.variables.get(key);
+            if (index != null) {
+                int local = index;
+                return frame -> frame.locals[local];
+            }
+            int local = this.allocate(scope, key);
+            Op loadObject = this.allocateObject(scope, object);
+            int objectLocal = scope.variables.get(object);
+            return frame -> {
+                loadObject.run(frame);
+                return frame.locals[local] = getObject(frame, objectLocal, object).has(name) ? 1.0F : 0.0F;
+            };
+        }
+
+        private Op writeModifiedVariables(Scope scope) {
+            List<String[]> names = new ArrayList<>(scope.modifiedVariables.size());
+            List<Integer> indices = new ArrayList<>(scope.modifiedVariables.size());
+            List<Op> objectLoads = new ArrayList<>(scope.modifiedVariables.size());
+            List<Integer> objectIndices = new ArrayList<>(scope.modifiedVariables.size());
+            for (String name : scope.modifiedVariables) {
+                String[] parts = name.split("\\.", 2);
+                names.add(parts);
+                indices.add(scope.variables.get(name));
+                objectLoads.add(this.allocateObject(scope, parts[0]));
+                objectIndices.add(scope.variables.get(parts[0]));
+            }
+            scope.modifiedVariables.clear();
+            if (names.isEmpty()) {
+                return NOTHING;
+            }
+
+            return frame -> {
+                MolangEnvironment environment = frame.environment;
+                MolangSlotLayout layout = environment.getSlotLayout();
+                for (int i = 0; i < names.size(); i++) {
+                    String[] parts = names.get(i);
+                    float value = frame.locals[indices.get(i)];
+                    objectLoads.get(i).run(frame);
+                    MolangUtil.setValue(getObject(frame, objectIndices.get(i), parts[0]), parts[1], value);
+
+                    // Keep the frame in sync so later reads through slots see the new value
+                    int slot = layout != null ? layout.indexOf(parts[0], parts[1]) : -1;
+                    if (slot >= 0) {
+                        environment.getSlotFrame()[slot] = value;
+                    }
+                }
+                return 0.0F;
+            };
+        }
+    }
+
+    /**
+     * Reads a variable into its local the same way {@link MolangBytecodeEnvironment#loadVariable} does.
+     */
+    private static final class LoadVariable implements Op {
+
+        private final String object;
+        private final String name;
+        private final String key;
+        private final boolean slotted;
+        private final Op loadObject;
+        private final int objectLocal;
+        private final int local;
+        private volatile SlotBinding[] bindings = SlotBinding.NO_BINDINGS;
+
+        private LoadVariable(String object, String name, Op loadObject, int objectLocal, int local) {
+            this.object = object;
+            this.name = name;
+            this.key = object + "." + name;
+            this.slotted = MolangSlotLayout.canonicalObject(object) != null;
+            this.loadObject = loadObject;
+            this.objectLocal = objectLocal;
+            this.local = local;
+        }
+
+        @Override
+        public float run(Frame frame) throws MolangException {
+            MolangEnvironment environment = frame.environment;
+            this.loadObject.run(frame);
+
+            float value;
+            int slot = this.slotted ? this.getSlot(environment.getSlotLayout()) : -1;
+            if (slot >= 0) {
+                value = environment.getSlotFrame()[slot];
+            } else {
+                MolangExpression expression = getObject(frame, this.objectLocal, this.object).find(this.name);
+                value = expression != null ? environment.resolve(expression) : MolangUtil.unknownVariable(frame.expression, this.key);
+            }
+            frame.locals[this.local] = value;
+            return value;
+        }
+
+        private int getSlot(MolangSlotLayout layout) {
+            if (layout == null) {
+                return -1;
+            }
+            MolangSlotLayout base = layout.getBase();
+            SlotBinding[] bindings = this.bindings;
+            for (SlotBinding binding : bindings) {
+                if (binding.layout == layout || (binding.shared && binding.layout == base)) {
+                    return binding.slot;
+                }
+            }
+
+            // Same scheme as CompiledMolangExpression#bindSlots, a name of the base layout has the same slot in every layout extending it
+            int slot = layout.indexOf(this.object, this.name);
+            boolean shared = slot >= 0 && slot < base.size();
+            SlotBinding binding = new SlotBinding(shared ? base : layout, shared, slot);
+            SlotBinding[] updated = new SlotBinding[Math.min(bindings.length + 1, CompiledMolangExpression.MAX_BINDINGS)];
+            updated[0] = binding;
+            System.arraycopy(bindings, 0, updated, 1, updated.length - 1);
+            this.bindings = updated;
+            return binding.slot;
+        }
+    }
+
+    private static final class SlotBinding {
+
+        private static final SlotBinding[] NO_BINDINGS = new SlotBinding[0];
+
+        private final MolangSlotLayout layout;
+        private final boolean shared;
+        private final int slot;
+
+        private SlotBinding(MolangSlotLayout layout, boolean shared, int slot) {
+            this.layout = layout;
+            this.shared = shared;
+            this.slot = slot;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package org.mybad.bedrockparticle.molang.impl.compiler;
 
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
 import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.MethodNode;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,24 +21,36 @@ import java.util.Set;
 @ApiStatus.Internal
 public class MolangBytecodeEnvironment {
 
+    public static final String SLOTS_NAME = "$slots";
+    public static final String FRAME_NAME = "$frame";
+    public static final String COLUMNS_NAME = "$columns";
+    public static final String COUNT_NAME = "$count";
+    public static final String OUT_NAME = "$out";
+    public static final String ROW_NAME = "$row";
+
     private final Map<String, Integer> variables;
     private final Set<String> modifiedVariables;
+    private final List<String> slotNames;
     private final boolean optimize;
+    private Label nextRow;
 
     public MolangBytecodeEnvironment(Map<String, Integer> variables,
                                      Set<String> modifiedVariables,
+                                     List<String> slotNames,
                                      boolean optimize) {
         this.variables = variables;
         this.modifiedVariables = modifiedVariables;
+        this.slotNames = slotNames;
         this.optimize = optimize;
     }
 
     public MolangBytecodeEnvironment(MolangBytecodeEnvironment environment) {
-        this(new HashMap<>(environment.variables), new LinkedHashSet<>(), environment.optimize);
+        this(new HashMap<>(environment.variables), new LinkedHashSet<>(), environment.slotNames, environment.optimize);
+        this.nextRow = environment.nextRow;
     }
 
     public MolangBytecodeEnvironment(int flags) {
-        this(new HashMap<>(), new LinkedHashSet<>(), (flags & BytecodeCompiler.FLAG_OPTIMIZE) > 0);
+        this(new HashMap<>(), new LinkedHashSet<>(), new ArrayList<>(), (flags & BytecodeCompiler.FLAG_OPTIMIZE) > 0);
     }
 
     public Map<String, Integer> variables() {
@@ -44,16 +61,81 @@ public class MolangBytecodeEnvironment {
         return this.modifiedVariables;
     }
 
+    /**
+     * @return The qualified names of all variables read through slots, in slot name order
+     */
+    public List<String> slotNames() {
+        return this.slotNames;
+    }
+
     public boolean optimize() {
         return this.optimize;
     }
 
     /**
-     * Fully resets the environment.
+     * @return Whether code is being written for the batch loop instead of a single evaluation
+     */
+    public boolean batch() {
+        return this.nextRow != null;
+    }
+
+    /**
+     * Fully resets the environment and reserves the locals holding the slot binding.
      */
     public void reset() {
+        this.slotNames.clear();
+        this.resetLocals(null);
+    }
+
+    /**
+     * Resets the environment for writing the batch loop of the same expression. Slot names are kept so both methods share one binding.
+     *
+     * @param nextRow The label to jump to after the value of a row has been stored
+     */
+    public void resetBatch(Label nextRow) {
+        this.resetLocals(nextRow);
+    }
+
+    private void resetLocals(@Nullable Label nextRow) {
         this.variables.clear();
         this.modifiedVariables.clear();
+        this.nextRow = nextRow;
+        // The batch parameters come first so they line up with the arguments of getBatch
+        this.allocateVariable(COLUMNS_NAME);
+        this.allocateVariable(COUNT_NAME);
+        this.allocateVariable(OUT_NAME);
+        this.allocateVariable(SLOTS_NAME);
+        this.allocateVariable(FRAME_NAME);
+        this.allocateVariable(ROW_NAME);
+    }
+
+    /**
+     * Writes the code loading the slot binding and frame into their locals. This must run before any other code in the method.
+     *
+     * @param method    The method to insert the code into
+     * @param className The internal name of the generated class
+     */
+    public void writeSlotPrologue(MethodNode method, String className) {
+        method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.THIS_INDEX);
+        method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
+        method.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                className,
+                "bindSlots",
+                "(Lorg/mybad/bedrockparticle/molang/api/MolangEnvironment;)[I",
+                false
+        );
+        method.visitVarInsn(Opcodes.ASTORE, this.variables.get(SLOTS_NAME));
+
+        method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
+        method.visitMethodInsn(
+                Opcodes.INVOKEINTERFACE,
+                "org/mybad/bedrockparticle/molang/api/MolangEnvironment",
+                "getSlotFrame",
+                "()[F",
+                true
+        );
+        method.visitVarInsn(Opcodes.ASTORE, this.variables.get(FRAME_NAME));
     }
 
     /**
@@ -71,20 +153,70 @@ public class MolangBytecodeEnvironment {
             return index;
         }
 
+        // The object must be loaded on every path since later reads may reuse the local
+        int objectIndex = this.getObjectIndex(method, object);
+        index = this.allocateVariable(key);
+
+        Label resolve = null;
+        Label end = null;
+        int slot = this.getSlotIndex(object, name);
+        if (slot != -1) {
+            resolve = new Label();
+            end = new Label();
+
+            // if (slots == null || slots[slot] < 0) goto resolve
+            method.visitVarInsn(Opcodes.ALOAD, this.variables.get(SLOTS_NAME));
+            method.visitJumpInsn(Opcodes.IFNULL, resolve);
+            this.loadSlot(method, slot);
+            method.visitJumpInsn(Opcodes.IFLT, resolve);
+
+            if (this.batch()) {
+                Label frame = new Label();
+
+                // if (columns[slots[slot]] == null) goto frame
+                method.visitVarInsn(Opcodes.ALOAD, this.variables.get(COLUMNS_NAME));
+                this.loadSlot(method, slot);
+                method.visitInsn(Opcodes.AALOAD);
+                method.visitInsn(Opcodes.DUP);
+                method.visitJumpInsn(Opcodes.IFNULL, frame);
+
+                // value = columns[slots[slot]][row]
+                method.visitVarInsn(Opcodes.ILOAD, this.variables.get(ROW_NAME));
+                method.visitInsn(Opcodes.FALOAD);
+                method.visitVarInsn(Opcodes.FSTORE, index);
+                method.visitJumpInsn(Opcodes.GOTO, end);
+
+                method.visitLabel(frame);
+                method.visitInsn(Opcodes.POP);
+            }
+
+            // value = frame[slots[slot]]
+            method.visitVarInsn(Opcodes.ALOAD, this.variables.get(FRAME_NAME));
+            this.loadSlot(method, slot);
+            method.visitInsn(Opcodes.FALOAD);
+            method.visitVarInsn(Opcodes.FSTORE, index);
+            method.visitJumpInsn(Opcodes.GOTO, end);
+            method.visitLabel(resolve);
+        }
+
+        Label unknown = new Label();
+        Label store = new Label();
+
         // Resolve value
         method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.RUNTIME_INDEX);
 
         // Get variable
-        int objectIndex = this.getObjectIndex(method, object);
         method.visitVarInsn(Opcodes.ALOAD, objectIndex);
         method.visitLdcInsn(name);
         method.visitMethodInsn(
                 Opcodes.INVOKEINTERFACE,
                 "org/mybad/bedrockparticle/molang/api/object/MolangObject",
-                "get",
+                "find",
                 "(Ljava/lang/String;)Lorg/mybad/bedrockparticle/molang/api/MolangExpression;",
                 true
         );
+        method.visitInsn(Opcodes.DUP);
+        method.visitJumpInsn(Opcodes.IFNULL, unknown);
 
         method.visitMethodInsn(
                 Opcodes.INVOKEINTERFACE,
@@ -93,13 +225,58 @@ public class MolangBytecodeEnvironment {
                 "(Lorg/mybad/bedrockparticle/molang/api/MolangExpression;)F",
                 true
         );
+        method.visitJumpInsn(Opcodes.GOTO, store);
+
+        // Unknown names are handled by the global policy instead of throwing from the object
+        method.visitLabel(unknown);
+        method.visitInsn(Opcodes.POP2);
+        method.visitVarInsn(Opcodes.ALOAD, BytecodeCompiler.THIS_INDEX);
+        method.visitLdcInsn(key);
+        method.visitMethodInsn(
+                Opcodes.INVOKESTATIC,
+                "org/mybad/bedrockparticle/molang/impl/MolangUtil",
+                "unknownVariable",
+                "(Lorg/mybad/bedrockparticle/molang/api/MolangExpression;Ljava/lang/String;)F",
+                false
+        );
 
         // Store result
-        index = this.allocateVariable(key);
+        method.visitLabel(store);
         method.visitVarInsn(Opcodes.FSTORE, index);
+        if (end != null) {
+            method.visitLabel(end);
+        }
         return index;
     }
 
+    /**
+     * Retrieves the slot name index for the specified variable, registering it if necessary.
+     *
+     * @param object The object the variable is accessed through
+     * @param name   The name of the variable
+     * @return The index into the slot binding or <code>-1</code> if the variable can never be stored in a slot
+     */
+    public int getSlotIndex(String object, String name) {
+        String canonical = MolangSlotLayout.canonicalObject(object);
+        if (canonical == null) {
+            return -1;
+        }
+
+        String key = canonical + "." + name;
+        int index = this.slotNames.indexOf(key);
+        if (index == -1) {
+            index = this.slotNames.size();
+            this.slotNames.add(key);
+        }
+        return index;
+    }
+
+    private void loadSlot(MethodNode method, int slot) {
+        method.visitVarInsn(Opcodes.ALOAD, this.variables.get(SLOTS_NAME));
+        BytecodeCompiler.writeIntConst(method, slot);
+        method.visitInsn(Opcodes.IALOAD);
+    }
+
     /**
      * Allocates a space for a new variable, but doesn't initialize it.
      *
@@ -255,22 +432,75 @@ public class MolangBytecodeEnvironment {
                     "(Lorg/mybad/bedrockparticle/molang/api/object/MolangObject;Ljava/lang/String;F)V",
                     false
             );
+
+            // Keep the frame in sync so later reads through slots see the new value
+            int slot = this.getSlotIndex(parts[0], parts[1]);
+            if (slot != -1) {
+                Label skip = new Label();
+                method.visitVarInsn(Opcodes.ALOAD, this.variables.get(SLOTS_NAME));
+                method.visitJumpInsn(Opcodes.IFNULL, skip);
+                this.loadSlot(method, slot);
+                method.visitJumpInsn(Opcodes.IFLT, skip);
+                if (this.batch()) {
+                    // Rows backed by a column keep their own value
+                    Label frame = new Label();
+                    method.visitVarInsn(Opcodes.ALOAD, this.variables.get(COLUMNS_NAME));
+                    this.loadSlot(method, slot);
+                    method.visitInsn(Opcodes.AALOAD);
+                    method.visitInsn(Opcodes.DUP);
+                    method.visitJumpInsn(Opcodes.IFNULL, frame);
+                    method.visitVarInsn(Opcodes.ILOAD, this.variables.get(ROW_NAME));
+                    method.visitVarInsn(Opcodes.FLOAD, index);
+                    method.visitInsn(Opcodes.FASTORE);
+                    method.visitJumpInsn(Opcodes.GOTO, skip);
+                    method.visitLabel(frame);
+                    method.visitInsn(Opcodes.POP);
+                }
+                method.visitVarInsn(Opcodes.ALOAD, this.variables.get(FRAME_NAME));
+                this.loadSlot(method, slot);
+                method.visitVarInsn(Opcodes.FLOAD, index);
+                method.visitInsn(Opcodes.FASTORE);
+                method.visitLabel(skip);
+            }
         }
         this.modifiedVariables.clear();
     }
 
+    /**
+     * Writes the end of an evaluation with the result on the stack. Single evaluations return the value,
+     * while the batch loop stores it into <code>out[row]</code> and continues with the next row.
+     *
+     * @param method The method to write the return into
+     */
+    public void writeReturn(MethodNode method) {
+        if (!this.batch()) {
+            method.visitInsn(Opcodes.FRETURN);
+            return;
+        }
+
+        // out[row] = value
+        method.visitVarInsn(Opcodes.ALOAD, this.variables.get(OUT_NAME));
+        method.visitInsn(Opcodes.SWAP);
+        method.visitVarInsn(Opcodes.ILOAD, this.variables.get(ROW_NAME));
+        method.visitInsn(Opcodes.SWAP);
+        method.visitInsn(Opcodes.FASTORE);
+        method.visitJumpInsn(Opcodes.GOTO, this.nextRow);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof MolangBytecodeEnvironment)) return false;
         MolangBytecodeEnvironment that = (MolangBytecodeEnvironment) o;
         if (!java.util.Objects.equals(this.variables, that.variables)) return false;
         if (!java.util.Objects.equals(this.modifiedVariables, that.modifiedVariables)) return false;
+        if (!java.util.Objects.equals(this.slotNames, that.slotNames)) return false;
         if (this.optimize != that.optimize) return false;
+        if (this.batch() != that.batch()) return false;
         return true;
     }
 
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(variables, modifiedVariables, optimize);
+        return java.util.Objects.hash(variables, modifiedVariables, slotNames, optimize, batch());
     }
 }
@@ -0,0 +1,403 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
+import org.objectweb.asm.ClassReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Persists the classes generated by {@link BytecodeCompiler} so later sessions can define them without lexing, parsing or generating bytecode again.</p>
+ * <p>Entries are appended to a single file as they are generated. The file header stores {@link BytecodeCompiler#CODEGEN_VERSION} and a fingerprint of the compiler classes,
+ * and the whole file is discarded when either no longer matches.
+ * Every entry is checked against its checksum and its class header before it is defined, and entries that fail are dropped and compiled normally.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class MolangClassCache {
+
+    private static final int MAGIC = 0x4D4C4343; // MLCC
+    private static final int FORMAT_VERSION = 2;
+    private static final int MAX_KEY_LENGTH = 8192;
+    private static final long MAX_FILE_SIZE = 32L * 1024 * 1024;
+    private static final byte CONSTANT = 0;
+    private static final byte CLASS = 1;
+    private static final String COMPILED_EXPRESSION = CompiledMolangExpression.class.getName().replace('.', '/');
+
+    private static volatile MolangClassCache instance;
+
+    private final Path file;
+    private final long fingerprint;
+    private Map<String, Entry> entries;
+    private DataOutputStream output;
+    private boolean failed;
+
+    private MolangClassCache(Path file, long fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return The cache used by all compilers, or <code>null</code> if classes are not persisted
+     */
+    @Nullable
+    public static MolangClassCache get() {
+        return instance;
+    }
+
+    /**
+     * Sets the file generated classes are persisted to.
+     *
+     * @param file The cache file or <code>null</code> to stop persisting classes
+     */
+    public static void open(@Nullable Path file) {
+        MolangClassCache previous = instance;
+        if (previous != null) {
+            previous.close();
+        }
+        if (file == null) {
+            instance = null;
+            return;
+        }
+        long fingerprint = compilerFingerprint();
+        instance = fingerprint != 0 ? new MolangClassCache(file, fingerprint) : null;
+    }
+
+    /**
+     * Creates the key of an expression in the cache.
+     *
+     * @param normalizedSource The source as normalized by the expression cache
+     * @param optimize         Whether the compiler optimizes expressions
+     * @return The key or <code>null</code> if the expression is too large to cache
+     */
+    @Nullable
+    public static String key(String normalizedSource, boolean optimize) {
+        if (normalizedSource.length() > MAX_KEY_LENGTH) {
+            return null;
+        }
+        return (optimize ? "o:" : "n:") + normalizedSource;
+    }
+
+    /**
+     * @param key The key of the expression
+     * @return The cached entry or <code>null</code> if the expression was never stored or failed verification
+     */
+    @Nullable
+    public synchronized Entry find(String key) {
+        Entry entry = this.load().get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.data != null && !verify(entry)) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Removes an entry that could not be defined for the rest of the session.
+     *
+     * @param key The key of the expression
+     */
+    public synchronized void invalidate(String key) {
+        this.load().remove(key);
+    }
+
+    public synchronized void storeConstant(String key, float value) {
+        this.store(key, new Entry(value, null, null, 0));
+    }
+
+    public synchronized void storeClass(String key, String className, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        this.store(key, new Entry(0.0F, className, data, crc.getValue()));
+    }
+
+    private void store(String key, Entry entry) {
+        Map<String, Entry> entries = this.load();
+        if (entries.containsKey(key) || this.failed) {
+            return;
+        }
+        entries.put(key, entry);
+        try {
+            if (this.output == null) {
+                boolean create = !Files.exists(this.file);
+                if (this.file.getParent() != null) {
+                    Files.createDirectories(this.file.getParent());
+                }
+                this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                if (create) {
+                    this.output.writeInt(MAGIC);
+                    this.output.writeInt(FORMAT_VERSION);
+                    this.output.writeInt(BytecodeCompiler.CODEGEN_VERSION);
+                    this.output.writeLong(this.fingerprint);
+                }
+            }
+            this.output.writeUTF(key);
+            if (entry.data == null) {
+                this.output.writeByte(CONSTANT);
+                this.output.writeFloat(entry.constant);
+            } else {
+                this.output.writeByte(CLASS);
+                this.output.writeUTF(entry.className);
+                this.output.writeInt(entry.data.length);
+                this.output.write(entry.data);
+                this.output.writeLong(entry.checksum);
+            }
+            this.output.flush();
+        } catch (IOException e) {
+            // The classes are still defined for this session, later sessions simply generate them again
+            this.failed = true;
+            GlobalMolangCompiler.warn("Failed to write MoLang class cache " + this.file, e);
+        }
+    }
+
+    private Map<String, Entry> load() {
+        if (this.entries != null) {
+            return this.entries;
+        }
+        this.entries = new HashMap<>();
+        if (!Files.isRegularFile(this.file)) {
+            return this.entries;
+        }
+
+        long valid = 0;
+        try {
+            if (Files.size(this.file) > MAX_FILE_SIZE) {
+                // Entries of expressions that are no longer used are never removed, so start over once the file grows too large
+                Files.delete(this.file);
+                return this.entries;
+            }
+            try (InputStream stream = Files.newInputStream(this.file)) {
+                CountingInputStream counting = new CountingInputStream(new BufferedInputStream(stream));
+                DataInputStream input = new DataInputStream(counting);
+                // A file from another compiler version keeps valid at 0 and is deleted below once it is closed
+                boolean current = input.readInt() == MAGIC && input.readInt() == FORMAT_VERSION
+                        && input.readInt() == BytecodeCompiler.CODEGEN_VERSION && input.readLong() == this.fingerprint;
+                if (current) {
+                    valid = counting.count;
+                }
+                while (current) {
+                    String key = input.readUTF();
+                    byte type = input.readByte();
+                    Entry entry;
+                    if (type == CONSTANT) {
+                        entry = new Entry(input.readFloat(), null, null, 0);
+                    } else if (type == CLASS) {
+                        String className = input.readUTF();
+                        int length = input.readInt();
+                        if (length <= 0 || length > MAX_FILE_SIZE) {
+                            throw new IOException("Invalid class length " + length);
+                        }
+                        byte[] data = new byte[length];
+                        input.readFully(data);
+                        entry = new Entry(0.0F, className, data, input.readLong());
+                    } else {
+                        throw new IOException("Unknown entry type " + type);
+                    }
+                    this.entries.put(key, entry);
+                    valid = counting.count;
+                }
+            }
+        } catch (EOFException ignored) {
+            // End of file, or an entry cut short by a crash which is dropped below
+        } catch (IOException | RuntimeException e) {
+            GlobalMolangCompiler.warn("Failed to read MoLang class cache " + this.file, e);
+        }
+
+        try {
+            if (Files.isRegularFile(this.file) && Files.size(this.file) > valid) {
+                if (valid == 0) {
+                    Files.delete(this.file);
+                } else {
+                    try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            this.failed = true;
+        }
+        return this.entries;
+    }
+
+    private synchronized void close() {
+        if (this.output != null) {
+            try {
+                this.output.close();
+            } catch (IOException ignored) {
+            }
+            this.output = null;
+        }
+    }
+
+    private static boolean verify(Entry entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.data);
+        if (crc.getValue() != entry.checksum) {
+            return false;
+        }
+        try {
+            ClassReader reader = new ClassReader(entry.data);
+            return entry.className.equals(reader.getClassName()) && entry.className.startsWith("Expression_") && COMPILED_EXPRESSION.equals(reader.getSuperName());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fingerprints the jar or directory the compiler was loaded from, so any change to the compiler, the nodes or the runtime API invalidates the cache.
+     *
+     * @return The fingerprint or <code>0</code> if the location of the compiler can't be determined
+     */
+    private static long compilerFingerprint() {
+        try {
+            CodeSource source = BytecodeCompiler.class.getProtectionDomain().getCodeSource();
+            URL location = source != null ? source.getLocation() : null;
+            if (location == null) {
+                return 0;
+            }
+            String url = location.toString();
+            if (url.startsWith("jar:")) {
+                int separator = url.indexOf("!/");
+                url = url.substring(4, separator >= 0 ? separator : url.length());
+            }
+            if (!url.startsWith("file:")) {
+                return 0;
+            }
+
+            Path path = Paths.get(new URL(url).toURI());
+            CRC32 crc = new CRC32();
+            update(crc, FORMAT_VERSION);
+            update(crc, BytecodeCompiler.CODEGEN_VERSION);
+            if (Files.isRegularFile(path)) {
+                update(crc, path.toAbsolutePath().toString(), Files.size(path), Files.getLastModifiedTime(path).toMillis());
+                return crc.getValue();
+            }
+
+            Path root = path.resolve("org/mybad/bedrockparticle/molang");
+            if (!Files.isDirectory(root)) {
+                return 0;
+            }
+            List<Path> classes = new ArrayList<>();
+            try (Stream<Path> stream = Files.walk(root)) {
+                stream.filter(file -> file.toString().endsWith(".class")).forEach(classes::add);
+            }
+            Collections.sort(classes);
+            for (Path file : classes) {
+                update(crc, root.relativize(file).toString(), Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            }
+            return crc.getValue();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static void update(CRC32 crc, int value) {
+        crc.update(value >>> 24);
+        crc.update(value >>> 16);
+        crc.update(value >>> 8);
+        crc.update(value);
+    }
+
+    private static void update(CRC32 crc, String name, long size, long modified) {
+        crc.update(name.getBytes(StandardCharsets.UTF_8));
+        update(crc, (int) (size >>> 32));
+        update(crc, (int) size);
+        update(crc, (int) (modified >>> 32));
+        update(crc, (int) modified);
+    }
+
+    /**
+     * A cached expression. Either a constant or the bytes of a generated class.
+     */
+    public static final class Entry {
+
+        private final float constant;
+        private final String className;
+        private final byte[] data;
+        private final long checksum;
+
+        private Entry(float constant, @Nullable String className, @Nullable byte[] data, long checksum) {
+            this.constant = constant;
+            this.className = className;
+            this.data = data;
+            this.checksum = checksum;
+        }
+
+        public boolean isConstant() {
+            return this.data == null;
+        }
+
+        public float getConstant() {
+            return this.constant;
+        }
+
+        public String getClassName() {
+            return this.className;
+        }
+
+        public byte[] getData() {
+            return this.data;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                this.count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                this.count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,673 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.molang.impl.ast.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Rewrites a parsed expression into an equivalent, cheaper tree before bytecode is generated.</p>
+ * <p>The following passes are run:</p>
+ * <ul>
+ *     <li>Constant folding of operators, deterministic math functions and negation</li>
+ *     <li>Algebraic identities that are exact in floating point, such as <code>x * 1</code> and <code>x - 0</code>.
+ *     <code>x + 0</code> is only removed when <code>x</code> can never be <code>-0</code></li>
+ *     <li>Removal of ternary, conditional, <code>&amp;&amp;</code> and <code>||</code> branches that can never run</li>
+ *     <li>Inlining of temp variables that are only ever assigned a single constant</li>
+ *     <li>Common subexpression elimination of pure subexpressions evaluated more than once in a statement</li>
+ * </ul>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class MolangOptimizer {
+
+    private static final int MAX_PASSES = 8;
+    private static final String TEMP = "temp";
+    private static final String CSE_PREFIX = "$cse";
+
+    private final MolangBytecodeEnvironment environment;
+    private int nextTemp;
+
+    private MolangOptimizer(MolangBytecodeEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Optimizes the specified expression tree.
+     *
+     * @param node        The root node of the expression
+     * @param environment The environment used to statically evaluate constants
+     * @return An equivalent tree
+     * @throws MolangException If a constant cannot be evaluated
+     */
+    public static Node optimize(Node node, MolangBytecodeEnvironment environment) throws MolangException {
+        MolangOptimizer optimizer = new MolangOptimizer(environment);
+        Node result = node;
+        for (int i = 0; i < MAX_PASSES; i++) {
+            Node next = optimizer.inlineConstantTemps(optimizer.simplify(result));
+            if (next.equals(result)) {
+                break;
+            }
+            result = next;
+        }
+        return optimizer.eliminateCommonSubexpressions(result);
+    }
+
+    // Constant folding, identities and dead branches
+
+    private Node simplify(Node node) throws MolangException {
+        if (node instanceof BinaryOperationNode) {
+            return this.simplifyBinary((BinaryOperationNode) node);
+        }
+        if (node instanceof NegateNode) {
+            Node value = this.simplify(((NegateNode) node).value());
+            return this.fold(new NegateNode(value), value instanceof ConstNode);
+        }
+        if (node instanceof MathNode) {
+            MathNode math = (MathNode) node;
+            Node[] arguments = this.simplifyAll(math.arguments());
+            return this.fold(new MathNode(math.function(), arguments), math.function().isDeterministic() && allConstant(arguments));
+        }
+        if (node instanceof TernaryOperationNode) {
+            TernaryOperationNode ternary = (TernaryOperationNode) node;
+            Node value = this.simplify(ternary.value());
+            Node left = this.simplify(ternary.left());
+            Node right = this.simplify(ternary.right());
+            if (value instanceof ConstNode) {
+                Node branch = ((ConstNode) value).value() != 0.0F ? left : right;
+                // The branch can only replace the ternary if it leaves the same value on the stack
+                if (branch.hasValue() == (left.hasValue() && right.hasValue())) {
+                    return branch;
+                }
+            }
+            return new TernaryOperationNode(value, left, right);
+        }
+        if (node instanceof BinaryConditionalNode) {
+            BinaryConditionalNode conditional = (BinaryConditionalNode) node;
+            Node value = this.simplify(conditional.value());
+            Node branch = this.simplify(conditional.branch());
+            if (value instanceof ConstNode && ((ConstNode) value).value() != 0.0F && !branch.hasValue()) {
+                return branch;
+            }
+            return new BinaryConditionalNode(value, branch);
+        }
+        if (node instanceof CompoundNode) {
+            Node[] nodes = ((CompoundNode) node).nodes();
+            List<Node> statements = new ArrayList<>(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                Node simplified = this.simplify(nodes[i]);
+                // The last statement decides whether the compound has a value, so it is always kept
+                if (i == nodes.length - 1 || !isDeadStatement(simplified)) {
+                    statements.add(simplified);
+                }
+            }
+            return compound(statements);
+        }
+        if (node instanceof ScopeNode) {
+            return new ScopeNode(this.simplify(((ScopeNode) node).node()));
+        }
+        if (node instanceof LoopNode) {
+            LoopNode loop = (LoopNode) node;
+            return new LoopNode(this.simplify(loop.iterations()), this.simplify(loop.body()));
+        }
+        if (node instanceof ReturnNode) {
+            return new ReturnNode(this.simplify(((ReturnNode) node).value()));
+        }
+        if (node instanceof VariableSetNode) {
+            VariableSetNode set = (VariableSetNode) node;
+            return new VariableSetNode(set.object(), set.name(), this.simplify(set.value()), set.returnValue());
+        }
+        if (node instanceof FunctionNode) {
+            FunctionNode function = (FunctionNode) node;
+            return new FunctionNode(function.object(), function.function(), this.simplifyAll(function.arguments()));
+        }
+        return node;
+    }
+
+    private Node simplifyBinary(BinaryOperationNode node) throws MolangException {
+        BinaryOperation operator = node.operator();
+        Node right = this.simplify(node.right());
+        if (operator == BinaryOperation.NULL_COALESCING) {
+            // The left side must stay a variable lookup for the existence check
+            return new BinaryOperationNode(operator, node.left(), right);
+        }
+
+        Node left = this.simplify(node.left());
+        BinaryOperationNode simplified = new BinaryOperationNode(operator, left, right);
+        if (left instanceof ConstNode && right instanceof ConstNode) {
+            return this.fold(simplified, true);
+        }
+
+        switch (operator) {
+            case AND:
+                // The right side is never evaluated if the left is false
+                if (isConstant(left, 0.0F)) {
+                    return new ConstNode(0.0F);
+                }
+                if (isConstant(right, 0.0F) && isPure(left)) {
+                    return new ConstNode(0.0F);
+                }
+                break;
+            case OR:
+                if (left instanceof ConstNode && ((ConstNode) left).value() != 0.0F) {
+                    return new ConstNode(1.0F);
+                }
+                if (right instanceof ConstNode && ((ConstNode) right).value() != 0.0F && isPure(left)) {
+                    return new ConstNode(1.0F);
+                }
+                break;
+            case ADD:
+                // -0 + 0 is +0, so adding +0 is only an identity when the other side can never be -0
+                if (isNegativeZero(right) || (isConstant(right, 0.0F) && cannotBeNegativeZero(left))) {
+                    return left;
+                }
+                if (isNegativeZero(left) || (isConstant(left, 0.0F) && cannotBeNegativeZero(right))) {
+                    return right;
+                }
+                break;
+            case SUBTRACT:
+                // x - (+0) keeps the sign of zero, x - (-0) is x + 0
+                if (isPositiveZero(right) || (isNegativeZero(right) && cannotBeNegativeZero(left))) {
+                    return left;
+                }
+                break;
+            case MULTIPLY:
+                if (isConstant(right, 1.0F)) {
+                    return left;
+                }
+                if (isConstant(left, 1.0F)) {
+                    return right;
+                }
+                break;
+            case DIVIDE:
+                if (isConstant(right, 1.0F)) {
+                    return left;
+                }
+                break;
+        }
+        return simplified;
+    }
+
+    private Node[] simplifyAll(Node[] nodes) throws MolangException {
+        Node[] result = new Node[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = this.simplify(nodes[i]);
+        }
+        return result;
+    }
+
+    private Node fold(Node node, boolean constant) throws MolangException {
+        return constant ? new ConstNode(node.evaluate(this.environment)) : node;
+    }
+
+    // A conditional statement that can never run, or a constant that is discarded
+    private static boolean isDeadStatement(Node node) {
+        if (node instanceof BinaryConditionalNode) {
+            Node value = ((BinaryConditionalNode) node).value();
+            return isConstant(value, 0.0F);
+        }
+        return node instanceof ConstNode;
+    }
+
+    // Constant temp inlining
+
+    private Node inlineConstantTemps(Node node) {
+        if (!(node instanceof CompoundNode)) {
+            return node;
+        }
+
+        List<Node> statements = new ArrayList<>(Arrays.asList(((CompoundNode) node).nodes()));
+        Map<String, Integer> assignments = new HashMap<>();
+        countTempAssignments(node, assignments);
+
+        for (int i = 0; i < statements.size() - 1; i++) {
+            Node statement = statements.get(i);
+            if (!(statement instanceof VariableSetNode)) {
+                continue;
+            }
+
+            VariableSetNode set = (VariableSetNode) statement;
+            if (!TEMP.equals(set.object()) || set.returnValue() || !(set.value() instanceof ConstNode) || assignments.get(set.name()) != 1) {
+                continue;
+            }
+
+            // Reading the variable before it is assigned must keep failing the same way
+            boolean readBefore = false;
+            for (int j = 0; j < i && !readBefore; j++) {
+                readBefore = readsTemp(statements.get(j), set.name());
+            }
+            if (readBefore || testsTemp(node, set.name())) {
+                continue;
+            }
+
+            Map<Node, Node> replacements = new HashMap<>();
+            replacements.put(new VariableGetNode(TEMP, set.name()), set.value());
+            statements.remove(i);
+            for (int j = i; j < statements.size(); j++) {
+                statements.set(j, substitute(statements.get(j), replacements));
+            }
+            i--;
+        }
+        return compound(statements);
+    }
+
+    private static void countTempAssignments(Node node, Map<String, Integer> assignments) {
+        if (node instanceof VariableSetNode && TEMP.equals(((VariableSetNode) node).object())) {
+            assignments.merge(((VariableSetNode) node).name(), 1, Integer::sum);
+        }
+        for (Node child : children(node)) {
+            countTempAssignments(child, assignments);
+        }
+    }
+
+    private static boolean readsTemp(Node node, String name) {
+        if (node instanceof VariableGetNode) {
+            VariableGetNode get = (VariableGetNode) node;
+            return TEMP.equals(get.object()) && name.equals(get.name());
+        }
+        for (Node child : children(node)) {
+            if (readsTemp(child, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ?? checks whether the temp was assigned at compile time, so removing the assignment would change the result
+    private static boolean testsTemp(Node node, String name) {
+        if (node instanceof BinaryOperationNode && ((BinaryOperationNode) node).operator() == BinaryOperation.NULL_COALESCING) {
+            Node left = ((BinaryOperationNode) node).left();
+            if (left instanceof VariableGetNode && TEMP.equals(((VariableGetNode) left).object()) && name.equals(((VariableGetNode) left).name())) {
+                return true;
+            }
+        }
+        for (Node child : children(node)) {
+            if (testsTemp(child, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Common subexpression elimination
+
+    private Node eliminateCommonSubexpressions(Node node) {
+        Node[] statements = node instanceof CompoundNode ? ((CompoundNode) node).nodes() : new Node[]{node};
+        List<Node> result = new ArrayList<>(statements.length);
+        boolean changed = false;
+        for (Node statement : statements) {
+            changed |= this.eliminateCommonSubexpressions(statement, result);
+        }
+        return changed ? compound(result) : node;
+    }
+
+    private boolean eliminateCommonSubexpressions(Node statement, List<Node> result) {
+        Map<Node, Integer> counts = new HashMap<>();
+        countUnconditional(statement, counts);
+
+        Set<String> written = new HashSet<>();
+        collectWrites(statement, written);
+
+        List<Node> candidates = new ArrayList<>();
+        selectCandidates(statement, counts, written, candidates);
+        if (candidates.isEmpty()) {
+            result.add(statement);
+            return false;
+        }
+
+        // Inner subexpressions are computed first so larger ones can reuse them
+        candidates.sort(Comparator.comparingInt(MolangOptimizer::size));
+        Map<Node, Node> replacements = new LinkedHashMap<>();
+        for (Node candidate : candidates) {
+            String name = CSE_PREFIX + this.nextTemp++;
+            result.add(new VariableSetNode(TEMP, name, substituteChildren(candidate, replacements)));
+            replacements.put(candidate, new VariableGetNode(TEMP, name));
+        }
+        result.add(substitute(statement, replacements));
+        return true;
+    }
+
+    // Counts pure subexpressions that are always evaluated when the statement runs
+    private static void countUnconditional(Node node, Map<Node, Integer> counts) {
+        if (isCandidate(node)) {
+            counts.merge(node, 1, Integer::sum);
+        }
+        for (Node child : unconditionalChildren(node)) {
+            countUnconditional(child, counts);
+        }
+    }
+
+    private static void selectCandidates(Node node, Map<Node, Integer> counts, Set<String> written, List<Node> candidates) {
+        if (isCandidate(node) && counts.getOrDefault(node, 0) > 1 && !readsAny(node, written)) {
+            if (!candidates.contains(node)) {
+                candidates.add(node);
+            }
+            return;
+        }
+        for (Node child : unconditionalChildren(node)) {
+            selectCandidates(child, counts, written, candidates);
+        }
+    }
+
+    private static void collectWrites(Node node, Set<String> written) {
+        if (node instanceof VariableSetNode) {
+            VariableSetNode set = (VariableSetNode) node;
+            written.add(qualify(set.object(), set.name()));
+        }
+        for (Node child : children(node)) {
+            collectWrites(child, written);
+        }
+    }
+
+    private static boolean readsAny(Node node, Set<String> written) {
+        if (node instanceof VariableGetNode) {
+            VariableGetNode get = (VariableGetNode) node;
+            return written.contains(qualify(get.object(), get.name()));
+        }
+        for (Node child : children(node)) {
+            if (readsAny(child, written)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String qualify(String object, String name) {
+        String canonical = MolangSlotLayout.canonicalObject(object);
+        return (canonical != null ? canonical : object.toLowerCase(Locale.ROOT)) + "." + name;
+    }
+
+    private static boolean isCandidate(Node node) {
+        if (node instanceof ConstNode || node instanceof VariableGetNode || node instanceof ThisNode) {
+            return false;
+        }
+        return isPure(node);
+    }
+
+    private static boolean isPure(Node node) {
+        if (node instanceof ConstNode || node instanceof VariableGetNode || node instanceof ThisNode) {
+            return true;
+        }
+        if (node instanceof BinaryOperationNode) {
+            BinaryOperationNode binary = (BinaryOperationNode) node;
+            return isPure(binary.left()) && isPure(binary.right());
+        }
+        if (node instanceof NegateNode) {
+            return isPure(((NegateNode) node).value());
+        }
+        if (node instanceof MathNode) {
+            MathNode math = (MathNode) node;
+            if (!math.function().isDeterministic()) {
+                return false;
+            }
+            for (Node argument : math.arguments()) {
+                if (!isPure(argument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (node instanceof TernaryOperationNode) {
+            TernaryOperationNode ternary = (TernaryOperationNode) node;
+            return ternary.hasValue() && isPure(ternary.value()) && isPure(ternary.left()) && isPure(ternary.right());
+        }
+        return false;
+    }
+
+    // Slot dependencies
+
+    /**
+     * Lists the variables an expression reads if its value depends on nothing else, see {@link org.mybad.bedrockparticle.molang.api.MolangExpression#getSlotDependencies()}.
+     *
+     * @param node The expression tree
+     * @return The qualified names of the variables read in order of first use or <code>null</code> if the value can depend on anything else
+     */
+    @Nullable
+    public static String[] slotDependencies(Node node) {
+        Set<String> names = new LinkedHashSet<>();
+        return collectSlotDependencies(node, names) ? names.toArray(new String[0]) : null;
+    }
+
+    private static boolean collectSlotDependencies(Node node, Set<String> names) {
+        if (node instanceof VariableGetNode) {
+            VariableGetNode get = (VariableGetNode) node;
+            if (TEMP.equals(get.object())) {
+                return true;
+            }
+            String canonical = MolangSlotLayout.canonicalObject(get.object());
+            if (canonical == null) {
+                return false;
+            }
+            names.add(canonical + "." + get.name());
+            return true;
+        }
+        if (node instanceof VariableSetNode) {
+            // Writes to anything but temp variables are visible outside the expression
+            if (!TEMP.equals(((VariableSetNode) node).object())) {
+                return false;
+            }
+        } else if (node instanceof MathNode) {
+            if (!((MathNode) node).function().isDeterministic()) {
+                return false;
+            }
+        } else if (!(node instanceof ConstNode || node instanceof BinaryOperationNode || node instanceof NegateNode
+                || node instanceof TernaryOperationNode || node instanceof BinaryConditionalNode || node instanceof CompoundNode
+                || node instanceof ScopeNode || node instanceof LoopNode || node instanceof ReturnNode
+                || node instanceof BreakNode || node instanceof ContinueNode)) {
+            // this, functions and library calls depend on the environment
+            return false;
+        }
+        for (Node child : children(node)) {
+            if (!collectSlotDependencies(child, names)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tree helpers
+
+    private static Node[] children(Node node) {
+        if (node instanceof BinaryOperationNode) {
+            BinaryOperationNode binary = (BinaryOperationNode) node;
+            return new Node[]{binary.left(), binary.right()};
+        }
+        if (node instanceof NegateNode) {
+            return new Node[]{((NegateNode) node).value()};
+        }
+        if (node instanceof MathNode) {
+            return ((MathNode) node).arguments();
+        }
+        if (node instanceof FunctionNode) {
+            return ((FunctionNode) node).arguments();
+        }
+        if (node instanceof TernaryOperationNode) {
+            TernaryOperationNode ternary = (TernaryOperationNode) node;
+            return new Node[]{ternary.value(), ternary.left(), ternary.right()};
+        }
+        if (node instanceof BinaryConditionalNode) {
+            BinaryConditionalNode conditional = (BinaryConditionalNode) node;
+            return new Node[]{conditional.value(), conditional.branch()};
+        }
+        if (node instanceof CompoundNode) {
+            return ((CompoundNode) node).nodes();
+        }
+        if (node instanceof ScopeNode) {
+            return new Node[]{((ScopeNode) node).node()};
+        }
+        if (node instanceof LoopNode) {
+            LoopNode loop = (LoopNode) node;
+            return new Node[]{loop.iterations(), loop.body()};
+        }
+        if (node instanceof ReturnNode) {
+            return new Node[]{((ReturnNode) node).value()};
+        }
+        if (node instanceof VariableSetNode) {
+            return new Node[]{((VariableSetNode) node).value()};
+        }
+        return new Node[0];
+    }
+
+    // Children that are evaluated every time the parent is, in evaluation order
+    private static Node[] unconditionalChildren(Node node) {
+        if (node instanceof BinaryOperationNode) {
+            BinaryOperationNode binary = (BinaryOperationNode) node;
+            switch (binary.operator()) {
+                case AND:
+                case OR:
+                case NULL_COALESCING:
+                    return new Node[]{binary.left()};
+                default:
+                    return new Node[]{binary.left(), binary.right()};
+            }
+        }
+        if (node instanceof TernaryOperationNode) {
+            return new Node[]{((TernaryOperationNode) node).value()};
+        }
+        if (node instanceof BinaryConditionalNode) {
+            return new Node[]{((BinaryConditionalNode) node).value()};
+        }
+        if (node instanceof LoopNode) {
+            return new Node[]{((LoopNode) node).iterations()};
+        }
+        if (node instanceof CompoundNode || node instanceof ScopeNode) {
+            return new Node[0];
+        }
+        return children(node);
+    }
+
+    private static Node substitute(Node node, Map<Node, Node> replacements) {
+        Node replacement = replacements.get(node);
+        return replacement != null ? replacement : substituteChildren(node, replacements);
+    }
+
+    private static Node substituteChildren(Node node, Map<Node, Node> replacements) {
+        if (replacements.isEmpty()) {
+            return node;
+        }
+        if (node instanceof BinaryOperationNode) {
+            BinaryOperationNode binary = (BinaryOperationNode) node;
+            // The left side of ?? must stay a variable lookup
+            Node left = binary.operator() == BinaryOperation.NULL_COALESCING ? binary.left() : substitute(binary.left(), replacements);
+            return new BinaryOperationNode(binary.operator(), left, substitute(binary.right(), replacements));
+        }
+        if (node instanceof NegateNode) {
+            return new NegateNode(substitute(((NegateNode) node).value(), replacements));
+        }
+        if (node instanceof MathNode) {
+            MathNode math = (MathNode) node;
+            return new MathNode(math.function(), substituteAll(math.arguments(), replacements));
+        }
+        if (node instanceof FunctionNode) {
+            FunctionNode function = (FunctionNode) node;
+            return new FunctionNode(function.object(), function.function(), substituteAll(function.arguments(), replacements));
+        }
+        if (node instanceof TernaryOperationNode) {
+            TernaryOperationNode ternary = (TernaryOperationNode) node;
+            return new TernaryOperationNode(substitute(ternary.value(), replacements), substitute(ternary.left(), replacements), substitute(ternary.right(), replacements));
+        }
+        if (node instanceof BinaryConditionalNode) {
+            BinaryConditionalNode conditional = (BinaryConditionalNode) node;
+            return new BinaryConditionalNode(substitute(conditional.value(), replacements), substitute(conditional.branch(), replacements));
+        }
+        if (node instanceof CompoundNode) {
+            return new CompoundNode(substituteAll(((CompoundNode) node).nodes(), replacements));
+        }
+        if (node instanceof ScopeNode) {
+            return new ScopeNode(substitute(((ScopeNode) node).node(), replacements));
+        }
+        if (node instanceof LoopNode) {
+            LoopNode loop = (LoopNode) node;
+            return new LoopNode(substitute(loop.iterations(), replacements), substitute(loop.body(), replacements));
+        }
+        if (node instanceof ReturnNode) {
+            return new ReturnNode(substitute(((ReturnNode) node).value(), replacements));
+        }
+        if (node instanceof VariableSetNode) {
+            VariableSetNode set = (VariableSetNode) node;
+            return new VariableSetNode(set.object(), set.name(), substitute(set.value(), replacements), set.returnValue());
+        }
+        return node;
+    }
+
+    private static Node[] substituteAll(Node[] nodes, Map<Node, Node> replacements) {
+        Node[] result = new Node[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = substitute(nodes[i], replacements);
+        }
+        return result;
+    }
+
+    private static int size(Node node) {
+        int size = 1;
+        for (Node child : children(node)) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static boolean allConstant(Node[] nodes) {
+        for (Node node : nodes) {
+            if (!(node instanceof ConstNode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConstant(@Nullable Node node, float value) {
+        return node instanceof ConstNode && ((ConstNode) node).value() == value;
+    }
+
+    private static boolean isPositiveZero(@Nullable Node node) {
+        return node instanceof ConstNode && Float.floatToRawIntBits(((ConstNode) node).value()) == 0;
+    }
+
+    private static boolean isNegativeZero(@Nullable Node node) {
+        return node instanceof ConstNode && Float.floatToRawIntBits(((ConstNode) node).value()) == Float.floatToRawIntBits(-0.0F);
+    }
+
+    // Comparisons and logical operators only ever produce +0 or 1
+    private static boolean cannotBeNegativeZero(Node node) {
+        if (node instanceof ConstNode) {
+            return !isNegativeZero(node);
+        }
+        if (node instanceof NegateNode) {
+            return true;
+        }
+        if (node instanceof BinaryOperationNode) {
+            switch (((BinaryOperationNode) node).operator()) {
+                case AND:
+                case OR:
+                case EQUALS:
+                case NOT_EQUALS:
+                case LESS_EQUALS:
+                case LESS:
+                case GREATER_EQUALS:
+                case GREATER:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    private static Node compound(List<Node> statements) {
+        return statements.size() == 1 ? statements.get(0) : new CompoundNode(statements.toArray(new Node[0]));
+    }
+}
@@ -0,0 +1,91 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
+import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p>Instrumented variant of an expression compiled with {@link org.mybad.bedrockparticle.molang.api.MolangCompiler#PROFILE_FLAG}.</p>
+ * <p>Times every evaluation and records it into the {@link MolangProfiler} entry of the owner that compiled it.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class ProfiledMolangExpression implements MolangExpression {
+
+    private final MolangExpression delegate;
+    private final MolangProfiler.Entry entry;
+
+    private ProfiledMolangExpression(MolangExpression delegate, MolangProfiler.Entry entry) {
+        this.delegate = delegate;
+        this.entry = entry;
+    }
+
+    /**
+     * Wraps the specified expression for the owner set on the current thread.
+     * Constant expressions are returned as-is since they cost nothing to evaluate and callers rely on {@link MolangExpression#isConstant()}.
+     *
+     * @param expression The expression to instrument
+     * @return The instrumented expression
+     */
+    public static MolangExpression wrap(MolangExpression expression) {
+        if (expression.isConstant() || expression instanceof ProfiledMolangExpression) {
+            return expression;
+        }
+        return new ProfiledMolangExpression(expression, MolangProfiler.createEntry(expression.toString()));
+    }
+
+    @Override
+    public float get(MolangEnvironment environment) throws MolangRuntimeException {
+        MolangProfiler.Entry previous = MolangProfiler.enter(this.entry);
+        long start = System.nanoTime();
+        try {
+            return this.delegate.get(environment);
+        } finally {
+            this.entry.record(1, System.nanoTime() - start);
+            MolangProfiler.enter(previous);
+        }
+    }
+
+    @Override
+    public void getBatch(MolangEnvironment environment, float[][] columns, int count, float[] out) throws MolangRuntimeException {
+        MolangProfiler.Entry previous = MolangProfiler.enter(this.entry);
+        long start = System.nanoTime();
+        try {
+            this.delegate.getBatch(environment, columns, count, out);
+        } finally {
+            this.entry.record(count, System.nanoTime() - start);
+            MolangProfiler.enter(previous);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String[] getSlotDependencies() {
+        return this.delegate.getSlotDependencies();
+    }
+
+    @Override
+    public MolangExpression createCopy() {
+        MolangExpression copy = this.delegate.createCopy();
+        return copy == this.delegate ? this : new ProfiledMolangExpression(copy, this.entry);
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ProfiledMolangExpression && this.delegate.equals(((ProfiledMolangExpression) o).delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.delegate.hashCode();
+    }
+}
@@ -0,0 +1,132 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
+import org.mybad.bedrockparticle.molang.api.exception.MolangSyntaxException;
+import org.mybad.bedrockparticle.molang.impl.ast.Node;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Interprets an expression until it has been evaluated often enough to be worth compiling.</p>
+ * <p>Most expressions in a resource are only evaluated a handful of times, so generating a class for each of them costs more than it saves.
+ * Expressions that cross the threshold are compiled in the background and swapped in once the class is defined.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class TieredMolangExpression implements MolangExpression {
+
+    private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MoLang Compiler");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Set<String> FAILED = ConcurrentHashMap.newKeySet();
+
+    private final BytecodeCompiler compiler;
+    private final String cacheKey;
+    private final String source;
+    private final Node node;
+    private final InterpretedMolangExpression interpreted;
+    private final int threshold;
+    private final AtomicInteger invocations;
+    private volatile MolangExpression compiled;
+
+    /**
+     * @param compiler  The compiler to promote the expression with
+     * @param cacheKey  The key to persist the compiled class under or <code>null</code> to not persist it
+     * @param source    The source text of the expression before optimization
+     * @param node      The result of {@link BytecodeCompiler#optimize(Node)}
+     * @param threshold The number of evaluations before the expression is compiled
+     * @throws MolangSyntaxException If the node cannot be interpreted
+     */
+    public TieredMolangExpression(BytecodeCompiler compiler, @Nullable String cacheKey, String source, Node node, int threshold) throws MolangSyntaxException {
+        this.compiler = compiler;
+        this.cacheKey = cacheKey;
+        this.source = source;
+        this.node = node;
+        this.interpreted = new InterpretedMolangExpression(source, node, compiler.optimizes());
+        this.threshold = threshold;
+        this.invocations = new AtomicInteger();
+    }
+
+    @Override
+    public float get(MolangEnvironment environment) throws MolangRuntimeException {
+        MolangExpression compiled = this.compiled;
+        if (compiled != null) {
+            return compiled.get(environment);
+        }
+        this.count(1);
+        return this.interpreted.get(environment);
+    }
+
+    @Override
+    public void getBatch(MolangEnvironment environment, float[][] columns, int count, float[] out) throws MolangRuntimeException {
+        MolangExpression compiled = this.compiled;
+        if (compiled != null) {
+            compiled.getBatch(environment, columns, count, out);
+            return;
+        }
+        this.count(count);
+        this.interpreted.getBatch(environment, columns, count, out);
+    }
+
+    @Nullable
+    @Override
+    public String[] getSlotDependencies() {
+        // The generated class is built from the same tree
+        return this.interpreted.getSlotDependencies();
+    }
+
+    /**
+     * @return Whether evaluation has switched to the generated class
+     */
+    public boolean isCompiled() {
+        return this.compiled != null;
+    }
+
+    private void count(int evaluations) {
+        int previous = this.invocations.getAndAdd(evaluations);
+        // Only the call that crosses the threshold schedules compilation, later calls keep interpreting until it is ready
+        if (previous < this.threshold && previous + evaluations >= this.threshold) {
+            COMPILER.execute(this::promote);
+        }
+    }
+
+    private void promote() {
+        try {
+            this.compiled = this.compiler.build(this.cacheKey, this.source, this.node);
+        } catch (MolangSyntaxException e) {
+            // The interpreter already handles this expression, so it simply stays interpreted.
+            // The same source reached through other compilers or resources is only reported once
+            if (FAILED.add(this.source)) {
+                GlobalMolangCompiler.warn("Failed to compile MoLang expression, it stays interpreted: " + this.source, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MolangExpression && this.source.equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.source.hashCode();
+    }
+}
@@ -6,6 +6,8 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 /**
  * @author Ocelot
  */
@@ -27,6 +29,11 @@ public class MolangConstantNode implements MolangExpression  {
         return this.value;
     }
 
+    @Override
+    public void getBatch(@Nullable MolangEnvironment environment, float[][] columns, int count, float[] out) {
+        Arrays.fill(out, 0, count, this.value);
+    }
+
     @Override
     public float getConstant() {
         return this.value;
@@ -66,7 +66,8 @@ public final class ParticleData {
             description.getBlendTexture(),
             description.getBlendMode(),
             description.getBlendColor(),
-            description.isNativeSpeed());
+            description.isNativeSpeed(),
+            description.getPriority());
     }
 
     public void setEmissiveTexture(@Nullable BedrockResourceLocation resourceLocation) {
@@ -83,7 +84,8 @@ public final class ParticleData {
             description.getBlendTexture(),
             description.getBlendMode(),
             description.getBlendColor(),
-            description.isNativeSpeed());
+            description.isNativeSpeed(),
+            description.getPriority());
     }
 
     public void setBlendTexture(@Nullable BedrockResourceLocation resourceLocation) {
@@ -100,7 +102,8 @@ public final class ParticleData {
             resourceLocation,
             description.getBlendMode(),
             description.getBlendColor(),
-            description.isNativeSpeed());
+            description.isNativeSpeed(),
+            description.getPriority());
     }
 
     public Description description() {
@@ -165,6 +168,7 @@ public final class ParticleData {
         private final String blendMode;
         private final float[] blendColor;
         private final boolean nativeSpeed;
+        private final int priority;
 
         public Description(String identifier,
                            BedrockResourceLocation texture,
@@ -180,6 +184,24 @@ public final class ParticleData {
                            @Nullable String blendMode,
                            @Nullable float[] blendColor,
                            boolean nativeSpeed) {
+            this(identifier, texture, material, bloom, bloomStrength, bloomPasses, bloomScaleStep, bloomDownscale, emissiveTexture, emissiveStrength, blendTexture, blendMode, blendColor, nativeSpeed, 0);
+        }
+
+        public Description(String identifier,
+                           BedrockResourceLocation texture,
+                           @Nullable String material,
+                           boolean bloom,
+                           float bloomStrength,
+                           int bloomPasses,
+                           float bloomScaleStep,
+                           float bloomDownscale,
+                           @Nullable BedrockResourceLocation emissiveTexture,
+                           float emissiveStrength,
+                           @Nullable BedrockResourceLocation blendTexture,
+                           @Nullable String blendMode,
+                           @Nullable float[] blendColor,
+                           boolean nativeSpeed,
+                           int priority) {
             this.identifier = identifier;
             this.texture = texture;
             this.material = material;
@@ -194,6 +216,7 @@ public final class ParticleData {
             this.blendMode = blendMode != null ? blendMode : "alpha";
             this.blendColor = blendColor;
             this.nativeSpeed = nativeSpeed;
+            this.priority = priority;
         }
 
         public String getIdentifier() {
@@ -256,6 +279,13 @@ public final class ParticleData {
             return nativeSpeed;
         }
 
+        /**
+         * @return The admission priority of this effect when the particle budget is full. Higher priorities evict lower ones
+         */
+        public int getPriority() {
+            return priority;
+        }
+
         public static class Deserializer implements JsonDeserializer<Description> {
 
             @Override
@@ -339,8 +369,13 @@ public final class ParticleData {
                 if (!nativeSpeed && basicRenderParams.has("skycoreNativeSpeed")) {
                     nativeSpeed = ParticleGsonHelper.getAsBoolean(basicRenderParams, "skycoreNativeSpeed", false);
                 }
+                // SkyCore extension: admission priority used when the particle budget is full
+                int priority = ParticleGsonHelper.getAsInt(basicRenderParams, "skycore_priority", 0);
+                if (priority == 0 && basicRenderParams.has("skycorePriority")) {
+                    priority = ParticleGsonHelper.getAsInt(basicRenderParams, "skycorePriority", 0);
+                }
 
-                return new Description(identifier, texture, material, bloom, bloomStrength, bloomPasses, bloomScale, bloomDownscale, emissiveTexture, emissiveStrength, blendTexture, blendMode, blendColor, nativeSpeed);
+                return new Description(identifier, texture, material, bloom, bloomStrength, bloomPasses, bloomScale, bloomDownscale, emissiveTexture, emissiveStrength, blendTexture, blendMode, blendColor, nativeSpeed, priority);
             }
 
             private float[] readColorArray(JsonArray array) {
@@ -16,7 +16,7 @@ import java.util.Map;
  * Binary serializer for Bedrock {@link ParticleData} definitions.
  */
 public final class ParticleBinarySerializer implements BinaryResourceSerializer<ParticleData> {
-    private static final int VERSION = 2;
+    private static final int VERSION = 3;
     private int archiveVersionHint = VERSION;
 
     @Override
@@ -72,6 +72,7 @@ public final class ParticleBinarySerializer implements BinaryResourceSerializer<
         writer.writeString(description == null ? "alpha" : safe(description.getBlendMode()));
         writer.writeFloatArray(description == null ? null : description.getBlendColor());
         writer.writeBoolean(description != null && description.isNativeSpeed());
+        writer.writeVarInt(description == null ? 0 : description.getPriority());
     }
 
     private ParticleData.Description readDescription(BinaryDataReader reader) throws IOException {
@@ -92,6 +93,10 @@ public final class ParticleBinarySerializer implements BinaryResourceSerializer<
         if (archiveVersionHint >= 2) {
             nativeSpeed = reader.readBoolean();
         }
+        int priority = 0;
+        if (archiveVersionHint >= 3) {
+            priority = reader.readVarInt();
+        }
         return new ParticleData.Description(
             identifier == null ? "" : identifier,
             texture,
@@ -106,7 +111,8 @@ public final class ParticleBinarySerializer implements BinaryResourceSerializer<
             blendTexture,
             blendMode == null || blendMode.isEmpty() ? "alpha" : blendMode,
             blendColor.length == 0 ? null : blendColor,
-            nativeSpeed
+            nativeSpeed,
+            priority
         );
     }
 
@@ -0,0 +1,44 @@
+package org.mybad.bedrockparticle.molang.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the unknown variable report stays bounded.
+ *
+ * @author Ocelot
+ */
+public class MolangUnknownVariablesTest {
+
+    @Test
+    public void reportIsBounded() {
+        MolangUnknownVariablePolicy previous = MolangUnknownVariables.getPolicy();
+        MolangUnknownVariables.setPolicy(MolangUnknownVariablePolicy.DEFAULT_ZERO);
+        MolangUnknownVariables.clearReport();
+        try {
+            int extra = 10;
+            for (int i = 0; i < MolangUnknownVariables.MAX_REPORTED + extra; i++) {
+                MolangUnknownVariables.report("v.a" + (i / 4), "variable.missing" + i);
+            }
+            // Names that are already recorded are not counted again
+            MolangUnknownVariables.report("v.a0", "variable.missing0");
+
+            int reported = 0;
+            for (Set<String> names : MolangUnknownVariables.getReport().values()) {
+                reported += names.size();
+            }
+            assertEquals(MolangUnknownVariables.MAX_REPORTED, reported);
+            assertEquals(extra, MolangUnknownVariables.getDroppedCount());
+
+            MolangUnknownVariables.clearReport();
+            assertEquals(0, MolangUnknownVariables.getReport().size());
+            assertEquals(0L, MolangUnknownVariables.getDroppedCount());
+        } finally {
+            MolangUnknownVariables.clearReport();
+            MolangUnknownVariables.setPolicy(previous);
+        }
+    }
+}
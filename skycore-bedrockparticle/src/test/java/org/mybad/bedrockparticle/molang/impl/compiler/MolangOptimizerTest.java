@@ -0,0 +1,142 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangRuntime;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.molang.impl.ast.BinaryOperationNode;
+import org.mybad.bedrockparticle.molang.impl.ast.ConstNode;
+import org.mybad.bedrockparticle.molang.impl.ast.Node;
+import org.mybad.bedrockparticle.molang.impl.ast.ReturnNode;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link MolangOptimizer} only produces trees that evaluate bit for bit like the unoptimized expression.
+ *
+ * @author Ocelot
+ */
+public class MolangOptimizerTest {
+
+    private static final String[] EXPRESSIONS = {
+        "4 * 4 + 2",
+        "v.x * 1",
+        "1 * v.x",
+        "v.x / 1",
+        "v.x - 0",
+        "v.x + 0",
+        "0 + v.x",
+        "v.nz + 0",
+        "0 + v.nz",
+        "v.nz - 0",
+        "v.nz - 0 * -1",
+        "v.nz * 1",
+        "(v.x > 1) + 0",
+        "0 && v.x",
+        "1 || v.x",
+        "v.x && 0",
+        "v.nan + 0",
+        "v.nan * 1",
+        "1 ? v.x : v.y",
+        "0 ? v.x : v.y",
+        "(1 > 2) ? 3 : v.x * 1 + 0",
+        "math.sin(90) * v.x",
+        "math.pow(v.x, 2) + math.pow(v.x, 2)",
+        "v.y > 1 ? math.pow(v.x, 2) + math.pow(v.x, 2) : 0",
+        "temp.a = 5; temp.b = temp.a * 2; return temp.b + v.x;",
+        "temp.a = 0; return v.nz + temp.a;",
+        "v.q = v.x * v.y + 1; return v.q * 2;",
+        "v.x = v.x * 2 + v.x * 2; return v.x;",
+        "temp.i = 0; loop(3, {temp.i = temp.i + 1;}); return temp.i;",
+        "v.missing ?? 7",
+        "math.clamp(v.y * 20, 0, 45) + math.abs(v.nz)"
+    };
+
+    @Test
+    public void optimizedMatchesUnoptimized() throws MolangException {
+        MolangCompiler optimized = MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG);
+        MolangCompiler unoptimized = MolangCompiler.create(0);
+        for (String expression : EXPRESSIONS) {
+            float expected = createRuntime().resolve(unoptimized.compile(expression));
+            float actual = createRuntime().resolve(optimized.compile(expression));
+            assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(actual), expression + ": expected " + expected + " but got " + actual);
+        }
+    }
+
+    @Test
+    public void foldsConstants() throws MolangException {
+        Node node = optimize("4 * 4 + 2");
+        assertTrue(node instanceof ConstNode, "4 * 4 + 2 should fold to a constant but was " + node);
+        assertEquals(18.0F, ((ConstNode) node).value());
+    }
+
+    @Test
+    public void removesExactIdentities() throws MolangException {
+        assertEquals(optimize("v.x"), optimize("v.x * 1"));
+        assertEquals(optimize("v.x"), optimize("v.x / 1"));
+        assertEquals(optimize("v.x"), optimize("v.x - 0"));
+        assertEquals(optimize("v.x > 1"), optimize("(v.x > 1) + 0"));
+    }
+
+    @Test
+    public void keepsAddOfPossibleNegativeZero() throws MolangException {
+        // -0 + 0 is +0, so dropping the add would change the sign of the result
+        assertTrue(optimize("v.x + 0") instanceof BinaryOperationNode);
+        assertTrue(optimize("0 + v.x") instanceof BinaryOperationNode);
+        assertTrue(optimize("v.x - 0 * -1") instanceof BinaryOperationNode);
+
+        MolangCompiler optimized = MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG);
+        assertEquals(Float.floatToIntBits(0.0F), Float.floatToIntBits(createRuntime().resolve(optimized.compile("v.nz + 0"))));
+        assertEquals(Float.floatToIntBits(-0.0F), Float.floatToIntBits(createRuntime().resolve(optimized.compile("v.nz - 0"))));
+    }
+
+    @Test
+    public void reportsSlotDependencies() throws MolangException {
+        int[] modes = {MolangCompiler.OPTIMIZE_FLAG, MolangCompiler.OPTIMIZE_FLAG | MolangCompiler.TIERED_FLAG, MolangCompiler.OPTIMIZE_FLAG | MolangCompiler.PROFILE_FLAG, 0};
+        for (int flags : modes) {
+            MolangCompiler compiler = MolangCompiler.create(flags);
+            assertSlotDependencies(compiler, "4 * 4 + 2");
+            assertSlotDependencies(compiler, "v.x * q.anim_time + 1", "variable.x", "query.anim_time");
+            assertSlotDependencies(compiler, "temp.a = variable.x * 2; return temp.a + c.y;", "variable.x", "query.y");
+            assertSlotDependencies(compiler, "v.y > 1 ? math.pow(v.x, 2) + math.pow(v.x, 2) : 0", "variable.y", "variable.x");
+
+            assertNull(compiler.compile("math.random(0, 1) * v.x").getSlotDependencies(), "random functions depend on the environment");
+            assertNull(compiler.compile("math.die_roll(2, 0, 1) + v.x").getSlotDependencies(), "random functions depend on the environment");
+            assertNull(compiler.compile("v.y = v.x * 2; return v.y;").getSlotDependencies(), "variable writes are visible outside the expression");
+            assertNull(compiler.compile("global.x + 1").getSlotDependencies(), "global variables are not stored in slots");
+            assertNull(compiler.compile("this + v.x").getSlotDependencies(), "this depends on the environment");
+        }
+    }
+
+    private static void assertSlotDependencies(MolangCompiler compiler, String expression, String... expected) throws MolangException {
+        MolangExpression compiled = compiler.compile(expression);
+        String[] names = compiled.getSlotDependencies();
+        assertNotNull(names, expression + " (" + compiled.getClass().getSimpleName() + ") only reads slots");
+        Set<String> actual = new HashSet<>(Arrays.asList(names));
+        assertEquals(new HashSet<>(Arrays.asList(expected)), actual, expression);
+    }
+
+    private static Node optimize(String expression) throws MolangException {
+        BytecodeCompiler compiler = new BytecodeCompiler(MolangCompiler.OPTIMIZE_FLAG);
+        Node node = compiler.optimize(MolangParser.parseTokens(MolangLexer.createTokens(expression)));
+        // Single expressions are parsed as an implicit return
+        return node instanceof ReturnNode ? ((ReturnNode) node).value() : node;
+    }
+
+    private static MolangRuntime createRuntime() {
+        return MolangRuntime.runtime()
+            .setVariable("x", 1.5F)
+            .setVariable("y", 2.5F)
+            .setVariable("nz", -0.0F)
+            .setVariable("nan", Float.NaN)
+            .create(2.0F);
+    }
+}
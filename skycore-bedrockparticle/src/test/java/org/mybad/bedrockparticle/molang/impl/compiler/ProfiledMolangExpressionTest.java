@@ -0,0 +1,30 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that instrumented expressions compare equal to other instrumented expressions of the same source.
+ *
+ * @author Ocelot
+ */
+public class ProfiledMolangExpressionTest {
+
+    @Test
+    public void equalsIsSymmetric() throws MolangException {
+        MolangCompiler compiler = MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG);
+        MolangExpression plain = compiler.compile("v.a * 2");
+        MolangExpression profiled = ProfiledMolangExpression.wrap(compiler.compile("v.a * 2"));
+        MolangExpression other = ProfiledMolangExpression.wrap(compiler.compile("v.a * 2"));
+
+        assertEquals(profiled, other);
+        assertEquals(other, profiled);
+        assertEquals(profiled.hashCode(), other.hashCode());
+        assertNotEquals(profiled, plain, "a profiled expression must not equal a plain one");
+    }
+}
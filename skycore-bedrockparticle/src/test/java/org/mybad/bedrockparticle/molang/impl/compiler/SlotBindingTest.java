@@ -0,0 +1,93 @@
+package org.mybad.bedrockparticle.molang.impl.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangRuntime;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that slot bindings are shared by layouts extending the same base and stay correct for names outside of it.
+ *
+ * @author Ocelot
+ */
+public class SlotBindingTest {
+
+    private static final int LAYOUTS = CompiledMolangExpression.MAX_BINDINGS * 2;
+
+    @Test
+    public void baseNamesShareOneBinding() throws MolangException {
+        MolangSlotLayout base = base();
+        MolangSlotLayout[] layouts = extend(base);
+        MolangExpression expression = MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG).compile("v.a * 2 + v.b");
+        assertTrue(expression instanceof CompiledMolangExpression, "expected a generated expression but got " + expression.getClass());
+        CompiledMolangExpression compiled = (CompiledMolangExpression) expression;
+
+        int[] first = null;
+        for (int i = 0; i < LAYOUTS; i++) {
+            MolangRuntime runtime = runtime(layouts[i], i, 1.0F, 0.0F);
+            assertEquals(i * 2.0F + 1.0F, runtime.resolve(compiled));
+            int[] slots = compiled.bindSlots(runtime);
+            if (first == null) {
+                first = slots;
+            }
+            assertSame(first, slots, "layout " + i + " should reuse the binding of the base layout");
+        }
+        assertSame(first, compiled.bindSlots(runtime(base, 0.0F, 0.0F, 0.0F)));
+    }
+
+    @Test
+    public void extensionNamesBindPerLayout() throws MolangException {
+        MolangSlotLayout base = base();
+        MolangSlotLayout[] layouts = extend(base);
+        MolangExpression compiled = MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG).compile("v.a + v.curve0");
+        MolangExpression interpreted = new InterpretedMolangExpression("v.a + v.curve0",
+            new BytecodeCompiler(MolangCompiler.OPTIMIZE_FLAG).optimize(MolangParser.parseTokens(MolangLexer.createTokens("v.a + v.curve0"))), true);
+
+        for (MolangExpression expression : new MolangExpression[]{compiled, interpreted}) {
+            for (int round = 0; round < 2; round++) {
+                // curve0 is a slot in the first layout and a plain variable everywhere else
+                assertEquals(3.0F + 5.0F, runtime(layouts[0], 3.0F, 0.0F, 5.0F).resolve(expression), expression.getClass().getSimpleName());
+                for (int i = 1; i < LAYOUTS; i++) {
+                    assertEquals(3.0F + 7.0F, runtime(layouts[i], 3.0F, 0.0F, 5.0F).resolve(expression), expression.getClass().getSimpleName() + " layout " + i);
+                }
+                assertEquals(3.0F + 7.0F, runtime(base, 3.0F, 0.0F, 5.0F).resolve(expression), expression.getClass().getSimpleName() + " base");
+            }
+        }
+    }
+
+    private static MolangSlotLayout base() {
+        MolangSlotLayout.Builder builder = MolangSlotLayout.builder();
+        builder.add("variable.a");
+        builder.add("variable.b");
+        return builder.build();
+    }
+
+    private static MolangSlotLayout[] extend(MolangSlotLayout base) {
+        MolangSlotLayout[] layouts = new MolangSlotLayout[LAYOUTS];
+        for (int i = 0; i < LAYOUTS; i++) {
+            MolangSlotLayout.Builder builder = MolangSlotLayout.builder(base);
+            builder.add("variable.curve" + i);
+            layouts[i] = builder.build();
+            assertSame(base, layouts[i].getBase());
+        }
+        return layouts;
+    }
+
+    private static MolangRuntime runtime(MolangSlotLayout layout, float a, float b, float curve) {
+        MolangRuntime runtime = MolangRuntime.runtime().setVariable("curve0", 7.0F).create();
+        float[] frame = layout.createFrame();
+        frame[0] = a;
+        frame[1] = b;
+        if (frame.length > 2) {
+            frame[2] = curve;
+        }
+        runtime.setSlots(layout, frame);
+        return runtime;
+    }
+}
@@ -8,9 +8,15 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariables;
+import org.mybad.bedrockparticle.particle.ParticleMolangCompiler;
 import org.mybad.core.binary.BinaryPayloadCipherRegistry;
 import org.mybad.minecraft.audio.SoundExistenceCache;
 import org.mybad.minecraft.client.input.HiddenReloadHotkey;
+import org.mybad.minecraft.client.input.MolangProfilerHotkey;
 import org.mybad.minecraft.common.indicator.IndicatorRendererEvent;
 import org.mybad.minecraft.config.SkyCoreConfig;
 import org.mybad.minecraft.debug.DebugRenderController;
@@ -76,6 +82,17 @@ public class SkyCoreMod {
         this.gameDir = event.getModConfigurationDirectory().getParentFile();
         SkyCoreConfig.init(ResourcePackRegistrar.getPackRoot(gameDir));
 //        initPathLogging();
+        // Molang 未定义的变量按 0 处理，每个表达式只警告一次
+        MolangUnknownVariables.setWarningHandler((expression, name) ->
+            LOGGER.warn("[SkyCore] Molang 表达式引用了未定义的变量 {}: {}", name, expression));
+        // 编译失败、类缓存读写失败等可恢复的问题写入日志
+        GlobalMolangCompiler.setWarningHandler((message, error) -> LOGGER.warn("[SkyCore] " + message, error));
+        // 粒子表达式先解释执行，调用足够多次后再在后台编译为字节码
+        // 生成的表达式类缓存到磁盘，下次启动直接加载，编译器变更后自动失效
+        GlobalMolangCompiler.setPersistentCache(gameDir.toPath().resolve("skycore_cache").resolve("molang-classes.bin"));
+        // 开启性能分析时编译带计时的表达式，关闭时不产生任何额外开销
+        ParticleMolangCompiler.set(input -> GlobalMolangCompiler.get(MolangCompiler.DEFAULT_FLAGS | MolangCompiler.TIERED_FLAG
+            | (MolangProfiler.isEnabled() ? MolangCompiler.PROFILE_FLAG : 0)).compile(input));
 
         // 初始化资源加载器
         BinaryPayloadCipherRegistry cipherRegistry = initCipherRegistry();
@@ -104,6 +121,7 @@ public class SkyCoreMod {
 
         // 隐藏热键
         MinecraftForge.EVENT_BUS.register(new HiddenReloadHotkey());
+        MinecraftForge.EVENT_BUS.register(new MolangProfilerHotkey());
         indicatorRendererEvent = new IndicatorRendererEvent();
         MinecraftForge.EVENT_BUS.register(indicatorRendererEvent);
         MinecraftForge.EVENT_BUS.register(WaypointService.getInstance().getEventHandler());
@@ -0,0 +1,53 @@
+package org.mybad.minecraft.client.input;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.InputEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import org.lwjgl.input.Keyboard;
+import org.mybad.minecraft.debug.MolangProfilerController;
+
+import java.nio.file.Path;
+
+/**
+ * Alt+M 开关 Molang 性能分析，分析期间 Alt+N 切换报表排序
+ */
+@SideOnly(Side.CLIENT)
+public final class MolangProfilerHotkey {
+
+    private boolean wasTogglePressed;
+    private boolean wasSortPressed;
+
+    @SubscribeEvent
+    public void onKeyInput(InputEvent.KeyInputEvent event) {
+        boolean altDown = Keyboard.isKeyDown(Keyboard.KEY_LMENU) || Keyboard.isKeyDown(Keyboard.KEY_RMENU);
+        boolean toggle = altDown && Keyboard.isKeyDown(Keyboard.KEY_M);
+        boolean sort = altDown && Keyboard.isKeyDown(Keyboard.KEY_N);
+        if (toggle && !wasTogglePressed) {
+            triggerToggle();
+        }
+        if (sort && !wasSortPressed && MolangProfilerController.isActive()) {
+            MolangProfilerController.cycleSort();
+        }
+        wasTogglePressed = toggle;
+        wasSortPressed = sort;
+    }
+
+    private void triggerToggle() {
+        Minecraft mc = Minecraft.getMinecraft();
+        mc.addScheduledTask(() -> {
+            boolean enabling = !MolangProfilerController.isActive();
+            Path dump = MolangProfilerController.toggle();
+            if (mc.player == null) {
+                return;
+            }
+            if (enabling) {
+                mc.player.sendMessage(new TextComponentString("SkyCore Molang 性能分析已开启"));
+            } else {
+                mc.player.sendMessage(new TextComponentString("SkyCore Molang 性能分析已关闭" + (dump != null ? "，报表: " + dump.getFileName() : "")));
+            }
+        });
+    }
+}
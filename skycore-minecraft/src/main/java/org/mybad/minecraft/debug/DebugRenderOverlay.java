@@ -5,17 +5,25 @@ import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
 import org.mybad.minecraft.config.EntityModelMapping;
 import org.mybad.minecraft.config.SkyCoreConfig;
 import org.mybad.minecraft.render.entity.EntityRenderDispatcher;
 import org.mybad.minecraft.render.skull.SkullModelManager;
 
+import java.util.List;
+import java.util.Locale;
+
 @SideOnly(Side.CLIENT)
 public final class DebugRenderOverlay {
     private static final double MAX_DISTANCE_SQ = 256.0 * 256.0;
+    private static final int PROFILER_OWNER_LINES = 5;
+    private static final int PROFILER_EXPRESSION_LINES = 10;
+    private static final int PROFILER_SOURCE_LENGTH = 60;
 
     private DebugRenderOverlay() {}
 
@@ -54,6 +62,38 @@ public final class DebugRenderOverlay {
         GlStateManager.popMatrix();
     }
 
+    /**
+     * 在屏幕左侧列出 Molang 性能分析结果，按当前排序取前几项
+     */
+    public static void renderText(RenderGameOverlayEvent.Text event) {
+        if (event == null || !MolangProfilerController.isActive()) {
+            return;
+        }
+        MolangProfiler.Sort sort = MolangProfilerController.getSort();
+        List<String> left = event.getLeft();
+        left.add("");
+        left.add("[SkyCore] Molang 性能分析 排序: " + sort.name().toLowerCase(Locale.ROOT) + " (Alt+N 切换, Alt+M 关闭并导出)");
+        List<MolangProfiler.Sample> owners = MolangProfiler.getOwnerReport(sort);
+        for (int i = 0; i < owners.size() && i < PROFILER_OWNER_LINES; i++) {
+            left.add(formatSample(owners.get(i), owners.get(i).getOwner()));
+        }
+        List<MolangProfiler.Sample> expressions = MolangProfiler.getExpressionReport(sort);
+        for (int i = 0; i < expressions.size() && i < PROFILER_EXPRESSION_LINES; i++) {
+            MolangProfiler.Sample sample = expressions.get(i);
+            String source = sample.getSource();
+            if (source != null && source.length() > PROFILER_SOURCE_LENGTH) {
+                source = source.substring(0, PROFILER_SOURCE_LENGTH) + "...";
+            }
+            left.add(formatSample(sample, "  " + source));
+        }
+    }
+
+    private static String formatSample(MolangProfiler.Sample sample, String label) {
+        return String.format(Locale.ROOT, "%s  %d 次 %.2fms %.0fns/次%s",
+            label, sample.getCalls(), sample.getTotalMillis(), sample.getAverageNanos(),
+            sample.getUnknownHits() > 0 ? " 未定义变量 " + sample.getUnknownHits() : "");
+    }
+
     private static void drawEntityBoxes(EntityRenderDispatcher dispatcher, double camX, double camY, double camZ) {
         dispatcher.forEachWrapper((entity, entry) -> {
             if (entity == null || entity.isDead) {
@@ -0,0 +1,84 @@
+package org.mybad.minecraft.debug;
+
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
+import org.mybad.minecraft.SkyCoreMod;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 维护 Molang 性能分析的开关和报表排序。
+ * 开启后重新加载资源，使之后编译的表达式带上计时包装；关闭时导出报表并重新加载，恢复无开销的表达式。
+ */
+@SideOnly(Side.CLIENT)
+public final class MolangProfilerController {
+    private static MolangProfiler.Sort sort = MolangProfiler.Sort.TOTAL_TIME;
+
+    private MolangProfilerController() {
+    }
+
+    public static boolean isActive() {
+        return MolangProfiler.isEnabled();
+    }
+
+    public static MolangProfiler.Sort getSort() {
+        return sort;
+    }
+
+    public static MolangProfiler.Sort cycleSort() {
+        sort = sort.next();
+        return sort;
+    }
+
+    /**
+     * 切换分析状态
+     *
+     * @return 关闭时导出的报表文件，开启或导出失败时为 null
+     */
+    @Nullable
+    public static Path toggle() {
+        Path dump = null;
+        if (MolangProfiler.isEnabled()) {
+            dump = dump();
+            MolangProfiler.setEnabled(false);
+        } else {
+            MolangProfiler.setEnabled(true);
+        }
+        MolangProfiler.clear();
+        if (SkyCoreMod.instance != null) {
+            SkyCoreMod.instance.reload();
+        }
+        return dump;
+    }
+
+    /**
+     * 把当前的统计写入 skycore_profiler 目录
+     *
+     * @return 写入的文件，失败时为 null
+     */
+    @Nullable
+    public static Path dump() {
+        Path directory = Minecraft.getMinecraft().gameDir.toPath().resolve("skycore_profiler");
+        Path file = directory.resolve("molang-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".tsv");
+        try {
+            Files.createDirectories(directory);
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                MolangProfiler.writeReport(writer, sort);
+            }
+            SkyCoreMod.LOGGER.info("[SkyCore] Molang 性能报表已导出: {}", file);
+            return file;
+        } catch (IOException e) {
+            SkyCoreMod.LOGGER.warn("[SkyCore] 导出 Molang 性能报表失败: {}", file, e);
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.mybad.minecraft.event;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.EntityLivingBase;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.client.event.RenderLivingEvent;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
@@ -113,6 +114,14 @@ public class EntityRenderEventHandler {
         org.mybad.minecraft.debug.DebugRenderOverlay.render(event, entityDispatcher);
     }
 
+    /**
+     * 渲染调试文字
+     */
+    @SubscribeEvent
+    public void onRenderGameOverlayText(RenderGameOverlayEvent.Text event) {
+        org.mybad.minecraft.debug.DebugRenderOverlay.renderText(event);
+    }
+
     @SubscribeEvent
     public void onClientTick(TickEvent.ClientTickEvent event) {
         if (event.phase != TickEvent.Phase.END) {
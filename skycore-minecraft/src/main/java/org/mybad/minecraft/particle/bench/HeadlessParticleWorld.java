@@ -0,0 +1,72 @@
+package org.mybad.minecraft.particle.bench;
+
+import net.minecraft.block.Block;
+import org.mybad.minecraft.particle.collision.VoxelCollisionWorld;
+import org.mybad.minecraft.particle.runtime.ParticleWorld;
+
+import javax.annotation.Nullable;
+
+/**
+ * 无头模拟使用的合成世界：y < floorY 的方块格都是完整方块，其余为空气；没有方块实例、光照和观察者，
+ * 声音忽略，日志输出到标准输出。
+ */
+public final class HeadlessParticleWorld implements ParticleWorld, VoxelCollisionWorld {
+    private final int floorY;
+    private final boolean logging;
+
+    public HeadlessParticleWorld(int floorY, boolean logging) {
+        this.floorY = floorY;
+        this.logging = logging;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public VoxelCollisionWorld getCollision() {
+        return this;
+    }
+
+    @Override
+    public void collectBoxes(int x, int y, int z, BoxSink sink) {
+        if (y < floorY) {
+            sink.add(x, y, z, x + 1.0, y + 1.0, z + 1.0);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Block resolveBlock(String id) {
+        return null;
+    }
+
+    @Override
+    public int getPackedLight(int x, int y, int z) {
+        // 满天空光、满方块光
+        return 0xF000F0;
+    }
+
+    @Override
+    public boolean getViewerPosition(double[] out) {
+        return false;
+    }
+
+    @Override
+    public void playSound(String sound, double x, double y, double z) {
+    }
+
+    @Override
+    public void log(String message) {
+        if (logging) {
+            System.out.println("[Particle] " + message);
+        }
+    }
+}
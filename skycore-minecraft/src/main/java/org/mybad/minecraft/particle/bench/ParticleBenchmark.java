@@ -0,0 +1,314 @@
+package org.mybad.minecraft.particle.bench;
+
+import com.google.gson.JsonParser;
+import org.mybad.bedrockparticle.particle.ParticleData;
+import org.mybad.bedrockparticle.particle.ParticleParser;
+import org.mybad.minecraft.particle.runtime.BedrockParticleSystem;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 无头粒子基准：从目录加载所有粒子 JSON，在合成世界中按固定步长模拟，报告吞吐、分配速率和状态校验值。
+ * <p>
+ * 每个定义在网格上放一个发射器，每隔 respawn 个 tick 重新生成一次；相同种子两次运行的校验值相同，
+ * 用于确认优化没有改变模拟结果。Molang 的随机函数从粒子按种子派生的随机数取值，用到它们的定义同样可复现。
+ * 加上 {@code --verify} 时用同一种子再模拟一遍，校验值不同则以状态 1 退出；之后把预算压到 {@value #VERIFY_BUDGET}，
+ * 分别在单线程和并行下模拟，预算占满时挤掉的粒子和最终状态也必须一致。
+ * <p>
+ * 用法：{@code ParticleBenchmark <dir> [seconds] [--seed <seed>] [--respawn <ticks>] [--warmup <seconds>] [--budget <count>] [--verify]}，
+ * 或 {@code gradlew :skycore-minecraft:benchParticles -PparticleBenchArgs="<dir> 60 --seed 1"}；
+ * 需要在带 Minecraft 类的运行时类路径下启动，但不创建客户端实例。
+ * <p>
+ * {@code ParticleBenchmark --expiry [particles] [rounds]} 测量一批粒子在同一 tick 全部到期时的耗时，见 {@link ParticleExpiryBenchmark}。
+ */
+public final class ParticleBenchmark {
+    private static final int TICKS_PER_SECOND = Math.round(1.0f / BedrockParticleSystem.TICK_SECONDS);
+    private static final double GRID_SPACING = 16.0;
+    private static final double SPAWN_HEIGHT = 4.0;
+    private static final int EXPIRY_PARTICLES = 2000;
+    private static final int EXPIRY_ROUNDS = 200;
+    /**
+     * 校验并行确定性时的预算，高于并行模拟的粒子数阈值，预算占满时仍会并行
+     */
+    private static final int VERIFY_BUDGET = 1024;
+    private static final int VERIFY_THREADS = 4;
+
+    private final Map<String, Path> files = new HashMap<>();
+    private final Map<String, ParticleData> loaded = new HashMap<>();
+    private final List<String> definitions = new ArrayList<>();
+    private final Path root;
+
+    private ParticleBenchmark(Path root) {
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("用法: ParticleBenchmark <dir> [seconds] [--seed <seed>] [--respawn <ticks>] [--warmup <seconds>] [--budget <count>] [--verify]");
+            System.err.println("      ParticleBenchmark --expiry [particles] [rounds]");
+            System.exit(1);
+            return;
+        }
+        if ("--expiry".equals(args[0])) {
+            int particles = args.length > 1 ? Integer.parseInt(args[1]) : EXPIRY_PARTICLES;
+            int rounds = args.length > 2 ? Integer.parseInt(args[2]) : EXPIRY_ROUNDS;
+            ParticleExpiryBenchmark.run(particles, rounds, 0L);
+            return;
+        }
+        Path dir = Paths.get(args[0]);
+        double seconds = 30.0;
+        double warmup = 5.0;
+        long seed = 0L;
+        int respawn = TICKS_PER_SECOND * 2;
+        boolean verify = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--respawn":
+                    respawn = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--warmup":
+                    warmup = Double.parseDouble(args[++i]);
+                    break;
+                case "--budget":
+                    BedrockParticleSystem.setParticleBudget(Integer.parseInt(args[++i]));
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.err.println("[ParticleBench] 未知参数 " + args[i]);
+                        System.exit(1);
+                        return;
+                    }
+                    seconds = Double.parseDouble(args[i]);
+                    break;
+            }
+        }
+
+        ParticleBenchmark bench = new ParticleBenchmark(dir);
+        bench.index();
+        if (bench.definitions.isEmpty()) {
+            System.err.println("[ParticleBench] 目录中没有可用的粒子定义: " + dir);
+            System.exit(1);
+            return;
+        }
+        System.out.println("[ParticleBench] " + bench.definitions.size() + " 个粒子定义, seed=" + seed);
+
+        if (warmup > 0.0) {
+            bench.run(seed, respawn, (int) Math.ceil(warmup * TICKS_PER_SECOND), false);
+        }
+        int ticks = (int) Math.ceil(seconds * TICKS_PER_SECOND);
+        long checksum = bench.run(seed, respawn, ticks, true).getStateChecksum();
+        if (verify) {
+            long repeated = bench.run(seed, respawn, ticks, false).getStateChecksum();
+            if (repeated != checksum) {
+                System.err.println(String.format(Locale.ROOT, "[ParticleBench] 相同种子的两次运行结果不同: %016x / %016x", checksum, repeated));
+                System.exit(1);
+                return;
+            }
+            System.out.println("[ParticleBench] 相同种子的两次运行结果一致");
+            if (!bench.verifySaturated(seed, respawn, ticks)) {
+                System.exit(1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 预算占满时分别用单线程和并行模拟，挤掉与丢弃的数量和最终状态都应一致
+     *
+     * @return 结果是否一致
+     */
+    private boolean verifySaturated(long seed, int respawn, int ticks) {
+        int previousBudget = BedrockParticleSystem.getParticleBudget();
+        int previousThreads = BedrockParticleSystem.getSimulationThreads();
+        BedrockParticleSystem.setParticleBudget(VERIFY_BUDGET);
+        try {
+            BedrockParticleSystem.setSimulationThreads(0);
+            BedrockParticleSystem serial = run(seed, respawn, ticks, false);
+            BedrockParticleSystem.setSimulationThreads(Math.max(VERIFY_THREADS, previousThreads));
+            BedrockParticleSystem parallel = run(seed, respawn, ticks, false);
+            long serialChecksum = serial.getStateChecksum();
+            long parallelChecksum = parallel.getStateChecksum();
+            if (serialChecksum != parallelChecksum
+                || serial.getEvictedParticleCount() != parallel.getEvictedParticleCount()
+                || serial.getDroppedParticleCount() != parallel.getDroppedParticleCount()) {
+                System.err.println(String.format(Locale.ROOT, "[ParticleBench] 预算占满时单线程与并行结果不同: %016x / %016x, 挤掉 %d / %d, 丢弃 %d / %d",
+                    serialChecksum, parallelChecksum, serial.getEvictedParticleCount(), parallel.getEvictedParticleCount(),
+                    serial.getDroppedParticleCount(), parallel.getDroppedParticleCount()));
+                return false;
+            }
+            if (serial.getEvictedParticleCount() == 0L && serial.getDroppedParticleCount() == 0L) {
+                System.out.println("[ParticleBench] 预算 " + VERIFY_BUDGET + " 下单线程与并行结果一致，但预算没有占满，挤掉的路径未经校验");
+            } else {
+                System.out.println(String.format(Locale.ROOT, "[ParticleBench] 预算 %d 占满时单线程与并行结果一致, 挤掉 %d 个, 丢弃 %d 个",
+                    VERIFY_BUDGET, serial.getEvictedParticleCount(), serial.getDroppedParticleCount()));
+            }
+            return true;
+        } finally {
+            BedrockParticleSystem.setParticleBudget(previousBudget);
+            BedrockParticleSystem.setSimulationThreads(previousThreads);
+        }
+    }
+
+    /**
+     * 建立路径索引并解析所有定义，解析失败的文件跳过
+     */
+    private void index() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(root)) {
+            paths = stream.filter(Files::isRegularFile)
+                .filter(path -> path.getFileName().toString().endsWith(".json"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            String relative = root.relativize(path).toString().replace('\\', '/');
+            files.put(relative, path);
+            files.putIfAbsent(path.getFileName().toString(), path);
+        }
+        for (Path path : paths) {
+            String relative = root.relativize(path).toString().replace('\\', '/');
+            if (load(relative) != null) {
+                definitions.add(relative);
+            }
+        }
+    }
+
+    /**
+     * 按事件中的引用查找定义：依次尝试原路径、去掉命名空间的路径和文件名，缺少扩展名时补上 .json
+     */
+    private ParticleData load(String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        if (loaded.containsKey(path)) {
+            return loaded.get(path);
+        }
+        String key = path;
+        int colon = key.indexOf(':');
+        if (colon >= 0) {
+            key = key.substring(colon + 1);
+        }
+        if (!key.endsWith(".json")) {
+            key = key + ".json";
+        }
+        Path file = files.get(key);
+        if (file == null) {
+            file = files.get(key.substring(key.lastIndexOf('/') + 1));
+        }
+        ParticleData data = null;
+        if (file != null) {
+            try {
+                String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                data = ParticleParser.parseParticle(new JsonParser().parse(json));
+            } catch (Exception e) {
+                System.err.println("[ParticleBench] 解析失败 " + root.relativize(file) + ": " + e);
+            }
+        }
+        loaded.put(path, data);
+        return data;
+    }
+
+    /**
+     * @return 模拟结束后的粒子系统，用于读取状态校验值和预算统计
+     */
+    private BedrockParticleSystem run(long seed, int respawn, int ticks, boolean report) {
+        BedrockParticleSystem system = new BedrockParticleSystem(this::load, new HeadlessParticleWorld(0, false));
+        system.setRandomSeed(seed);
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(definitions.size())));
+
+        AllocationCounter allocation = AllocationCounter.create();
+        long startBytes = allocation.bytes();
+        long particleTicks = 0L;
+        int peakParticles = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            if (tick % respawn == 0) {
+                for (int i = 0; i < definitions.size(); i++) {
+                    double x = (i % columns) * GRID_SPACING;
+                    double z = (i / columns) * GRID_SPACING;
+                    system.spawn(definitions.get(i), x, SPAWN_HEIGHT, z, 0);
+                }
+            }
+            system.tick();
+            int active = system.getActiveCount();
+            particleTicks += active;
+            peakParticles = Math.max(peakParticles, active);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocation.bytes() - startBytes;
+        if (!report) {
+            return system;
+        }
+        long checksum = system.getStateChecksum();
+
+        double wallSeconds = elapsed / 1.0e9;
+        double simulatedSeconds = ticks / (double) TICKS_PER_SECOND;
+        System.out.println(String.format(Locale.ROOT, "[ParticleBench] 模拟 %.1f 秒 (%d tick), 耗时 %.3f 秒, %.1f 倍实时",
+            simulatedSeconds, ticks, wallSeconds, simulatedSeconds / wallSeconds));
+        System.out.println(String.format(Locale.ROOT, "[ParticleBench] 粒子 %.0f 个/秒, 平均 %.1f us/tick, 峰值 %d 个粒子, 结束时 %d 个发射器",
+            particleTicks / wallSeconds, elapsed / 1.0e3 / ticks, peakParticles, system.getEmitterCount()));
+        if (allocation.isSupported()) {
+            System.out.println(String.format(Locale.ROOT, "[ParticleBench] 分配 %.2f MB/秒, %.1f 字节/粒子tick",
+                allocated / wallSeconds / (1024.0 * 1024.0), particleTicks > 0 ? allocated / (double) particleTicks : 0.0));
+        } else {
+            System.out.println("[ParticleBench] 当前 JVM 不支持线程分配统计");
+        }
+        System.out.println(String.format(Locale.ROOT, "[ParticleBench] 丢弃 %d 个粒子 / %d 个发射器, 挤掉 %d 个粒子, 池命中 %d / 未命中 %d",
+            system.getDroppedParticleCount(), system.getDroppedEmitterCount(), system.getEvictedParticleCount(),
+            system.getPools().getParticleHits(), system.getPools().getParticleMisses()));
+        System.out.println(String.format(Locale.ROOT, "[ParticleBench] 校验值 %016x", checksum));
+        return system;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，只统计客户端线程，并行模拟的工作线程不计入
+     */
+    private static final class AllocationCounter {
+        private final com.sun.management.ThreadMXBean bean;
+
+        private AllocationCounter(com.sun.management.ThreadMXBean bean) {
+            this.bean = bean;
+        }
+
+        static AllocationCounter create() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            try {
+                if (bean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+                    if (sun.isThreadAllocatedMemorySupported()) {
+                        sun.setThreadAllocatedMemoryEnabled(true);
+                        return new AllocationCounter(sun);
+                    }
+                }
+            } catch (UnsupportedOperationException ignored) {
+            }
+            return new AllocationCounter(null);
+        }
+
+        boolean isSupported() {
+            return bean != null;
+        }
+
+        long bytes() {
+            return bean != null ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.mybad.minecraft.particle.bench;
+
+import com.google.gson.JsonParser;
+import org.mybad.bedrockparticle.particle.ParticleData;
+import org.mybad.bedrockparticle.particle.ParticleParser;
+import org.mybad.minecraft.particle.runtime.BedrockParticleSystem;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 集中到期的无头基准：一个发射器在同一 tick 生成一批寿命相同的粒子，它们在同一 tick 全部到期，
+ * 分别用默认的 swap-remove 压缩和保持顺序的压缩测量这个 tick 的耗时，并和到期前一个 tick 对比。
+ * <p>
+ * 另外单独对比删除这一步：旧实现对 ArrayList 逐个 {@link Iterator#remove()}（每次搬移尾部，整体是平方级），
+ * 现在的实现一次遍历压缩（线性）。两者在同样数量、同样交错的存活与到期元素上计时。
+ */
+public final class ParticleExpiryBenchmark {
+    private static final String PATH = "bench/expiry.json";
+    /**
+     * 粒子寿命（秒），生成后第 10 个 tick 全部到期
+     */
+    private static final float LIFETIME = 0.5f;
+    private static final int WARMUP_ROUNDS = 100;
+
+    private ParticleExpiryBenchmark() {
+    }
+
+    /**
+     * @param particles 同一 tick 到期的粒子数
+     * @param rounds    计时的轮数，之前先跑 {@value #WARMUP_ROUNDS} 轮预热
+     * @param seed      模拟的随机种子
+     */
+    public static void run(int particles, int rounds, long seed) {
+        ParticleData data = ParticleParser.parseParticle(new JsonParser().parse(definition(particles)));
+        int previousBudget = BedrockParticleSystem.getParticleBudget();
+        boolean previousStable = BedrockParticleSystem.isStableParticleOrder();
+        BedrockParticleSystem.setParticleBudget(Math.max(previousBudget, particles));
+        try {
+            System.out.println(String.format(Locale.ROOT, "[ParticleBench] 集中到期 %d 个粒子 x %d 轮", particles, rounds));
+            for (boolean stable : new boolean[]{false, true}) {
+                BedrockParticleSystem.setStableParticleOrder(stable);
+                long[] nanos = new long[2];
+                for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                    runRound(data, particles, seed + round, nanos);
+                }
+                nanos[0] = 0L;
+                nanos[1] = 0L;
+                for (int round = 0; round < rounds; round++) {
+                    runRound(data, particles, seed + round, nanos);
+                }
+                System.out.println(String.format(Locale.ROOT, "[ParticleBench]   %s 到期 tick %.1f us, 到期前一个 tick %.1f us",
+                    stable ? "保持顺序" : "swap-remove", nanos[0] / 1.0e3 / rounds, nanos[1] / 1.0e3 / rounds));
+            }
+        } finally {
+            BedrockParticleSystem.setParticleBudget(previousBudget);
+            BedrockParticleSystem.setStableParticleOrder(previousStable);
+        }
+        compareRemoval(particles, rounds);
+    }
+
+    /**
+     * 生成一批粒子并推进到它们全部到期，到期 tick 和前一个 tick 的耗时分别累加到 nanos[0] 和 nanos[1]
+     */
+    private static void runRound(ParticleData data, int particles, long seed, long[] nanos) {
+        BedrockParticleSystem system = new BedrockParticleSystem(path -> PATH.equals(path) ? data : null, new HeadlessParticleWorld(0, false));
+        system.setRandomSeed(seed);
+        if (!system.spawn(PATH, 0.0, 4.0, 0.0, particles)) {
+            throw new IllegalStateException("Failed to spawn " + PATH);
+        }
+        long previous = 0L;
+        int maxTicks = Math.round(LIFETIME / BedrockParticleSystem.TICK_SECONDS) + 5;
+        boolean spawned = false;
+        for (int tick = 0; tick < maxTicks; tick++) {
+            int before = system.getActiveCount();
+            long start = System.nanoTime();
+            system.tick();
+            long elapsed = System.nanoTime() - start;
+            int after = system.getActiveCount();
+            if (before >= particles && after == 0) {
+                nanos[0] += elapsed;
+                nanos[1] += previous;
+                return;
+            }
+            spawned |= after >= particles;
+            previous = elapsed;
+        }
+        throw new IllegalStateException(spawned ? "Particles did not expire in the same tick" : "Emitter did not spawn " + particles + " particles");
+    }
+
+    /**
+     * 只计删除这一步：一半存活、一半到期、交错排列，分别用逐个 Iterator.remove 和一次遍历压缩删除到期元素
+     */
+    private static void compareRemoval(int particles, int rounds) {
+        int size = particles * 2;
+        List<Integer> list = new ArrayList<>(size);
+        long iteratorNanos = 0L;
+        long compactNanos = 0L;
+        long checksum = 0L;
+        for (int round = -WARMUP_ROUNDS; round < rounds; round++) {
+            fill(list, size);
+            long start = System.nanoTime();
+            Iterator<Integer> iterator = list.iterator();
+            while (iterator.hasNext()) {
+                if ((iterator.next() & 1) != 0) {
+                    iterator.remove();
+                }
+            }
+            long iteratorElapsed = System.nanoTime() - start;
+            checksum += list.size();
+
+            fill(list, size);
+            start = System.nanoTime();
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                Integer value = list.get(read);
+                if ((value & 1) == 0) {
+                    if (write != read) {
+                        list.set(write, value);
+                    }
+                    write++;
+                }
+            }
+            list.subList(write, size).clear();
+            long compactElapsed = System.nanoTime() - start;
+            checksum += list.size();
+
+            if (round >= 0) {
+                iteratorNanos += iteratorElapsed;
+                compactNanos += compactElapsed;
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "[ParticleBench]   删除 %d 个（共 %d 个）: 逐个 Iterator.remove %.1f us, 一次遍历压缩 %.1f us, 剩余 %d",
+            particles, size, iteratorNanos / 1.0e3 / rounds, compactNanos / 1.0e3 / rounds, checksum / (2L * (rounds + WARMUP_ROUNDS))));
+    }
+
+    private static void fill(List<Integer> list, int size) {
+        list.clear();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+    }
+
+    /**
+     * 一次性发射、寿命固定的点发射器，粒子只受重力，不碰撞
+     */
+    private static String definition(int particles) {
+        return "{\"format_version\":\"1.10.0\",\"particle_effect\":{"
+            + "\"description\":{\"identifier\":\"bench:expiry\",\"basic_render_parameters\":{\"material\":\"particles_alpha\",\"texture\":\"textures/particle/particles\"}},"
+            + "\"components\":{"
+            + "\"minecraft:emitter_rate_instant\":{\"num_particles\":" + particles + "},"
+            + "\"minecraft:emitter_lifetime_once\":{\"active_time\":1},"
+            + "\"minecraft:emitter_shape_point\":{},"
+            + "\"minecraft:particle_lifetime_expression\":{\"max_lifetime\":" + LIFETIME + "},"
+            + "\"minecraft:particle_initial_speed\":1,"
+            + "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[0,-1,0]}"
+            + "}}}";
+    }
+}
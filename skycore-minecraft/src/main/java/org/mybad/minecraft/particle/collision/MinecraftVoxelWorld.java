@@ -0,0 +1,44 @@
+package org.mybad.minecraft.particle.collision;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 客户端世界的体素碰撞来源，使用方块自身的碰撞盒列表（台阶、栅栏等多盒方块也完整保留）。
+ */
+public final class MinecraftVoxelWorld implements VoxelCollisionWorld {
+    /**
+     * 覆盖整个世界的查询盒，让方块把所有碰撞盒都交出来
+     */
+    private static final AxisAlignedBB EVERYTHING = new AxisAlignedBB(
+        -3.0E7, -1.0E4, -3.0E7, 3.0E7, 1.0E4, 3.0E7);
+
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    private final List<AxisAlignedBB> boxes = new ArrayList<>();
+
+    @Override
+    public void collectBoxes(int x, int y, int z, BoxSink sink) {
+        Minecraft mc = Minecraft.getMinecraft();
+        World world = mc != null ? mc.world : null;
+        if (world == null) {
+            return;
+        }
+        pos.setPos(x, y, z);
+        if (!world.isBlockLoaded(pos)) {
+            return;
+        }
+        IBlockState state = world.getBlockState(pos);
+        state.addCollisionBoxToList(world, pos, EVERYTHING, boxes, null, false);
+        for (int i = 0; i < boxes.size(); i++) {
+            AxisAlignedBB box = boxes.get(i);
+            sink.add(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+        }
+        boxes.clear();
+    }
+}
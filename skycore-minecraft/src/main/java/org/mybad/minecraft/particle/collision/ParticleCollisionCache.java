@@ -0,0 +1,277 @@
+package org.mybad.minecraft.particle.collision;
+
+import java.util.Arrays;
+
+/**
+ * 每 tick 清空一次的粒子碰撞缓存。方块格第一次被查询时从 {@link VoxelCollisionWorld} 取出碰撞盒，
+ * 之后同一 tick 内落在同一格的粒子直接复用；扫掠使用与原版 AxisAlignedBB#calculate*Offset 相同的逐轴裁剪，
+ * 全部基于数组，查询过程中不分配对象。只在客户端线程（世界阶段）使用。
+ */
+public final class ParticleCollisionCache implements VoxelCollisionWorld.BoxSink {
+    private static final int INITIAL_BLOCKS = 256;
+    private static final int INITIAL_BOXES = 256;
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    private final VoxelCollisionWorld world;
+    /**
+     * 开放寻址表：方块坐标 -> 该格碰撞盒在 boxes 中的起始序号与数量
+     */
+    private long[] keys;
+    private int[] starts;
+    private int[] counts;
+    private int blockCount;
+    /**
+     * 碰撞盒按 minX, minY, minZ, maxX, maxY, maxZ 连续存放
+     */
+    private double[] boxes;
+    private int boxCount;
+    private int[] gathered;
+    private long hits;
+    private long misses;
+
+    private double offsetX;
+    private double offsetY;
+    private double offsetZ;
+
+    public ParticleCollisionCache(VoxelCollisionWorld world) {
+        this.world = world;
+        this.keys = new long[INITIAL_BLOCKS];
+        this.starts = new int[INITIAL_BLOCKS];
+        this.counts = new int[INITIAL_BLOCKS];
+        Arrays.fill(keys, EMPTY_KEY);
+        this.boxes = new double[INITIAL_BOXES * 6];
+        this.gathered = new int[64];
+    }
+
+    /**
+     * 开始新的 tick，丢弃上一 tick 缓存的方块
+     */
+    public void clear() {
+        if (blockCount > 0) {
+            Arrays.fill(keys, EMPTY_KEY);
+            blockCount = 0;
+        }
+        boxCount = 0;
+    }
+
+    /**
+     * 以 (cx, cy, cz) 为中心、半边长 radius 的盒子沿 (dx, dy, dz) 扫掠，按 Y、Z、X 的顺序裁剪位移，
+     * 结果通过 {@link #getOffsetX()} 等读取
+     */
+    public void sweep(double cx, double cy, double cz, double radius, double dx, double dy, double dz) {
+        double minX = cx - radius;
+        double minY = cy - radius;
+        double minZ = cz - radius;
+        double maxX = cx + radius;
+        double maxY = cy + radius;
+        double maxZ = cz + radius;
+        int found = gather(
+            Math.min(minX, minX + dx), Math.min(minY, minY + dy), Math.min(minZ, minZ + dz),
+            Math.max(maxX, maxX + dx), Math.max(maxY, maxY + dy), Math.max(maxZ, maxZ + dz));
+        double[] b = boxes;
+        int[] list = gathered;
+
+        for (int i = 0; i < found && dy != 0.0; i++) {
+            int o = list[i] * 6;
+            if (maxX > b[o] && minX < b[o + 3] && maxZ > b[o + 2] && minZ < b[o + 5]) {
+                if (dy > 0.0 && maxY <= b[o + 1]) {
+                    dy = Math.min(dy, b[o + 1] - maxY);
+                } else if (dy < 0.0 && minY >= b[o + 4]) {
+                    dy = Math.max(dy, b[o + 4] - minY);
+                }
+            }
+        }
+        minY += dy;
+        maxY += dy;
+
+        for (int i = 0; i < found && dz != 0.0; i++) {
+            int o = list[i] * 6;
+            if (maxX > b[o] && minX < b[o + 3] && maxY > b[o + 1] && minY < b[o + 4]) {
+                if (dz > 0.0 && maxZ <= b[o + 2]) {
+                    dz = Math.min(dz, b[o + 2] - maxZ);
+                } else if (dz < 0.0 && minZ >= b[o + 5]) {
+                    dz = Math.max(dz, b[o + 5] - minZ);
+                }
+            }
+        }
+        minZ += dz;
+        maxZ += dz;
+
+        for (int i = 0; i < found && dx != 0.0; i++) {
+            int o = list[i] * 6;
+            if (maxY > b[o + 1] && minY < b[o + 4] && maxZ > b[o + 2] && minZ < b[o + 5]) {
+                if (dx > 0.0 && maxX <= b[o]) {
+                    dx = Math.min(dx, b[o] - maxX);
+                } else if (dx < 0.0 && minX >= b[o + 3]) {
+                    dx = Math.max(dx, b[o + 3] - minX);
+                }
+            }
+        }
+        offsetX = dx;
+        offsetY = dy;
+        offsetZ = dz;
+    }
+
+    /**
+     * @return 以 (cx, cy, cz) 为中心、半边长 radius 的盒子是否与任何碰撞盒相交
+     */
+    public boolean intersects(double cx, double cy, double cz, double radius) {
+        double minX = cx - radius;
+        double minY = cy - radius;
+        double minZ = cz - radius;
+        double maxX = cx + radius;
+        double maxY = cy + radius;
+        double maxZ = cz + radius;
+        int found = gather(minX, minY, minZ, maxX, maxY, maxZ);
+        double[] b = boxes;
+        for (int i = 0; i < found; i++) {
+            int o = gathered[i] * 6;
+            if (maxX > b[o] && minX < b[o + 3] && maxY > b[o + 1] && minY < b[o + 4] && maxZ > b[o + 2] && minZ < b[o + 5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getOffsetX() {
+        return offsetX;
+    }
+
+    public double getOffsetY() {
+        return offsetY;
+    }
+
+    public double getOffsetZ() {
+        return offsetZ;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void add(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        int o = boxCount * 6;
+        if (o + 6 > boxes.length) {
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        boxes[o] = minX;
+        boxes[o + 1] = minY;
+        boxes[o + 2] = minZ;
+        boxes[o + 3] = maxX;
+        boxes[o + 4] = maxY;
+        boxes[o + 5] = maxZ;
+        boxCount++;
+    }
+
+    /**
+     * 收集区域内所有方块格的碰撞盒序号。Y 方向向下多取一格，覆盖栅栏、墙这类高出一格的碰撞盒
+     *
+     * @return 收集到的数量，序号写在 gathered 中
+     */
+    private int gather(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        int x0 = floor(minX);
+        int y0 = floor(minY) - 1;
+        int z0 = floor(minZ);
+        int x1 = floor(maxX);
+        int y1 = floor(maxY);
+        int z1 = floor(maxZ);
+        int found = 0;
+        for (int x = x0; x <= x1; x++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int y = y0; y <= y1; y++) {
+                    int slot = lookup(x, y, z);
+                    int count = counts[slot];
+                    if (count == 0) {
+                        continue;
+                    }
+                    if (found + count > gathered.length) {
+                        gathered = Arrays.copyOf(gathered, Math.max(gathered.length * 2, found + count));
+                    }
+                    int start = starts[slot];
+                    for (int i = 0; i < count; i++) {
+                        gathered[found++] = start + i;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int lookup(int x, int y, int z) {
+        long key = pack(x, y, z);
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long existing = keys[slot];
+            if (existing == key) {
+                hits++;
+                return slot;
+            }
+            if (existing == EMPTY_KEY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        misses++;
+        if ((blockCount + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            mask = keys.length - 1;
+            slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int start = boxCount;
+        world.collectBoxes(x, y, z, this);
+        keys[slot] = key;
+        starts[slot] = start;
+        counts[slot] = boxCount - start;
+        blockCount++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldStarts = starts;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        starts = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY_KEY) {
+                continue;
+            }
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            starts[slot] = oldStarts[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+}
@@ -0,0 +1,15 @@
+package org.mybad.minecraft.particle.collision;
+
+/**
+ * 按方块格提供碰撞盒的体素世界。粒子碰撞只通过这个接口访问世界，测试时可以换成合成的体素数据。
+ */
+public interface VoxelCollisionWorld {
+    /**
+     * 把方块格 (x, y, z) 的全部碰撞盒（世界坐标）交给 sink，空气或未加载的格子不添加任何盒子
+     */
+    void collectBoxes(int x, int y, int z, BoxSink sink);
+
+    interface BoxSink {
+        void add(double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+    }
+}
@@ -0,0 +1,133 @@
+package org.mybad.minecraft.particle.culling;
+
+/**
+ * 由投影 × 模型视图矩阵提取的视锥体，用于剔除发射器包围盒和单个粒子。
+ * 只做纯数学运算，不访问 GL，矩阵由渲染端读出后传入；坐标以 origin 为原点，
+ * 对应矩阵本身是否已经包含相机平移（与 GPU 渲染的相机偏移一致）。
+ */
+public final class ParticleFrustum {
+    private static final int PLANES = 6;
+
+    /**
+     * 每个平面 4 个分量 (a, b, c, d)，已归一化，点在平面内侧时 a*x + b*y + c*z + d >= 0
+     */
+    private final float[] planes = new float[PLANES * 4];
+    private final float[] viewProj = new float[16];
+    private double originX;
+    private double originY;
+    private double originZ;
+    private boolean valid;
+
+    /**
+     * 由列主序的投影矩阵和模型视图矩阵设置视锥体。模型视图的平移恰好抵消相机位置时说明矩阵已包含相机平移，
+     * 坐标直接使用世界坐标；否则（原版渲染阶段的常见情况）坐标以相机为原点
+     */
+    public void setFromMatrices(float[] projection, float[] modelView, double cameraX, double cameraY, double cameraZ) {
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                viewProj[col * 4 + row] = projection[row] * modelView[col * 4]
+                    + projection[4 + row] * modelView[col * 4 + 1]
+                    + projection[8 + row] * modelView[col * 4 + 2]
+                    + projection[12 + row] * modelView[col * 4 + 3];
+            }
+        }
+        double dx = modelView[12] + cameraX;
+        double dy = modelView[13] + cameraY;
+        double dz = modelView[14] + cameraZ;
+        if (dx * dx + dy * dy + dz * dz < 1.0e-2) {
+            set(viewProj, 0.0, 0.0, 0.0);
+        } else {
+            set(viewProj, cameraX, cameraY, cameraZ);
+        }
+    }
+
+    /**
+     * @param viewProj 列主序的 4x4 投影 × 模型视图矩阵
+     * @param originX  矩阵坐标系原点对应的世界坐标，矩阵已包含相机平移时传 0
+     */
+    public void set(float[] viewProj, double originX, double originY, double originZ) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        // Gribb-Hartmann：第 i 行为 (m[i], m[4 + i], m[8 + i], m[12 + i])
+        boolean ok = true;
+        for (int p = 0; p < PLANES; p++) {
+            int axis = p >> 1;
+            float sign = (p & 1) == 0 ? 1.0f : -1.0f;
+            float a = viewProj[3] + sign * viewProj[axis];
+            float b = viewProj[7] + sign * viewProj[4 + axis];
+            float c = viewProj[11] + sign * viewProj[8 + axis];
+            float d = viewProj[15] + sign * viewProj[12 + axis];
+            float length = (float) Math.sqrt(a * a + b * b + c * c);
+            if (!(length > 1.0e-6f)) {
+                ok = false;
+                break;
+            }
+            int o = p * 4;
+            planes[o] = a / length;
+            planes[o + 1] = b / length;
+            planes[o + 2] = c / length;
+            planes[o + 3] = d / length;
+        }
+        this.valid = ok;
+    }
+
+    /**
+     * 标记为无效，之后所有测试都返回可见
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return 世界坐标的包围盒是否与视锥体相交（保守测试，可能把视锥外的盒子判为可见）
+     */
+    public boolean intersectsBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (!valid) {
+            return true;
+        }
+        float x0 = (float) (minX - originX);
+        float y0 = (float) (minY - originY);
+        float z0 = (float) (minZ - originZ);
+        float x1 = (float) (maxX - originX);
+        float y1 = (float) (maxY - originY);
+        float z1 = (float) (maxZ - originZ);
+        float[] pl = planes;
+        for (int o = 0; o < PLANES * 4; o += 4) {
+            float a = pl[o];
+            float b = pl[o + 1];
+            float c = pl[o + 2];
+            // 取平面法线方向上最远的顶点，它在外侧则整个盒子在外侧
+            float px = a >= 0.0f ? x1 : x0;
+            float py = b >= 0.0f ? y1 : y0;
+            float pz = c >= 0.0f ? z1 : z0;
+            if (a * px + b * py + c * pz + pl[o + 3] < 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 以世界坐标 (x, y, z) 为球心、半径 radius 的球是否与视锥体相交
+     */
+    public boolean intersectsSphere(double x, double y, double z, float radius) {
+        if (!valid) {
+            return true;
+        }
+        float rx = (float) (x - originX);
+        float ry = (float) (y - originY);
+        float rz = (float) (z - originZ);
+        float[] pl = planes;
+        for (int o = 0; o < PLANES * 4; o += 4) {
+            if (pl[o] * rx + pl[o + 1] * ry + pl[o + 2] * rz + pl[o + 3] < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,10 +3,44 @@ package org.mybad.minecraft.particle.molang;
 import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
 import org.mybad.bedrockparticle.particle.ParticleData;
 
+import javax.annotation.Nullable;
+
 public final class ParticleCurveEvaluator {
+    public static final float DEFAULT_LUT_TOLERANCE = 1.0E-3f;
+
+    private static volatile float lutTolerance = DEFAULT_LUT_TOLERANCE;
+
     private ParticleCurveEvaluator() {
     }
 
+    /**
+     * 设置烘焙曲线查找表允许的误差（相对于曲线的最大绝对值）。已加载定义的查找表立即按新容差重新烘焙，
+     * 正在运行的发射器和粒子共用这些表，最迟下一 tick 生效。
+     *
+     * @param tolerance 允许的误差，小于等于 0 时不再烘焙
+     */
+    public static void setLutTolerance(float tolerance) {
+        if (lutTolerance == tolerance) {
+            return;
+        }
+        lutTolerance = tolerance;
+        ParticleMolangLayout.rebakeCurveLuts(tolerance);
+    }
+
+    public static float getLutTolerance() {
+        return lutTolerance;
+    }
+
+    /**
+     * 计算曲线值，有查找表时直接从表中插值
+     */
+    public static float evaluateCurve(MolangEnvironment environment, ParticleData.Curve curve, @Nullable ParticleCurveLut lut) {
+        if (lut != null) {
+            return lut.evaluate(environment, curve);
+        }
+        return evaluateCurve(environment, curve);
+    }
+
     public static float evaluateCurve(MolangEnvironment environment, ParticleData.Curve curve) {
         if (curve == null) {
             return 0.0f;
@@ -19,7 +53,14 @@ public final class ParticleCurveEvaluator {
         if (horizontalRange == 0.0f) {
             return 1.0f;
         }
-        float input = environment.safeResolve(curve.input()) / horizontalRange;
+        return evaluateNormalized(environment, curve, environment.safeResolve(curve.input()) / horizontalRange);
+    }
+
+    /**
+     * 按已经除以水平范围的输入计算曲线值
+     */
+    static float evaluateNormalized(MolangEnvironment environment, ParticleData.Curve curve, float input) {
+        ParticleData.CurveNode[] nodes = curve.nodes();
         int index = getCurveIndex(curve, input);
         if (index < 0) {
             return input;
@@ -0,0 +1,155 @@
+package org.mybad.minecraft.particle.molang;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangRuntime;
+import org.mybad.bedrockparticle.particle.ParticleData;
+
+import javax.annotation.Nullable;
+
+/**
+ * 曲线的烘焙查找表。
+ * 节点和水平范围都是常量的曲线只取决于归一化后的输入，因此可以预先按固定间隔采样，
+ * 运行时只需要计算输入表达式并在数组上做一次线性插值。
+ */
+public final class ParticleCurveLut {
+    private static final int MIN_SIZE = 16;
+    private static final int MAX_SIZE = 4096;
+    /** 每段采样之间额外检查误差的点数 */
+    private static final int CHECKS_PER_SEGMENT = 3;
+
+    private static MolangEnvironment bakeEnvironment;
+
+    private final float horizontalRange;
+    private final float start;
+    private final float end;
+    private final float scale;
+    private final float[] table;
+
+    private ParticleCurveLut(float horizontalRange, float start, float end, float[] table) {
+        this.horizontalRange = horizontalRange;
+        this.start = start;
+        this.end = end;
+        this.scale = (table.length - 1) / (end - start);
+        this.table = table;
+    }
+
+    /**
+     * 尝试烘焙曲线。
+     *
+     * @param curve     要烘焙的曲线
+     * @param tolerance 允许的最大误差，相对于曲线的最大绝对值（至少为 1）
+     * @return 查找表，曲线依赖运行时变量或在最大分辨率下仍达不到精度时返回 null
+     */
+    @Nullable
+    public static ParticleCurveLut bake(ParticleData.Curve curve, float tolerance) {
+        if (curve == null || !(tolerance > 0.0f) || !isBakeable(curve)) {
+            return null;
+        }
+        float horizontalRange = curve.horizontalRange().getConstant();
+        if (horizontalRange == 0.0f || !Float.isFinite(horizontalRange)) {
+            return null;
+        }
+
+        // 节点范围之外的输入很少见，直接精确计算
+        float start = 0.0f;
+        float end = 1.0f;
+        for (ParticleData.CurveNode node : curve.nodes()) {
+            start = Math.min(start, node.getTime());
+            end = Math.max(end, node.getTime());
+        }
+        if (!Float.isFinite(start) || !Float.isFinite(end)) {
+            return null;
+        }
+
+        MolangEnvironment environment = getBakeEnvironment();
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size *= 2) {
+            float[] table = new float[size + 1];
+            float magnitude = 1.0f;
+            for (int i = 0; i <= size; i++) {
+                float value = ParticleCurveEvaluator.evaluateNormalized(environment, curve, start + (end - start) * i / size);
+                if (!Float.isFinite(value)) {
+                    return null;
+                }
+                table[i] = value;
+                magnitude = Math.max(magnitude, Math.abs(value));
+            }
+            ParticleCurveLut lut = new ParticleCurveLut(horizontalRange, start, end, table);
+            if (lut.maxError(environment, curve) <= tolerance * magnitude) {
+                return lut;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 计算曲线值，与 {@link ParticleCurveEvaluator#evaluateCurve(MolangEnvironment, ParticleData.Curve)} 的结果在容差内一致
+     */
+    public float evaluate(MolangEnvironment environment, ParticleData.Curve curve) {
+        float input = environment.safeResolve(curve.input()) / horizontalRange;
+        if (!(input >= start && input <= end)) {
+            return ParticleCurveEvaluator.evaluateNormalized(environment, curve, input);
+        }
+        return sample(input);
+    }
+
+    float sample(float input) {
+        float position = (input - start) * scale;
+        int index = (int) position;
+        if (index >= table.length - 1) {
+            return table[table.length - 1];
+        }
+        float a = table[index];
+        return a + (table[index + 1] - a) * (position - index);
+    }
+
+    /**
+     * @return 采样点之间与精确值的最大误差
+     */
+    float maxError(MolangEnvironment environment, ParticleData.Curve curve) {
+        float error = 0.0f;
+        int segments = table.length - 1;
+        for (int i = 0; i < segments; i++) {
+            for (int j = 1; j <= CHECKS_PER_SEGMENT; j++) {
+                float input = start + (end - start) * (i + j / (CHECKS_PER_SEGMENT + 1.0f)) / segments;
+                error = Math.max(error, Math.abs(sample(input) - ParticleCurveEvaluator.evaluateNormalized(environment, curve, input)));
+            }
+        }
+        return error;
+    }
+
+    public int getResolution() {
+        return table.length - 1;
+    }
+
+    private static boolean isBakeable(ParticleData.Curve curve) {
+        ParticleData.CurveNode[] nodes = curve.nodes();
+        if (nodes == null || nodes.length == 0 || curve.type() == null || !isConstant(curve.horizontalRange())) {
+            return false;
+        }
+        for (ParticleData.CurveNode node : nodes) {
+            if (node instanceof ParticleData.BezierChainCurveNode) {
+                ParticleData.BezierChainCurveNode chainNode = (ParticleData.BezierChainCurveNode) node;
+                if (!isConstant(chainNode.getLeftValue()) || !isConstant(chainNode.getRightValue())
+                    || !isConstant(chainNode.getLeftSlope()) || !isConstant(chainNode.getRightSlope())) {
+                    return false;
+                }
+            } else if (!isConstant(node.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConstant(MolangExpression expression) {
+        return expression != null && expression.isConstant();
+    }
+
+    private static synchronized MolangEnvironment getBakeEnvironment() {
+        // 只会求值常量，环境里不需要任何变量
+        if (bakeEnvironment == null) {
+            bakeEnvironment = MolangRuntime.runtime().create();
+        }
+        return bakeEnvironment;
+    }
+}
@@ -1,8 +1,51 @@
 package org.mybad.minecraft.particle.molang;
 
-import java.util.Map;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+
+import java.util.Arrays;
 
 public final class ParticleMolangContext {
+    /** 粒子通用变量的槽位布局，编译后的表达式直接从 {@link #slots} 读取这些变量 */
+    public static final MolangSlotLayout LAYOUT;
+    /** 第一条曲线的槽位，每个定义的布局把曲线依次排在通用变量之后，见 {@link ParticleMolangLayout#getSlotLayout()} */
+    public static final int CURVE_SLOT_START;
+    private static final int SLOT_PARTICLE_AGE;
+    private static final int SLOT_PARTICLE_LIFETIME;
+    private static final int SLOT_EMITTER_AGE;
+    private static final int SLOT_EMITTER_LIFETIME;
+    private static final int SLOT_RANDOM;
+    private static final int SLOT_ENTITY_SCALE;
+    private static final int SLOT_RANDOM_START;
+    private static final int SLOT_EMITTER_RANDOM_START;
+
+    static {
+        MolangSlotLayout.Builder builder = MolangSlotLayout.builder();
+        SLOT_PARTICLE_AGE = builder.add("variable.particle_age", "query.particle_age", "query.age");
+        SLOT_PARTICLE_LIFETIME = builder.add("variable.particle_lifetime", "query.particle_lifetime", "query.life_time");
+        SLOT_EMITTER_AGE = builder.add("variable.emitter_age", "query.emitter_age");
+        SLOT_EMITTER_LIFETIME = builder.add("variable.emitter_lifetime", "query.emitter_lifetime");
+        SLOT_RANDOM = builder.add("variable.random", "query.random");
+        SLOT_ENTITY_SCALE = builder.add("variable.entity_scale", "query.entity_scale");
+        int randomStart = -1;
+        for (int i = 1; i <= 16; i++) {
+            int slot = builder.add("variable.random_" + i, "variable.particle_random_" + i, "query.random_" + i, "query.particle_random_" + i);
+            if (i == 1) {
+                randomStart = slot;
+            }
+        }
+        int emitterRandomStart = -1;
+        for (int i = 1; i <= 16; i++) {
+            int slot = builder.add("variable.emitter_random_" + i, "query.emitter_random_" + i);
+            if (i == 1) {
+                emitterRandomStart = slot;
+            }
+        }
+        SLOT_RANDOM_START = randomStart;
+        SLOT_EMITTER_RANDOM_START = emitterRandomStart;
+        LAYOUT = builder.build();
+        CURVE_SLOT_START = LAYOUT.size();
+    }
+
     public float particleAge;
     public float particleLifetime;
     public float emitterAge;
@@ -19,17 +62,47 @@ public final class ParticleMolangContext {
     public float emitterRandom4;
     public final float[] emitterRandomExtra = new float[12];
     public float entityScale;
-    public Map<String, Float> curves;
+    /** 槽位帧，创建环境时按定义的槽位布局分配，曲线值也存放在这里 */
+    public float[] slots = LAYOUT.createFrame();
 
     public ParticleMolangContext() {
     }
 
-    public float getCurveValue(String name) {
-        if (curves == null) {
-            return 0.0f;
+    /**
+     * 把字段写入槽位帧，修改字段后、求值表达式前调用
+     */
+    public void syncSlots() {
+        float[] frame = this.slots;
+        frame[SLOT_PARTICLE_AGE] = particleAge;
+        frame[SLOT_PARTICLE_LIFETIME] = particleLifetime;
+        frame[SLOT_EMITTER_AGE] = emitterAge;
+        frame[SLOT_EMITTER_LIFETIME] = emitterLifetime;
+        frame[SLOT_RANDOM] = random;
+        frame[SLOT_ENTITY_SCALE] = entityScale;
+        for (int i = 1; i <= 16; i++) {
+            frame[SLOT_RANDOM_START + i - 1] = getRandom(i);
+            frame[SLOT_EMITTER_RANDOM_START + i - 1] = getEmitterRandom(i);
         }
-        Float value = curves.get(name);
-        return value != null ? value : 0.0f;
+    }
+
+    /**
+     * 按布局分配槽位帧，大小不变时保留原数组
+     */
+    void bind(MolangSlotLayout layout) {
+        if (slots.length != layout.size()) {
+            slots = layout.createFrame();
+        }
+    }
+
+    /**
+     * @param index 曲线下标，与 {@link ParticleMolangLayout#getCurves()} 对应
+     */
+    public void setCurveValue(int index, float value) {
+        slots[CURVE_SLOT_START + index] = value;
+    }
+
+    public void clearCurves() {
+        Arrays.fill(slots, CURVE_SLOT_START, slots.length, 0.0f);
     }
 
     public float getRandom(int index) {
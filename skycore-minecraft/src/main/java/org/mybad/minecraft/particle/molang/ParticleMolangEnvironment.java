@@ -0,0 +1,340 @@
+package org.mybad.minecraft.particle.molang;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangEnvironmentBuilder;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
+import org.mybad.bedrockparticle.molang.api.object.MolangObject;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 发射器和粒子使用的 Molang 环境。
+ * 通用变量、查询和曲线从共享的 {@link ParticleMolangLayout} 读取，每个实例只保存上下文的槽位帧和表达式写入的变量。
+ */
+public final class ParticleMolangEnvironment implements MolangEnvironment {
+    private static final List<String> OBJECTS = Collections.unmodifiableList(Arrays.asList("context", "c", "query", "q", "global", "variable", "v"));
+    private static final MolangObject GLOBAL = new SharedObject("global", Collections.emptyMap());
+
+    private final ParticleMolangContext context;
+    private final MolangSlotLayout slotLayout;
+    private final MolangObject query;
+    private final Variables variable;
+    private final List<Float> parameters;
+    private Map<String, MolangObject> libraries;
+    private float thisValue;
+    @Nullable
+    private Random random;
+
+    ParticleMolangEnvironment(ParticleMolangLayout layout, ParticleMolangContext context) {
+        this.context = context;
+        this.slotLayout = layout.getSlotLayout();
+        this.query = new SharedObject("query", layout.getQueries());
+        this.variable = new Variables(layout.getVariables());
+        this.parameters = new ArrayList<>(4);
+    }
+
+    public ParticleMolangContext getParticleContext() {
+        return context;
+    }
+
+    /**
+     * 清空表达式写入的变量，并复制父环境（通常是发射器）写入的变量。
+     *
+     * @param parent 要继承变量的环境，可以为 null
+     */
+    public void resetVariables(@Nullable MolangEnvironment parent) {
+        this.variable.local.clear();
+        if (parent == null) {
+            return;
+        }
+        try {
+            if (parent instanceof ParticleMolangEnvironment) {
+                for (Map.Entry<String, MolangExpression> entry : ((ParticleMolangEnvironment) parent).variable.local.entrySet()) {
+                    this.variable.local.put(entry.getKey(), entry.getValue().createCopy());
+                }
+                return;
+            }
+            MolangObject variables = parent.getVariable();
+            for (String name : variables.getKeys()) {
+                if (!this.variable.shared.containsKey(name)) {
+                    this.variable.local.put(name, variables.get(name).createCopy());
+                }
+            }
+        } catch (MolangException e) {
+            throw new RuntimeException("Failed to copy environment data", e);
+        }
+    }
+
+    @Override
+    public void loadLibrary(String name, MolangObject object, String... aliases) {
+        if (this.libraries == null) {
+            this.libraries = new HashMap<>();
+        }
+        this.libraries.put(name.toLowerCase(Locale.ROOT), object);
+        for (String alias : aliases) {
+            this.libraries.put(alias.toLowerCase(Locale.ROOT), object);
+        }
+    }
+
+    @Override
+    public void loadAlias(String name, String first, String... aliases) throws IllegalArgumentException {
+        MolangObject object;
+        try {
+            object = this.get(name);
+        } catch (MolangRuntimeException e) {
+            throw new IllegalArgumentException("Invalid MoLang library: " + name);
+        }
+        this.loadLibrary(first, object, aliases);
+    }
+
+    @Override
+    public void loadParameter(float value) {
+        this.parameters.add(value);
+    }
+
+    @Override
+    public void clearParameters() {
+        this.parameters.clear();
+    }
+
+    @Override
+    public float getThis() {
+        return thisValue;
+    }
+
+    @Override
+    public MolangObject get(String name) throws MolangRuntimeException {
+        String key = name.toLowerCase(Locale.ROOT);
+        switch (key) {
+            case "context":
+            case "c":
+            case "query":
+            case "q":
+                return this.query;
+            case "global":
+                return GLOBAL;
+            case "variable":
+            case "v":
+                return this.variable;
+            default:
+                MolangObject object = this.libraries != null ? this.libraries.get(key) : null;
+                if (object != null) {
+                    return object;
+                }
+                throw new MolangRuntimeException("Unknown MoLang object: " + key);
+        }
+    }
+
+    @Override
+    public MolangObject getContext() {
+        return this.query;
+    }
+
+    @Override
+    public MolangObject getQuery() {
+        return this.query;
+    }
+
+    @Override
+    public MolangObject getGlobal() {
+        return GLOBAL;
+    }
+
+    @Override
+    public MolangObject getVariable() {
+        return this.variable;
+    }
+
+    @Override
+    public MolangSlotLayout getSlotLayout() {
+        return slotLayout;
+    }
+
+    @Override
+    public float[] getSlotFrame() {
+        return context.slots;
+    }
+
+    /**
+     * 设置 math.random 和掷骰函数使用的随机数，通常是粒子或发射器自己按种子派生的随机数，
+     * 这样相同种子的模拟结果可复现，并行模拟时也不会共用随机数。为 null 时使用全局随机数。
+     */
+    public void setRandom(@Nullable Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public double nextRandom() {
+        return random != null ? random.nextDouble() : Math.random();
+    }
+
+    @Override
+    public float getParameter(int parameter) throws MolangRuntimeException {
+        if (parameter < 0 || parameter >= this.parameters.size()) {
+            throw new MolangRuntimeException("No parameter loaded in slot " + parameter);
+        }
+        return this.parameters.get(parameter);
+    }
+
+    @Override
+    public int getParameters() {
+        return this.parameters.size();
+    }
+
+    @Override
+    public Collection<String> getObjects() {
+        if (this.libraries == null) {
+            return OBJECTS;
+        }
+        Set<String> objects = new LinkedHashSet<>(OBJECTS);
+        objects.addAll(this.libraries.keySet());
+        return objects;
+    }
+
+    @Override
+    public void setThisValue(float thisValue) {
+        this.thisValue = thisValue;
+    }
+
+    @Override
+    public boolean canEdit() {
+        return false;
+    }
+
+    @Override
+    public MolangEnvironmentBuilder<? extends MolangEnvironment> edit() throws IllegalStateException {
+        throw new IllegalStateException("Particle MoLang environments cannot be edited");
+    }
+
+    /**
+     * 只读的共享对象，查询和全局变量在所有粒子之间共用
+     */
+    private static final class SharedObject implements MolangObject {
+        private final String name;
+        private final Map<String, MolangExpression> values;
+
+        private SharedObject(String name, Map<String, MolangExpression> values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        @Override
+        public MolangExpression get(String name) throws MolangRuntimeException {
+            MolangExpression expression = this.values.get(name);
+            if (expression != null) {
+                return expression;
+            }
+            throw new MolangRuntimeException("Unknown MoLang expression: " + name);
+        }
+
+        @Override
+        public MolangExpression find(String name) {
+            return this.values.get(name);
+        }
+
+        @Override
+        public void set(String name, MolangExpression value) throws MolangRuntimeException {
+            throw new MolangRuntimeException("Cannot set values to " + this.name);
+        }
+
+        @Override
+        public void remove(String name) throws MolangRuntimeException {
+            throw new MolangRuntimeException("Cannot remove values from " + this.name);
+        }
+
+        @Override
+        public boolean has(String name) {
+            return this.values.containsKey(name);
+        }
+
+        @Override
+        public Collection<String> getKeys() {
+            return this.values.keySet();
+        }
+
+        @Override
+        public boolean isMutable() {
+            return false;
+        }
+    }
+
+    /**
+     * 表达式写入的变量保存在本实例中，并覆盖同名的共享变量
+     */
+    private static final class Variables implements MolangObject {
+        private final Map<String, MolangExpression> shared;
+        private final Map<String, MolangExpression> local;
+
+        private Variables(Map<String, MolangExpression> shared) {
+            this(shared, new HashMap<>());
+        }
+
+        private Variables(Map<String, MolangExpression> shared, Map<String, MolangExpression> local) {
+            this.shared = shared;
+            this.local = local;
+        }
+
+        @Override
+        public MolangExpression get(String name) throws MolangRuntimeException {
+            MolangExpression expression = this.find(name);
+            if (expression != null) {
+                return expression;
+            }
+            throw new MolangRuntimeException("Unknown MoLang expression: " + name);
+        }
+
+        @Override
+        public MolangExpression find(String name) {
+            MolangExpression expression = this.local.get(name);
+            return expression != null ? expression : this.shared.get(name);
+        }
+
+        @Override
+        public void set(String name, MolangExpression value) {
+            this.local.put(name, value);
+        }
+
+        @Override
+        public void remove(String name) {
+            this.local.remove(name);
+        }
+
+        @Override
+        public boolean has(String name) {
+            return this.local.containsKey(name) || this.shared.containsKey(name);
+        }
+
+        @Override
+        public Collection<String> getKeys() {
+            if (this.local.isEmpty()) {
+                return this.shared.keySet();
+            }
+            Set<String> keys = new LinkedHashSet<>(this.shared.keySet());
+            keys.addAll(this.local.keySet());
+            return keys;
+        }
+
+        @Override
+        public MolangObject createCopy() {
+            Map<String, MolangExpression> local = new HashMap<>(this.local.size());
+            for (Map.Entry<String, MolangExpression> entry : this.local.entrySet()) {
+                local.put(entry.getKey(), entry.getValue().createCopy());
+            }
+            return new Variables(this.shared, local);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.mybad.minecraft.particle.molang;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.particle.ParticleData;
+import org.mybad.minecraft.SkyCoreMod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 每个粒子定义共享一份的 Molang 变量布局。
+ * 通用变量之后依次为每条曲线分配槽位，编译后的表达式在绑定布局时一次性解析出下标，之后直接读槽位帧；
+ * 变量表里的绑定也只是按下标读帧的无状态表达式，同一定义的所有发射器和粒子共用，生成粒子时不再逐个注册 lambda。
+ * 曲线名相同的定义共用同一个槽位布局对象，表达式在它们之间切换时不需要重新解析。
+ */
+public final class ParticleMolangLayout {
+    private static final Map<ParticleData, ParticleMolangLayout> LAYOUTS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, MolangExpression> COMMON_QUERIES;
+    private static final Map<String, MolangExpression> COMMON_VARIABLES;
+    private static final Map<String, MolangSlotLayout> SLOT_LAYOUTS = new HashMap<>();
+
+    static {
+        Map<String, MolangExpression> queries = new HashMap<>();
+        Map<String, MolangExpression> variables = new HashMap<>();
+        for (String qualifiedName : ParticleMolangContext.LAYOUT.getNames()) {
+            int dot = qualifiedName.indexOf('.');
+            String object = qualifiedName.substring(0, dot);
+            String name = qualifiedName.substring(dot + 1);
+            MolangExpression value = new SlotValue(qualifiedName, ParticleMolangContext.LAYOUT.indexOf(qualifiedName));
+            if ("query".equals(object)) {
+                queries.put(name, value);
+            } else {
+                variables.put(name, value);
+            }
+        }
+        COMMON_QUERIES = Collections.unmodifiableMap(queries);
+        COMMON_VARIABLES = Collections.unmodifiableMap(variables);
+    }
+
+    private static final ParticleMolangLayout EMPTY = new ParticleMolangLayout(null, Collections.emptyMap());
+
+    private final ParticleData.Curve[] curves;
+    private final ParticleCurveLut[] curveLuts;
+    private final Map<String, MolangExpression> variables;
+    private final MolangSlotLayout slotLayout;
+
+    private ParticleMolangLayout(String identifier, Map<String, ParticleData.Curve> curves) {
+        if (curves.isEmpty()) {
+            this.curves = new ParticleData.Curve[0];
+            this.curveLuts = new ParticleCurveLut[0];
+            this.variables = COMMON_VARIABLES;
+            this.slotLayout = ParticleMolangContext.LAYOUT;
+            return;
+        }
+        // 曲线名一般写作 variable.xxx，同时允许省略前缀访问；带点的名字无法在表达式里写出，只有能访问到的名字占用槽位
+        List<ParticleData.Curve> slotted = new ArrayList<>();
+        List<String> curveNames = new ArrayList<>();
+        List<String[]> slotNames = new ArrayList<>();
+        Set<String> claimed = new HashSet<>();
+        for (Map.Entry<String, ParticleData.Curve> entry : curves.entrySet()) {
+            String name = entry.getKey();
+            int dot = name.indexOf('.');
+            String alias = dot >= 0 && dot + 1 < name.length() ? name.substring(dot + 1) : null;
+            List<String> names = new ArrayList<>(2);
+            addSlotName(identifier, names, claimed, name);
+            if (alias != null && !curves.containsKey(alias)) {
+                addSlotName(identifier, names, claimed, alias);
+            }
+            if (!names.isEmpty()) {
+                slotted.add(entry.getValue());
+                curveNames.add(name);
+                slotNames.add(names.toArray(new String[0]));
+            }
+        }
+        this.curves = slotted.toArray(new ParticleData.Curve[0]);
+        this.curveLuts = new ParticleCurveLut[this.curves.length];
+        bakeCurveLuts(ParticleCurveEvaluator.getLutTolerance());
+        this.slotLayout = slotLayout(slotNames);
+
+        Map<String, MolangExpression> variables = new HashMap<>(COMMON_VARIABLES);
+        for (int i = 0; i < slotNames.size(); i++) {
+            String[] names = slotNames.get(i);
+            MolangExpression value = new SlotValue(names[0], ParticleMolangContext.CURVE_SLOT_START + i);
+            variables.put(curveNames.get(i), value);
+            for (String qualifiedName : names) {
+                variables.put(qualifiedName.substring("variable.".length()), value);
+            }
+        }
+        this.variables = Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * 按新的容差重新烘焙所有已加载定义的查找表。数组原地更新，发射器和粒子持有的是同一个数组，不需要重新创建
+     */
+    static void rebakeCurveLuts(float tolerance) {
+        synchronized (LAYOUTS) {
+            for (ParticleMolangLayout layout : LAYOUTS.values()) {
+                layout.bakeCurveLuts(tolerance);
+            }
+        }
+    }
+
+    private void bakeCurveLuts(float tolerance) {
+        for (int i = 0; i < curves.length; i++) {
+            curveLuts[i] = ParticleCurveLut.bake(curves[i], tolerance);
+        }
+    }
+
+    private static void addSlotName(String identifier, List<String> names, Set<String> claimed, String name) {
+        if (name.indexOf('.') >= 0) {
+            return;
+        }
+        // 与通用变量重名的曲线读不到，编译后的表达式总是先命中通用槽位；多条曲线省略前缀后同名时归第一条
+        if (ParticleMolangContext.LAYOUT.indexOf("variable", name) >= 0) {
+            SkyCoreMod.LOGGER.warn("[SkyCore] 粒子 {} 的曲线 variable.{} 与通用变量重名，表达式读到的是通用变量", identifier, name);
+            return;
+        }
+        if (claimed.add(name)) {
+            names.add("variable." + name);
+        }
+    }
+
+    private static MolangSlotLayout slotLayout(List<String[]> slotNames) {
+        StringBuilder key = new StringBuilder();
+        for (String[] names : slotNames) {
+            key.append(String.join(",", names)).append(';');
+        }
+        synchronized (SLOT_LAYOUTS) {
+            MolangSlotLayout layout = SLOT_LAYOUTS.get(key.toString());
+            if (layout == null) {
+                MolangSlotLayout.Builder builder = MolangSlotLayout.builder(ParticleMolangContext.LAYOUT);
+                for (String[] names : slotNames) {
+                    builder.add(names);
+                }
+                layout = builder.build();
+                SLOT_LAYOUTS.put(key.toString(), layout);
+            }
+            return layout;
+        }
+    }
+
+    public static ParticleMolangLayout of(ParticleData data) {
+        if (data == null || data.curves() == null || data.curves().isEmpty()) {
+            return EMPTY;
+        }
+        ParticleMolangLayout layout = LAYOUTS.get(data);
+        if (layout == null) {
+            String identifier = data.description() != null ? data.description().getIdentifier() : null;
+            layout = new ParticleMolangLayout(identifier, ParticleMolangBindings.buildCurveDefinitions(data));
+            LAYOUTS.put(data, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * @return 占用槽位的曲线定义，第 i 条曲线的值存放在 {@link ParticleMolangContext#CURVE_SLOT_START} + i
+     */
+    public ParticleData.Curve[] getCurves() {
+        return curves;
+    }
+
+    /**
+     * @return 与 {@link #getCurves()} 对应的烘焙查找表，依赖运行时变量的曲线为 null；修改容差后原地重新烘焙
+     */
+    public ParticleCurveLut[] getCurveLuts() {
+        return curveLuts;
+    }
+
+    public int getCurveCount() {
+        return curves.length;
+    }
+
+    /**
+     * @return 通用变量加上本定义曲线的槽位布局
+     */
+    public MolangSlotLayout getSlotLayout() {
+        return slotLayout;
+    }
+
+    public ParticleMolangEnvironment createEnvironment(ParticleMolangContext context) {
+        context.bind(slotLayout);
+        return new ParticleMolangEnvironment(this, context);
+    }
+
+    Map<String, MolangExpression> getQueries() {
+        return COMMON_QUERIES;
+    }
+
+    Map<String, MolangExpression> getVariables() {
+        return variables;
+    }
+
+    private static final class SlotValue implements MolangExpression {
+        private final String name;
+        private final int slot;
+
+        private SlotValue(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        public float get(MolangEnvironment environment) {
+            float[] frame = environment.getSlotFrame();
+            return frame != null && this.slot < frame.length ? frame[this.slot] : 0.0f;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+}
@@ -12,6 +12,7 @@ public final class GpuParticleSupport {
     private static boolean detectionComplete = false;
     private static boolean gpuParticleSupported = false;
     private static boolean forceDisabled = false;
+    private static boolean persistentMappingEnabled = true;
 
     private GpuParticleSupport() {
     }
@@ -50,6 +51,24 @@ public final class GpuParticleSupport {
         }
     }
 
+    /**
+     * @return 是否支持持久映射缓冲区（OpenGL 4.4 或 ARB_buffer_storage），不支持时 SSBO 上传退回孤立缓冲区
+     */
+    public static boolean isBufferStorageAvailable() {
+        if (forceDisabled || !persistentMappingEnabled) {
+            return false;
+        }
+        ContextCapabilities caps = currentCapabilities();
+        return caps != null && (caps.OpenGL44 || caps.GL_ARB_buffer_storage);
+    }
+
+    /**
+     * 关闭后强制使用孤立缓冲区上传，在下次创建 SSBO 时生效
+     */
+    public static void setPersistentMappingEnabled(boolean enabled) {
+        persistentMappingEnabled = enabled;
+    }
+
     private static ContextCapabilities currentCapabilities() {
         try {
             return GLContext.getCapabilities();
@@ -3,46 +3,82 @@ package org.mybad.minecraft.particle.render.gpu;
 import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.particle.component.ParticleAppearanceBillboardComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleAppearanceLightingComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleAppearanceTintingComponent;
 import org.mybad.bedrockparticle.particle.render.QuadRenderProperties;
 import net.minecraft.util.ResourceLocation;
 import org.mybad.minecraft.SkyCoreMod;
+import org.mybad.minecraft.particle.culling.ParticleFrustum;
 import org.mybad.minecraft.particle.runtime.ActiveEmitter;
 import org.mybad.minecraft.particle.runtime.ActiveParticle;
 import org.mybad.minecraft.particle.runtime.BedrockParticleSystem;
 
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.IdentityHashMap;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * 把粒子整理成按批次键连续排列的实例数据。批次键按粒子定义驻留为整数编号（缓存在定义的执行计划上），
+ * 每帧先把实例写入暂存数组并记下编号，再按编号做一次计数排序写入常驻的直接缓冲区；
+ * 所有数组、缓冲区和批次对象在帧之间复用，稳定状态下批处理不产生垃圾。
+ */
 final class ParticleBatcher {
     static final int FLOATS_PER_PARTICLE = 24;
     static final int FLOATS_PER_EMITTER = 16;
+    /**
+     * 驻留的批次键超过该数量（资源反复重载留下的旧定义）时整体清空，各定义下次使用时重新驻留
+     */
+    private static final int MAX_INTERNED_KEYS = 1024;
+    private static final int KEY_GENERATION = 0;
+    private static final int KEY_MAIN = 1;
+    private static final int KEY_EMISSIVE = 2;
+    private static final int KEY_BLEND = 3;
 
     private final QuadRenderProperties renderProps = new QuadRenderProperties();
+    private final ParticleDepthSorter depthSorter = new ParticleDepthSorter();
+    private final float[] scratchDir = new float[3];
+    private final Map<BatchKey, Integer> keyIds = new HashMap<>();
+    private final List<BatchKey> keys = new ArrayList<>();
+    private int keyGeneration = 1;
+    private boolean keysDepthSorted = BedrockParticleSystem.isDepthSorting();
+    private final Pass main = new Pass();
+    private final Pass emissive = new Pass();
+    private final Pass blend = new Pass();
+    private ActiveEmitter[] emitters = new ActiveEmitter[16];
+    private int emitterCount;
+    private int frame;
+    private FloatBuffer emitterBuffer = BufferUtilsHelper.createFloatBuffer(16 * FLOATS_PER_EMITTER);
+    private final Result result = new Result();
     private boolean emitterIndexWarningShown;
 
-    Result build(List<ActiveParticle> particles, float partialTicks) {
-        if (particles.isEmpty()) {
-            return Result.empty();
+    /**
+     * @param frustum 视锥体，所属发射器不可见或自身包围球在视锥外的粒子不提交
+     * @return 本批处理器持有的结果，下次 build 前有效
+     */
+    Result build(List<ActiveParticle> particles, float partialTicks, ParticleFrustum frustum, double camX, double camY, double camZ) {
+        boolean depthSorting = BedrockParticleSystem.isDepthSorting();
+        if (keys.size() > MAX_INTERNED_KEYS || depthSorting != keysDepthSorted) {
+            keyIds.clear();
+            keys.clear();
+            keyGeneration++;
+            keysDepthSorted = depthSorting;
         }
-
-        Map<BatchKey, BatchBucket> buckets = new LinkedHashMap<>();
-        Map<BatchKey, BatchBucket> emissiveBuckets = new LinkedHashMap<>();
-        Map<BatchKey, BatchBucket> blendBuckets = new LinkedHashMap<>();
-        Map<ActiveEmitter, Integer> emitterIndex = new IdentityHashMap<>();
-
-        int totalParticles = 0;
+        main.begin();
+        emissive.begin();
+        blend.begin();
+        emitterCount = 0;
+        frame++;
         int bloomParticles = 0;
-        int emissiveParticles = 0;
-        int blendParticles = 0;
-        final float[] scratchDir = new float[3];
 
-        for (ActiveParticle particle : particles) {
+        int total = particles.size();
+        for (int index = 0; index < total; index++) {
+            ActiveParticle particle = particles.get(index);
+            ActiveEmitter emitter = particle.getEmitter();
+            if (emitter != null && !emitter.isVisible()) {
+                continue;
+            }
             particle.prepareRender(partialTicks);
             ParticleAppearanceBillboardComponent billboard = particle.getBillboard();
             if (billboard == null) {
@@ -66,6 +102,43 @@ final class ParticleBatcher {
                 continue;
             }
 
+            double px = particle.getPrevX() + (particle.getX() - particle.getPrevX()) * partialTicks;
+            double py = particle.getPrevY() + (particle.getY() - particle.getPrevY()) * partialTicks;
+            double pz = particle.getPrevZ() + (particle.getZ() - particle.getPrevZ()) * partialTicks;
+            py += 0.01;
+            float radius = 0.5f * (float) Math.sqrt(width * width + height * height);
+            if (emitter != null) {
+                emitter.includeRenderRadius(radius);
+            }
+            if (!frustum.intersectsSphere(px, py, pz, radius)) {
+                continue;
+            }
+
+            float[] scratchDir = this.scratchDir;
+            boolean hasDirection = particle.resolveFacingDirection(billboard, scratchDir);
+            if (!hasDirection) {
+                if (isDirectionMode(billboard.cameraMode())) {
+                    continue;
+                }
+                scratchDir[0] = 0.0f;
+                scratchDir[1] = 0.0f;
+                scratchDir[2] = 0.0f;
+            }
+
+            int[] keyCache = particle.getBatchKeyCache();
+            if (keyCache[KEY_GENERATION] != keyGeneration) {
+                internKeys(particle, billboard, depthSorting, keyCache);
+            }
+            int mainKey = keyCache[KEY_MAIN];
+            boolean sorted = keys.get(mainKey).sorted;
+            float depth = 0.0f;
+            if (sorted || keyCache[KEY_BLEND] >= 0 && keys.get(keyCache[KEY_BLEND]).sorted) {
+                double dx = px - camX;
+                double dy = py - camY;
+                double dz = pz - camZ;
+                depth = (float) (dx * dx + dy * dy + dz * dz);
+            }
+
             renderProps.setUV(0.0f, 0.0f, 1.0f, 1.0f);
             billboard.textureSetter().setUV(particle, env, renderProps);
 
@@ -81,66 +154,21 @@ final class ParticleBatcher {
                 a = clamp01(tint.alpha().get(particle, env));
             }
 
-            ParticleAppearanceLightingComponent lighting = particle.getLighting();
-            boolean lit = lighting != null;
-
+            boolean lit = particle.getLighting() != null;
             float roll = particle.getPrevRoll() + (particle.getRoll() - particle.getPrevRoll()) * partialTicks;
-
-            boolean hasDirection = particle.resolveFacingDirection(billboard, scratchDir);
-            if (!hasDirection) {
-                if (isDirectionMode(billboard.cameraMode())) {
-                    continue;
-                }
-                scratchDir[0] = 0.0f;
-                scratchDir[1] = 0.0f;
-                scratchDir[2] = 0.0f;
-            }
-
             int camMode = encodeCameraMode(billboard.cameraMode());
-            ResourceLocation texture = particle.getTexture();
-            BedrockParticleSystem.BlendMode blendMode = particle.getBlendMode();
-            boolean bloom = particle.isBloom();
-            ResourceLocation emissiveTexture = particle.getEmissiveTexture();
-            float emissiveStrength = particle.getEmissiveStrength();
-            boolean hasEmissive = emissiveTexture != null && emissiveStrength > 0.0f;
-            ResourceLocation blendTexture = particle.getBlendTexture();
-            BedrockParticleSystem.BlendMode blendModeOverlay = particle.getBlendModeOverlay();
-            float blendR = particle.getBlendR();
-            float blendG = particle.getBlendG();
-            float blendB = particle.getBlendB();
-            float blendA = particle.getBlendA();
-
-            int bloomPasses = bloom ? Math.max(0, particle.getBloomPasses()) : 0;
-            float bloomScaleStep = particle.getBloomScaleStep();
-            float bloomDownscale = particle.getBloomDownscale();
-            BatchKey key = new BatchKey(texture, texture, blendMode, camMode, lit, bloom, bloom ? particle.getBloomStrength() : 0f,
-                bloomPasses, bloomScaleStep, bloomDownscale);
-            BatchBucket bucket = buckets.get(key);
-            if (bucket == null) {
-                bucket = new BatchBucket();
-                buckets.put(key, bucket);
-            }
 
             int emitterIdx = 0;
-            ActiveEmitter emitter = particle.getEmitter();
             if (emitter != null) {
-                Integer existing = emitterIndex.get(emitter);
-                if (existing == null) {
-                    emitterIdx = emitterIndex.size() + 1; // 0 reserved for identity
-                    emitterIndex.put(emitter, emitterIdx);
-                } else {
-                    emitterIdx = existing;
+                emitterIdx = emitter.getBatchIndex(frame);
+                if (emitterIdx <= 0) {
+                    emitterIdx = addEmitter(emitter);
                 }
             } else if (isEmitterTransformMode(camMode) && !emitterIndexWarningShown) {
                 emitterIndexWarningShown = true;
                 SkyCoreMod.LOGGER.warn("[SkyCore] 粒子使用 emitter_transform_* 模式但未绑定发射器，姿态将回退为默认值。请确认动画事件提供了 locator 且 emitter_local_space.rotation 已开启。");
             }
 
-            double px = particle.getPrevX() + (particle.getX() - particle.getPrevX()) * partialTicks;
-            double py = particle.getPrevY() + (particle.getY() - particle.getPrevY()) * partialTicks;
-            double pz = particle.getPrevZ() + (particle.getZ() - particle.getPrevZ()) * partialTicks;
-            py += 0.01;
-
             float lightU = 0.0f;
             float lightV = 0.0f;
             if (lit) {
@@ -151,138 +179,166 @@ final class ParticleBatcher {
                 lightV = (ly + 8.0f) / 256.0f;
             }
 
+            boolean bloom = particle.isBloom();
             float bloomStrength = bloom ? particle.getBloomStrength() : 0.0f;
-            bucket.add((float) px, (float) py, (float) pz, roll,
-                width, height, camMode, 0.0f,
-                r, g, b, a,
-                renderProps.getUMin(), renderProps.getVMin(), renderProps.getUMax(), renderProps.getVMax(),
-                scratchDir[0], scratchDir[1], scratchDir[2], (float) emitterIdx,
-                lightU, lightV, emissiveStrength, bloomStrength);
-
-            totalParticles++;
-            if (bloom && bloomStrength > 0f && bloomPasses > 0) {
+            float emissiveStrength = particle.getEmissiveStrength();
+            int o = main.add(mainKey, depth);
+            float[] d = main.staged;
+            d[o] = (float) px;
+            d[o + 1] = (float) py;
+            d[o + 2] = (float) pz;
+            d[o + 3] = roll;
+            d[o + 4] = width;
+            d[o + 5] = height;
+            d[o + 6] = camMode;
+            d[o + 7] = 0.0f;
+            d[o + 8] = r;
+            d[o + 9] = g;
+            d[o + 10] = b;
+            d[o + 11] = a;
+            d[o + 12] = renderProps.getUMin();
+            d[o + 13] = renderProps.getVMin();
+            d[o + 14] = renderProps.getUMax();
+            d[o + 15] = renderProps.getVMax();
+            d[o + 16] = scratchDir[0];
+            d[o + 17] = scratchDir[1];
+            d[o + 18] = scratchDir[2];
+            d[o + 19] = emitterIdx;
+            d[o + 20] = lightU;
+            d[o + 21] = lightV;
+            d[o + 22] = emissiveStrength;
+            d[o + 23] = bloomStrength;
+
+            if (bloom && bloomStrength > 0f && particle.getBloomPasses() > 0) {
                 bloomParticles++;
             }
 
-            if (hasEmissive) {
-                BatchKey emissiveKey = new BatchKey(emissiveTexture, texture, BedrockParticleSystem.BlendMode.ADD, camMode, false, false, 0f, 0, 0.06f, 1.0f);
-                BatchBucket emissiveBucket = emissiveBuckets.get(emissiveKey);
-                if (emissiveBucket == null) {
-                    emissiveBucket = new BatchBucket();
-                    emissiveBuckets.put(emissiveKey, emissiveBucket);
-                }
-                emissiveBucket.add((float) px, (float) py, (float) pz, roll,
-                    width, height, camMode, 0.0f,
-                    r, g, b, a,
-                    renderProps.getUMin(), renderProps.getVMin(), renderProps.getUMax(), renderProps.getVMax(),
-                    scratchDir[0], scratchDir[1], scratchDir[2], (float) emitterIdx,
-                    lightU, lightV, emissiveStrength, 0.0f);
-                emissiveParticles++;
+            int emissiveKey = keyCache[KEY_EMISSIVE];
+            if (emissiveKey >= 0 && emissiveStrength > 0.0f) {
+                // 与主实例相同，只去掉泛光强度
+                int e = emissive.add(emissiveKey, depth);
+                System.arraycopy(d, o, emissive.staged, e, FLOATS_PER_PARTICLE);
+                emissive.staged[e + 23] = 0.0f;
             }
 
-            if (blendTexture != null && blendA > 0.0f) {
-                BatchKey blendKey = new BatchKey(blendTexture, blendTexture, blendModeOverlay != null ? blendModeOverlay : BedrockParticleSystem.BlendMode.ALPHA, camMode, false, false, 0f, 0, 0.06f, 1.0f);
-                BatchBucket blendBucket = blendBuckets.get(blendKey);
-                if (blendBucket == null) {
-                    blendBucket = new BatchBucket();
-                    blendBuckets.put(blendKey, blendBucket);
-                }
-                blendBucket.add((float) px, (float) py, (float) pz, roll,
-                    width, height, camMode, 0.0f,
-                    blendR, blendG, blendB, blendA,
-                    renderProps.getUMin(), renderProps.getVMin(), renderProps.getUMax(), renderProps.getVMax(),
-                    scratchDir[0], scratchDir[1], scratchDir[2], (float) emitterIdx,
-                    lightU, lightV, 0.0f, 0.0f);
-                blendParticles++;
+            int blendKey = keyCache[KEY_BLEND];
+            float blendA = particle.getBlendA();
+            if (blendKey >= 0 && blendA > 0.0f) {
+                // 与主实例相同，颜色换成叠加色，不带自发光和泛光
+                int e = blend.add(blendKey, depth);
+                float[] bd = blend.staged;
+                System.arraycopy(d, o, bd, e, FLOATS_PER_PARTICLE);
+                bd[e + 8] = particle.getBlendR();
+                bd[e + 9] = particle.getBlendG();
+                bd[e + 10] = particle.getBlendB();
+                bd[e + 11] = blendA;
+                bd[e + 22] = 0.0f;
+                bd[e + 23] = 0.0f;
             }
         }
 
-        if (totalParticles == 0) {
-            return Result.empty();
+        result.particleCount = main.count;
+        result.bloomCount = bloomParticles;
+        result.emissiveCount = emissive.count;
+        result.blendCount = blend.count;
+        if (main.count == 0) {
+            result.emitterCount = 0;
+            main.batches.clear();
+            emissive.batches.clear();
+            blend.batches.clear();
+            return result;
         }
+        result.particleBuffer = main.finish(keys, depthSorter);
+        result.batches = main.batches;
+        result.emissiveParticleBuffer = emissive.finish(keys, depthSorter);
+        result.emissiveBatches = emissive.batches;
+        result.blendParticleBuffer = blend.finish(keys, depthSorter);
+        result.blendBatches = blend.batches;
+        result.emitterBuffer = writeEmitters();
+        result.emitterCount = emitterCount + 1;
+        return result;
+    }
 
-        int emitterCount = emitterIndex.size() + 1;
-        float[] emitterData = new float[emitterCount * FLOATS_PER_EMITTER];
-        // identity basis at index 0
-        emitterData[0] = 1.0f;
-        emitterData[5] = 1.0f;
-        emitterData[10] = 1.0f;
-
-        for (Map.Entry<ActiveEmitter, Integer> entry : emitterIndex.entrySet()) {
-            int idx = entry.getValue();
-            ActiveEmitter emitter = entry.getKey();
-            float[] ex = emitter.getBasisX();
-            float[] ey = emitter.getBasisY();
-            float[] ez = emitter.getBasisZ();
-            int base = idx * FLOATS_PER_EMITTER;
-            emitterData[base + 0] = ex[0];
-            emitterData[base + 1] = ex[1];
-            emitterData[base + 2] = ex[2];
-            emitterData[base + 4] = ey[0];
-            emitterData[base + 5] = ey[1];
-            emitterData[base + 6] = ey[2];
-            emitterData[base + 8] = ez[0];
-            emitterData[base + 9] = ez[1];
-            emitterData[base + 10] = ez[2];
+    /**
+     * 为一个粒子定义驻留三种批次键，结果写入定义上的缓存；没有自发光或叠加贴图时对应编号为 -1
+     */
+    private void internKeys(ActiveParticle particle, ParticleAppearanceBillboardComponent billboard, boolean depthSorting, int[] keyCache) {
+        int camMode = encodeCameraMode(billboard.cameraMode());
+        ResourceLocation texture = particle.getTexture();
+        boolean lit = particle.getLighting() != null;
+        boolean bloom = particle.isBloom();
+        boolean sorted = depthSorting && particle.isDepthSorted();
+        int bloomPasses = bloom ? Math.max(0, particle.getBloomPasses()) : 0;
+        keyCache[KEY_MAIN] = intern(new BatchKey(texture, texture, particle.getBlendMode(), camMode, lit, bloom,
+            bloom ? particle.getBloomStrength() : 0f, bloomPasses, particle.getBloomScaleStep(), particle.getBloomDownscale(), sorted));
+
+        ResourceLocation emissiveTexture = particle.getEmissiveTexture();
+        keyCache[KEY_EMISSIVE] = emissiveTexture != null
+            ? intern(new BatchKey(emissiveTexture, texture, BedrockParticleSystem.BlendMode.ADD, camMode, false, false, 0f, 0, 0.06f, 1.0f, false))
+            : -1;
+
+        ResourceLocation blendTexture = particle.getBlendTexture();
+        if (blendTexture != null) {
+            BedrockParticleSystem.BlendMode overlay = particle.getBlendModeOverlay();
+            BedrockParticleSystem.BlendMode overlayMode = overlay != null ? overlay : BedrockParticleSystem.BlendMode.ALPHA;
+            keyCache[KEY_BLEND] = intern(new BatchKey(blendTexture, blendTexture, overlayMode, camMode, false, false, 0f, 0, 0.06f, 1.0f,
+                sorted && overlayMode == BedrockParticleSystem.BlendMode.ALPHA));
+        } else {
+            keyCache[KEY_BLEND] = -1;
         }
-        FloatBuffer emitterBuffer = BufferUtilsHelper.createFloatBuffer(emitterData.length);
-        emitterBuffer.put(emitterData).flip();
-
-        FloatBuffer particleBuffer = BufferUtilsHelper.createFloatBuffer(totalParticles * FLOATS_PER_PARTICLE);
-        List<Batch> batches = new ArrayList<>(buckets.size());
-        int offset = 0;
-        for (Map.Entry<BatchKey, BatchBucket> entry : buckets.entrySet()) {
-            BatchBucket bucket = entry.getValue();
-            int count = bucket.size() / FLOATS_PER_PARTICLE;
-            if (count <= 0) {
-                continue;
-            }
-            particleBuffer.put(bucket.data, 0, bucket.size());
-            batches.add(new Batch(entry.getKey(), offset, count));
-            offset += count;
+        keyCache[KEY_GENERATION] = keyGeneration;
+    }
+
+    private int intern(BatchKey key) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            return id;
         }
-        particleBuffer.flip();
+        int next = keys.size();
+        keys.add(key);
+        keyIds.put(key, next);
+        return next;
+    }
 
-        FloatBuffer emissiveBuffer = BufferUtilsHelper.emptyFloatBuffer();
-        List<Batch> emissiveBatches = new ArrayList<>();
-        if (emissiveParticles > 0) {
-            emissiveBuffer = BufferUtilsHelper.createFloatBuffer(emissiveParticles * FLOATS_PER_PARTICLE);
-            int emissiveOffset = 0;
-            for (Map.Entry<BatchKey, BatchBucket> entry : emissiveBuckets.entrySet()) {
-                BatchBucket bucket = entry.getValue();
-                int count = bucket.size() / FLOATS_PER_PARTICLE;
-                if (count <= 0) {
-                    continue;
-                }
-                emissiveBuffer.put(bucket.data, 0, bucket.size());
-                emissiveBatches.add(new Batch(entry.getKey(), emissiveOffset, count));
-                emissiveOffset += count;
-            }
-            emissiveBuffer.flip();
+    /**
+     * @return 发射器在本帧发射器数组中的序号，0 保留给单位基
+     */
+    private int addEmitter(ActiveEmitter emitter) {
+        int index = ++emitterCount;
+        if (index >= emitters.length) {
+            emitters = Arrays.copyOf(emitters, emitters.length * 2);
         }
+        emitters[index] = emitter;
+        emitter.setBatchIndex(frame, index);
+        return index;
+    }
 
-        FloatBuffer blendBuffer = BufferUtilsHelper.emptyFloatBuffer();
-        List<Batch> blendBatches = new ArrayList<>();
-        if (blendParticles > 0) {
-            blendBuffer = BufferUtilsHelper.createFloatBuffer(blendParticles * FLOATS_PER_PARTICLE);
-            int blendOffset = 0;
-            for (Map.Entry<BatchKey, BatchBucket> entry : blendBuckets.entrySet()) {
-                BatchBucket bucket = entry.getValue();
-                int count = bucket.size() / FLOATS_PER_PARTICLE;
-                if (count <= 0) {
-                    continue;
-                }
-                blendBuffer.put(bucket.data, 0, bucket.size());
-                blendBatches.add(new Batch(entry.getKey(), blendOffset, count));
-                blendOffset += count;
-            }
-            blendBuffer.flip();
+    private FloatBuffer writeEmitters() {
+        int floats = (emitterCount + 1) * FLOATS_PER_EMITTER;
+        if (emitterBuffer.capacity() < floats) {
+            emitterBuffer = BufferUtilsHelper.createFloatBuffer(Math.max(floats, emitterBuffer.capacity() * 2));
         }
+        FloatBuffer buffer = emitterBuffer;
+        buffer.clear();
+        // 0 号为单位基
+        putBasis(buffer, 1.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 1.0f);
+        for (int i = 1; i <= emitterCount; i++) {
+            ActiveEmitter emitter = emitters[i];
+            emitters[i] = null;
+            float[] ex = emitter.getBasisX();
+            float[] ey = emitter.getBasisY();
+            float[] ez = emitter.getBasisZ();
+            putBasis(buffer, ex[0], ex[1], ex[2], ey[0], ey[1], ey[2], ez[0], ez[1], ez[2]);
+        }
+        buffer.flip();
+        return buffer;
+    }
 
-        return new Result(particleBuffer, emitterBuffer, batches, totalParticles, emitterCount,
-            bloomParticles,
-            emissiveBuffer, emissiveBatches, emissiveParticles,
-            blendBuffer, blendBatches, blendParticles);
+    private static void putBasis(FloatBuffer buffer, float xx, float xy, float xz, float yx, float yy, float yz, float zx, float zy, float zz) {
+        buffer.put(xx).put(xy).put(xz).put(0.0f);
+        buffer.put(yx).put(yy).put(yz).put(0.0f);
+        buffer.put(zx).put(zy).put(zz).put(0.0f);
+        buffer.put(0.0f).put(0.0f).put(0.0f).put(0.0f);
     }
 
     private static boolean isDirectionMode(ParticleAppearanceBillboardComponent.FaceCameraMode mode) {
@@ -348,6 +404,7 @@ final class ParticleBatcher {
         final int bloomPasses;
         final float bloomScaleStep;
         final float bloomDownscale;
+        final boolean sorted;
 
         BatchKey(ResourceLocation texture,
                  ResourceLocation baseTexture,
@@ -358,7 +415,8 @@ final class ParticleBatcher {
                  float bloomStrength,
                  int bloomPasses,
                  float bloomScaleStep,
-                 float bloomDownscale) {
+                 float bloomDownscale,
+                 boolean sorted) {
             this.texture = texture;
             this.baseTexture = baseTexture;
             this.blendMode = blendMode;
@@ -369,6 +427,7 @@ final class ParticleBatcher {
             this.bloomPasses = bloom ? Math.max(0, bloomPasses) : 0;
             this.bloomScaleStep = bloomScaleStep > 0f ? bloomScaleStep : 0.06f;
             this.bloomDownscale = bloomDownscale > 0f ? bloomDownscale : 1.0f;
+            this.sorted = sorted;
         }
 
         @Override
@@ -383,6 +442,7 @@ final class ParticleBatcher {
             return cameraMode == other.cameraMode
                 && lit == other.lit
                 && bloom == other.bloom
+                && sorted == other.sorted
                 && Float.floatToIntBits(bloomStrength) == Float.floatToIntBits(other.bloomStrength)
                 && bloomPasses == other.bloomPasses
                 && Float.floatToIntBits(bloomScaleStep) == Float.floatToIntBits(other.bloomScaleStep)
@@ -404,92 +464,148 @@ final class ParticleBatcher {
             result = 31 * result + bloomPasses;
             result = 31 * result + Float.floatToIntBits(bloomScaleStep);
             result = 31 * result + Float.floatToIntBits(bloomDownscale);
+            result = 31 * result + (sorted ? 1 : 0);
             return result;
         }
     }
 
+
     static final class Batch {
-        final BatchKey key;
-        final int offset;
-        final int count;
-
-        Batch(BatchKey key, int offset, int count) {
-            this.key = key;
-            this.offset = offset;
-            this.count = count;
-        }
+        BatchKey key;
+        int offset;
+        int count;
     }
 
+    /**
+     * 批处理结果，由批处理器持有并在每帧覆盖
+     */
     static final class Result {
-        final FloatBuffer particleBuffer;
-        final FloatBuffer emitterBuffer;
-        final List<Batch> batches;
-        final int particleCount;
-        final int emitterCount;
-        final int bloomCount;
-        final FloatBuffer emissiveParticleBuffer;
-        final List<Batch> emissiveBatches;
-        final int emissiveCount;
-        final FloatBuffer blendParticleBuffer;
-        final List<Batch> blendBatches;
-        final int blendCount;
-
-        Result(FloatBuffer particleBuffer,
-               FloatBuffer emitterBuffer,
-               List<Batch> batches,
-               int particleCount,
-               int emitterCount,
-               int bloomCount,
-               FloatBuffer emissiveParticleBuffer,
-               List<Batch> emissiveBatches,
-               int emissiveCount,
-               FloatBuffer blendParticleBuffer,
-               List<Batch> blendBatches,
-               int blendCount) {
-            this.particleBuffer = particleBuffer;
-            this.emitterBuffer = emitterBuffer;
-            this.batches = batches;
-            this.particleCount = particleCount;
-            this.emitterCount = emitterCount;
-            this.bloomCount = bloomCount;
-            this.emissiveParticleBuffer = emissiveParticleBuffer;
-            this.emissiveBatches = emissiveBatches;
-            this.emissiveCount = emissiveCount;
-            this.blendParticleBuffer = blendParticleBuffer;
-            this.blendBatches = blendBatches;
-            this.blendCount = blendCount;
-        }
-
-        static Result empty() {
-            return new Result(BufferUtilsHelper.emptyFloatBuffer(), BufferUtilsHelper.emptyFloatBuffer(), new ArrayList<>(), 0, 0,
-                0,
-                BufferUtilsHelper.emptyFloatBuffer(), new ArrayList<>(), 0,
-                BufferUtilsHelper.emptyFloatBuffer(), new ArrayList<>(), 0);
-        }
+        FloatBuffer particleBuffer = BufferUtilsHelper.emptyFloatBuffer();
+        FloatBuffer emitterBuffer = BufferUtilsHelper.emptyFloatBuffer();
+        List<Batch> batches = new ArrayList<>();
+        int particleCount;
+        int emitterCount;
+        int bloomCount;
+        FloatBuffer emissiveParticleBuffer = BufferUtilsHelper.emptyFloatBuffer();
+        List<Batch> emissiveBatches = new ArrayList<>();
+        int emissiveCount;
+        FloatBuffer blendParticleBuffer = BufferUtilsHelper.emptyFloatBuffer();
+        List<Batch> blendBatches = new ArrayList<>();
+        int blendCount;
     }
 
-    private static final class BatchBucket {
-        private float[] data = new float[256];
-        private int size = 0;
+    /**
+     * 一个绘制阶段（主体、自发光、叠加贴图）的暂存实例和输出缓冲区
+     */
+    private static final class Pass {
+        private float[] staged = new float[64 * FLOATS_PER_PARTICLE];
+        private int[] stagedKey = new int[64];
+        private float[] stagedDepth = new float[64];
+        private int count;
+        private int[] keyCounts = new int[16];
+        private int[] keyCursor = new int[16];
+        private int[] order = new int[64];
+        private float[] rangeDepth = new float[64];
+        private FloatBuffer buffer = BufferUtilsHelper.createFloatBuffer(64 * FLOATS_PER_PARTICLE);
+        private final List<Batch> batches = new ArrayList<>();
+        private final List<Batch> batchPool = new ArrayList<>();
+
+        void begin() {
+            count = 0;
+        }
 
-        void add(float... values) {
-            ensureCapacity(size + values.length);
-            System.arraycopy(values, 0, data, size, values.length);
-            size += values.length;
+        /**
+         * 追加一个实例
+         *
+         * @return 实例数据在 staged 中的起始下标
+         */
+        int add(int key, float depth) {
+            if (count == stagedKey.length) {
+                int capacity = count * 2;
+                staged = Arrays.copyOf(staged, capacity * FLOATS_PER_PARTICLE);
+                stagedKey = Arrays.copyOf(stagedKey, capacity);
+                stagedDepth = Arrays.copyOf(stagedDepth, capacity);
+            }
+            stagedKey[count] = key;
+            stagedDepth[count] = depth;
+            return count++ * FLOATS_PER_PARTICLE;
         }
 
-        int size() {
-            return size;
+        /**
+         * 按批次键计数排序，把暂存实例写入输出缓冲区并生成批次；需要排序的键在自己的区间内按深度从远到近写入
+         */
+        FloatBuffer finish(List<BatchKey> keys, ParticleDepthSorter sorter) {
+            batches.clear();
+            if (count == 0) {
+                return BufferUtilsHelper.emptyFloatBuffer();
+            }
+            int keyCount = keys.size();
+            if (keyCounts.length < keyCount) {
+                keyCounts = new int[Math.max(keyCount, keyCounts.length * 2)];
+                keyCursor = new int[keyCounts.length];
+            }
+            if (order.length < count) {
+                order = new int[stagedKey.length];
+            }
+            int[] counts = keyCounts;
+            Arrays.fill(counts, 0, keyCount, 0);
+            for (int i = 0; i < count; i++) {
+                counts[stagedKey[i]]++;
+            }
+            int offset = 0;
+            for (int k = 0; k < keyCount; k++) {
+                keyCursor[k] = offset;
+                offset += counts[k];
+            }
+            for (int i = 0; i < count; i++) {
+                order[keyCursor[stagedKey[i]]++] = i;
+            }
+
+            int floats = count * FLOATS_PER_PARTICLE;
+            if (buffer.capacity() < floats) {
+                buffer = BufferUtilsHelper.createFloatBuffer(Math.max(floats, buffer.capacity() * 2));
+            }
+            FloatBuffer out = buffer;
+            out.clear();
+            int start = 0;
+            for (int k = 0; k < keyCount; k++) {
+                int n = counts[k];
+                if (n == 0) {
+                    continue;
+                }
+                BatchKey key = keys.get(k);
+                if (key.sorted && n > 1) {
+                    if (rangeDepth.length < n) {
+                        rangeDepth = new float[Math.max(n, rangeDepth.length * 2)];
+                    }
+                    for (int j = 0; j < n; j++) {
+                        rangeDepth[j] = stagedDepth[order[start + j]];
+                    }
+                    int[] sorted = sorter.sort(rangeDepth, n);
+                    for (int j = 0; j < n; j++) {
+                        out.put(staged, order[start + sorted[j]] * FLOATS_PER_PARTICLE, FLOATS_PER_PARTICLE);
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        out.put(staged, order[start + j] * FLOATS_PER_PARTICLE, FLOATS_PER_PARTICLE);
+                    }
+                }
+                Batch batch = obtainBatch(batches.size());
+                batch.key = key;
+                batch.offset = start;
+                batch.count = n;
+                batches.add(batch);
+                start += n;
+            }
+            out.flip();
+            return out;
         }
 
-        void ensureCapacity(int capacity) {
-            if (capacity <= data.length) {
-                return;
+        private Batch obtainBatch(int index) {
+            if (index == batchPool.size()) {
+                batchPool.add(new Batch());
             }
-            int next = Math.max(capacity, data.length * 2);
-            float[] nextData = new float[next];
-            System.arraycopy(data, 0, nextData, 0, size);
-            data = nextData;
+            return batchPool.get(index);
         }
     }
 }
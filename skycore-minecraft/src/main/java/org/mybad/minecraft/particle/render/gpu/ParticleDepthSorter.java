@@ -0,0 +1,121 @@
+package org.mybad.minecraft.particle.render.gpu;
+
+import java.util.Arrays;
+
+/**
+ * 按到相机的距离从远到近排列一个桶内的粒子。深度为非负的距离平方，其浮点位模式与数值同序，
+ * 取反后做 3 趟 11 位的 LSD 基数排序，位段全部相同的一趟直接跳过；已经有序的桶在生成 key 时就能发现，直接返回。
+ * 排序结果和临时数组在帧之间复用，不分配对象。
+ */
+final class ParticleDepthSorter {
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX_SIZE - 1;
+    /**
+     * 少于该数量时插入排序比基数排序的计数开销更小
+     */
+    private static final int INSERTION_THRESHOLD = 48;
+
+    private final int[] histogram = new int[RADIX_SIZE];
+    private int[] order = new int[0];
+    private int[] orderScratch = new int[0];
+    private int[] keys = new int[0];
+    private int[] keyScratch = new int[0];
+
+    /**
+     * @param depths 每个粒子的深度（距离平方）
+     * @return 从远到近的粒子下标，前 count 项有效；下次调用前保持不变
+     */
+    int[] sort(float[] depths, int count) {
+        ensureCapacity(count);
+        int[] order = this.order;
+        int[] keys = this.keys;
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            // 深度越大 key 越小，升序排列即从远到近；NaN 和负数按 0 处理
+            float depth = depths[i];
+            keys[i] = Integer.MAX_VALUE - (depth > 0.0f ? Float.floatToRawIntBits(depth) : 0);
+            if (i > 0 && keys[i] < keys[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (sorted) {
+            return order;
+        }
+        if (count < INSERTION_THRESHOLD) {
+            insertionSort(count);
+            return this.order;
+        }
+        radixSort(count);
+        return this.order;
+    }
+
+    private void insertionSort(int count) {
+        int[] order = this.order;
+        int[] keys = this.keys;
+        for (int i = 1; i < count; i++) {
+            int key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+    }
+
+    private void radixSort(int count) {
+        int[] srcOrder = order;
+        int[] dstOrder = orderScratch;
+        int[] srcKeys = keys;
+        int[] dstKeys = keyScratch;
+        int[] histogram = this.histogram;
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            Arrays.fill(histogram, 0);
+            for (int i = 0; i < count; i++) {
+                histogram[(srcKeys[i] >>> shift) & RADIX_MASK]++;
+            }
+            if (histogram[(srcKeys[0] >>> shift) & RADIX_MASK] == count) {
+                // 这一位段全部相同，整趟跳过
+                continue;
+            }
+            int sum = 0;
+            for (int b = 0; b < RADIX_SIZE; b++) {
+                int c = histogram[b];
+                histogram[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < count; i++) {
+                int key = srcKeys[i];
+                int slot = histogram[(key >>> shift) & RADIX_MASK]++;
+                dstKeys[slot] = key;
+                dstOrder[slot] = srcOrder[i];
+            }
+            int[] t = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = t;
+            t = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = t;
+        }
+        order = srcOrder;
+        orderScratch = dstOrder;
+        keys = srcKeys;
+        keyScratch = dstKeys;
+    }
+
+    private void ensureCapacity(int count) {
+        if (order.length >= count) {
+            return;
+        }
+        int capacity = Math.max(count, order.length * 2);
+        order = new int[capacity];
+        orderScratch = new int[capacity];
+        keys = new int[capacity];
+        keyScratch = new int[capacity];
+    }
+}
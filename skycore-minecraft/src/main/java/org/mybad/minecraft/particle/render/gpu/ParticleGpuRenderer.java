@@ -10,6 +10,7 @@ import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL31;
+import org.mybad.minecraft.particle.culling.ParticleFrustum;
 import org.mybad.minecraft.particle.runtime.ActiveParticle;
 import org.mybad.minecraft.particle.runtime.BedrockParticleSystem;
 
@@ -36,6 +37,9 @@ public final class ParticleGpuRenderer {
     private final float[] projTmp = new float[16];
     private final float[] modelTmp = new float[16];
     private final float[] viewProjTmp = new float[16];
+    private final float[] cameraAxes = new float[6];
+    private final float[] cameraOffset = new float[3];
+    private final FogState fogState = new FogState();
     private static final int DEFAULT_BLOOM_PASSES = 5;
     private static final float DEFAULT_BLOOM_SCALE_STEP = 0.06f;
     private static final float DEFAULT_BLOOM_DOWNSCALE = 1.0f;
@@ -55,7 +59,8 @@ public final class ParticleGpuRenderer {
                        double camX,
                        double camY,
                        double camZ,
-                       float partialTicks) {
+                       float partialTicks,
+                       ParticleFrustum frustum) {
         if (particles.isEmpty()) {
             return;
         }
@@ -68,14 +73,14 @@ public final class ParticleGpuRenderer {
             return;
         }
 
-        List<ActiveParticle> snapshot = new ArrayList<>(particles);
-        ParticleBatcher.Result result = batcher.build(snapshot, partialTicks);
+        ParticleBatcher.Result result = batcher.build(particles, partialTicks, frustum, camX, camY, camZ);
         if (result.particleCount <= 0 || result.batches.isEmpty()) {
             return;
         }
 
         int particleBytes = result.particleBuffer.remaining() * Float.BYTES;
         int emitterBytes = result.emitterBuffer.remaining() * Float.BYTES;
+        ssboBuffer.beginFrame();
         ssboBuffer.uploadParticles(result.particleBuffer, particleBytes);
         ssboBuffer.uploadEmitters(result.emitterBuffer, emitterBytes);
 
@@ -111,7 +116,8 @@ public final class ParticleGpuRenderer {
             GlStateManager.colorMask(true, true, true, false);
             GlStateManager.blendFunc(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE);
             bloomOverlayActive = true;
-            for (ParticleBatcher.Batch batch : result.batches) {
+            for (int b = 0; b < result.batches.size(); b++) {
+                ParticleBatcher.Batch batch = result.batches.get(b);
                 ParticleBatcher.BatchKey key = batch.key;
                 if (!key.bloom || key.bloomPasses <= 0) {
                     continue;
@@ -190,7 +196,8 @@ public final class ParticleGpuRenderer {
         ResourceLocation currentTexture = null;
         ResourceLocation currentBaseTexture = null;
 
-        for (ParticleBatcher.Batch batch : batches) {
+        for (int i = 0; i < batches.size(); i++) {
+            ParticleBatcher.Batch batch = batches.get(i);
             if (bloomPass) {
                 if (!batch.key.bloom) {
                     continue;
@@ -349,7 +356,18 @@ public final class ParticleGpuRenderer {
         float upY = cosP;
         float upZ = cosY * sinP;
 
-        return new float[]{rightX, rightY, rightZ, upX, upY, upZ};
+        return setAxes(rightX, rightY, rightZ, upX, upY, upZ);
+    }
+
+    private float[] setAxes(float rightX, float rightY, float rightZ, float upX, float upY, float upZ) {
+        float[] axes = cameraAxes;
+        axes[0] = rightX;
+        axes[1] = rightY;
+        axes[2] = rightZ;
+        axes[3] = upX;
+        axes[4] = upY;
+        axes[5] = upZ;
+        return axes;
     }
 
     private float[] extractCameraAxesFromModelView() {
@@ -375,7 +393,7 @@ public final class ParticleGpuRenderer {
         upX /= upLen;
         upY /= upLen;
         upZ /= upLen;
-        return new float[]{rightX, rightY, rightZ, upX, upY, upZ};
+        return setAxes(rightX, rightY, rightZ, upX, upY, upZ);
     }
 
     private float[] extractCameraOffset(double camX, double camY, double camZ) {
@@ -392,9 +410,15 @@ public final class ParticleGpuRenderer {
         double diffSq = dx * dx + dy * dy + dz * dz;
         // If modelview translation already matches -camera, avoid double-subtracting.
         if (diffSq < 1.0e-2) {
-            return new float[]{0.0f, 0.0f, 0.0f};
+            cameraOffset[0] = 0.0f;
+            cameraOffset[1] = 0.0f;
+            cameraOffset[2] = 0.0f;
+            return cameraOffset;
         }
-        return new float[]{(float) camX, (float) camY, (float) camZ};
+        cameraOffset[0] = (float) camX;
+        cameraOffset[1] = (float) camY;
+        cameraOffset[2] = (float) camZ;
+        return cameraOffset;
     }
 
     private static void multiplyMat4(float[] a, float[] b, float[] out) {
@@ -409,22 +433,12 @@ public final class ParticleGpuRenderer {
     }
 
     private static final class FogState {
-        final boolean enabled;
-        final float r;
-        final float g;
-        final float b;
-        final float start;
-        final float end;
-
-        private FogState(boolean enabled, float r, float g, float b, float start, float end) {
-            this.enabled = enabled;
-            this.r = r;
-            this.g = g;
-            this.b = b;
-            this.start = start;
-            this.end = end;
-        }
-
+        boolean enabled;
+        float r;
+        float g;
+        float b;
+        float start;
+        float end;
     }
 
     private FogState captureFogState() {
@@ -437,7 +451,14 @@ public final class ParticleGpuRenderer {
         float r = fogColorBuffer.get();
         float g = fogColorBuffer.get();
         float b = fogColorBuffer.get();
-        return new FogState(enabled, r, g, b, start, end);
+        FogState fog = fogState;
+        fog.enabled = enabled;
+        fog.r = r;
+        fog.g = g;
+        fog.b = b;
+        fog.start = start;
+        fog.end = end;
+        return fog;
     }
 
     private static Field resolveLightmapField() {
@@ -0,0 +1,115 @@
+package org.mybad.minecraft.particle.render.gpu;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 环形上传缓冲区的布局：缓冲区分为若干段，每帧写入下一段，同一帧内的多次上传在段内按对齐顺序排列。
+ * 段容量只增不减，扩容时预留一半余量，避免粒子数小幅波动时反复重建缓冲区。
+ * 只做偏移计算和数据打包，不访问 GL。
+ */
+final class ParticleRingLayout {
+    /**
+     * SSBO 偏移对齐的下限，std430 中 vec4 成员也要求 16 字节对齐
+     */
+    static final int MIN_ALIGNMENT = 16;
+    static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    private final int segments;
+    private int alignment = MIN_ALIGNMENT;
+    private int segmentBytes;
+    private int segment;
+    private int cursor;
+    private long frame;
+
+    /**
+     * @param segments 段数，持久映射时为 3（CPU 写一段、GPU 读两段），孤立缓冲区模式为 1
+     */
+    ParticleRingLayout(int segments) {
+        this.segments = Math.max(1, segments);
+    }
+
+    void setAlignment(int alignment) {
+        this.alignment = Math.max(MIN_ALIGNMENT, alignment);
+    }
+
+    int getSegments() {
+        return segments;
+    }
+
+    int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    int getTotalBytes() {
+        return segmentBytes * segments;
+    }
+
+    /**
+     * @return 当前帧写入的段
+     */
+    int getSegment() {
+        return segment;
+    }
+
+    /**
+     * 开始新的一帧，切换到下一段
+     *
+     * @return 新的段号，调用方在写入前需要确认 GPU 已经读完这一段
+     */
+    int nextFrame() {
+        frame++;
+        segment = (int) (frame % segments);
+        cursor = 0;
+        return segment;
+    }
+
+    /**
+     * 在当前段内分配一块区域
+     *
+     * @return 相对整个缓冲区的字节偏移，当前段放不下时返回 -1，调用方应先 {@link #grow(int)}
+     */
+    int allocate(int bytes) {
+        int start = align(cursor);
+        if (bytes <= 0 || start + bytes > segmentBytes) {
+            return -1;
+        }
+        cursor = start + bytes;
+        return segment * segmentBytes + start;
+    }
+
+    /**
+     * 扩大段容量，使当前帧已用的部分加上 bytes 能放下，并预留一半余量；之后整个缓冲区需要重建，
+     * 本帧从头开始分配
+     *
+     * @return 新的段容量
+     */
+    int grow(int bytes) {
+        long required = (long) align(cursor) + bytes;
+        long target = Math.max(MIN_SEGMENT_BYTES, Math.max(required + required / 2, segmentBytes));
+        segmentBytes = Math.min(Integer.MAX_VALUE / segments, align(target));
+        cursor = 0;
+        return segmentBytes;
+    }
+
+    private int align(long value) {
+        long mask = alignment - 1L;
+        if ((alignment & mask) == 0) {
+            return (int) ((value + mask) & ~mask);
+        }
+        return (int) ((value + alignment - 1) / alignment * alignment);
+    }
+
+    /**
+     * 把 src 中从 position 到 limit 的数据按着色器的 std430 布局原样写入映射区域的 byteOffset 处，
+     * 不改变 src 的位置
+     *
+     * @param mapped 整个缓冲区映射的本地字节序视图
+     */
+    static void pack(FloatBuffer src, FloatBuffer mapped, int byteOffset) {
+        int position = src.position();
+        mapped.clear();
+        mapped.position(byteOffset / Float.BYTES);
+        mapped.put(src);
+        src.position(position);
+    }
+}
@@ -1,66 +1,85 @@
 package org.mybad.minecraft.particle.render.gpu;
 
+import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
-import org.lwjgl.opengl.GL43;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLSync;
+import org.mybad.minecraft.SkyCoreMod;
 import org.mybad.minecraft.render.GLDeletionQueue;
 
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 /**
  * 粒子 SSBO 管理（粒子 + 发射器）。
+ * <p>
+ * 支持 buffer storage 时使用持久映射的三段环形缓冲区：每帧写入下一段，写入前用 fence 确认 GPU 已读完该段，
+ * 不再每帧重新分配存储；否则退回孤立缓冲区（每帧 glBufferData(null) 后 glBufferSubData）。
+ * 每次上传在段内占一块对齐区域，绑定时用 glBindBufferRange 指向该区域，着色器的下标不变。
  */
 final class ParticleSsboBuffer {
     static final int PARTICLE_BINDING = 0;
     static final int EMITTER_BINDING = 1;
 
-    private int particleSsbo = -1;
-    private int emitterSsbo = -1;
-    private int particleCapacityBytes = 0;
-    private int emitterCapacityBytes = 0;
+    private static final int RING_SEGMENTS = 3;
+    /**
+     * 等待 fence 的超时（纳秒），正常情况下三段足够 GPU 追上，不会真正阻塞
+     */
+    private static final long FENCE_TIMEOUT_NANOS = 100_000_000L;
+
+    private Ring particles;
+    private Ring emitters;
 
     void ensureCreated() {
-        if (particleSsbo != -1) {
+        if (particles != null) {
             return;
         }
-        particleSsbo = GL15.glGenBuffers();
-        emitterSsbo = GL15.glGenBuffers();
+        boolean persistent = GpuParticleSupport.isBufferStorageAvailable();
+        int alignment = ParticleRingLayout.MIN_ALIGNMENT;
+        try {
+            alignment = GL11.glGetInteger(GL43.GL_SHADER_STORAGE_BUFFER_OFFSET_ALIGNMENT);
+        } catch (Throwable ignored) {
+        }
+        particles = new Ring(persistent, alignment);
+        emitters = new Ring(persistent, alignment);
     }
 
-    void uploadParticles(FloatBuffer data, int bytes) {
-        if (particleSsbo == -1) {
+    /**
+     * 开始新的一帧：为上一帧写入的段放置 fence，切换到下一段，在本帧第一次上传前调用
+     */
+    void beginFrame() {
+        if (particles == null) {
             return;
         }
-        if (bytes <= 0) {
+        particles.nextFrame();
+        emitters.nextFrame();
+    }
+
+    void uploadParticles(FloatBuffer data, int bytes) {
+        if (particles == null || bytes <= 0) {
             return;
         }
-        int capacity = ensureCapacity(bytes, true);
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSsbo);
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, capacity, GL15.GL_STREAM_DRAW);
-        GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, data);
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        particles.upload(data, bytes);
     }
 
     void uploadEmitters(FloatBuffer data, int bytes) {
-        if (emitterSsbo == -1) {
-            return;
-        }
-        if (bytes <= 0) {
+        if (emitters == null || bytes <= 0) {
             return;
         }
-        int capacity = ensureCapacity(bytes, false);
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, emitterSsbo);
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, capacity, GL15.GL_STREAM_DRAW);
-        GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, data);
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        emitters.upload(data, bytes);
     }
 
     void bind() {
-        if (particleSsbo == -1 || emitterSsbo == -1) {
+        if (particles == null || emitters == null) {
             return;
         }
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, PARTICLE_BINDING, particleSsbo);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, EMITTER_BINDING, emitterSsbo);
+        particles.bind(PARTICLE_BINDING);
+        emitters.bind(EMITTER_BINDING);
     }
 
     void unbind() {
@@ -69,29 +88,163 @@ final class ParticleSsboBuffer {
     }
 
     void destroy() {
-        if (particleSsbo != -1) {
-            GLDeletionQueue.enqueueBuffer(particleSsbo);
-            particleSsbo = -1;
+        if (particles != null) {
+            particles.destroy();
+            particles = null;
         }
-        if (emitterSsbo != -1) {
-            GLDeletionQueue.enqueueBuffer(emitterSsbo);
-            emitterSsbo = -1;
+        if (emitters != null) {
+            emitters.destroy();
+            emitters = null;
         }
-        particleCapacityBytes = 0;
-        emitterCapacityBytes = 0;
     }
 
-    private int ensureCapacity(int bytes, boolean particle) {
-        int current = particle ? particleCapacityBytes : emitterCapacityBytes;
-        if (bytes > current) {
-            int newCapacity = Math.max(bytes, current * 2);
-            if (particle) {
-                particleCapacityBytes = newCapacity;
+    /**
+     * 单个 SSBO 的环形上传
+     */
+    private static final class Ring {
+        private final ParticleRingLayout layout;
+        private final GLSync[] fences;
+        private boolean persistent;
+        private int buffer = -1;
+        @Nullable
+        private ByteBuffer mapped;
+        @Nullable
+        private FloatBuffer mappedFloats;
+        private boolean written;
+        private boolean orphaned;
+        private int boundOffset = -1;
+        private int boundBytes;
+
+        Ring(boolean persistent, int alignment) {
+            this.persistent = persistent;
+            this.layout = new ParticleRingLayout(persistent ? RING_SEGMENTS : 1);
+            this.layout.setAlignment(alignment);
+            this.fences = new GLSync[RING_SEGMENTS];
+        }
+
+        void nextFrame() {
+            if (persistent && written && buffer != -1) {
+                int previous = layout.getSegment();
+                deleteFence(previous);
+                fences[previous] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            }
+            written = false;
+            orphaned = false;
+            boundOffset = -1;
+            int segment = layout.nextFrame();
+            if (persistent) {
+                waitFence(segment);
+            }
+        }
+
+        void upload(FloatBuffer data, int bytes) {
+            int offset = layout.allocate(bytes);
+            if (offset < 0) {
+                layout.grow(bytes);
+                recreate();
+                offset = layout.allocate(bytes);
+                if (offset < 0) {
+                    return;
+                }
+            }
+            if (persistent) {
+                ParticleRingLayout.pack(data, mappedFloats, offset);
             } else {
-                emitterCapacityBytes = newCapacity;
+                GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, buffer);
+                if (!orphaned) {
+                    // 每帧第一次写入前孤立旧存储，驱动会另分配一块，不等待 GPU
+                    GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, layout.getTotalBytes(), GL15.GL_STREAM_DRAW);
+                    orphaned = true;
+                }
+                GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, offset, data);
+                GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+            }
+            written = true;
+            boundOffset = offset;
+            boundBytes = bytes;
+        }
+
+        void bind(int binding) {
+            if (buffer == -1 || boundOffset < 0) {
+                return;
+            }
+            GL30.glBindBufferRange(GL43.GL_SHADER_STORAGE_BUFFER, binding, buffer, boundOffset, boundBytes);
+        }
+
+        /**
+         * 按新的容量重建缓冲区。旧缓冲区上已经提交的绘制由驱动保证完成后再释放，旧 fence 一并丢弃
+         */
+        private void recreate() {
+            release();
+            buffer = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, buffer);
+            long size = layout.getTotalBytes();
+            if (persistent) {
+                int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+                GL44.glBufferStorage(GL43.GL_SHADER_STORAGE_BUFFER, size, flags);
+                ByteBuffer map = GL30.glMapBufferRange(GL43.GL_SHADER_STORAGE_BUFFER, 0, size, flags, null);
+                if (map == null) {
+                    SkyCoreMod.LOGGER.warn("[SkyCore] 粒子 SSBO 持久映射失败，改用孤立缓冲区上传");
+                    GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+                    GLDeletionQueue.enqueueBuffer(buffer);
+                    persistent = false;
+                    buffer = GL15.glGenBuffers();
+                    GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, buffer);
+                } else {
+                    mapped = map.order(ByteOrder.nativeOrder());
+                    mappedFloats = mapped.asFloatBuffer();
+                }
+            }
+            if (!persistent) {
+                GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, size, GL15.GL_STREAM_DRAW);
+                orphaned = true;
+            }
+            GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        }
+
+        private void waitFence(int segment) {
+            GLSync fence = fences[segment];
+            if (fence == null) {
+                return;
+            }
+            int flags = GL32.GL_SYNC_FLUSH_COMMANDS_BIT;
+            while (true) {
+                int status = GL32.glClientWaitSync(fence, flags, FENCE_TIMEOUT_NANOS);
+                if (status != GL32.GL_TIMEOUT_EXPIRED) {
+                    break;
+                }
+                flags = 0;
             }
-            return newCapacity;
+            deleteFence(segment);
+        }
+
+        private void deleteFence(int segment) {
+            if (fences[segment] != null) {
+                GL32.glDeleteSync(fences[segment]);
+                fences[segment] = null;
+            }
+        }
+
+        private void release() {
+            for (int i = 0; i < fences.length; i++) {
+                deleteFence(i);
+            }
+            if (buffer != -1) {
+                if (mapped != null) {
+                    GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, buffer);
+                    GL15.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+                    GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+                }
+                GLDeletionQueue.enqueueBuffer(buffer);
+                buffer = -1;
+            }
+            mapped = null;
+            mappedFloats = null;
+        }
+
+        void destroy() {
+            release();
+            boundOffset = -1;
         }
-        return current;
     }
 }
@@ -11,39 +11,36 @@ import org.mybad.bedrockparticle.particle.component.EmitterLifetimeOnceComponent
 import org.mybad.bedrockparticle.particle.component.EmitterLocalSpaceComponent;
 import org.mybad.bedrockparticle.particle.component.EmitterRateInstantComponent;
 import org.mybad.bedrockparticle.particle.component.EmitterRateSteadyComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleAppearanceBillboardComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleAppearanceTintingComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleEmitterShape;
-import org.mybad.bedrockparticle.particle.component.ParticleInitialSpeedComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleLifetimeExpressionComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleLifetimeEventComponent;
 import org.mybad.bedrockparticle.particle.event.ParticleEvent;
-import net.minecraft.util.ResourceLocation;
+import org.mybad.minecraft.particle.culling.ParticleFrustum;
 import org.mybad.minecraft.particle.molang.ParticleCurveEvaluator;
-import org.mybad.minecraft.particle.molang.ParticleMolangBindings;
+import org.mybad.minecraft.particle.molang.ParticleCurveLut;
 import org.mybad.minecraft.particle.molang.ParticleMolangContext;
+import org.mybad.minecraft.particle.molang.ParticleMolangEnvironment;
+import org.mybad.minecraft.particle.molang.ParticleMolangLayout;
 import org.mybad.minecraft.particle.transform.EmitterTransform;
 import org.mybad.minecraft.particle.transform.EmitterTransformProvider;
 
-import java.util.ArrayDeque;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 
 public class ActiveEmitter implements ParticleContext {
+    /**
+     * 还没有粒子经过批处理时包围盒的外扩半径
+     */
+    static final float DEFAULT_RENDER_RADIUS = 1.0f;
+
     private final BedrockParticleSystem system;
     private final ParticleData data;
-    private final Map<String, ParticleData.Curve> curves;
-    private final Map<String, Float> curveValues;
+    private final ParticleMolangLayout molangLayout;
+    private final ParticleData.Curve[] curves;
+    private final ParticleCurveLut[] curveLuts;
     private final ParticleMolangContext molangContext;
-    private final MolangEnvironment environment;
-    private final ParticleAppearanceBillboardComponent billboard;
-    private final ParticleAppearanceTintingComponent tint;
-    private final ParticleInitialSpeedComponent speed;
+    private final ParticleMolangEnvironment environment;
+    private final ParticlePlan plan;
     private final ParticleEmitterShape emitterShape;
-    private final ParticleLifetimeExpressionComponent particleLifetimeComponent;
     private final EmitterLocalSpaceComponent localSpace;
     private final EmitterRateInstantComponent rateInstant;
     private final EmitterRateSteadyComponent rateSteady;
@@ -52,17 +49,9 @@ public class ActiveEmitter implements ParticleContext {
     private final EmitterLifetimeExpressionComponent lifetimeExpression;
     private final ParticleLifetimeEventComponent lifetimeEvents;
     private final EmitterInitializationComponent emitterInitialization;
-    private final ResourceLocation texture;
-    private final ResourceLocation emissiveTexture;
-    private final float emissiveStrength;
-    private final ResourceLocation blendTexture;
-    private final BedrockParticleSystem.BlendMode blendMode;
-    private final float blendR;
-    private final float blendG;
-    private final float blendB;
-    private final float blendA;
-    private final int overrideCount;
-    private final EmitterTransformProvider transformProvider;
+    private int overrideCount;
+    private int priority;
+    private EmitterTransformProvider transformProvider;
     private final EmitterTransform currentTransform;
     private final EmitterShapeSpawner spawner;
     private final float[] basisX;
@@ -72,10 +61,14 @@ public class ActiveEmitter implements ParticleContext {
     private final float[] lastBasisY;
     private final float[] lastBasisZ;
     private float scale;
-    private final Random eventRandom;
-    private final boolean locatorBound;
-    private final ArrayDeque<ActiveParticle> particlePool;
-    private final int particlePoolLimit;
+    private final ParticleRandom random;
+    private long seed;
+    private long particleSequence;
+    private boolean locatorBound;
+    /**
+     * 每次归还到对象池时递增，持有发射器引用的一方据此判断它是否已被复用
+     */
+    private int generation;
     private int lifetimeEventIndex;
     private boolean expirationEventsFired;
 
@@ -103,25 +96,77 @@ public class ActiveEmitter implements ParticleContext {
         private boolean forceExpireParticles;
         private int activeParticles;
         private boolean spawnedAny;
-
-        ActiveEmitter(BedrockParticleSystem system, ParticleData data, EmitterTransformProvider provider, int overrideCount) {
+        private float admissionScore;
+        /**
+         * 上一 tick 结束时所属粒子（含上一位置）的包围盒，渲染时用来整体剔除
+         */
+        private double boundsMinX;
+        private double boundsMinY;
+        private double boundsMinZ;
+        private double boundsMaxX;
+        private double boundsMaxY;
+        private double boundsMaxZ;
+        /**
+         * 批处理时见到的最大粒子半径，包围盒按它外扩
+         */
+        private float renderRadius;
+        private boolean visible;
+        /**
+         * 本 tick 所属粒子只跟随发射器，跳过 Molang、事件和运动组件
+         */
+        private boolean behaviourSkipped;
+        private int batchFrame;
+        private int batchIndex;
+
+        ActiveEmitter(BedrockParticleSystem system, ParticlePlan plan, EmitterTransformProvider provider, int overrideCount, int priority) {
             this.system = system;
-            this.data = data;
+            this.plan = plan;
+            this.data = plan.data;
+            this.currentTransform = new EmitterTransform();
+            this.basisX = new float[3];
+            this.basisY = new float[3];
+            this.basisZ = new float[3];
+            this.lastBasisX = new float[3];
+            this.lastBasisY = new float[3];
+            this.lastBasisZ = new float[3];
+            this.molangLayout = ParticleMolangLayout.of(data);
+            this.curves = this.molangLayout.getCurves();
+            this.curveLuts = this.molangLayout.getCurveLuts();
+            this.molangContext = new ParticleMolangContext();
+            this.environment = this.molangLayout.createEnvironment(this.molangContext);
+            this.emitterShape = plan.emitterShape;
+            this.localSpace = plan.localSpace;
+            this.rateInstant = plan.rateInstant;
+            this.rateSteady = plan.rateSteady;
+            this.lifetimeOnce = plan.lifetimeOnce;
+            this.lifetimeLooping = plan.lifetimeLooping;
+            this.lifetimeExpression = plan.lifetimeExpression;
+            this.lifetimeEvents = plan.emitterLifetimeEvents;
+            this.emitterInitialization = plan.emitterInitialization;
+            this.spawner = new EmitterShapeSpawner(this);
+            this.random = new ParticleRandom(0L);
+            this.environment.setRandom(this.random);
+            reset(provider, overrideCount, priority);
+        }
+
+        /**
+         * 重新初始化全部运行状态，新建和从 {@link ParticlePools} 取出的发射器都经过这里
+         */
+        void reset(EmitterTransformProvider provider, int overrideCount, int priority) {
             this.transformProvider = provider != null ? provider
                 : new BedrockParticleSystem.StaticTransformProvider(0.0, 0.0, 0.0, 0.0f);
             this.locatorBound = provider != null && provider.isLocatorBound();
-            this.currentTransform = new EmitterTransform();
             this.transformProvider.fill(currentTransform, 0.0f);
             this.x = currentTransform.x;
             this.y = currentTransform.y;
             this.z = currentTransform.z;
             this.yaw = currentTransform.yaw;
-            this.basisX = new float[]{currentTransform.basisX[0], currentTransform.basisX[1], currentTransform.basisX[2]};
-            this.basisY = new float[]{currentTransform.basisY[0], currentTransform.basisY[1], currentTransform.basisY[2]};
-            this.basisZ = new float[]{currentTransform.basisZ[0], currentTransform.basisZ[1], currentTransform.basisZ[2]};
-            this.lastBasisX = new float[]{basisX[0], basisX[1], basisX[2]};
-            this.lastBasisY = new float[]{basisY[0], basisY[1], basisY[2]};
-            this.lastBasisZ = new float[]{basisZ[0], basisZ[1], basisZ[2]};
+            copyBasis(currentTransform.basisX, basisX);
+            copyBasis(currentTransform.basisY, basisY);
+            copyBasis(currentTransform.basisZ, basisZ);
+            copyBasis(basisX, lastBasisX);
+            copyBasis(basisY, lastBasisY);
+            copyBasis(basisZ, lastBasisZ);
             this.lastX = this.x;
             this.lastY = this.y;
             this.lastZ = this.z;
@@ -132,67 +177,40 @@ public class ActiveEmitter implements ParticleContext {
             this.deltaZ = 0.0;
             this.deltaYawRad = 0.0f;
             this.overrideCount = overrideCount;
-            this.curves = ParticleMolangBindings.buildCurveDefinitions(data);
-            this.curveValues = this.curves.isEmpty() ? Collections.emptyMap() : new HashMap<>(this.curves.size());
-            this.molangContext = new ParticleMolangContext();
-            this.molangContext.curves = this.curveValues;
+            this.seed = system.nextSeed();
+            this.particleSequence = 0L;
+            this.random.setSeed(seed);
             for (int i = 1; i <= 16; i++) {
-                this.molangContext.setRandom(i, (float) Math.random());
+                this.molangContext.setRandom(i, random.nextFloat());
             }
             this.molangContext.random = this.molangContext.getRandom(1);
             for (int i = 1; i <= 16; i++) {
                 this.molangContext.setEmitterRandom(i, this.molangContext.getRandom(i));
             }
             this.molangContext.entityScale = this.scale;
-            this.environment = ParticleMolangBindings.createRuntime(this.molangContext, this.curves);
-
-            this.billboard = BedrockParticleSystem.getComponent(data, "particle_appearance_billboard");
-            this.tint = BedrockParticleSystem.getComponent(data, "particle_appearance_tinting");
-            this.speed = BedrockParticleSystem.getComponent(data, "particle_initial_speed");
-            this.emitterShape = resolveEmitterShape();
-            this.particleLifetimeComponent = BedrockParticleSystem.getComponent(data, "particle_lifetime_expression");
-            this.localSpace = BedrockParticleSystem.getComponent(data, "emitter_local_space");
-            this.rateInstant = BedrockParticleSystem.getComponent(data, "emitter_rate_instant");
-            this.rateSteady = BedrockParticleSystem.getComponent(data, "emitter_rate_steady");
-            this.lifetimeOnce = BedrockParticleSystem.getComponent(data, "emitter_lifetime_once");
-            this.lifetimeLooping = BedrockParticleSystem.getComponent(data, "emitter_lifetime_looping");
-            this.lifetimeExpression = BedrockParticleSystem.getComponent(data, "emitter_lifetime_expression");
-            this.lifetimeEvents = BedrockParticleSystem.getComponent(data, "emitter_lifetime_events");
-            this.emitterInitialization = BedrockParticleSystem.getComponent(data, "emitter_initialization");
-            this.texture = system.toMinecraft(data);
-            this.emissiveTexture = resolveEmissiveTexture(system, data);
-            this.emissiveStrength = resolveEmissiveStrength(data);
-            this.blendTexture = resolveBlendTexture(system, data);
-            this.blendMode = resolveBlendMode(data);
-            float[] blendColor = resolveBlendColor(data);
-            if (blendColor != null && blendColor.length >= 4) {
-                this.blendR = clamp01(blendColor[0]);
-                this.blendG = clamp01(blendColor[1]);
-                this.blendB = clamp01(blendColor[2]);
-                this.blendA = clamp01(blendColor[3]);
-            } else {
-                this.blendR = 1.0f;
-                this.blendG = 1.0f;
-                this.blendB = 1.0f;
-                this.blendA = 0.0f;
-            }
+            this.molangContext.syncSlots();
+            this.environment.resetVariables(null);
+
+            this.priority = priority;
+            this.admissionScore = system.resolveAdmissionScore(priority, x, y, z, scale);
             this.age = 0.0f;
             this.lifetime = Float.MAX_VALUE;
+            this.activeTimeEval = 0.0f;
+            this.sleepTimeEval = 0.0f;
+            this.sleepRemaining = 0.0f;
+            this.maxParticlesEval = 0;
             this.instantEmitted = false;
             this.expired = false;
+            this.forceExpireParticles = false;
             this.activeParticles = 0;
             this.spawnedAny = false;
-            this.spawner = new EmitterShapeSpawner(this);
-            this.eventRandom = new Random();
-            this.particlePool = new ArrayDeque<>();
-            int limit = BedrockParticleSystem.DEFAULT_PARTICLE_POOL_LIMIT;
-            if (overrideCount > 0) {
-                limit = Math.min(limit, overrideCount);
-            }
-            this.particlePoolLimit = Math.max(0, limit);
             this.lifetimeEventIndex = 0;
             this.expirationEventsFired = false;
             this.steadyRemainder = 0.0f;
+            this.renderRadius = DEFAULT_RENDER_RADIUS;
+            this.visible = true;
+            this.behaviourSkipped = false;
+            resetBounds();
 
             evaluateLifetimeOnCreate();
             updateContext(0.0f);
@@ -204,7 +222,15 @@ public class ActiveEmitter implements ParticleContext {
             }
         }
 
-        void emitInitialParticles(int room) {
+        /**
+         * 归还到对象池前调用：放开变换来源（可能引用实体），并让绑定到本发射器的子效果停止跟随
+         */
+        void release() {
+            this.transformProvider = null;
+            this.generation++;
+        }
+
+        void emitInitialParticles() {
             if (expired) {
                 return;
             }
@@ -216,11 +242,11 @@ public class ActiveEmitter implements ParticleContext {
             }
             if (rateInstant != null) {
                 int count = resolveInstantCount();
-                emitParticles(count, room);
+                emitParticles(count);
                 instantEmitted = true;
             } else if (rateSteady == null) {
                 int count = overrideCount > 0 ? overrideCount : 1;
-                emitParticles(count, room);
+                emitParticles(count);
                 instantEmitted = true;
                 expire();
             }
@@ -228,6 +254,8 @@ public class ActiveEmitter implements ParticleContext {
 
         boolean tick() {
             updateTransform(BedrockParticleSystem.TICK_SECONDS);
+            admissionScore = system.resolveAdmissionScore(priority, x, y, z, scale);
+            behaviourSkipped = system.shouldSkipBehaviour(x, y, z, visible, (int) seed);
             updateContext(age);
             if (emitterInitialization != null && emitterInitialization.tickExpression() != null) {
                 environment.safeResolve(emitterInitialization.tickExpression());
@@ -239,7 +267,7 @@ public class ActiveEmitter implements ParticleContext {
                 if (!expired && isActive()) {
                     if (rateInstant != null) {
                         if (!instantEmitted) {
-                            emitParticles(resolveInstantCount(), system.getRemainingParticleRoom());
+                            emitParticles(resolveInstantCount());
                             instantEmitted = true;
                         }
                     } else if (rateSteady != null) {
@@ -252,6 +280,70 @@ public class ActiveEmitter implements ParticleContext {
             return !expired || activeParticles > 0;
         }
 
+        void resetBounds() {
+            boundsMinX = boundsMaxX = x;
+            boundsMinY = boundsMaxY = y;
+            boundsMinZ = boundsMaxZ = z;
+        }
+
+        void includeBounds(double px, double py, double pz) {
+            if (px < boundsMinX) {
+                boundsMinX = px;
+            } else if (px > boundsMaxX) {
+                boundsMaxX = px;
+            }
+            if (py < boundsMinY) {
+                boundsMinY = py;
+            } else if (py > boundsMaxY) {
+                boundsMaxY = py;
+            }
+            if (pz < boundsMinZ) {
+                boundsMinZ = pz;
+            } else if (pz > boundsMaxZ) {
+                boundsMaxZ = pz;
+            }
+        }
+
+        /**
+         * 每帧渲染前用视锥体测试包围盒，不可见的发射器跳过渲染表达式，其粒子不进入批处理
+         */
+        boolean updateVisibility(ParticleFrustum frustum) {
+            float pad = renderRadius * scale;
+            visible = frustum.intersectsBox(boundsMinX - pad, boundsMinY - pad, boundsMinZ - pad,
+                boundsMaxX + pad, boundsMaxY + pad, boundsMaxZ + pad);
+            return visible;
+        }
+
+        public boolean isVisible() {
+            return visible;
+        }
+
+        /**
+         * 批处理记录所属粒子的渲染半径（已含发射器缩放），用于外扩包围盒
+         */
+        public void includeRenderRadius(float radius) {
+            float unscaled = scale > 0.0f ? radius / scale : radius;
+            if (unscaled > renderRadius) {
+                renderRadius = unscaled;
+            }
+        }
+
+        /**
+         * @return 本发射器在第 frame 帧批处理中的发射器序号，本帧尚未登记时返回 0
+         */
+        public int getBatchIndex(int frame) {
+            return batchFrame == frame ? batchIndex : 0;
+        }
+
+        public void setBatchIndex(int frame, int index) {
+            this.batchFrame = frame;
+            this.batchIndex = index;
+        }
+
+        boolean isBehaviourSkipped() {
+            return behaviourSkipped;
+        }
+
         void render(float partialTicks) {
             if (emitterInitialization == null || emitterInitialization.renderExpression() == null) {
                 return;
@@ -270,21 +362,12 @@ public class ActiveEmitter implements ParticleContext {
             if (spawnRate <= 0.0f) {
                 return;
             }
-            int room = system.getRemainingParticleRoom();
-            if (room <= 0) {
-                return;
-            }
             steadyRemainder += spawnRate / 20.0f;
             int count = (int) steadyRemainder;
             if (count <= 0) {
                 return;
             }
-            int actual = Math.min(Math.min(count, maxCount), room);
-            if (actual <= 0) {
-                steadyRemainder -= count;
-                return;
-            }
-            emitParticles(actual, room);
+            emitParticles(Math.min(count, maxCount));
             steadyRemainder -= count;
         }
 
@@ -310,21 +393,20 @@ public class ActiveEmitter implements ParticleContext {
             return maxParticlesEval;
         }
 
-        private void emitParticles(int count, int room) {
+        private void emitParticles(int count) {
             if (count <= 0) {
                 return;
             }
-            if (room <= 0) {
+            int actual = system.reserveParticleRoom(this, count);
+            if (actual <= 0) {
                 return;
             }
-            int actual = Math.min(count, room);
             if (emitterShape != null && emitterShape != ParticleEmitterShape.EMPTY) {
                 emitterShape.emitParticles(spawner, actual);
             } else {
                 for (int i = 0; i < actual; i++) {
                     ActiveParticle particle = createParticle(x, y, z);
                     particle.applyInitialSpeed();
-                    system.addParticle(particle);
                     onParticleSpawned();
                 }
             }
@@ -370,12 +452,13 @@ public class ActiveEmitter implements ParticleContext {
             sleepTimeEval = Math.max(0.0f, environment.safeResolve(lifetimeLooping.sleepTime()));
             sleepRemaining = sleepTimeEval;
             for (int i = 1; i <= 16; i++) {
-                molangContext.setRandom(i, (float) Math.random());
+                molangContext.setRandom(i, random.nextFloat());
             }
             molangContext.random = molangContext.getRandom(1);
             for (int i = 1; i <= 16; i++) {
                 molangContext.setEmitterRandom(i, molangContext.getRandom(i));
             }
+            molangContext.syncSlots();
             instantEmitted = false;
             maxParticlesEval = 0;
             steadyRemainder = 0.0f;
@@ -403,6 +486,7 @@ public class ActiveEmitter implements ParticleContext {
             molangContext.particleAge = ageSeconds;
             molangContext.particleLifetime = lifetime;
             molangContext.entityScale = scale;
+            molangContext.syncSlots();
             updateCurves();
         }
 
@@ -458,12 +542,8 @@ public class ActiveEmitter implements ParticleContext {
         }
 
         private void updateCurves() {
-            if (curves.isEmpty()) {
-                return;
-            }
-            for (Map.Entry<String, ParticleData.Curve> entry : curves.entrySet()) {
-                float value = ParticleCurveEvaluator.evaluateCurve(environment, entry.getValue());
-                curveValues.put(entry.getKey(), value);
+            for (int i = 0; i < curves.length; i++) {
+                molangContext.setCurveValue(i, ParticleCurveEvaluator.evaluateCurve(environment, curves[i], curveLuts[i]));
             }
         }
 
@@ -512,6 +592,25 @@ public class ActiveEmitter implements ParticleContext {
             }
         }
 
+        int getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return 优先级加上距离和屏幕尺寸权重，预算满时用来决定谁被挤掉
+         */
+        float getAdmissionScore() {
+            return admissionScore;
+        }
+
+        ParticlePlan getPlan() {
+            return plan;
+        }
+
+        int getGeneration() {
+            return generation;
+        }
+
         boolean hasSpawnedParticles() {
             return spawnedAny;
         }
@@ -556,6 +655,10 @@ public class ActiveEmitter implements ParticleContext {
             return environment;
         }
 
+        ParticleMolangLayout getMolangLayout() {
+            return molangLayout;
+        }
+
         @Override
         public void particleEffect(String effect, ParticleEvent.ParticleSpawnType type) {
             if (effect == null || effect.isEmpty()) {
@@ -587,7 +690,7 @@ public class ActiveEmitter implements ParticleContext {
 
         @Override
         public Random getRandom() {
-            return eventRandom;
+            return random;
         }
 
         boolean isLocalPosition() {
@@ -706,165 +809,36 @@ public class ActiveEmitter implements ParticleContext {
         }
 
         private ActiveParticle obtainParticle(double px, double py, double pz) {
-            ActiveParticle particle = particlePool.pollFirst();
+            ActiveParticle particle = system.getPools().borrowParticle(plan);
             if (particle != null) {
-                system.onPoolBorrow();
+                particle.bind(this);
                 particle.reset(px, py, pz);
                 return particle;
             }
-            return new ActiveParticle(
-                system,
-                data,
-                this,
-                px, py, pz,
-                billboard,
-                tint,
-                speed,
-                texture,
-                emissiveTexture,
-                emissiveStrength,
-                blendTexture,
-                blendMode,
-                blendR,
-                blendG,
-                blendB,
-                blendA,
-                particleLifetimeComponent
-            );
-        }
-
-        void recycleParticle(ActiveParticle particle) {
-            if (particle == null) {
-                return;
-            }
-            if (particlePoolLimit <= 0) {
-                return;
-            }
-            if (particlePool.size() >= particlePoolLimit) {
-                return;
-            }
-            if (!system.canPoolMore()) {
-                return;
-            }
-            particlePool.addFirst(particle);
-            system.onPoolReturn();
-        }
-
-        int clearPool() {
-            int count = particlePool.size();
-            particlePool.clear();
-            return count;
+            return new ActiveParticle(system, plan, this, px, py, pz);
         }
 
         ActiveParticle createParticle(double px, double py, double pz) {
             return obtainParticle(px, py, pz);
         }
 
-        private ParticleEmitterShape resolveEmitterShape() {
-            ParticleEmitterShape shape = BedrockParticleSystem.getComponent(data, "emitter_shape_disc");
-            if (shape != null) {
-                return shape;
-            }
-            shape = BedrockParticleSystem.getComponent(data, "emitter_shape_box");
-            if (shape != null) {
-                return shape;
-            }
-            shape = BedrockParticleSystem.getComponent(data, "emitter_shape_sphere");
-            if (shape != null) {
-                return shape;
-            }
-            shape = BedrockParticleSystem.getComponent(data, "emitter_shape_point");
-            if (shape != null) {
-                return shape;
-            }
-            shape = BedrockParticleSystem.getComponent(data, "emitter_shape_entity_aabb");
-            if (shape != null) {
-                return shape;
-            }
-            shape = BedrockParticleSystem.getComponent(data, "emitter_shape_custom");
-            if (shape != null) {
-                return shape;
-            }
-            if (data != null && data.components() != null) {
-                for (org.mybad.bedrockparticle.particle.component.ParticleComponent component : data.components().values()) {
-                    if (component instanceof ParticleEmitterShape) {
-                        return (ParticleEmitterShape) component;
-                    }
-                }
-            }
-            return ParticleEmitterShape.EMPTY;
-        }
-
         BedrockParticleSystem getSystem() {
             return system;
         }
 
         Random getEventRandom() {
-            return eventRandom;
+            return random;
+        }
+
+        /**
+         * 为下一个粒子派生随机流种子，只依赖发射器种子和生成序号
+         */
+        long nextParticleSeed() {
+            return ParticleRandom.derive(seed, particleSequence++);
         }
 
         void onParticleSpawned() {
             activeParticles++;
             spawnedAny = true;
         }
-
-        private static ResourceLocation resolveEmissiveTexture(BedrockParticleSystem system, ParticleData data) {
-            if (data == null || data.description() == null) {
-                return null;
-            }
-            return system.toMinecraft(data.description().getEmissiveTexture());
-        }
-
-        private static float resolveEmissiveStrength(ParticleData data) {
-            if (data == null || data.description() == null) {
-                return 0.0f;
-            }
-            float strength = data.description().getEmissiveStrength();
-            if (strength < 0.0f) {
-                return 0.0f;
-            }
-            return strength;
-        }
-
-        private static ResourceLocation resolveBlendTexture(BedrockParticleSystem system, ParticleData data) {
-            if (data == null || data.description() == null) {
-                return null;
-            }
-            return system.toMinecraft(data.description().getBlendTexture());
-        }
-
-        private static BedrockParticleSystem.BlendMode resolveBlendMode(ParticleData data) {
-            if (data == null || data.description() == null) {
-                return BedrockParticleSystem.BlendMode.ALPHA;
-            }
-            String mode = data.description().getBlendMode();
-            if (mode == null || mode.isEmpty()) {
-                return BedrockParticleSystem.BlendMode.ALPHA;
-            }
-            String lower = mode.toLowerCase(java.util.Locale.ROOT);
-            if (lower.contains("add")) {
-                return BedrockParticleSystem.BlendMode.ADD;
-            }
-            return BedrockParticleSystem.BlendMode.ALPHA;
-        }
-
-        private static float[] resolveBlendColor(ParticleData data) {
-            if (data == null || data.description() == null) {
-                return null;
-            }
-            return data.description().getBlendColor();
-        }
-
-        private static float clamp01(float value) {
-            if (Float.isNaN(value)) {
-                return 0.0f;
-            }
-            if (value < 0.0f) {
-                return 0.0f;
-            }
-            if (value > 1.0f) {
-                return 1.0f;
-            }
-            return value;
-        }
     }
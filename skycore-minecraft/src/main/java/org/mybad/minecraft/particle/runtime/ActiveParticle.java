@@ -1,92 +1,47 @@
 package org.mybad.minecraft.particle.runtime;
 
 import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
-import org.mybad.bedrockparticle.molang.api.MolangEnvironmentBuilder;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.particle.ParticleData;
 import org.mybad.bedrockparticle.particle.ParticleInstance;
 import org.mybad.bedrockparticle.particle.ParticleContext;
-import org.mybad.bedrockparticle.particle.component.EmitterInitializationComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleAppearanceBillboardComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleAppearanceLightingComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleAppearanceTintingComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleExpireInBlocksComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleExpireNotInBlocksComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleInitialSpeedComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleInitialSpinComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleLifetimeExpressionComponent;
 import org.mybad.bedrockparticle.particle.component.ParticleLifetimeEventComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleKillPlaneComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleMotionCollisionComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleMotionDynamicComponent;
-import org.mybad.bedrockparticle.particle.component.ParticleMotionParametricComponent;
 import org.mybad.bedrockparticle.particle.event.ParticleEvent;
 import net.minecraft.block.Block;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.AxisAlignedBB;
-import net.minecraft.util.math.BlockPos;
+import org.mybad.minecraft.particle.collision.ParticleCollisionCache;
 import org.mybad.minecraft.particle.molang.ParticleCurveEvaluator;
-import org.mybad.minecraft.particle.molang.ParticleMolangBindings;
+import org.mybad.minecraft.particle.molang.ParticleCurveLut;
 import org.mybad.minecraft.particle.molang.ParticleMolangContext;
-import org.mybad.minecraft.particle.render.ParticleRenderer;
+import org.mybad.minecraft.particle.molang.ParticleMolangEnvironment;
+import org.mybad.minecraft.particle.molang.ParticleMolangLayout;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
 import java.util.Random;
 
 public class ActiveParticle implements ParticleInstance, ParticleContext {
     private final BedrockParticleSystem system;
     private final ParticleData data;
-    private final Map<String, ParticleData.Curve> curves;
-    private final Map<String, Float> curveValues;
-    private final ParticleRenderer renderer;
-    private final ParticleAppearanceBillboardComponent billboard;
-    private final ParticleAppearanceTintingComponent tint;
-        private final ParticleAppearanceLightingComponent lighting;
-        private final ResourceLocation texture;
-        private final ResourceLocation emissiveTexture;
-        private final float emissiveStrength;
-        private final ResourceLocation blendTexture;
-        private final BedrockParticleSystem.BlendMode blendModeOverlay;
-        private final float blendR;
-        private final float blendG;
-        private final float blendB;
-        private final float blendA;
-        private final BedrockParticleSystem.BlendMode blendMode;
-    private final boolean bloom;
-    private final float bloomStrength;
-    private final int bloomPasses;
-    private final float bloomScaleStep;
-    private final float bloomDownscale;
-    private final ParticleInitialSpeedComponent speed;
-    private final ParticleInitialSpinComponent initialSpin;
-    private final ParticleMotionDynamicComponent motionDynamic;
-    private final ParticleMotionParametricComponent motionParametric;
-    private final ParticleMotionCollisionComponent motionCollision;
-    private final ParticleLifetimeEventComponent lifetimeEvents;
-    private final ParticleKillPlaneComponent killPlane;
-    private final ParticleExpireInBlocksComponent expireInBlocks;
-    private final ParticleExpireNotInBlocksComponent expireNotInBlocks;
-    private final EmitterInitializationComponent particleInitialization;
-    private final ParticleLifetimeExpressionComponent lifetimeComponent;
-    private final MolangExpression lifetimeExpiration;
-    private float lifetime;
+    private final ParticlePlan plan;
+    private final ParticleData.Curve[] curves;
+    private final ParticleCurveLut[] curveLuts;
     private final ParticleMolangContext molangContext;
-    private final MolangEnvironment environment;
-    private final ActiveEmitter emitter;
-    private final boolean localPosition;
-    private final boolean localRotation;
-    private final boolean localVelocity;
-    private final boolean rotateAcceleration;
-        private final Block[] expireInBlockIds;
-        private final Block[] expireNotInBlockIds;
-        private final BlockPos.MutableBlockPos blockPos;
-        private final Random eventRandom;
+    private final ParticleMolangEnvironment environment;
+    private ActiveEmitter emitter;
+    private boolean localPosition;
+    private boolean localRotation;
+    private boolean localVelocity;
+    private boolean rotateAcceleration;
+        private final ParticleRandom random;
         private int lifetimeEventIndex;
 
+        private final ParticleStore store;
+        private int row = -1;
         private double x;
         private double y;
         private double z;
@@ -103,125 +58,77 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         private double ay;
         private double az;
         private float age;
+        private float lifetime;
         private float roll;
         private float prevRoll;
         private float rollVelocity;
         private float rollAcceleration;
-        private float collisionRadius;
-        private float collisionDrag;
-        private float collisionRestitution;
-        private boolean expireOnContact;
         private boolean hasFacingDirection;
         private float lastFacingX;
         private float lastFacingY;
         private float lastFacingZ;
-
-        ActiveParticle(BedrockParticleSystem system, ParticleData data,
-        ActiveEmitter emitter,
-        double x,
-        double y,
-        double z,
-        ParticleAppearanceBillboardComponent billboard,
-        ParticleAppearanceTintingComponent tint,
-        ParticleInitialSpeedComponent speed,
-        ResourceLocation texture,
-        ResourceLocation emissiveTexture,
-        float emissiveStrength,
-        ResourceLocation blendTexture,
-        BedrockParticleSystem.BlendMode blendModeOverlay,
-        float blendR,
-        float blendG,
-        float blendB,
-        float blendA,
-        ParticleLifetimeExpressionComponent lifetimeComponent) {
+        private float collisionRadius;
+        private float collisionDrag;
+        private float collisionRestitution;
+        private boolean expireOnContact;
+        private boolean motionPending;
+        /**
+         * 上次动态运动求值得到的加速度（不含阻力）和阻力系数，已换算到每 tick；降频跳过的 tick 用它们按当前速度重算阻力项
+         */
+        private double motionAx;
+        private double motionAy;
+        private double motionAz;
+        private double motionDrag;
+        private float motionRollAcceleration;
+        private float motionRollDrag;
+
+        ActiveParticle(BedrockParticleSystem system, ParticlePlan plan, ActiveEmitter emitter, double x, double y, double z) {
             this.system = system;
-            this.data = data;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.prevX = x;
-            this.prevY = y;
-            this.prevZ = z;
-            this.speed = speed;
-            this.initialSpin = BedrockParticleSystem.getComponent(data, "particle_initial_spin");
-            this.motionDynamic = BedrockParticleSystem.getComponent(data, "particle_motion_dynamic");
-            this.motionParametric = BedrockParticleSystem.getComponent(data, "particle_motion_parametric");
-            this.motionCollision = BedrockParticleSystem.getComponent(data, "particle_motion_collision");
-            this.lifetimeEvents = BedrockParticleSystem.getComponent(data, "particle_lifetime_events");
-            this.killPlane = BedrockParticleSystem.getComponent(data, "particle_kill_plane");
-            this.expireInBlocks = BedrockParticleSystem.getComponent(data, "particle_expire_if_in_blocks");
-            this.expireNotInBlocks = BedrockParticleSystem.getComponent(data, "particle_expire_if_not_in_blocks");
-            this.particleInitialization = BedrockParticleSystem.getComponent(data, "particle_initialization");
-            ParticleAppearanceLightingComponent lighting = BedrockParticleSystem.getComponent(data, "particle_appearance_lighting");
-            this.billboard = billboard;
-            this.tint = tint;
-            this.lighting = lighting;
-            this.texture = texture;
-            this.emissiveTexture = emissiveTexture;
-            this.emissiveStrength = emissiveStrength;
-            this.blendTexture = blendTexture;
-            this.blendModeOverlay = blendModeOverlay != null ? blendModeOverlay : BedrockParticleSystem.BlendMode.ALPHA;
-            this.blendR = blendR;
-            this.blendG = blendG;
-            this.blendB = blendB;
-            this.blendA = blendA;
-            this.age = 0.0f;
+            this.data = plan.data;
+            this.plan = plan;
+            this.store = system.getStore();
+            bind(emitter);
+            this.random = new ParticleRandom(0L);
+            this.lifetimeEventIndex = 0;
+            this.molangContext = new ParticleMolangContext();
+            ParticleMolangLayout molangLayout = emitter != null ? emitter.getMolangLayout() : ParticleMolangLayout.of(plan.data);
+            this.curves = molangLayout.getCurves();
+            this.curveLuts = molangLayout.getCurveLuts();
+            this.molangContext.entityScale = emitter != null ? emitter.getScale() : 1.0f;
+            this.environment = molangLayout.createEnvironment(this.molangContext);
+            this.environment.setRandom(this.random);
+            reset(x, y, z);
+        }
+
+        /**
+         * 绑定所属发射器。对象池按定义共享粒子，同一粒子可能先后属于不同的发射器
+         */
+        void bind(ActiveEmitter emitter) {
             this.emitter = emitter;
             this.localPosition = emitter != null && emitter.isLocalPosition();
             this.localRotation = emitter != null && emitter.isLocalRotation();
             this.localVelocity = emitter != null && emitter.isLocalVelocity();
             this.rotateAcceleration = emitter != null && emitter.shouldRotateAcceleration();
-            BedrockParticleSystem.BlendMode blendMode = system.resolveBlendMode(data);
-        this.blendMode = blendMode;
-        this.bloom = data.description() != null && data.description().isBloom();
-        if (this.bloom && data.description() != null) {
-            this.bloomStrength = Math.max(0f, data.description().getBloomStrength());
-            this.bloomPasses = Math.max(0, data.description().getBloomPasses());
-            this.bloomScaleStep = data.description().getBloomScaleStep();
-            this.bloomDownscale = data.description().getBloomDownscale();
-        } else {
-            this.bloomStrength = 0f;
-            this.bloomPasses = 0;
-            this.bloomScaleStep = 0.06f;
-            this.bloomDownscale = 1.0f;
-        }
-            this.expireInBlockIds = system.resolveBlocks(expireInBlocks);
-            this.expireNotInBlockIds = system.resolveBlocks(expireNotInBlocks);
-            this.blockPos = new BlockPos.MutableBlockPos();
-            this.eventRandom = new Random();
-            this.lifetimeEventIndex = 0;
-            this.molangContext = new ParticleMolangContext();
-            this.curves = ParticleMolangBindings.buildCurveDefinitions(data);
-            this.curveValues = this.curves.isEmpty() ? Collections.emptyMap() : new HashMap<>(this.curves.size());
-            this.molangContext.curves = this.curveValues;
-            for (int i = 1; i <= 16; i++) {
-                this.molangContext.setRandom(i, (float) Math.random());
-            }
-            this.molangContext.random = this.molangContext.getRandom(1);
-            this.molangContext.entityScale = emitter != null ? emitter.getScale() : 1.0f;
-            this.environment = ParticleMolangBindings.createRuntime(this.molangContext, this.curves);
-            if (emitter != null) {
-                MolangEnvironmentBuilder<? extends MolangEnvironment> builder = this.environment.edit();
-                builder.copy(emitter.getEnvironment());
-                ParticleMolangBindings.bindCommonVariables(builder, this.molangContext);
-                ParticleMolangBindings.bindCurves(builder, this.molangContext, this.curves);
-            }
-            this.lifetimeComponent = lifetimeComponent;
-            this.lifetimeExpiration = lifetimeComponent != null ? lifetimeComponent.expirationExpression() : null;
-            this.renderer = new ParticleRenderer(billboard, tint, lighting, texture, emissiveTexture, emissiveStrength, blendMode,
-                blendTexture, this.blendModeOverlay, this.blendR, this.blendG, this.blendB, this.blendA);
-            reset(x, y, z);
         }
 
         void reset(double x, double y, double z) {
-            MolangEnvironmentBuilder<? extends MolangEnvironment> builder = this.environment.edit();
-            builder.clearVariable();
+            if (this.row < 0) {
+                this.row = store.add(this);
+            }
+            int row = this.row;
             this.x = x;
             this.y = y;
             this.z = z;
             this.prevX = x;
             this.prevY = y;
             this.prevZ = z;
+            if (plan.world) {
+                store.flags[row] |= ParticleStore.FLAG_WORLD;
+            }
+            if (plan.timeline != null) {
+                store.flags[row] |= ParticleStore.FLAG_SERIAL;
+            }
+            store.score[row] = emitter != null ? emitter.getAdmissionScore() : 0.0f;
             this.vx = 0.0;
             this.vy = 0.0;
             this.vz = 0.0;
@@ -241,41 +148,42 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
             this.rollVelocity = 0.0f;
             this.rollAcceleration = 0.0f;
             this.lifetimeEventIndex = 0;
-
+            this.motionAx = 0.0;
+            this.motionAy = 0.0;
+            this.motionAz = 0.0;
+            this.motionDrag = 0.0;
+            this.motionRollAcceleration = 0.0f;
+            this.motionRollDrag = 0.0f;
+
+            // 种子由发射器按生成顺序派生，同一系统种子下结果可复现
+            this.random.setSeed(emitter != null ? emitter.nextParticleSeed() : system.nextSeed());
             for (int i = 1; i <= 16; i++) {
-                this.molangContext.setRandom(i, (float) Math.random());
+                this.molangContext.setRandom(i, random.nextFloat());
             }
             this.molangContext.random = this.molangContext.getRandom(1);
-            this.eventRandom.setSeed(system.getRandom().nextLong());
-            if (!this.curveValues.isEmpty()) {
-                this.curveValues.clear();
-            }
+            this.molangContext.syncSlots();
+            this.molangContext.clearCurves();
 
-            if (emitter != null) {
-                builder.copy(emitter.getEnvironment());
-            }
-            ParticleMolangBindings.bindCommonVariables(builder, this.molangContext);
-            ParticleMolangBindings.bindCurves(builder, this.molangContext, this.curves);
+            this.environment.resetVariables(emitter != null ? emitter.getEnvironment() : null);
 
-            this.lifetime = resolveLifetime(lifetimeComponent);
-            this.molangContext.particleLifetime = this.lifetime;
+            float lifetime = resolveLifetime(plan.particleLifetime);
+            this.lifetime = lifetime;
+            this.molangContext.particleLifetime = lifetime;
 
             updateContext(0.0f);
-            if (particleInitialization != null && particleInitialization.creationExpression() != null) {
-                environment.safeResolve(particleInitialization.creationExpression());
-            }
-            if (lifetimeEvents != null) {
-                fireEvents(lifetimeEvents.creationEvent());
-            }
-            if (initialSpin != null) {
-                this.roll = environment.safeResolve(initialSpin.rotation());
-                this.rollVelocity = environment.safeResolve(initialSpin.rotationRate()) / 20.0f;
-            }
-            if (motionCollision != null) {
-                this.collisionRadius = motionCollision.collisionRadius();
-                this.collisionDrag = motionCollision.collisionDrag();
-                this.collisionRestitution = motionCollision.coefficientOfRestitution();
-                this.expireOnContact = motionCollision.expireOnContact();
+            if (plan.creationExpression != null) {
+                environment.safeResolve(plan.creationExpression);
+            }
+            fireEvents(plan.creationEvents);
+            if (plan.initialSpin != null) {
+                this.roll = environment.safeResolve(plan.initialSpin.rotation());
+                this.rollVelocity = environment.safeResolve(plan.initialSpin.rotationRate()) / 20.0f;
+            }
+            if (plan.motionCollision != null) {
+                this.collisionRadius = plan.motionCollision.collisionRadius();
+                this.collisionDrag = plan.motionCollision.collisionDrag();
+                this.collisionRestitution = plan.motionCollision.coefficientOfRestitution();
+                this.expireOnContact = plan.motionCollision.expireOnContact();
                 if (emitter != null) {
                     this.collisionRadius *= emitter.getScale();
                 }
@@ -288,16 +196,15 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         void applyInitialSpeed() {
-            if (speed == null) {
+            if (plan.speed == null) {
                 return;
             }
-            MolangExpression[] speeds = speed.speed();
+            MolangExpression[] speeds = plan.speed.speed();
             if (speeds == null || speeds.length < 3) {
                 return;
             }
             updateContext(this.age);
-            boolean nativeSpeed = data.description() != null && data.description().isNativeSpeed();
-            double divisor = nativeSpeed ? 1.0 : 20.0;
+            double divisor = plan.nativeSpeed ? 1.0 : 20.0;
             double sx = environment.safeResolve(speeds[0]) / divisor;
             double sy = environment.safeResolve(speeds[1]) / divisor;
             double sz = environment.safeResolve(speeds[2]) / divisor;
@@ -321,14 +228,14 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
             return value > 0.0f ? value : 1.0f;
         }
 
-        boolean tick() {
+        /**
+         * 逐粒子阶段：本地空间跟随、Molang、事件和运动组件，只写入加速度，积分在所有粒子的这一阶段结束后由 {@link #step(boolean)} 完成
+         */
+        boolean tickBehaviour() {
             if (emitter != null && emitter.shouldForceExpireParticles()) {
                 return false;
             }
-            this.prevX = this.x;
-            this.prevY = this.y;
-            this.prevZ = this.z;
-            this.prevRoll = this.roll;
+            syncPrev();
             if (emitter != null) {
                 if (localPosition) {
                     this.x += emitter.getDeltaX();
@@ -341,77 +248,113 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                 if (localVelocity) {
                     emitter.applyDeltaRotationToVelocity(this);
                 }
+                if (emitter.isBehaviourSkipped()) {
+                    // 降频的发射器：不求值 Molang，沿用上次求出的加速度和阻力系数，阻力项按当前速度重算，
+                    // 因此随年龄或发射器朝向变化的加速度要到下一个完整 tick 才更新；年龄照常推进，寿命不受影响
+                    applyMotion();
+                    return true;
+                }
             }
             updateContext(this.age);
-            if (particleInitialization != null && particleInitialization.tickExpression() != null) {
-                environment.safeResolve(particleInitialization.tickExpression());
+            if (plan.tickExpression != null) {
+                environment.safeResolve(plan.tickExpression);
             }
-            if (lifetimeExpiration != null && environment.safeResolve(lifetimeExpiration) != 0.0f) {
+            if (plan.lifetimeExpiration != null && environment.safeResolve(plan.lifetimeExpiration) != 0.0f) {
                 return false;
             }
             tickLifetimeEvents();
             applyParametricMotion();
+            if (plan.batchedMotion) {
+                // 动态运动由 ParticleMotionBatch 按发射器成批求值
+                this.motionPending = true;
+                return true;
+            }
             applyDynamicMotion();
+            return true;
+        }
+
+        /**
+         * @return 本 tick 的动态运动是否还在等待成批求值，取出后清除
+         */
+        boolean takeMotionPending() {
+            boolean pending = this.motionPending;
+            this.motionPending = false;
+            return pending;
+        }
+
+        /**
+         * 积分：速度、朝向和旋转推进一个 tick。没有碰撞、杀伤平面和方块检测的粒子直接写入新位置，
+         * 带 {@link ParticleStore#FLAG_WORLD} 的粒子位移交给 {@link #tickWorld()}
+         */
+        void step(boolean world) {
             this.vx += this.ax;
             this.vy += this.ay;
             this.vz += this.az;
             updateFacingFromVelocity();
             this.rollVelocity += this.rollAcceleration;
             this.roll += this.rollVelocity;
-            double nextX = this.x + this.vx;
-            double nextY = this.y + this.vy;
-            double nextZ = this.z + this.vz;
+            if (!world) {
+                this.x += this.vx;
+                this.y += this.vy;
+                this.z += this.vz;
+            }
+        }
+
+        /**
+         * 年龄推进一个 tick
+         *
+         * @return 是否仍在寿命内
+         */
+        boolean advanceAge() {
+            this.age += BedrockParticleSystem.TICK_SECONDS;
+            return this.age < this.lifetime;
+        }
+
+        /**
+         * 积分后的世界阶段，只处理带 {@link ParticleStore#FLAG_WORLD} 的行：碰撞、杀伤平面和方块检测，并写入新位置
+         */
+        boolean tickWorld() {
+            double x = this.x;
+            double y = this.y;
+            double z = this.z;
+            double nextX = x + this.vx;
+            double nextY = y + this.vy;
+            double nextZ = z + this.vz;
             boolean collided = false;
             boolean collideX = false;
             boolean collideY = false;
             boolean collideZ = false;
-            if (motionCollision != null && isCollisionEnabled() && collisionRadius > 0.0f) {
-                Minecraft mc = Minecraft.getMinecraft();
-                if (mc != null && mc.world != null) {
-                    double dx = this.vx;
-                    double dy = this.vy;
-                    double dz = this.vz;
-                    AxisAlignedBB aabb = new AxisAlignedBB(
-                        this.x - collisionRadius, this.y - collisionRadius, this.z - collisionRadius,
-                        this.x + collisionRadius, this.y + collisionRadius, this.z + collisionRadius
-                    );
-                    List<AxisAlignedBB> boxes = mc.world.getCollisionBoxes(null, aabb.expand(dx, dy, dz));
-                    double originalDx = dx;
-                    double originalDy = dy;
-                    double originalDz = dz;
-                    for (AxisAlignedBB box : boxes) {
-                        dy = box.calculateYOffset(aabb, dy);
-                    }
-                    aabb = aabb.offset(0.0, dy, 0.0);
-                    for (AxisAlignedBB box : boxes) {
-                        dz = box.calculateZOffset(aabb, dz);
-                    }
-                    aabb = aabb.offset(0.0, 0.0, dz);
-                    for (AxisAlignedBB box : boxes) {
-                        dx = box.calculateXOffset(aabb, dx);
-                    }
-                    aabb = aabb.offset(dx, 0.0, 0.0);
-
-                    collideX = dx != originalDx;
-                    collideY = dy != originalDy;
-                    collideZ = dz != originalDz;
-                    collided = collideX || collideY || collideZ;
-                    nextX = this.x + dx;
-                    nextY = this.y + dy;
-                    nextZ = this.z + dz;
-                    this.vx = dx;
-                    this.vy = dy;
-                    this.vz = dz;
-                }
+            if (plan.motionCollision != null && isCollisionEnabled() && collisionRadius > 0.0f) {
+                double dx = this.vx;
+                double dy = this.vy;
+                double dz = this.vz;
+                ParticleCollisionCache collision = system.getCollisionCache();
+                collision.sweep(x, y, z, collisionRadius, dx, dy, dz);
+                double sweptX = collision.getOffsetX();
+                double sweptY = collision.getOffsetY();
+                double sweptZ = collision.getOffsetZ();
+                collideX = sweptX != dx;
+                collideY = sweptY != dy;
+                collideZ = sweptZ != dz;
+                collided = collideX || collideY || collideZ;
+                nextX = x + sweptX;
+                nextY = y + sweptY;
+                nextZ = z + sweptZ;
+                this.vx = sweptX;
+                this.vy = sweptY;
+                this.vz = sweptZ;
             }
             if (collided) {
-                double speed = Math.sqrt(this.vx * this.vx + this.vy * this.vy + this.vz * this.vz);
+                double vx = this.vx;
+                double vy = this.vy;
+                double vz = this.vz;
+                double speed = Math.sqrt(vx * vx + vy * vy + vz * vz);
                 if (speed > 0.0) {
                     double newSpeed = Math.max(0.0, speed - collisionDrag);
                     double scale = newSpeed / speed;
-                    this.vx *= scale;
-                    this.vy *= scale;
-                    this.vz *= scale;
+                    this.vx = vx * scale;
+                    this.vy = vy * scale;
+                    this.vz = vz * scale;
                 }
                 if (collideY) {
                     this.vy = -this.vy * collisionRestitution;
@@ -421,30 +364,25 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                     return false;
                 }
             }
-            if (killPlane != null && isKillPlaneCrossed(this.prevX, this.prevY, this.prevZ, nextX, nextY, nextZ)) {
+            if (plan.killPlane != null && isKillPlaneCrossed(this.prevX, this.prevY, this.prevZ, nextX, nextY, nextZ)) {
                 return false;
             }
             this.x = nextX;
             this.y = nextY;
             this.z = nextZ;
-            if (shouldExpireInBlocks() || shouldExpireNotInBlocks()) {
-                return false;
-            }
-            this.age += BedrockParticleSystem.TICK_SECONDS;
-            updateContext(this.age);
-            return this.age < this.lifetime;
+            return !shouldExpireInBlocks() && !shouldExpireNotInBlocks();
         }
 
         void render(Minecraft mc, double camX, double camY, double camZ, float partialTicks) {
             prepareRender(partialTicks);
-            renderer.render(this, mc, camX, camY, camZ, partialTicks);
+            plan.renderer.render(this, mc, camX, camY, camZ, partialTicks);
         }
 
         public void prepareRender(float partialTicks) {
             float renderAge = this.age + partialTicks * BedrockParticleSystem.TICK_SECONDS;
             updateContext(renderAge);
-            if (particleInitialization != null && particleInitialization.renderExpression() != null) {
-                environment.safeResolve(particleInitialization.renderExpression());
+            if (plan.renderExpression != null) {
+                environment.safeResolve(plan.renderExpression);
             }
         }
 
@@ -464,75 +402,86 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         public ParticleAppearanceBillboardComponent getBillboard() {
-            return billboard;
+            return plan.billboard;
         }
 
         public ParticleAppearanceTintingComponent getTint() {
-            return tint;
+            return plan.tint;
         }
 
         public ParticleAppearanceLightingComponent getLighting() {
-            return lighting;
+            return plan.lighting;
         }
 
     public ResourceLocation getTexture() {
-        return texture;
+        return plan.texture;
     }
 
     public ResourceLocation getEmissiveTexture() {
-        return emissiveTexture;
+        return plan.emissiveTexture;
     }
 
     public float getEmissiveStrength() {
-        return emissiveStrength;
+        return plan.emissiveStrength;
     }
 
     public ResourceLocation getBlendTexture() {
-        return blendTexture;
+        return plan.blendTexture;
     }
 
     public BedrockParticleSystem.BlendMode getBlendModeOverlay() {
-        return blendModeOverlay;
+        return plan.blendModeOverlay;
     }
 
     public float getBlendR() {
-        return blendR;
+        return plan.blendR;
     }
 
     public float getBlendG() {
-        return blendG;
+        return plan.blendG;
     }
 
     public float getBlendB() {
-        return blendB;
+        return plan.blendB;
     }
 
     public float getBlendA() {
-        return blendA;
+        return plan.blendA;
     }
 
     public BedrockParticleSystem.BlendMode getBlendMode() {
-        return blendMode;
+        return plan.blendMode;
+    }
+
+    public boolean isDepthSorted() {
+        return plan.depthSorted;
+    }
+
+    /**
+     * @return 同一定义的所有粒子共享的批次键缓存，由渲染批处理维护
+     */
+    public int[] getBatchKeyCache() {
+        return plan.batchKeys;
     }
 
     public boolean isBloom() {
-        return bloom;
+        return plan.bloom;
     }
 
     public float getBloomStrength() {
-        return bloomStrength;
+        return plan.bloomStrength;
     }
 
     public int getBloomPasses() {
-        return bloomPasses;
+        return plan.bloomPasses;
     }
 
     public float getBloomScaleStep() {
-        return bloomScaleStep;
+        return plan.bloomScaleStep;
     }
 
     public float getBloomDownscale() {
-        return bloomDownscale;
+        return plan.bloomDownscale;
     }
 
         private void runEvent(String name) {
@@ -560,10 +509,7 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         private void tickLifetimeEvents() {
-            if (lifetimeEvents == null) {
-                return;
-            }
-            ParticleLifetimeEventComponent.TimelineEvent[] timeline = lifetimeEvents.timelineEvents();
+            ParticleLifetimeEventComponent.TimelineEvent[] timeline = plan.timeline;
             if (timeline == null || lifetimeEventIndex >= timeline.length) {
                 return;
             }
@@ -576,33 +522,33 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         private void fireCollisionEvents() {
-            if (motionCollision == null) {
+            if (plan.motionCollision == null) {
                 return;
             }
-            fireEvents(motionCollision.events());
+            fireEvents(plan.motionCollision.events());
         }
 
         private boolean isKillPlaneCrossed(double oldX, double oldY, double oldZ,
                                             double newX, double newY, double newZ) {
-            if (killPlane == null) {
+            if (plan.killPlane == null) {
                 return false;
             }
             double baseX = emitter != null ? emitter.getX() : 0.0;
             double baseY = emitter != null ? emitter.getY() : 0.0;
             double baseZ = emitter != null ? emitter.getZ() : 0.0;
-            return killPlane.solve(oldX - baseX, oldY - baseY, oldZ - baseZ,
+            return plan.killPlane.solve(oldX - baseX, oldY - baseY, oldZ - baseZ,
                 newX - baseX, newY - baseY, newZ - baseZ);
         }
 
         private boolean shouldExpireInBlocks() {
-            if (expireInBlockIds == null || expireInBlockIds.length == 0) {
+            if (plan.expireInBlocks == null || plan.expireInBlocks.length == 0) {
                 return false;
             }
             Block block = getCurrentBlock();
             if (block == null) {
                 return false;
             }
-            for (Block test : expireInBlockIds) {
+            for (Block test : plan.expireInBlocks) {
                 if (block == test) {
                     return true;
                 }
@@ -611,14 +557,14 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         private boolean shouldExpireNotInBlocks() {
-            if (expireNotInBlockIds == null || expireNotInBlockIds.length == 0) {
+            if (plan.expireNotInBlocks == null || plan.expireNotInBlocks.length == 0) {
                 return false;
             }
             Block block = getCurrentBlock();
             if (block == null) {
                 return false;
             }
-            for (Block test : expireNotInBlockIds) {
+            for (Block test : plan.expireNotInBlocks) {
                 if (block == test) {
                     return false;
                 }
@@ -627,22 +573,11 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         private Block getCurrentBlock() {
-            Minecraft mc = Minecraft.getMinecraft();
-            if (mc == null || mc.world == null) {
-                return null;
-            }
-            blockPos.setPos((int) Math.floor(this.x), (int) Math.floor(this.y), (int) Math.floor(this.z));
-            return mc.world.getBlockState(blockPos).getBlock();
+            return system.getWorld().getBlock((int) Math.floor(this.x), (int) Math.floor(this.y), (int) Math.floor(this.z));
         }
 
         public int resolvePackedLight(double px, double py, double pz) {
-            Minecraft mc = Minecraft.getMinecraft();
-            if (mc == null || mc.world == null) {
-                return 0;
-            }
-            blockPos.setPos((int) Math.floor(px), (int) Math.floor(py), (int) Math.floor(pz));
-            int packed = mc.world.getCombinedLight(blockPos, 0);
-            return packed;
+            return system.getWorld().getPackedLight((int) Math.floor(px), (int) Math.floor(py), (int) Math.floor(pz));
         }
 
 
@@ -655,11 +590,13 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                 if (emitter != null) {
                     emitter.particleEffect(effect, ParticleEvent.ParticleSpawnType.PARTICLE);
                 } else {
-                    system.spawnEffectAt(effect, this.x, this.y, this.z, false);
+                    system.spawnEffectAt(effect, this.x, this.y, this.z, false,
+                        emitter != null ? emitter.getPriority() : BedrockParticleSystem.INHERIT_PRIORITY);
                 }
                 return;
             }
-            system.spawnEffectAt(effect, this.x, this.y, this.z, false);
+            system.spawnEffectAt(effect, this.x, this.y, this.z, false,
+                emitter != null ? emitter.getPriority() : BedrockParticleSystem.INHERIT_PRIORITY);
         }
 
         @Override
@@ -681,7 +618,7 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
 
         @Override
         public Random getRandom() {
-            return eventRandom;
+            return random;
         }
 
         private void updateContext(float ageSeconds) {
@@ -701,53 +638,49 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                 }
                 this.molangContext.entityScale = 1.0f;
             }
+            this.molangContext.syncSlots();
             updateCurves();
         }
 
         private void updateCurves() {
-            if (curves.isEmpty()) {
-                return;
-            }
-            for (Map.Entry<String, ParticleData.Curve> entry : curves.entrySet()) {
-                float value = ParticleCurveEvaluator.evaluateCurve(environment, entry.getValue());
-                curveValues.put(entry.getKey(), value);
+            for (int i = 0; i < curves.length; i++) {
+                molangContext.setCurveValue(i, ParticleCurveEvaluator.evaluateCurve(environment, curves[i], curveLuts[i]));
             }
         }
 
         private boolean isCollisionEnabled() {
-            if (motionCollision == null) {
+            if (plan.motionCollision == null) {
                 return false;
             }
-            return environment.safeResolve(motionCollision.enabled()) != 0.0f;
+            return environment.safeResolve(plan.motionCollision.enabled()) != 0.0f;
         }
 
         private boolean isColliding(double cx, double cy, double cz, float radius) {
             if (radius <= 0.0f) {
                 return false;
             }
-            Minecraft mc = Minecraft.getMinecraft();
-            if (mc == null || mc.world == null) {
-                return false;
-            }
-            AxisAlignedBB aabb = new AxisAlignedBB(
-                cx - radius, cy - radius, cz - radius,
-                cx + radius, cy + radius, cz + radius
-            );
-            return !mc.world.getCollisionBoxes(null, aabb).isEmpty();
+            return system.getCollisionCache().intersects(cx, cy, cz, radius);
         }
 
         private void applyDynamicMotion() {
-            if (motionDynamic == null) {
-                this.ax = 0.0;
-                this.ay = 0.0;
-                this.az = 0.0;
-                this.rollAcceleration = 0.0f;
+            if (plan.motionDynamic == null) {
+                // 加速度列只由动态运动写入，新行已清零
                 return;
             }
-            MolangExpression[] accel = motionDynamic.linearAcceleration();
-            double ax = environment.safeResolve(accel[0]) / 400.0;
-            double ay = environment.safeResolve(accel[1]) / 400.0;
-            double az = environment.safeResolve(accel[2]) / 400.0;
+            MolangExpression[] accel = plan.motionDynamic.linearAcceleration();
+            applyDynamicMotion(environment.safeResolve(accel[0]), environment.safeResolve(accel[1]), environment.safeResolve(accel[2]),
+                environment.safeResolve(plan.motionDynamic.linearDragCoefficient()),
+                environment.safeResolve(plan.motionDynamic.rotationAcceleration()),
+                environment.safeResolve(plan.motionDynamic.rotationDragCoefficient()));
+        }
+
+        /**
+         * 按动态运动组件各表达式的值写入加速度列，逐粒子求值和成批求值共用
+         */
+        void applyDynamicMotion(float accelX, float accelY, float accelZ, float linearDrag, float rotationAccel, float rotationDrag) {
+            double ax = accelX / 400.0;
+            double ay = accelY / 400.0;
+            double az = accelZ / 400.0;
             if (emitter != null) {
                 float scale = emitter.getScale();
                 ax *= scale;
@@ -762,20 +695,31 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                     az = raz;
                 }
             }
-            double drag = environment.safeResolve(motionDynamic.linearDragCoefficient()) / 20.0;
-            this.ax = ax - drag * this.vx;
-            this.ay = ay - drag * this.vy;
-            this.az = az - drag * this.vz;
-            float rotAcc = (float) (environment.safeResolve(motionDynamic.rotationAcceleration()) / 400.0);
-            float rotDrag = (float) (environment.safeResolve(motionDynamic.rotationDragCoefficient()) / 20.0);
-            this.rollAcceleration = rotAcc - rotDrag * this.rollVelocity;
+            this.motionAx = ax;
+            this.motionAy = ay;
+            this.motionAz = az;
+            this.motionDrag = linearDrag / 20.0;
+            this.motionRollAcceleration = (float) (rotationAccel / 400.0);
+            this.motionRollDrag = (float) (rotationDrag / 20.0);
+            applyMotion();
+        }
+
+        /**
+         * 由最近一次求值的加速度和阻力系数按当前速度写入加速度列，没有动态运动时各项为 0
+         */
+        private void applyMotion() {
+            double drag = motionDrag;
+            this.ax = motionAx - drag * this.vx;
+            this.ay = motionAy - drag * this.vy;
+            this.az = motionAz - drag * this.vz;
+            this.rollAcceleration = motionRollAcceleration - motionRollDrag * this.rollVelocity;
         }
 
         private void applyParametricMotion() {
-            if (motionParametric == null) {
+            if (plan.motionParametric == null) {
                 return;
             }
-            MolangExpression[] relative = motionParametric.relativePosition();
+            MolangExpression[] relative = plan.motionParametric.relativePosition();
             if (relative != null && emitter != null) {
                 double lx = environment.safeResolve(relative[0]);
                 double ly = environment.safeResolve(relative[1]);
@@ -789,7 +733,7 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                 double rz = localPosition ? emitter.rotateLocalZ(lx, ly, lz) : lz;
                 setPosition(emitter.getX() + rx, emitter.getY() + ry, emitter.getZ() + rz);
             }
-            MolangExpression[] dir = motionParametric.direction();
+            MolangExpression[] dir = plan.motionParametric.direction();
             if (dir != null) {
                 double lx = environment.safeResolve(dir[0]);
                 double ly = environment.safeResolve(dir[1]);
@@ -799,7 +743,7 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
                 double dz = (emitter != null && localVelocity) ? emitter.rotateLocalZ(lx, ly, lz) : lz;
                 setDirection(dx, dy, dz);
             }
-            this.roll = environment.safeResolve(motionParametric.rotation());
+            this.roll = environment.safeResolve(plan.motionParametric.rotation());
         }
 
         private void rotateAroundEmitter(double emitterX, double emitterZ, float yawDeltaRad) {
@@ -829,20 +773,47 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         void onExpired() {
-            if (lifetimeEvents != null) {
-                fireEvents(lifetimeEvents.expirationEvent());
-            }
+            // 存活粒子在 tick 末尾不再刷新上下文（渲染和下一 tick 都会先刷新），到期事件需要看到推进后的年龄
+            updateContext(this.age);
+            fireEvents(plan.expirationEvents);
             if (emitter != null) {
                 emitter.onParticleExpired();
             }
         }
 
-        void recycle() {
+        /**
+         * 被预算挤掉：只归还发射器的计数，不触发到期事件
+         */
+        void onEvicted() {
             if (emitter != null) {
-                emitter.recycleParticle(this);
+                emitter.onParticleExpired();
             }
         }
 
+        void recycle() {
+            bind(null);
+            system.getPools().returnParticle(this);
+        }
+
+        ParticlePlan getPlan() {
+            return plan;
+        }
+
+        /**
+         * @return 当前 tick 的 Molang 槽位帧，按环境的槽位布局排列
+         */
+        float[] getMolangSlots() {
+            return molangContext.slots;
+        }
+
+        int getRow() {
+            return row;
+        }
+
+        void setRow(int row) {
+            this.row = row;
+        }
+
         void syncPrev() {
             this.prevX = this.x;
             this.prevY = this.y;
@@ -857,47 +828,47 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         }
 
         public double getX() {
-            return x;
+            return this.x;
         }
 
         public double getPrevX() {
-            return prevX;
+            return this.prevX;
         }
 
         public double getY() {
-            return y;
+            return this.y;
         }
 
         public double getPrevY() {
-            return prevY;
+            return this.prevY;
         }
 
         public double getZ() {
-            return z;
+            return this.z;
         }
 
         public double getPrevZ() {
-            return prevZ;
+            return this.prevZ;
         }
 
         public double getVx() {
-            return vx;
+            return this.vx;
         }
 
         public double getVy() {
-            return vy;
+            return this.vy;
         }
 
         public double getVz() {
-            return vz;
+            return this.vz;
         }
 
         public float getRoll() {
-            return roll;
+            return this.roll;
         }
 
         public float getPrevRoll() {
-            return prevRoll;
+            return this.prevRoll;
         }
 
         public ActiveEmitter getEmitter() {
@@ -956,9 +927,9 @@ public class ActiveParticle implements ParticleInstance, ParticleContext {
         if (!hasFacingDirection || out == null) {
             return false;
         }
-        out[0] = lastFacingX;
-        out[1] = lastFacingY;
-        out[2] = lastFacingZ;
+        out[0] = this.lastFacingX;
+        out[1] = this.lastFacingY;
+        out[2] = this.lastFacingZ;
         return true;
     }
 
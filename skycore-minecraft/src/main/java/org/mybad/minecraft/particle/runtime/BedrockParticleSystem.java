@@ -7,14 +7,14 @@ import net.minecraft.block.Block;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.SoundCategory;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.mybad.minecraft.SkyCoreMod;
-import org.mybad.minecraft.audio.DirectSoundPlayer;
+import org.mybad.minecraft.particle.collision.ParticleCollisionCache;
+import org.mybad.minecraft.particle.culling.ParticleFrustum;
 import org.mybad.minecraft.particle.transform.EmitterTransform;
 import org.mybad.minecraft.particle.transform.EmitterTransformProvider;
 import org.mybad.minecraft.particle.render.gpu.ParticleGpuRenderer;
@@ -25,83 +25,287 @@ import org.lwjgl.BufferUtils;
 
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 @SideOnly(Side.CLIENT)
 public class BedrockParticleSystem {
 
-    static final float TICK_SECONDS = 1.0f / 20.0f;
-    static final int MAX_ACTIVE_PARTICLES = 2000;
-    static final int DEFAULT_PARTICLE_POOL_LIMIT = 96;
-    static final int MAX_POOLED_PARTICLES = 768;
+    public static final float TICK_SECONDS = 1.0f / 20.0f;
+    static final int DEFAULT_PARTICLE_BUDGET = 2000;
+    /**
+     * spawn 时不覆盖优先级，使用粒子 JSON 中的 skycore_priority
+     */
+    public static final int INHERIT_PRIORITY = Integer.MIN_VALUE;
+    /**
+     * 距离和屏幕尺寸权重的上限，小于 1 保证不同优先级之间不会被权重反超
+     */
+    static final float SCREEN_WEIGHT = 0.99f;
+    /**
+     * 同优先级之间挤占需要的最小分差，避免距离相近的发射器互相来回挤
+     */
+    static final float EVICTION_MARGIN = 0.25f;
+    static final int PARALLEL_THRESHOLD = 512;
+    static final int PARALLEL_CHUNK = 128;
+    static final int DEFAULT_THROTTLE_DISTANCE = 64;
     private static final FloatBuffer ORIENTATION_BUFFER = BufferUtils.createFloatBuffer(16);
+    private static final FloatBuffer MATRIX_BUFFER = BufferUtils.createFloatBuffer(16);
+    private static volatile boolean cullingEnabled = true;
+    private static volatile boolean depthSorting = true;
+    private static volatile int throttleInterval = 1;
+    private static volatile double throttleDistance = DEFAULT_THROTTLE_DISTANCE;
+    private static volatile boolean stableParticleOrder;
+    private static volatile int particleBudget = DEFAULT_PARTICLE_BUDGET;
+    private static volatile int simulationThreads = Math.max(0, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
 
-    private final ResourceCacheManager cacheManager;
-    private final List<ActiveParticle> particles;
+    private final Function<String, ParticleData> loader;
+    private final ParticleWorld world;
+    private final double[] viewer = new double[3];
+    private final double[] tickViewer = new double[3];
+    private boolean hasTickViewer;
+    private int tickCount;
+    private final ParticleFrustum frustum = new ParticleFrustum();
+    private final float[] projectionMatrix = new float[16];
+    private final float[] modelViewMatrix = new float[16];
+    private final ParticleStore store;
     private final List<ActiveEmitter> emitters;
-    private final List<ActiveParticle> pendingParticles;
     private final List<ActiveEmitter> pendingEmitters;
-    private final Random random;
-    private final ParticleGpuRenderer gpuRenderer;
-    private int pooledParticles;
+    private final ParticleRandom random;
+    private ParticleGpuRenderer gpuRenderer;
+    private final Map<ParticleData, ParticlePlan> plans;
+    private final ParticlePools pools;
+    private final ParticleCollisionCache collisionCache;
     private boolean ticking;
+    private final List<ActiveParticle> expired;
+    private ForkJoinPool simulationPool;
+    private int simulationPoolThreads;
+    private int spawnDepth;
+    /**
+     * 行号小于该值的粒子才允许被挤掉，本 tick 或本次 spawn 新生成的粒子不参与
+     */
+    private int evictionLimit;
+    /**
+     * 挑选被挤掉的行时跳过带这些标记的行，逐粒子阶段内只跳过已被挤掉的行
+     */
+    private int evictionSkipMask = ParticleStore.FLAG_DEAD;
+    private int pendingEvicted;
+    private long[] evictionCandidates = new long[0];
+    private long droppedParticles;
+    private long droppedEmitters;
+    private long evictedParticles;
 
     public BedrockParticleSystem(ResourceCacheManager cacheManager) {
-        this.cacheManager = cacheManager;
-        this.particles = new ArrayList<>();
+        this(cacheManager::loadParticle, new ClientParticleWorld());
+    }
+
+    /**
+     * @param loader 按路径加载粒子定义，事件引用的子效果也经过这里
+     * @param world  模拟使用的世界，无头模拟时传入合成实现
+     */
+    public BedrockParticleSystem(Function<String, ParticleData> loader, ParticleWorld world) {
+        this.loader = loader;
+        this.world = world;
+        this.store = new ParticleStore();
         this.emitters = new ArrayList<>();
-        this.pendingParticles = new ArrayList<>();
         this.pendingEmitters = new ArrayList<>();
-        this.random = new Random();
-        this.gpuRenderer = new ParticleGpuRenderer();
+        this.random = new ParticleRandom(ParticleRandom.mix64(System.nanoTime()));
+        this.plans = new WeakHashMap<>();
+        this.expired = new ArrayList<>();
+        this.pools = new ParticlePools();
+        this.collisionCache = new ParticleCollisionCache(world.getCollision());
         this.ticking = false;
     }
 
-    Random getRandom() {
-        return random;
+    /**
+     * 设置同时存活的粒子预算，超出后按准入分数挤掉低优先级粒子或丢弃新粒子
+     */
+    public static void setParticleBudget(int budget) {
+        particleBudget = Math.max(0, budget);
+    }
+
+    public static int getParticleBudget() {
+        return particleBudget;
+    }
+
+    /**
+     * 设置并行模拟使用的线程数
+     *
+     * @param threads 工作线程数，小于等于 1 时全部在客户端线程上模拟
+     */
+    public static void setSimulationThreads(int threads) {
+        simulationThreads = Math.max(0, threads);
+    }
+
+    public static int getSimulationThreads() {
+        return simulationThreads;
+    }
+
+    /**
+     * 设置删除过期粒子时是否保持存活粒子的顺序。
+     * 默认用最后一行填补空位，开启后整体前移，混合渲染的叠放顺序不会因为其他粒子过期而跳变
+     */
+    public static void setStableParticleOrder(boolean stable) {
+        stableParticleOrder = stable;
+    }
+
+    public static boolean isStableParticleOrder() {
+        return stableParticleOrder;
+    }
+
+    /**
+     * 设置是否按视锥体剔除发射器和粒子，关闭后全部提交渲染
+     */
+    public static void setCullingEnabled(boolean enabled) {
+        cullingEnabled = enabled;
+    }
+
+    public static boolean isCullingEnabled() {
+        return cullingEnabled;
+    }
+
+    /**
+     * 设置是否对半透明粒子按深度从远到近排序后绘制
+     */
+    public static void setDepthSorting(boolean enabled) {
+        depthSorting = enabled;
+    }
+
+    public static boolean isDepthSorting() {
+        return depthSorting;
+    }
+
+    /**
+     * 设置远处或视锥外发射器的降频间隔：这些发射器的粒子每 interval 个 tick 才完整执行一次 Molang、事件和运动组件，
+     * 其余 tick 只跟随发射器并沿用上次的加速度积分，年龄和寿命照常推进
+     *
+     * @param interval 小于等于 1 时不降频
+     */
+    public static void setThrottleInterval(int interval) {
+        throttleInterval = Math.max(1, interval);
     }
 
-    void onPoolBorrow() {
-        pooledParticles--;
-        if (pooledParticles < 0) {
-            pooledParticles = 0;
+    public static int getThrottleInterval() {
+        return throttleInterval;
+    }
+
+    /**
+     * 设置发射器距离观察者超过多少格时降频，视锥外的发射器不论距离都降频
+     */
+    public static void setThrottleDistance(double distance) {
+        throttleDistance = Math.max(0.0, distance);
+    }
+
+    public static double getThrottleDistance() {
+        return throttleDistance;
+    }
+
+    /**
+     * 重置系统随机种子。之后按相同顺序生成的效果会得到相同的随机序列，用于测试和回放
+     */
+    public void setRandomSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * 为新的发射器（或没有发射器的粒子）取一个随机流种子
+     */
+    long nextSeed() {
+        return random.nextLong();
+    }
+
+    ParticleStore getStore() {
+        return store;
+    }
+
+    /**
+     * 取得粒子定义的执行计划，每个定义只编译一次，资源重载后旧定义随弱引用回收
+     */
+    ParticlePlan getPlan(ParticleData data) {
+        ParticlePlan plan = plans.get(data);
+        if (plan == null) {
+            plan = new ParticlePlan(this, data);
+            plans.put(data, plan);
         }
+        return plan;
     }
 
-    void onPoolReturn() {
-        pooledParticles++;
+    public ParticlePools getPools() {
+        return pools;
     }
 
-    boolean canPoolMore() {
-        return pooledParticles < MAX_POOLED_PARTICLES;
+    /**
+     * 本 tick 的方块碰撞缓存，只在客户端线程的世界阶段使用
+     */
+    public ParticleCollisionCache getCollisionCache() {
+        return collisionCache;
     }
 
     public boolean spawn(String particlePath, double x, double y, double z, int overrideCount) {
-        return spawnInternal(particlePath, new StaticTransformProvider(x, y, z, 0.0f), overrideCount);
+        return spawn(particlePath, x, y, z, overrideCount, INHERIT_PRIORITY);
     }
 
     public boolean spawn(String particlePath, EmitterTransformProvider provider, int overrideCount) {
-        return spawnInternal(particlePath, provider, overrideCount);
+        return spawn(particlePath, provider, overrideCount, INHERIT_PRIORITY);
+    }
+
+    /**
+     * @param priority 覆盖粒子 JSON 中的优先级，{@link #INHERIT_PRIORITY} 表示不覆盖
+     */
+    public boolean spawn(String particlePath, double x, double y, double z, int overrideCount, int priority) {
+        return spawnInternal(particlePath, new StaticTransformProvider(x, y, z, 0.0f), overrideCount, priority, INHERIT_PRIORITY);
+    }
+
+    public boolean spawn(String particlePath, EmitterTransformProvider provider, int overrideCount, int priority) {
+        return spawnInternal(particlePath, provider, overrideCount, priority, INHERIT_PRIORITY);
     }
 
-    private boolean spawnInternal(String particlePath, EmitterTransformProvider provider, int overrideCount) {
-        ParticleData data = cacheManager.loadParticle(particlePath);
+    /**
+     * @param minPriority 事件生成的子效果至少继承父发射器的优先级，避免 Boss 技能的子效果被环境粒子挤掉
+     */
+    private boolean spawnInternal(String particlePath, EmitterTransformProvider provider, int overrideCount, int priority, int minPriority) {
+        ParticleData data = loader.apply(particlePath);
         if (data == null) {
             return false;
         }
-        int room = getRemainingParticleRoom();
-        if (room <= 0) {
+        ParticlePlan plan = getPlan(data);
+        int resolved = priority != INHERIT_PRIORITY ? priority : plan.priority;
+        resolved = Math.max(resolved, minPriority);
+        if (!ticking && spawnDepth == 0) {
+            evictionLimit = store.size();
+        }
+        // 发射器创建时就会触发事件，满载且没有可挤掉的粒子时直接拒绝，按权重上限估计分数
+        if (getRemainingParticleRoom() <= 0 && !hasEvictionCandidate(resolved + SCREEN_WEIGHT)) {
+            droppedEmitters++;
             return false;
         }
-        ActiveEmitter emitter = new ActiveEmitter(this, data, provider, overrideCount);
-        emitter.emitInitialParticles(room);
-        if (emitter.isAlive()) {
-            addEmitter(emitter);
+        spawnDepth++;
+        try {
+            ActiveEmitter emitter = pools.borrowEmitter(plan);
+            if (emitter != null) {
+                emitter.reset(provider, overrideCount, resolved);
+            } else {
+                emitter = new ActiveEmitter(this, plan, provider, overrideCount, resolved);
+            }
+            emitter.emitInitialParticles();
+            boolean spawned = emitter.hasSpawnedParticles() || emitter.isAlive();
+            if (emitter.isAlive()) {
+                addEmitter(emitter);
+            } else {
+                pools.returnEmitter(emitter);
+            }
+            return spawned;
+        } finally {
+            spawnDepth--;
+            if (!ticking && spawnDepth == 0 && pendingEvicted > 0) {
+                removeDeadParticles();
+            }
         }
-        return emitter.hasSpawnedParticles() || emitter.isAlive();
     }
 
     private void addEmitter(ActiveEmitter emitter) {
@@ -115,42 +319,170 @@ public class BedrockParticleSystem {
         }
     }
 
-    void addParticle(ActiveParticle particle) {
-        if (particle == null) {
-            return;
-        }
-        if (ticking) {
-            pendingParticles.add(particle);
-        } else {
-            particles.add(particle);
-        }
-    }
-
     private void flushPending() {
         if (!pendingEmitters.isEmpty()) {
+            // addAll 直接拷贝到尾部，不重建列表
             emitters.addAll(pendingEmitters);
             pendingEmitters.clear();
         }
-        if (!pendingParticles.isEmpty()) {
-            particles.addAll(pendingParticles);
-            pendingParticles.clear();
-        }
     }
 
     int getRemainingParticleRoom() {
-        int used = particles.size() + pendingParticles.size();
-        return MAX_ACTIVE_PARTICLES - used;
+        return particleBudget - (store.size() - pendingEvicted);
+    }
+
+    /**
+     * 为发射器申请粒子名额，预算不足时挤掉分数更低的旧粒子，仍不足的部分计入丢弃统计
+     *
+     * @return 实际允许生成的数量
+     */
+    int reserveParticleRoom(ActiveEmitter emitter, int wanted) {
+        if (wanted <= 0) {
+            return 0;
+        }
+        int room = getRemainingParticleRoom();
+        if (room < wanted) {
+            room += evictParticles(emitter.getAdmissionScore(), wanted - Math.max(room, 0));
+        }
+        int granted = Math.max(0, Math.min(room, wanted));
+        droppedParticles += wanted - granted;
+        return granted;
+    }
+
+    /**
+     * 优先级为主，同优先级时离相机越近、缩放越大的发射器分数越高
+     */
+    float resolveAdmissionScore(int priority, double x, double y, double z, float scale) {
+        float weight = 1.0f;
+        if (world.getViewerPosition(viewer)) {
+            double dx = x - viewer[0];
+            double dy = y - viewer[1];
+            double dz = z - viewer[2];
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            weight = (float) Math.min(1.0, Math.max(0.0f, scale) / Math.max(1.0, distance));
+        }
+        return priority + weight * SCREEN_WEIGHT;
+    }
+
+    private boolean hasEvictionCandidate(float score) {
+        int limit = Math.min(evictionLimit, store.size());
+        for (int i = 0; i < limit; i++) {
+            if ((store.flags[i] & evictionSkipMask) == 0 && store.score[i] + EVICTION_MARGIN < score) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按分数从低到高挤掉最多 count 个粒子，被挤掉的行在 tick 末尾（或本次 spawn 结束时）统一删除
+     *
+     * @return 实际挤掉的数量
+     */
+    private int evictParticles(float score, int count) {
+        int limit = Math.min(evictionLimit, store.size());
+        if (count <= 0 || limit <= 0) {
+            return 0;
+        }
+        if (evictionCandidates.length < limit) {
+            evictionCandidates = new long[Math.max(limit, evictionCandidates.length * 2)];
+        }
+        long[] candidates = evictionCandidates;
+        int skipMask = evictionSkipMask;
+        int found = 0;
+        for (int i = 0; i < limit; i++) {
+            float rowScore = store.score[i];
+            if ((store.flags[i] & skipMask) == 0 && rowScore + EVICTION_MARGIN < score) {
+                // 高 32 位放可比较的分数，低 32 位放行号，排序后分数低的在前
+                int bits = Float.floatToIntBits(rowScore);
+                bits ^= (bits >> 31) & 0x7FFFFFFF;
+                candidates[found++] = ((long) bits << 32) | i;
+            }
+        }
+        if (found == 0) {
+            return 0;
+        }
+        Arrays.sort(candidates, 0, found);
+        int evicted = Math.min(found, count);
+        for (int i = 0; i < evicted; i++) {
+            int row = (int) candidates[i];
+            store.markEvicted(row);
+            store.owner(row).onEvicted();
+        }
+        pendingEvicted += evicted;
+        evictedParticles += evicted;
+        return evicted;
+    }
+
+    private void removeDeadParticles() {
+        store.compact(stableParticleOrder, expired);
+        pendingEvicted = 0;
+        for (int i = 0; i < expired.size(); i++) {
+            expired.get(i).recycle();
+        }
+        expired.clear();
+    }
+
+    /**
+     * @return 因预算不足而没有生成的粒子数
+     */
+    public long getDroppedParticleCount() {
+        return droppedParticles;
+    }
+
+    /**
+     * @return 预算已满且没有可挤掉的粒子而被拒绝的发射器数
+     */
+    public long getDroppedEmitterCount() {
+        return droppedEmitters;
+    }
+
+    /**
+     * @return 被更高优先级发射器挤掉的粒子数
+     */
+    public long getEvictedParticleCount() {
+        return evictedParticles;
+    }
+
+    public void resetParticleStats() {
+        droppedParticles = 0L;
+        droppedEmitters = 0L;
+        evictedParticles = 0L;
     }
 
     public void clear() {
-        particles.clear();
+        store.clear();
+        pools.clear();
+        pendingEvicted = 0;
         emitters.clear();
-        pendingParticles.clear();
         pendingEmitters.clear();
     }
 
     public int getActiveCount() {
-        return particles.size() + pendingParticles.size();
+        return store.size();
+    }
+
+    public int getEmitterCount() {
+        return emitters.size();
+    }
+
+    /**
+     * @return 当前所有粒子位置、速度和年龄的哈希，同一种子下两次运行的结果应当一致，用于比较优化前后的模拟
+     */
+    public long getStateChecksum() {
+        int count = store.size();
+        long hash = ParticleRandom.mix64(count);
+        for (int i = 0; i < count; i++) {
+            ActiveParticle particle = store.owner(i);
+            hash = hash * 31L + Double.doubleToLongBits(particle.getX());
+            hash = hash * 31L + Double.doubleToLongBits(particle.getY());
+            hash = hash * 31L + Double.doubleToLongBits(particle.getZ());
+            hash = hash * 31L + Double.doubleToLongBits(particle.getVx());
+            hash = hash * 31L + Double.doubleToLongBits(particle.getVy());
+            hash = hash * 31L + Double.doubleToLongBits(particle.getVz());
+            hash = hash * 31L + Float.floatToIntBits(particle.getParticleAge());
+        }
+        return ParticleRandom.mix64(hash);
     }
 
     @SubscribeEvent
@@ -158,43 +490,207 @@ public class BedrockParticleSystem {
         if (event.phase != TickEvent.Phase.END) {
             return;
         }
-        if (Minecraft.getMinecraft().world == null) {
-            particles.clear();
-            emitters.clear();
-            pendingParticles.clear();
-            pendingEmitters.clear();
+        if (!world.isAvailable()) {
+            clear();
             return;
         }
+        tick();
+    }
+
+    /**
+     * 推进一个固定时长（{@link #TICK_SECONDS}）的模拟步。客户端由 tick 事件驱动，无头模拟直接按固定步长调用
+     */
+    public void tick() {
         ticking = true;
+        tickCount++;
+        hasTickViewer = world.getViewerPosition(tickViewer);
+        // 本 tick 新生成的粒子追加在 count 之后，下一 tick 才开始模拟
+        int count = store.size();
+        evictionLimit = count;
         if (!emitters.isEmpty()) {
-            Iterator<ActiveEmitter> emitterIterator = emitters.iterator();
-            while (emitterIterator.hasNext()) {
-                ActiveEmitter emitter = emitterIterator.next();
-                if (!emitter.tick()) {
-                    emitterIterator.remove();
-                    pooledParticles -= emitter.clearPool();
-                    if (pooledParticles < 0) {
-                        pooledParticles = 0;
+            // 原地压缩，存活的发射器保持原有顺序
+            int size = emitters.size();
+            int write = 0;
+            for (int i = 0; i < size; i++) {
+                ActiveEmitter emitter = emitters.get(i);
+                if (emitter.tick()) {
+                    if (write != i) {
+                        emitters.set(write, emitter);
                     }
+                    write++;
+                } else {
+                    pools.returnEmitter(emitter);
                 }
             }
-        }
-        Iterator<ActiveParticle> iterator = particles.iterator();
-        while (iterator.hasNext()) {
-            ActiveParticle particle = iterator.next();
-            if (!particle.tick()) {
-                particle.onExpired();
-                particle.recycle();
-                iterator.remove();
+            if (write < size) {
+                emitters.subList(write, size).clear();
             }
         }
+        tickParticles(Math.min(count, store.size()));
         ticking = false;
         flushPending();
+        pools.tick();
+        updateEmitterBounds();
+    }
+
+    /**
+     * 发射器在本 tick 是否只让粒子跟随、跳过完整的逐粒子阶段。各发射器按 phase 错开完整 tick，避免同一 tick 集中计算
+     */
+    boolean shouldSkipBehaviour(double x, double y, double z, boolean visible, int phase) {
+        int interval = throttleInterval;
+        if (interval <= 1 || ((tickCount + phase) & Integer.MAX_VALUE) % interval == 0) {
+            return false;
+        }
+        if (!visible) {
+            return true;
+        }
+        if (!hasTickViewer) {
+            return false;
+        }
+        double dx = x - tickViewer[0];
+        double dy = y - tickViewer[1];
+        double dz = z - tickViewer[2];
+        double distance = throttleDistance;
+        return dx * dx + dy * dy + dz * dz > distance * distance;
+    }
+
+    /**
+     * 按 tick 结束时的粒子位置重建各发射器的包围盒，上一位置也计入，渲染插值不会越出盒子
+     */
+    private void updateEmitterBounds() {
+        for (int i = 0; i < emitters.size(); i++) {
+            emitters.get(i).resetBounds();
+        }
+        int count = store.size();
+        for (int i = 0; i < count; i++) {
+            ActiveParticle particle = store.owner(i);
+            ActiveEmitter emitter = particle.getEmitter();
+            if (emitter != null) {
+                emitter.includeBounds(particle.getX(), particle.getY(), particle.getZ());
+                emitter.includeBounds(particle.getPrevX(), particle.getPrevY(), particle.getPrevZ());
+            }
+        }
+    }
+
+    /**
+     * 分阶段模拟：逐粒子的 Molang 与组件只写加速度，全部完成后再逐行积分速度、位置并推进年龄，
+     * 只有带碰撞、杀伤平面或方块检测的粒子进入世界阶段，最后一次遍历压缩掉所有过期行
+     */
+    private void tickParticles(int count) {
+        collisionCache.clear();
+        ForkJoinPool pool = count >= PARALLEL_THRESHOLD ? getSimulationPool() : null;
+        // 串行行的事件生成粒子时，并行模式下其余行已跑完本阶段，单线程时只跑到当前行，按实时的死亡标记会挤掉不同的粒子。
+        // 因此本阶段内按阶段开始时的存活状态选行，已到期又被挤掉的粒子不再触发到期事件
+        evictionSkipMask = ParticleStore.FLAG_EVICTED;
+        try {
+            if (pool != null) {
+                // 没有时间线事件的粒子只读写自己的行和环境，可以并行；带事件的粒子会生成粒子、播放声音，
+                // 之后按行号顺序串行执行，新行的追加顺序与单线程一致
+                pool.invoke(new SimulateTask(0, count));
+                tickBehaviour(0, count, ParticleStore.FLAG_SERIAL);
+            } else {
+                // 与并行时相同的分段，成批求值的分组不受线程数影响
+                for (int from = 0; from < count; from += PARALLEL_CHUNK) {
+                    tickBehaviour(from, Math.min(count, from + PARALLEL_CHUNK), -1);
+                }
+            }
+        } finally {
+            evictionSkipMask = ParticleStore.FLAG_DEAD;
+        }
+        count = Math.min(count, store.size());
+        for (int i = 0; i < count && i < store.size(); i++) {
+            int flags = store.flags[i];
+            if ((flags & ParticleStore.FLAG_DEAD) != 0) {
+                continue;
+            }
+            ActiveParticle particle = store.owner(i);
+            boolean world = (flags & ParticleStore.FLAG_WORLD) != 0;
+            particle.step(world);
+            if ((world && !particle.tickWorld()) || !particle.advanceAge()) {
+                store.markDead(i);
+            }
+        }
+        for (int i = 0; i < count && i < store.size(); i++) {
+            if (store.isDead(i) && !store.isEvicted(i)) {
+                store.owner(i).onExpired();
+            }
+        }
+        removeDeadParticles();
+    }
+
+    private ForkJoinPool getSimulationPool() {
+        int threads = simulationThreads;
+        if (threads <= 1) {
+            return null;
+        }
+        if (simulationPool == null || simulationPoolThreads != threads) {
+            if (simulationPool != null) {
+                simulationPool.shutdown();
+            }
+            simulationPool = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("SkyCore Particle Worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+            simulationPoolThreads = threads;
+        }
+        return simulationPool;
+    }
+
+    /**
+     * 并行执行可并行粒子的逐粒子阶段，每个任务只写自己范围内的行
+     */
+    private final class SimulateTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        private SimulateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_CHUNK) {
+                // 在分段边界上拆分，叶子任务与串行模拟的分段一致
+                int chunks = (to - from + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+                int mid = from + (chunks >>> 1) * PARALLEL_CHUNK;
+                invokeAll(new SimulateTask(from, mid), new SimulateTask(mid, to));
+                return;
+            }
+            tickBehaviour(from, to, 0);
+        }
+    }
+
+    /**
+     * 对一段行执行逐粒子阶段，只处理 {@link ParticleStore#FLAG_SERIAL} 位等于 serial 的行（-1 表示全部），
+     * 留给成批求值的动态运动在本段结束时一起结算
+     */
+    private void tickBehaviour(int from, int to, int serial) {
+        ParticleMotionBatch batch = ParticleMotionBatch.get();
+        try {
+            for (int i = from; i < to && i < store.size(); i++) {
+                int flags = store.flags[i];
+                if ((flags & ParticleStore.FLAG_DEAD) != 0 || (serial >= 0 && (flags & ParticleStore.FLAG_SERIAL) != serial)) {
+                    continue;
+                }
+                ActiveParticle particle = store.owner(i);
+                if (!particle.tickBehaviour()) {
+                    store.markDead(i);
+                    particle.takeMotionPending();
+                    continue;
+                }
+                batch.add(particle);
+            }
+        } finally {
+            batch.flush();
+        }
     }
 
     @SubscribeEvent
     public void onRenderWorldLast(RenderWorldLastEvent event) {
-        if (particles.isEmpty()) {
+        if (store.size() == 0) {
             return;
         }
         Minecraft mc = Minecraft.getMinecraft();
@@ -206,13 +702,20 @@ public class BedrockParticleSystem {
         double camZ = mc.getRenderManager().viewerPosZ;
         float partialTicks = event.getPartialTicks();
 
+        updateFrustum(camX, camY, camZ);
         if (!emitters.isEmpty()) {
             for (ActiveEmitter emitter : emitters) {
-                emitter.render(partialTicks);
+                if (emitter.updateVisibility(frustum)) {
+                    emitter.render(partialTicks);
+                }
             }
         }
+        if (gpuRenderer == null) {
+            // 渲染器在第一次渲染时才创建，无头模拟不会触碰任何渲染类
+            gpuRenderer = new ParticleGpuRenderer();
+        }
         if (gpuRenderer.isAvailable()) {
-            gpuRenderer.render(particles, mc, camX, camY, camZ, partialTicks);
+            gpuRenderer.render(store.particles(), mc, camX, camY, camZ, partialTicks, frustum);
             return;
         }
 
@@ -222,8 +725,11 @@ public class BedrockParticleSystem {
         GlStateManager.disableCull();
         GlStateManager.depthMask(false);
 
-        for (ActiveParticle particle : particles) {
-            particle.render(mc, camX, camY, camZ, partialTicks);
+        for (ActiveParticle particle : store.particles()) {
+            ActiveEmitter emitter = particle.getEmitter();
+            if (emitter == null || emitter.isVisible()) {
+                particle.render(mc, camX, camY, camZ, partialTicks);
+            }
         }
 
         GlStateManager.depthMask(true);
@@ -232,6 +738,25 @@ public class BedrockParticleSystem {
         GlStateManager.enableLighting();
     }
 
+    /**
+     * 读出当前的投影和模型视图矩阵构造视锥体，关闭剔除时视锥体无效，所有测试都判为可见
+     */
+    private void updateFrustum(double camX, double camY, double camZ) {
+        if (!cullingEnabled) {
+            frustum.invalidate();
+            return;
+        }
+        MATRIX_BUFFER.clear();
+        GL11.glGetFloat(GL11.GL_PROJECTION_MATRIX, MATRIX_BUFFER);
+        MATRIX_BUFFER.rewind();
+        MATRIX_BUFFER.get(projectionMatrix);
+        MATRIX_BUFFER.clear();
+        GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, MATRIX_BUFFER);
+        MATRIX_BUFFER.rewind();
+        MATRIX_BUFFER.get(modelViewMatrix);
+        frustum.setFromMatrices(projectionMatrix, modelViewMatrix, camX, camY, camZ);
+    }
+
     ResourceLocation toMinecraft(ParticleData data) {
         if (data == null || data.description() == null || data.description().getTexture() == null) {
             return new ResourceLocation("missingno");
@@ -335,6 +860,21 @@ public class BedrockParticleSystem {
         return BlendMode.ALPHA;
     }
 
+    /**
+     * particles_alpha 这类 alpha 测试材质只有全透明和不透明两种像素，不需要排序
+     */
+    boolean isAlphaTested(ParticleData data) {
+        if (data == null || data.description() == null) {
+            return false;
+        }
+        String material = data.description().getMaterial();
+        if (material == null || material.isEmpty()) {
+            return false;
+        }
+        String lower = material.toLowerCase(java.util.Locale.ROOT);
+        return lower.contains("alpha") && !lower.contains("blend");
+    }
+
     Block[] resolveBlocks(ParticleExpireInBlocksComponent component) {
         if (component == null) {
             return null;
@@ -358,16 +898,9 @@ public class BedrockParticleSystem {
             if (name == null || name.isEmpty()) {
                 continue;
             }
-            try {
-                ResourceLocation id = new ResourceLocation(name);
-                Block block = Block.REGISTRY.getObject(id);
-                if (block != null) {
-                    blocks.add(block);
-                } else {
-                    SkyCoreMod.LOGGER.warn("[SkyCore] 未找到方块: {}", name);
-                }
-            } catch (Exception ex) {
-                SkyCoreMod.LOGGER.warn("[SkyCore] 方块ID无效: {}", name);
+            Block block = world.resolveBlock(name);
+            if (block != null) {
+                blocks.add(block);
             }
         }
         if (blocks.isEmpty()) {
@@ -376,13 +909,13 @@ public class BedrockParticleSystem {
         return blocks.toArray(new Block[0]);
     }
 
-    void spawnEffectAt(String effect, double x, double y, double z, boolean bound) {
+    void spawnEffectAt(String effect, double x, double y, double z, boolean bound, int minPriority) {
         String path = normalizeParticlePath(effect);
         if (path == null) {
             return;
         }
         EmitterTransformProvider provider = new SnapshotTransformProvider(x, y, z, 0.0f, null, null, null, 1.0f);
-        spawnInternal(path, provider, 0);
+        spawnInternal(path, provider, 0, INHERIT_PRIORITY, minPriority);
     }
 
     void spawnEffectFromEmitter(String effect, ActiveEmitter emitter, boolean bound) {
@@ -401,7 +934,7 @@ public class BedrockParticleSystem {
                 emitter.getX(), emitter.getY(), emitter.getZ(), emitter.getYaw(),
                 emitter.getBasisX(), emitter.getBasisY(), emitter.getBasisZ(), emitter.getScale());
         }
-        spawnInternal(path, provider, 0);
+        spawnInternal(path, provider, 0, INHERIT_PRIORITY, emitter.getPriority());
     }
 
     String normalizeParticlePath(String effect) {
@@ -432,34 +965,18 @@ public class BedrockParticleSystem {
         if (sound == null || sound.isEmpty()) {
             return;
         }
-        Minecraft mc = Minecraft.getMinecraft();
-        if (mc == null || mc.world == null) {
-            return;
-        }
-        String soundId = sound.trim();
-        if (soundId.endsWith(".ogg")) {
-            soundId = soundId.substring(0, soundId.length() - 4);
-        }
-        ResourceLocation id;
-        try {
-            if (soundId.contains(":")) {
-                id = new ResourceLocation(soundId);
-            } else {
-                id = new ResourceLocation(SkyCoreMod.MOD_ID, soundId);
-            }
-        } catch (Exception ex) {
-            SkyCoreMod.LOGGER.warn("[SkyCore] 无效的声音ID: {}", sound);
-            return;
-        }
-        DirectSoundPlayer.play(id, SoundCategory.NEUTRAL, 1.0f, 1.0f, x, y, z);
+        world.playSound(sound, x, y, z);
     }
 
     void logMessage(String message) {
         if (message == null || message.isEmpty()) {
             return;
         }
-        SkyCoreMod.LOGGER.info("[Particle] {}", message);
-        
+        world.log(message);
+    }
+
+    ParticleWorld getWorld() {
+        return world;
     }
 
     public static final class StaticTransformProvider implements EmitterTransformProvider {
@@ -528,13 +1045,19 @@ public class BedrockParticleSystem {
 
     private final class BoundTransformProvider implements EmitterTransformProvider {
         private final ActiveEmitter emitter;
+        private final int generation;
 
         private BoundTransformProvider(ActiveEmitter emitter) {
             this.emitter = emitter;
+            this.generation = emitter.getGeneration();
         }
 
         @Override
         public void fill(EmitterTransform transform, float deltaSeconds) {
+            if (emitter.getGeneration() != generation) {
+                // 父发射器已回到对象池，保持最后一次的变换
+                return;
+            }
             transform.x = emitter.getX();
             transform.y = emitter.getY();
             transform.z = emitter.getZ();
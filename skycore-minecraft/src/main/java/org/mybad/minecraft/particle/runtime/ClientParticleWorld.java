@@ -0,0 +1,110 @@
+package org.mybad.minecraft.particle.runtime;
+
+import net.minecraft.block.Block;
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.math.BlockPos;
+import org.mybad.minecraft.SkyCoreMod;
+import org.mybad.minecraft.audio.DirectSoundPlayer;
+import org.mybad.minecraft.particle.collision.MinecraftVoxelWorld;
+import org.mybad.minecraft.particle.collision.VoxelCollisionWorld;
+
+import javax.annotation.Nullable;
+
+/**
+ * 基于客户端世界的 {@link ParticleWorld}。
+ */
+public final class ClientParticleWorld implements ParticleWorld {
+    private final VoxelCollisionWorld collision = new MinecraftVoxelWorld();
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+    @Override
+    public boolean isAvailable() {
+        Minecraft mc = Minecraft.getMinecraft();
+        return mc != null && mc.world != null;
+    }
+
+    @Override
+    public VoxelCollisionWorld getCollision() {
+        return collision;
+    }
+
+    @Nullable
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc == null || mc.world == null) {
+            return null;
+        }
+        pos.setPos(x, y, z);
+        return mc.world.getBlockState(pos).getBlock();
+    }
+
+    @Nullable
+    @Override
+    public Block resolveBlock(String id) {
+        try {
+            Block block = Block.REGISTRY.getObject(new ResourceLocation(id));
+            if (block == null) {
+                SkyCoreMod.LOGGER.warn("[SkyCore] 未找到方块: {}", id);
+            }
+            return block;
+        } catch (Exception ex) {
+            SkyCoreMod.LOGGER.warn("[SkyCore] 方块ID无效: {}", id);
+            return null;
+        }
+    }
+
+    @Override
+    public int getPackedLight(int x, int y, int z) {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc == null || mc.world == null) {
+            return 0;
+        }
+        pos.setPos(x, y, z);
+        return mc.world.getCombinedLight(pos, 0);
+    }
+
+    @Override
+    public boolean getViewerPosition(double[] out) {
+        Minecraft mc = Minecraft.getMinecraft();
+        Entity view = mc != null ? mc.getRenderViewEntity() : null;
+        if (view == null) {
+            return false;
+        }
+        out[0] = view.posX;
+        out[1] = view.posY;
+        out[2] = view.posZ;
+        return true;
+    }
+
+    @Override
+    public void playSound(String sound, double x, double y, double z) {
+        if (!isAvailable()) {
+            return;
+        }
+        String soundId = sound.trim();
+        if (soundId.endsWith(".ogg")) {
+            soundId = soundId.substring(0, soundId.length() - 4);
+        }
+        ResourceLocation id;
+        try {
+            if (soundId.contains(":")) {
+                id = new ResourceLocation(soundId);
+            } else {
+                id = new ResourceLocation(SkyCoreMod.MOD_ID, soundId);
+            }
+        } catch (Exception ex) {
+            SkyCoreMod.LOGGER.warn("[SkyCore] 无效的声音ID: {}", sound);
+            return;
+        }
+        DirectSoundPlayer.play(id, SoundCategory.NEUTRAL, 1.0f, 1.0f, x, y, z);
+    }
+
+    @Override
+    public void log(String message) {
+        SkyCoreMod.LOGGER.info("[Particle] {}", message);
+    }
+}
@@ -26,7 +26,6 @@ final class EmitterShapeSpawner implements ParticleEmitterShape.Spawner {
         ActiveParticle particle = (ActiveParticle) instance;
         particle.applyInitialSpeed();
         particle.syncPrev();
-        emitter.getSystem().addParticle(particle);
         emitter.onParticleSpawned();
     }
 
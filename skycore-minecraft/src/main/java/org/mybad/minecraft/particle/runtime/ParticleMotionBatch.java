@@ -0,0 +1,126 @@
+package org.mybad.minecraft.particle.runtime;
+
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.particle.component.ParticleMotionDynamicComponent;
+
+/**
+ * 动态运动的成批求值。
+ * 同一计划、同一发射器的粒子在逐粒子阶段只登记自己，凑成一组后把各自的槽位帧转成列，
+ * 动态运动的每个表达式只通过 {@link MolangEnvironment#resolveBatch} 求值一次，编译后的表达式在生成的循环里处理所有行。
+ * 分组只看行号顺序，串行和并行模拟得到相同的分组。每个模拟线程持有一份，数组按需扩容后复用，不会在 tick 中分配。
+ */
+final class ParticleMotionBatch {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final ThreadLocal<ParticleMotionBatch> BATCHES = ThreadLocal.withInitial(ParticleMotionBatch::new);
+
+    private ActiveParticle[] particles = new ActiveParticle[INITIAL_CAPACITY];
+    private float[][] columns = new float[0][];
+    private final float[][] values = new float[6][INITIAL_CAPACITY];
+    private int count;
+    private ParticlePlan plan;
+    private ActiveEmitter emitter;
+
+    static ParticleMotionBatch get() {
+        return BATCHES.get();
+    }
+
+    /**
+     * 逐粒子阶段之后调用：粒子若把动态运动留给了成批求值就加入当前组，所属计划或发射器不同时先结算上一组
+     */
+    void add(ActiveParticle particle) {
+        if (!particle.takeMotionPending()) {
+            return;
+        }
+        if (count > 0 && (particle.getPlan() != plan || particle.getEmitter() != emitter)) {
+            flush();
+        }
+        if (count == 0) {
+            plan = particle.getPlan();
+            emitter = particle.getEmitter();
+        }
+        if (count == particles.length) {
+            grow(count * 2);
+        }
+        particles[count++] = particle;
+    }
+
+    /**
+     * 结算当前组，每段行处理完都要调用
+     */
+    void flush() {
+        int count = this.count;
+        if (count == 0) {
+            return;
+        }
+        try {
+            ActiveParticle first = particles[0];
+            MolangEnvironment environment = first.getEnvironment();
+            int slots = environment.getSlotLayout() != null ? environment.getSlotLayout().size() : 0;
+            float[][] columns = columns(slots);
+            for (int i = 0; i < count; i++) {
+                float[] frame = particles[i].getMolangSlots();
+                for (int slot = 0; slot < slots; slot++) {
+                    columns[slot][i] = frame[slot];
+                }
+            }
+
+            ParticleMotionDynamicComponent motion = plan.motionDynamic;
+            MolangExpression[] accel = motion.linearAcceleration();
+            resolve(environment, accel[0], columns, 0);
+            resolve(environment, accel[1], columns, 1);
+            resolve(environment, accel[2], columns, 2);
+            resolve(environment, motion.linearDragCoefficient(), columns, 3);
+            resolve(environment, motion.rotationAcceleration(), columns, 4);
+            resolve(environment, motion.rotationDragCoefficient(), columns, 5);
+
+            float[][] values = this.values;
+            for (int i = 0; i < count; i++) {
+                particles[i].applyDynamicMotion(values[0][i], values[1][i], values[2][i], values[3][i], values[4][i], values[5][i]);
+            }
+        } finally {
+            for (int i = 0; i < count; i++) {
+                particles[i] = null;
+            }
+            this.count = 0;
+            this.plan = null;
+            this.emitter = null;
+        }
+    }
+
+    private void resolve(MolangEnvironment environment, MolangExpression expression, float[][] columns, int index) {
+        float[] out = values[index];
+        try {
+            environment.resolveBatch(expression, columns, count, out);
+        } catch (Throwable t) {
+            // 与逐粒子求值的 safeResolve 一致，出错的表达式逐行重新求值
+            for (int i = 0; i < count; i++) {
+                out[i] = particles[i].getEnvironment().safeResolve(expression);
+            }
+        }
+    }
+
+    private float[][] columns(int slots) {
+        float[][] columns = this.columns;
+        if (columns.length < slots) {
+            float[][] expanded = new float[slots][];
+            System.arraycopy(columns, 0, expanded, 0, columns.length);
+            columns = this.columns = expanded;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            if (columns[slot] == null || columns[slot].length < particles.length) {
+                columns[slot] = new float[particles.length];
+            }
+        }
+        return columns;
+    }
+
+    private void grow(int capacity) {
+        ActiveParticle[] expanded = new ActiveParticle[capacity];
+        System.arraycopy(particles, 0, expanded, 0, count);
+        particles = expanded;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new float[capacity];
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.mybad.minecraft.particle.runtime;
+
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangSlotLayout;
+import org.mybad.bedrockparticle.particle.ParticleData;
+import org.mybad.bedrockparticle.particle.component.EmitterInitializationComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterLifetimeExpressionComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterLifetimeLoopingComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterLifetimeOnceComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterLocalSpaceComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterRateInstantComponent;
+import org.mybad.bedrockparticle.particle.component.EmitterRateSteadyComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleAppearanceBillboardComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleAppearanceLightingComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleAppearanceTintingComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleEmitterShape;
+import org.mybad.bedrockparticle.particle.component.ParticleExpireInBlocksComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleExpireNotInBlocksComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleInitialSpeedComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleInitialSpinComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleKillPlaneComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleLifetimeEventComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleLifetimeExpressionComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleMotionCollisionComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleMotionDynamicComponent;
+import org.mybad.bedrockparticle.particle.component.ParticleMotionParametricComponent;
+import net.minecraft.block.Block;
+import net.minecraft.util.ResourceLocation;
+import org.mybad.minecraft.particle.molang.ParticleMolangLayout;
+import org.mybad.minecraft.particle.render.ParticleRenderer;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * 每个粒子定义编译一次的执行计划。
+ * 组件按类型取出并剔除不会产生效果的阶段（全零的动态运动、半径为 0 或恒定关闭的碰撞、系数全零的杀伤平面、空事件表、找不到的方块），
+ * 发射器和粒子直接读取这里的字段，生成和 tick 时不再按字符串查找组件或解析方块。
+ */
+final class ParticlePlan {
+    final ParticleData data;
+
+    final ParticleAppearanceBillboardComponent billboard;
+    final ParticleAppearanceTintingComponent tint;
+    final ParticleAppearanceLightingComponent lighting;
+    final ParticleInitialSpeedComponent speed;
+    final ParticleEmitterShape emitterShape;
+    final ParticleLifetimeExpressionComponent particleLifetime;
+    final EmitterLocalSpaceComponent localSpace;
+    final EmitterRateInstantComponent rateInstant;
+    final EmitterRateSteadyComponent rateSteady;
+    final EmitterLifetimeOnceComponent lifetimeOnce;
+    final EmitterLifetimeLoopingComponent lifetimeLooping;
+    final EmitterLifetimeExpressionComponent lifetimeExpression;
+    final ParticleLifetimeEventComponent emitterLifetimeEvents;
+    final EmitterInitializationComponent emitterInitialization;
+
+    final ResourceLocation texture;
+    final ResourceLocation emissiveTexture;
+    final float emissiveStrength;
+    final ResourceLocation blendTexture;
+    final BedrockParticleSystem.BlendMode blendModeOverlay;
+    final float blendR;
+    final float blendG;
+    final float blendB;
+    final float blendA;
+    final BedrockParticleSystem.BlendMode blendMode;
+    /**
+     * 半透明混合的粒子需要按深度从远到近绘制；加法、不透明和 alpha 测试材质与绘制顺序无关
+     */
+    final boolean depthSorted;
+    /**
+     * 渲染批处理为本定义驻留的批次键编号，由批处理器填写和校验
+     */
+    final int[] batchKeys = new int[4];
+    final boolean bloom;
+    final float bloomStrength;
+    final int bloomPasses;
+    final float bloomScaleStep;
+    final float bloomDownscale;
+    final ParticleRenderer renderer;
+
+    final ParticleInitialSpinComponent initialSpin;
+    final ParticleMotionDynamicComponent motionDynamic;
+    final ParticleMotionParametricComponent motionParametric;
+    final ParticleMotionCollisionComponent motionCollision;
+    final ParticleKillPlaneComponent killPlane;
+    final Block[] expireInBlocks;
+    final Block[] expireNotInBlocks;
+    final MolangExpression creationExpression;
+    final MolangExpression tickExpression;
+    final MolangExpression renderExpression;
+    final MolangExpression lifetimeExpiration;
+    final String[] creationEvents;
+    final String[] expirationEvents;
+    final ParticleLifetimeEventComponent.TimelineEvent[] timeline;
+    final boolean nativeSpeed;
+    final int priority;
+    /**
+     * 需要进入世界阶段（碰撞、杀伤平面、方块检测）
+     */
+    final boolean world;
+    /**
+     * 动态运动按发射器成批求值（{@link ParticleMotionBatch}）：粒子没有创建/tick 表达式和事件，
+     * 动态运动的每个表达式只读本定义槽位布局里的变量和常量（{@link MolangExpression#getSlotDependencies()}），
+     * 成批求值时每行的结果只取决于该行粒子自己的槽位；读到粒子自己的 variable.*、随机函数或其他环境状态的逐粒子求值
+     */
+    final boolean batchedMotion;
+
+    /**
+     * 该定义的对象池，由 {@link ParticlePools} 维护
+     */
+    final ArrayDeque<ActiveParticle> particlePool = new ArrayDeque<>();
+    final ArrayDeque<ActiveEmitter> emitterPool = new ArrayDeque<>();
+    int lastPoolTick;
+    boolean pooled;
+
+    ParticlePlan(BedrockParticleSystem system, ParticleData data) {
+        this.data = data;
+
+        this.billboard = BedrockParticleSystem.getComponent(data, "particle_appearance_billboard");
+        this.tint = BedrockParticleSystem.getComponent(data, "particle_appearance_tinting");
+        this.lighting = BedrockParticleSystem.getComponent(data, "particle_appearance_lighting");
+        this.speed = BedrockParticleSystem.getComponent(data, "particle_initial_speed");
+        this.emitterShape = resolveEmitterShape(data);
+        this.particleLifetime = BedrockParticleSystem.getComponent(data, "particle_lifetime_expression");
+        this.localSpace = BedrockParticleSystem.getComponent(data, "emitter_local_space");
+        this.rateInstant = BedrockParticleSystem.getComponent(data, "emitter_rate_instant");
+        this.rateSteady = BedrockParticleSystem.getComponent(data, "emitter_rate_steady");
+        this.lifetimeOnce = BedrockParticleSystem.getComponent(data, "emitter_lifetime_once");
+        this.lifetimeLooping = BedrockParticleSystem.getComponent(data, "emitter_lifetime_looping");
+        this.lifetimeExpression = BedrockParticleSystem.getComponent(data, "emitter_lifetime_expression");
+        this.emitterLifetimeEvents = BedrockParticleSystem.getComponent(data, "emitter_lifetime_events");
+        this.emitterInitialization = BedrockParticleSystem.getComponent(data, "emitter_initialization");
+
+        this.texture = system.toMinecraft(data);
+        boolean hasDescription = data != null && data.description() != null;
+        this.emissiveTexture = hasDescription ? system.toMinecraft(data.description().getEmissiveTexture()) : null;
+        this.emissiveStrength = hasDescription ? Math.max(0.0f, data.description().getEmissiveStrength()) : 0.0f;
+        this.blendTexture = hasDescription ? system.toMinecraft(data.description().getBlendTexture()) : null;
+        this.blendModeOverlay = resolveBlendOverlay(data);
+        float[] blendColor = hasDescription ? data.description().getBlendColor() : null;
+        if (blendColor != null && blendColor.length >= 4) {
+            this.blendR = clamp01(blendColor[0]);
+            this.blendG = clamp01(blendColor[1]);
+            this.blendB = clamp01(blendColor[2]);
+            this.blendA = clamp01(blendColor[3]);
+        } else {
+            this.blendR = 1.0f;
+            this.blendG = 1.0f;
+            this.blendB = 1.0f;
+            this.blendA = 0.0f;
+        }
+        this.blendMode = system.resolveBlendMode(data);
+        this.depthSorted = blendMode == BedrockParticleSystem.BlendMode.ALPHA && !system.isAlphaTested(data);
+        this.bloom = hasDescription && data.description().isBloom();
+        if (this.bloom) {
+            this.bloomStrength = Math.max(0f, data.description().getBloomStrength());
+            this.bloomPasses = Math.max(0, data.description().getBloomPasses());
+            this.bloomScaleStep = data.description().getBloomScaleStep();
+            this.bloomDownscale = data.description().getBloomDownscale();
+        } else {
+            this.bloomStrength = 0f;
+            this.bloomPasses = 0;
+            this.bloomScaleStep = 0.06f;
+            this.bloomDownscale = 1.0f;
+        }
+        // 渲染器只有临时缓冲，渲染在单线程上进行，同一定义的粒子共用一个
+        this.renderer = new ParticleRenderer(billboard, tint, lighting, texture, emissiveTexture, emissiveStrength, blendMode,
+            blendTexture, blendModeOverlay, blendR, blendG, blendB, blendA);
+
+        this.initialSpin = BedrockParticleSystem.getComponent(data, "particle_initial_spin");
+        ParticleMotionDynamicComponent motionDynamic = BedrockParticleSystem.getComponent(data, "particle_motion_dynamic");
+        this.motionDynamic = isStatic(motionDynamic) ? null : motionDynamic;
+        this.motionParametric = BedrockParticleSystem.getComponent(data, "particle_motion_parametric");
+        ParticleMotionCollisionComponent motionCollision = BedrockParticleSystem.getComponent(data, "particle_motion_collision");
+        this.motionCollision = isDisabled(motionCollision) ? null : motionCollision;
+        ParticleKillPlaneComponent killPlane = BedrockParticleSystem.getComponent(data, "particle_kill_plane");
+        this.killPlane = killPlane != null && (killPlane.a() != 0.0f || killPlane.b() != 0.0f || killPlane.c() != 0.0f || killPlane.d() != 0.0f)
+            ? killPlane : null;
+        ParticleExpireInBlocksComponent expireInBlocks = BedrockParticleSystem.getComponent(data, "particle_expire_if_in_blocks");
+        ParticleExpireNotInBlocksComponent expireNotInBlocks = BedrockParticleSystem.getComponent(data, "particle_expire_if_not_in_blocks");
+        this.expireInBlocks = system.resolveBlocks(expireInBlocks);
+        this.expireNotInBlocks = system.resolveBlocks(expireNotInBlocks);
+
+        EmitterInitializationComponent initialization = BedrockParticleSystem.getComponent(data, "particle_initialization");
+        this.creationExpression = initialization != null ? initialization.creationExpression() : null;
+        this.tickExpression = initialization != null ? initialization.tickExpression() : null;
+        this.renderExpression = initialization != null ? initialization.renderExpression() : null;
+        this.lifetimeExpiration = particleLifetime != null ? particleLifetime.expirationExpression() : null;
+
+        ParticleLifetimeEventComponent events = BedrockParticleSystem.getComponent(data, "particle_lifetime_events");
+        this.creationEvents = events != null ? nonEmpty(events.creationEvent()) : null;
+        this.expirationEvents = events != null ? nonEmpty(events.expirationEvent()) : null;
+        ParticleLifetimeEventComponent.TimelineEvent[] timeline = events != null ? events.timelineEvents() : null;
+        this.timeline = timeline != null && timeline.length > 0 ? timeline : null;
+
+        this.nativeSpeed = hasDescription && data.description().isNativeSpeed();
+        this.priority = hasDescription ? data.description().getPriority() : 0;
+        this.world = this.motionCollision != null || this.killPlane != null || this.expireInBlocks != null || this.expireNotInBlocks != null;
+        MolangExpression[] acceleration = this.motionDynamic != null ? this.motionDynamic.linearAcceleration() : null;
+        this.batchedMotion = acceleration != null && acceleration.length >= 3
+            && this.creationExpression == null && this.tickExpression == null
+            && this.creationEvents == null && this.timeline == null
+            && (this.motionCollision == null || nonEmpty(this.motionCollision.events()) == null)
+            && readsOnlySlots(this.motionDynamic, ParticleMolangLayout.of(data).getSlotLayout());
+    }
+
+    private static boolean isStatic(ParticleMotionDynamicComponent motion) {
+        if (motion == null) {
+            return true;
+        }
+        MolangExpression[] acceleration = motion.linearAcceleration();
+        if (acceleration == null || acceleration.length < 3) {
+            return false;
+        }
+        return isZero(acceleration[0]) && isZero(acceleration[1]) && isZero(acceleration[2])
+            && isZero(motion.linearDragCoefficient())
+            && isZero(motion.rotationAcceleration())
+            && isZero(motion.rotationDragCoefficient());
+    }
+
+    private static boolean isDisabled(ParticleMotionCollisionComponent collision) {
+        if (collision == null || collision.collisionRadius() <= 0.0f) {
+            return true;
+        }
+        MolangExpression enabled = collision.enabled();
+        return enabled != null && enabled.isConstant() && enabled.getConstant() == 0.0f;
+    }
+
+    private static boolean isZero(MolangExpression expression) {
+        return expression != null && expression.isConstant() && expression.getConstant() == 0.0f;
+    }
+
+    /**
+     * 成批求值时整组共用第一个粒子的环境，只有每行的结果完全由该行的槽位决定时才能成批
+     */
+    private static boolean readsOnlySlots(ParticleMotionDynamicComponent motion, MolangSlotLayout layout) {
+        for (MolangExpression expression : motion.linearAcceleration()) {
+            if (!readsOnlySlots(expression, layout)) {
+                return false;
+            }
+        }
+        return readsOnlySlots(motion.linearDragCoefficient(), layout)
+            && readsOnlySlots(motion.rotationAcceleration(), layout)
+            && readsOnlySlots(motion.rotationDragCoefficient(), layout);
+    }
+
+    private static boolean readsOnlySlots(MolangExpression expression, MolangSlotLayout layout) {
+        if (expression == null) {
+            return true;
+        }
+        String[] names = expression.getSlotDependencies();
+        if (names == null) {
+            return false;
+        }
+        for (String name : names) {
+            // 不在布局里的名字会回退到环境查找，读到的是第一个粒子的变量
+            if (layout.indexOf(name) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] nonEmpty(String[] events) {
+        return events != null && events.length > 0 ? events : null;
+    }
+
+    private static ParticleEmitterShape resolveEmitterShape(ParticleData data) {
+        String[] names = {
+            "emitter_shape_disc",
+            "emitter_shape_box",
+            "emitter_shape_sphere",
+            "emitter_shape_point",
+            "emitter_shape_entity_aabb",
+            "emitter_shape_custom"
+        };
+        for (String name : names) {
+            ParticleEmitterShape shape = BedrockParticleSystem.getComponent(data, name);
+            if (shape != null) {
+                return shape;
+            }
+        }
+        if (data != null && data.components() != null) {
+            for (ParticleComponent component : data.components().values()) {
+                if (component instanceof ParticleEmitterShape) {
+                    return (ParticleEmitterShape) component;
+                }
+            }
+        }
+        return ParticleEmitterShape.EMPTY;
+    }
+
+    private static BedrockParticleSystem.BlendMode resolveBlendOverlay(ParticleData data) {
+        if (data == null || data.description() == null) {
+            return BedrockParticleSystem.BlendMode.ALPHA;
+        }
+        String mode = data.description().getBlendMode();
+        if (mode == null || mode.isEmpty()) {
+            return BedrockParticleSystem.BlendMode.ALPHA;
+        }
+        if (mode.toLowerCase(Locale.ROOT).contains("add")) {
+            return BedrockParticleSystem.BlendMode.ADD;
+        }
+        return BedrockParticleSystem.BlendMode.ALPHA;
+    }
+
+    static float clamp01(float value) {
+        if (Float.isNaN(value)) {
+            return 0.0f;
+        }
+        if (value < 0.0f) {
+            return 0.0f;
+        }
+        if (value > 1.0f) {
+            return 1.0f;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,208 @@
+package org.mybad.minecraft.particle.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 全局的粒子与发射器对象池。对象按粒子定义（{@link ParticlePlan}）分池存放，同一定义的对象可以跨发射器复用；
+ * 池中对象总量按估算内存受预算限制，长时间未使用的定义在空闲清理时整体释放。
+ */
+public final class ParticlePools {
+    /**
+     * 单个粒子的估算内存：Molang 上下文、环境与随机数组
+     */
+    static final long PARTICLE_BYTES = 1024L;
+    /**
+     * 单个发射器的估算内存：上下文、环境、变换与基向量数组
+     */
+    static final long EMITTER_BYTES = 4096L;
+    static final long DEFAULT_MEMORY_BUDGET = 2L * 1024L * 1024L;
+    /**
+     * 每隔多少 tick 检查一次空闲的池
+     */
+    static final int TRIM_INTERVAL_TICKS = 100;
+    /**
+     * 超过多少 tick 未借出的定义整体释放
+     */
+    static final int IDLE_TICKS = 600;
+
+    private static volatile long memoryBudget = DEFAULT_MEMORY_BUDGET;
+
+    private final List<ParticlePlan> pooledPlans = new ArrayList<>();
+    private long memoryUsed;
+    private int pooledParticles;
+    private int pooledEmitters;
+    private int tick;
+    private long particleHits;
+    private long particleMisses;
+    private long emitterHits;
+    private long emitterMisses;
+    private long rejected;
+    private long trimmed;
+
+    ParticlePools() {
+    }
+
+    /**
+     * 设置对象池的估算内存预算，超出后归还的对象直接丢弃
+     */
+    public static void setMemoryBudget(long bytes) {
+        memoryBudget = Math.max(0L, bytes);
+    }
+
+    public static long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    ActiveParticle borrowParticle(ParticlePlan plan) {
+        ActiveParticle particle = plan.particlePool.pollFirst();
+        if (particle == null) {
+            particleMisses++;
+            return null;
+        }
+        plan.lastPoolTick = tick;
+        pooledParticles--;
+        memoryUsed -= PARTICLE_BYTES;
+        particleHits++;
+        return particle;
+    }
+
+    void returnParticle(ActiveParticle particle) {
+        if (memoryUsed + PARTICLE_BYTES > memoryBudget) {
+            rejected++;
+            return;
+        }
+        ParticlePlan plan = particle.getPlan();
+        track(plan);
+        plan.particlePool.addFirst(particle);
+        pooledParticles++;
+        memoryUsed += PARTICLE_BYTES;
+    }
+
+    ActiveEmitter borrowEmitter(ParticlePlan plan) {
+        ActiveEmitter emitter = plan.emitterPool.pollFirst();
+        if (emitter == null) {
+            emitterMisses++;
+            return null;
+        }
+        plan.lastPoolTick = tick;
+        pooledEmitters--;
+        memoryUsed -= EMITTER_BYTES;
+        emitterHits++;
+        return emitter;
+    }
+
+    void returnEmitter(ActiveEmitter emitter) {
+        emitter.release();
+        if (memoryUsed + EMITTER_BYTES > memoryBudget) {
+            rejected++;
+            return;
+        }
+        ParticlePlan plan = emitter.getPlan();
+        track(plan);
+        plan.emitterPool.addFirst(emitter);
+        pooledEmitters++;
+        memoryUsed += EMITTER_BYTES;
+    }
+
+    private void track(ParticlePlan plan) {
+        plan.lastPoolTick = tick;
+        if (!plan.pooled) {
+            plan.pooled = true;
+            pooledPlans.add(plan);
+        }
+    }
+
+    /**
+     * 每个客户端 tick 调用一次，定期释放空闲定义的池，预算被调小时从最早入池的定义开始继续释放
+     */
+    void tick() {
+        tick++;
+        if (tick % TRIM_INTERVAL_TICKS != 0 || pooledPlans.isEmpty()) {
+            return;
+        }
+        int write = 0;
+        for (int i = 0; i < pooledPlans.size(); i++) {
+            ParticlePlan plan = pooledPlans.get(i);
+            if (tick - plan.lastPoolTick >= IDLE_TICKS || memoryUsed > memoryBudget) {
+                drain(plan);
+            } else {
+                pooledPlans.set(write++, plan);
+            }
+        }
+        pooledPlans.subList(write, pooledPlans.size()).clear();
+    }
+
+    void clear() {
+        for (int i = 0; i < pooledPlans.size(); i++) {
+            drain(pooledPlans.get(i));
+        }
+        pooledPlans.clear();
+    }
+
+    private void drain(ParticlePlan plan) {
+        int particles = plan.particlePool.size();
+        int emitters = plan.emitterPool.size();
+        plan.particlePool.clear();
+        plan.emitterPool.clear();
+        plan.pooled = false;
+        pooledParticles -= particles;
+        pooledEmitters -= emitters;
+        memoryUsed -= particles * PARTICLE_BYTES + emitters * EMITTER_BYTES;
+        trimmed += particles + emitters;
+    }
+
+    public int getPooledParticleCount() {
+        return pooledParticles;
+    }
+
+    public int getPooledEmitterCount() {
+        return pooledEmitters;
+    }
+
+    /**
+     * @return 池中对象的估算内存（字节）
+     */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public long getParticleHits() {
+        return particleHits;
+    }
+
+    public long getParticleMisses() {
+        return particleMisses;
+    }
+
+    public long getEmitterHits() {
+        return emitterHits;
+    }
+
+    public long getEmitterMisses() {
+        return emitterMisses;
+    }
+
+    /**
+     * @return 因超出预算而没有入池的对象数
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * @return 空闲清理释放的对象数
+     */
+    public long getTrimmedCount() {
+        return trimmed;
+    }
+
+    public void resetStats() {
+        particleHits = 0L;
+        particleMisses = 0L;
+        emitterHits = 0L;
+        emitterMisses = 0L;
+        rejected = 0L;
+        trimmed = 0L;
+    }
+}
@@ -0,0 +1,72 @@
+package org.mybad.minecraft.particle.runtime;
+
+import java.util.Random;
+
+/**
+ * SplitMix64 随机数流。继承 {@link Random} 以便直接交给事件和发射形状使用，但不经过父类的 AtomicLong 种子，
+ * 每次取值只有一次加法和一次混合；只在单线程内使用。
+ * 子流用 {@link #derive(long, long)} 由父种子和序号计算，不需要分配对象，同一种子下的结果完全可复现。
+ */
+final class ParticleRandom extends Random {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long SPLIT_SALT = 0xD1B54A32D192ED03L;
+    private static final float FLOAT_UNIT = 1.0f / (1 << 24);
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    private long state;
+
+    ParticleRandom(long seed) {
+        super(0L);
+        this.state = seed;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // 父类构造时也会调用这里
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * FLOAT_UNIT;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0L;
+    }
+
+    /**
+     * 由父种子和序号得到第 index 个子流的种子，与父流本身的输出序列不重合
+     */
+    static long derive(long seed, long index) {
+        return mix64(mix64(seed ^ SPLIT_SALT) + index * GOLDEN_GAMMA);
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,172 @@
+package org.mybad.minecraft.particle.runtime;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 存活粒子的行表：owners 记录行对应的 ActiveParticle，flags 和 score 存放调度、淘汰用的标记和准入分数。
+ * 位置、速度、年龄等运动状态留在粒子对象里，按列存放实测没有比对象字段更快。
+ * 删除时把最后一行搬到空位（swap-remove），因此行号不稳定，粒子通过自身的 row 字段访问标记，搬移时由 store 更新。
+ */
+final class ParticleStore {
+    static final int FLAG_WORLD = 1;
+    static final int FLAG_DEAD = 2;
+    /**
+     * 逐粒子阶段会触发事件（生成粒子、声音），不能并行
+     */
+    static final int FLAG_SERIAL = 4;
+    /**
+     * 预算已满时被高优先级发射器挤掉，已经通知过发射器，不再触发到期事件
+     */
+    static final int FLAG_EVICTED = 8;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 生成时发射器的准入分数，预算满时分数最低的行先被挤掉
+     */
+    float[] score;
+    int[] flags;
+    private ActiveParticle[] owners;
+    private int size;
+    private final List<ActiveParticle> view = new OwnerView();
+
+    ParticleStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    ActiveParticle owner(int row) {
+        return owners[row];
+    }
+
+    /**
+     * 按行顺序返回存活粒子的只读视图，供渲染遍历
+     */
+    List<ActiveParticle> particles() {
+        return view;
+    }
+
+    /**
+     * 为粒子追加一行，标记和分数清零
+     *
+     * @return 新行号
+     */
+    int add(ActiveParticle owner) {
+        if (size == owners.length) {
+            allocate(size * 2);
+        }
+        int row = size++;
+        owners[row] = owner;
+        score[row] = 0.0f;
+        flags[row] = 0;
+        return row;
+    }
+
+    void markDead(int row) {
+        flags[row] |= FLAG_DEAD;
+    }
+
+    boolean isDead(int row) {
+        return (flags[row] & FLAG_DEAD) != 0;
+    }
+
+    void markEvicted(int row) {
+        flags[row] |= FLAG_DEAD | FLAG_EVICTED;
+    }
+
+    boolean isEvicted(int row) {
+        return (flags[row] & FLAG_EVICTED) != 0;
+    }
+
+    /**
+     * 删除一行，最后一行搬到该位置并更新其所有者的行号
+     *
+     * @return 被删除行的所有者
+     */
+    ActiveParticle remove(int row) {
+        ActiveParticle removed = owners[row];
+        int last = --size;
+        if (row != last) {
+            copyRow(last, row);
+            owners[row].setRow(row);
+        }
+        owners[last] = null;
+        removed.setRow(-1);
+        return removed;
+    }
+
+    /**
+     * 一次遍历删除所有标记为死亡的行，被删除行的所有者追加到 removed
+     *
+     * @param stable true 时保持存活行的相对顺序（整体前移），false 时用最后一行填补空位
+     */
+    void compact(boolean stable, List<ActiveParticle> removed) {
+        if (stable) {
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                if ((flags[read] & FLAG_DEAD) != 0) {
+                    removed.add(owners[read]);
+                    owners[read].setRow(-1);
+                    continue;
+                }
+                if (write != read) {
+                    copyRow(read, write);
+                    owners[write].setRow(write);
+                }
+                write++;
+            }
+            Arrays.fill(owners, write, size, null);
+            size = write;
+            return;
+        }
+        int i = 0;
+        while (i < size) {
+            if ((flags[i] & FLAG_DEAD) != 0) {
+                removed.add(remove(i));
+            } else {
+                i++;
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            owners[i].setRow(-1);
+        }
+        Arrays.fill(owners, 0, size, null);
+        size = 0;
+    }
+
+    private void copyRow(int from, int to) {
+        owners[to] = owners[from];
+        score[to] = score[from];
+        flags[to] = flags[from];
+    }
+
+    private void allocate(int capacity) {
+        owners = owners == null ? new ActiveParticle[capacity] : Arrays.copyOf(owners, capacity);
+        score = score == null ? new float[capacity] : Arrays.copyOf(score, capacity);
+        flags = flags == null ? new int[capacity] : Arrays.copyOf(flags, capacity);
+    }
+
+    private final class OwnerView extends AbstractList<ActiveParticle> implements RandomAccess {
+        @Override
+        public ActiveParticle get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return owners[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
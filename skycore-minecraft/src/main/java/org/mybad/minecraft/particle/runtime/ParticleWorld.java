@@ -0,0 +1,42 @@
+package org.mybad.minecraft.particle.runtime;
+
+import net.minecraft.block.Block;
+import org.mybad.minecraft.particle.collision.VoxelCollisionWorld;
+
+import javax.annotation.Nullable;
+
+/**
+ * 粒子模拟访问外部环境的唯一入口：世界是否可用、方块、光照、碰撞、观察者位置、声音和日志。
+ * 客户端使用 {@link ClientParticleWorld}；无头模拟和基准测试提供合成实现，模拟核心因此不依赖 Minecraft 实例。
+ */
+public interface ParticleWorld {
+    /**
+     * @return 世界是否已加载，未加载时系统清空所有粒子
+     */
+    boolean isAvailable();
+
+    VoxelCollisionWorld getCollision();
+
+    /**
+     * @return 方块格 (x, y, z) 上的方块，不可用时返回 null
+     */
+    @Nullable
+    Block getBlock(int x, int y, int z);
+
+    /**
+     * @return 粒子定义中方块 ID 对应的方块，找不到时返回 null
+     */
+    @Nullable
+    Block resolveBlock(String id);
+
+    int getPackedLight(int x, int y, int z);
+
+    /**
+     * 把观察者（相机）位置写入 out，没有观察者时返回 false
+     */
+    boolean getViewerPosition(double[] out);
+
+    void playSound(String sound, double x, double y, double z);
+
+    void log(String message);
+}
@@ -11,6 +11,7 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.text.TextFormatting;
 import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
 import org.mybad.bedrockparticle.molang.api.MolangExpression;
 import org.mybad.bedrockparticle.molang.api.MolangRuntime;
 import org.mybad.bedrockparticle.molang.api.exception.MolangRuntimeException;
@@ -163,7 +164,13 @@ public final class EntityHeadBarManager {
     private List<HeadBarDefinition> parseDefinitions(SkyCoreProto.HeadBarConfig config) {
         List<HeadBarDefinition> defs = new ArrayList<>();
         for (SkyCoreProto.HeadBarDefinition proto : config.getDefinitionsList()) {
-            HeadBarDefinition def = HeadBarDefinition.fromProto(proto, this::compileExpression);
+            String previousOwner = MolangProfiler.setOwner("headbar:" + String.join("|", proto.getNameContainsList()));
+            HeadBarDefinition def;
+            try {
+                def = HeadBarDefinition.fromProto(proto, this::compileExpression);
+            } finally {
+                MolangProfiler.setOwner(previousOwner);
+            }
             if (def != null) {
                 defs.add(def);
             }
@@ -2,6 +2,7 @@ package org.mybad.minecraft.render.entity.events;
 
 import net.minecraft.util.ResourceLocation;
 import org.mybad.minecraft.SkyCoreMod;
+import org.mybad.minecraft.particle.runtime.BedrockParticleSystem;
 import org.mybad.minecraft.render.trail.TrailAction;
 import org.mybad.minecraft.render.trail.TrailAxis;
 import org.mybad.minecraft.render.trail.TrailBlendMode;
@@ -16,6 +17,7 @@ public final class AnimationEventArgsParser {
         }
         String path = null;
         int count = 0;
+        int priority = BedrockParticleSystem.INHERIT_PRIORITY;
         ParticleTargetMode mode = ParticleTargetMode.LOOK;
         float yawOffset = 0.0f;
         String[] parts = effect.split(";");
@@ -43,6 +45,11 @@ public final class AnimationEventArgsParser {
                     count = Integer.parseInt(value);
                 } catch (NumberFormatException ignored) {
                 }
+            } else if ("priority".equals(key)) {
+                try {
+                    priority = Integer.parseInt(value);
+                } catch (NumberFormatException ignored) {
+                }
             } else if ("mode".equals(key)) {
                 mode = ParticleTargetMode.parse(value);
             } else if ("yaw".equals(key)) {
@@ -58,6 +65,7 @@ public final class AnimationEventArgsParser {
         ParticleParams params = new ParticleParams();
         params.path = path;
         params.count = count;
+        params.priority = priority;
         params.mode = mode;
         params.yawOffset = yawOffset;
         params.expireOnDeath = false;
@@ -177,6 +185,7 @@ public final class AnimationEventArgsParser {
     static final class ParticleParams {
         String path;
         int count;
+        int priority;
         ParticleTargetMode mode;
         float yawOffset;
         boolean expireOnDeath;
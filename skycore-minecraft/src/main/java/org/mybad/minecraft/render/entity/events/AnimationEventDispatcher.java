@@ -198,13 +198,13 @@ public final class AnimationEventDispatcher {
             if (target != null) {
                 system.spawn(params.path,
                     new BlockAnimationEventTransformProvider(target, wrapper, locatorName, positionYaw, params),
-                    params.count);
+                    params.count, params.priority);
                 return;
             }
             double px = initialPos != null && initialPos.length > 0 ? initialPos[0] : getBaseX(target);
             double py = initialPos != null && initialPos.length > 1 ? initialPos[1] : getBaseY(target);
             double pz = initialPos != null && initialPos.length > 2 ? initialPos[2] : getBaseZ(target);
-            system.spawn(params.path, px, py, pz, params.count);
+            system.spawn(params.path, px, py, pz, params.count, params.priority);
             return;
         }
         float emitterYaw = AnimationEventMathUtil.resolveEmitterYaw(entity, partialTicks, params);
@@ -212,7 +212,7 @@ public final class AnimationEventDispatcher {
         double iy = initialPos != null && initialPos.length > 1 ? initialPos[1] : entity.posY;
         double iz = initialPos != null && initialPos.length > 2 ? initialPos[2] : entity.posZ;
         system.spawn(params.path, new AnimationEventTransformProvider(entity, wrapper, locatorName, ix, iy, iz, emitterYaw,
-            positionYaw, params.mode, params.yawOffset, params.expireOnDeath), params.count);
+            positionYaw, params.mode, params.yawOffset, params.expireOnDeath), params.count, params.priority);
     }
 
     private void triggerTrailEvent(AnimationEventContext context, Animation.Event event) {
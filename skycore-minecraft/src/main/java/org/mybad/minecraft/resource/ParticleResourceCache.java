@@ -3,6 +3,7 @@ package org.mybad.minecraft.resource;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import org.mybad.bedrockparticle.molang.api.MolangProfiler;
 import org.mybad.bedrockparticle.particle.ParticleData;
 import org.mybad.bedrockparticle.particle.ParticleParser;
 import org.mybad.bedrockparticle.particle.io.ParticleBinarySerializer;
@@ -52,7 +53,13 @@ final class ParticleResourceCache {
                 return null;
             }
             JsonElement root = new JsonParser().parse(jsonContent);
-            ParticleData data = ParticleParser.parseParticle(root);
+            ParticleData data;
+            String previousOwner = MolangProfiler.setOwner("particle:" + key);
+            try {
+                data = ParticleParser.parseParticle(root);
+            } finally {
+                MolangProfiler.setOwner(previousOwner);
+            }
             patchParticleTextureNamespace(key, root, data);
             particleCache.put(key, data);
             return data;
@@ -72,7 +79,12 @@ final class ParticleResourceCache {
             }
             binarySerializer.setArchiveVersionHint(archive.getHeader().getVersion());
             BinaryDataReader reader = new BinaryDataReader(archive.getPayload());
-            return binarySerializer.read(reader);
+            String previousOwner = MolangProfiler.setOwner("particle:" + key);
+            try {
+                return binarySerializer.read(reader);
+            } finally {
+                MolangProfiler.setOwner(previousOwner);
+            }
         } catch (Exception ex) {
             reporter.parseFailed(key, path, ex);
             return null;
@@ -0,0 +1,176 @@
+package org.mybad.minecraft.particle.collision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用合成的体素世界检查扫掠裁剪、部分高度的碰撞盒和每 tick 的缓存失效
+ */
+public class ParticleCollisionCacheTest {
+    private static final double EPSILON = 1.0e-9;
+    private static final double RADIUS = 0.1;
+
+    @Test
+    public void fallingParticleStopsOnFloor() {
+        SyntheticWorld world = new SyntheticWorld();
+        world.solid(0, 0, 0);
+        ParticleCollisionCache cache = new ParticleCollisionCache(world);
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(1.0 - 1.4, cache.getOffsetY(), EPSILON, "clipped to the top of the block");
+        assertEquals(0.0, cache.getOffsetX(), EPSILON);
+        assertEquals(0.0, cache.getOffsetZ(), EPSILON);
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -0.2, 0.0);
+        assertEquals(-0.2, cache.getOffsetY(), EPSILON, "short fall does not reach the floor");
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, 1.0, 0.0);
+        assertEquals(1.0, cache.getOffsetY(), EPSILON, "moving away from the floor is not clipped");
+
+        cache.sweep(1.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(-1.0, cache.getOffsetY(), EPSILON, "no floor next to the block");
+
+        assertTrue(cache.intersects(0.5, 1.05, 0.5, RADIUS));
+        assertFalse(cache.intersects(0.5, 1.2, 0.5, RADIUS));
+    }
+
+    @Test
+    public void particleSlidesAlongWall() {
+        SyntheticWorld world = new SyntheticWorld();
+        world.solid(1, 1, 0);
+        world.solid(1, 1, 1);
+        ParticleCollisionCache cache = new ParticleCollisionCache(world);
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 1.0, 0.0, 0.3);
+        assertEquals(1.0 - 0.6, cache.getOffsetX(), EPSILON, "stopped at the wall face");
+        assertEquals(0.3, cache.getOffsetZ(), EPSILON, "keeps sliding along the wall");
+        assertEquals(0.0, cache.getOffsetY(), EPSILON);
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 1.0, -0.3, 0.3);
+        assertEquals(1.0 - 0.6, cache.getOffsetX(), EPSILON);
+        assertEquals(-0.3, cache.getOffsetY(), EPSILON, "falling next to the wall is not clipped");
+
+        cache.sweep(0.5, 2.5, 0.5, RADIUS, 1.0, 0.0, 0.0);
+        assertEquals(1.0, cache.getOffsetX(), EPSILON, "passes over the wall");
+    }
+
+    @Test
+    public void fenceBoxReachesIntoCellAbove() {
+        SyntheticWorld world = new SyntheticWorld();
+        // 栅栏柱：细长，高 1.5 格，碰撞盒伸进上面一格
+        world.box(0, 0, 0, 0.375, 0.0, 0.375, 0.625, 1.5, 0.625);
+        ParticleCollisionCache cache = new ParticleCollisionCache(world);
+
+        // 扫掠区域只覆盖 y = 1 这一格，碰撞盒属于 y = 0 的格子
+        cache.sweep(0.5, 1.9, 0.5, RADIUS, 0.0, -0.5, 0.0);
+        assertEquals(1.5 - 1.8, cache.getOffsetY(), EPSILON, "lands on top of the post");
+
+        cache.sweep(0.9, 1.9, 0.5, RADIUS, 0.0, -0.5, 0.0);
+        assertEquals(-0.5, cache.getOffsetY(), EPSILON, "falls past the thin post");
+
+        cache.sweep(0.1, 1.2, 0.5, RADIUS, 0.5, 0.0, 0.0);
+        assertEquals(0.375 - 0.2, cache.getOffsetX(), EPSILON, "blocked by the post above the block height");
+
+        assertTrue(cache.intersects(0.5, 1.45, 0.5, RADIUS));
+        assertFalse(cache.intersects(0.5, 1.65, 0.5, RADIUS));
+    }
+
+    @Test
+    public void clearDropsCachedBlocks() {
+        SyntheticWorld world = new SyntheticWorld();
+        world.solid(0, 0, 0);
+        ParticleCollisionCache cache = new ParticleCollisionCache(world);
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        int queries = world.queries;
+        long misses = cache.getMisses();
+        assertEquals(misses, queries, "every miss asks the world once");
+
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(queries, world.queries, "same tick reuses the cached cells");
+        assertTrue(cache.getHits() > 0);
+
+        // 同一 tick 内世界的变化不可见，clear 之后才重新读取
+        world.remove(0, 0, 0);
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(-0.4, cache.getOffsetY(), EPSILON);
+
+        cache.clear();
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(-1.0, cache.getOffsetY(), EPSILON, "removed block is gone after clear");
+        assertEquals(2 * queries, world.queries);
+
+        world.solid(0, 0, 0);
+        cache.clear();
+        cache.sweep(0.5, 1.5, 0.5, RADIUS, 0.0, -1.0, 0.0);
+        assertEquals(-0.4, cache.getOffsetY(), EPSILON, "placed block is seen after clear");
+    }
+
+    @Test
+    public void manyCellsSurviveRehash() {
+        SyntheticWorld world = new SyntheticWorld();
+        int size = 24;
+        for (int x = -size; x < size; x++) {
+            for (int z = -size; z < size; z++) {
+                world.solid(x, 0, z);
+            }
+        }
+        ParticleCollisionCache cache = new ParticleCollisionCache(world);
+        for (int round = 0; round < 2; round++) {
+            int queries = world.queries;
+            for (int x = -size; x < size; x++) {
+                for (int z = -size; z < size; z++) {
+                    cache.sweep(x + 0.5, 1.5, z + 0.5, RADIUS, 0.0, -1.0, 0.0);
+                    assertEquals(-0.4, cache.getOffsetY(), EPSILON, "cell " + x + ", " + z);
+                }
+            }
+            if (round == 1) {
+                assertEquals(queries, world.queries, "cached cells are kept across the table growing");
+            }
+        }
+    }
+
+    /**
+     * 按方块格存放碰撞盒（格内坐标），并统计被查询的次数
+     */
+    private static final class SyntheticWorld implements VoxelCollisionWorld {
+        private final Map<Long, List<double[]>> blocks = new HashMap<>();
+        private int queries;
+
+        void solid(int x, int y, int z) {
+            box(x, y, z, 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+        }
+
+        void box(int x, int y, int z, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            blocks.computeIfAbsent(key(x, y, z), k -> new ArrayList<>()).add(new double[]{minX, minY, minZ, maxX, maxY, maxZ});
+        }
+
+        void remove(int x, int y, int z) {
+            blocks.remove(key(x, y, z));
+        }
+
+        @Override
+        public void collectBoxes(int x, int y, int z, BoxSink sink) {
+            queries++;
+            List<double[]> boxes = blocks.get(key(x, y, z));
+            if (boxes == null) {
+                return;
+            }
+            for (double[] b : boxes) {
+                sink.add(x + b[0], y + b[1], z + b[2], x + b[3], y + b[4], z + b[5]);
+            }
+        }
+
+        private static long key(int x, int y, int z) {
+            return ((long) x & 0x1FFFFFL) << 42 | ((long) y & 0x1FFFFFL) << 21 | ((long) z & 0x1FFFFFL);
+        }
+    }
+}
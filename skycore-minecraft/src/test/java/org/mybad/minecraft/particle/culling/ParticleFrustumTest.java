@@ -0,0 +1,128 @@
+package org.mybad.minecraft.particle.culling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用已知的投影矩阵检查平面提取和球、包围盒的相交测试
+ */
+public class ParticleFrustumTest {
+    private static final float NEAR = 0.1f;
+    private static final float FAR = 100.0f;
+
+    @Test
+    public void identityMatrixBoundsUnitCube() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        frustum.set(identity(), 0.0, 0.0, 0.0);
+        assertTrue(frustum.isValid());
+
+        assertTrue(frustum.intersectsSphere(0.0, 0.0, 0.0, 0.0f));
+        assertTrue(frustum.intersectsSphere(0.99, -0.99, 0.99, 0.0f));
+        assertFalse(frustum.intersectsSphere(1.01, 0.0, 0.0, 0.0f));
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -1.01, 0.0f));
+        // 平面已归一化：球心到 x = 1 平面的距离是 1
+        assertTrue(frustum.intersectsSphere(2.0, 0.0, 0.0, 1.01f));
+        assertFalse(frustum.intersectsSphere(2.0, 0.0, 0.0, 0.99f));
+    }
+
+    @Test
+    public void perspectivePlanesMatchFieldOfView() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        frustum.set(perspective90(), 0.0, 0.0, 0.0);
+        assertTrue(frustum.isValid());
+
+        assertTrue(frustum.intersectsSphere(0.0, 0.0, -10.0, 0.0f), "straight ahead");
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, 10.0, 0.0f), "behind the camera");
+        assertTrue(frustum.intersectsSphere(9.0, 0.0, -10.0, 0.0f), "inside the 45 degree side plane");
+        assertFalse(frustum.intersectsSphere(11.0, 0.0, -10.0, 0.0f), "outside the 45 degree side plane");
+        assertFalse(frustum.intersectsSphere(0.0, -11.0, -10.0, 0.0f), "below the bottom plane");
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -0.05, 0.0f), "in front of the near plane");
+        assertTrue(frustum.intersectsSphere(0.0, 0.0, -99.0, 0.0f), "before the far plane");
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -101.0, 0.0f), "beyond the far plane");
+
+        // (12, 0, -10) 到侧平面 x + z = 0 的距离是 2 / sqrt(2)
+        float distance = (float) Math.sqrt(2.0);
+        assertTrue(frustum.intersectsSphere(12.0, 0.0, -10.0, distance + 0.01f));
+        assertFalse(frustum.intersectsSphere(12.0, 0.0, -10.0, distance - 0.01f));
+    }
+
+    @Test
+    public void boxTestUsesFarthestCorner() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        frustum.set(perspective90(), 0.0, 0.0, 0.0);
+
+        assertTrue(frustum.intersectsBox(-1.0, -1.0, -11.0, 1.0, 1.0, -9.0), "box straight ahead");
+        assertTrue(frustum.intersectsBox(9.0, -1.0, -11.0, 13.0, 1.0, -9.0), "box straddling the side plane");
+        assertFalse(frustum.intersectsBox(12.0, -1.0, -11.0, 14.0, 1.0, -9.0), "box outside the side plane");
+        assertFalse(frustum.intersectsBox(-1.0, -1.0, 1.0, 1.0, 1.0, 3.0), "box behind the camera");
+        assertTrue(frustum.intersectsBox(-200.0, -200.0, -200.0, 200.0, 200.0, 200.0), "box enclosing the frustum");
+    }
+
+    @Test
+    public void originShiftsWorldCoordinates() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        frustum.set(perspective90(), 100.0, 64.0, 0.0);
+
+        assertTrue(frustum.intersectsSphere(100.0, 64.0, -10.0, 0.0f));
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -10.0, 0.0f));
+        assertTrue(frustum.intersectsBox(99.0, 63.0, -11.0, 101.0, 65.0, -9.0));
+        assertFalse(frustum.intersectsBox(-1.0, -1.0, -11.0, 1.0, 1.0, -9.0));
+    }
+
+    @Test
+    public void matricesWithCameraTranslationUseWorldCoordinates() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        float[] modelView = identity();
+
+        // 模型视图不含相机平移：坐标以相机为原点
+        frustum.setFromMatrices(perspective90(), modelView, 100.0, 0.0, 0.0);
+        assertTrue(frustum.intersectsSphere(100.0, 0.0, -10.0, 0.0f));
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -10.0, 0.0f));
+
+        // 平移恰好抵消相机位置：矩阵已包含相机平移，直接使用世界坐标
+        modelView[12] = -100.0f;
+        frustum.setFromMatrices(perspective90(), modelView, 100.0, 0.0, 0.0);
+        assertTrue(frustum.intersectsSphere(100.0, 0.0, -10.0, 0.0f));
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, -10.0, 0.0f));
+    }
+
+    @Test
+    public void invalidFrustumAcceptsEverything() {
+        ParticleFrustum frustum = new ParticleFrustum();
+        assertFalse(frustum.isValid());
+        assertTrue(frustum.intersectsSphere(0.0, 0.0, 1000.0, 0.0f));
+
+        frustum.set(new float[16], 0.0, 0.0, 0.0);
+        assertFalse(frustum.isValid(), "degenerate matrix has no planes");
+        assertTrue(frustum.intersectsBox(5.0, 5.0, 5.0, 6.0, 6.0, 6.0));
+
+        frustum.set(perspective90(), 0.0, 0.0, 0.0);
+        assertFalse(frustum.intersectsSphere(0.0, 0.0, 10.0, 0.0f));
+        frustum.invalidate();
+        assertTrue(frustum.intersectsSphere(0.0, 0.0, 10.0, 0.0f));
+    }
+
+    private static float[] identity() {
+        float[] matrix = new float[16];
+        matrix[0] = 1.0f;
+        matrix[5] = 1.0f;
+        matrix[10] = 1.0f;
+        matrix[15] = 1.0f;
+        return matrix;
+    }
+
+    /**
+     * 列主序的透视矩阵：垂直视角 90 度、宽高比 1，相机朝向 -Z
+     */
+    private static float[] perspective90() {
+        float[] matrix = new float[16];
+        matrix[0] = 1.0f;
+        matrix[5] = 1.0f;
+        matrix[10] = (FAR + NEAR) / (NEAR - FAR);
+        matrix[11] = -1.0f;
+        matrix[14] = 2.0f * FAR * NEAR / (NEAR - FAR);
+        return matrix;
+    }
+}
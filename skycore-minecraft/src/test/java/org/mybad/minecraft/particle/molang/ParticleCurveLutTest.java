@@ -0,0 +1,135 @@
+package org.mybad.minecraft.particle.molang;
+
+import org.junit.jupiter.api.Test;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangEnvironment;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangRuntime;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.particle.ParticleData;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 比较烘焙查找表与精确曲线求值的结果
+ */
+public class ParticleCurveLutTest {
+    private static final float TOLERANCE = ParticleCurveEvaluator.DEFAULT_LUT_TOLERANCE;
+    /** 每个输入在查找表内外各取的采样数 */
+    private static final int SAMPLES = 2000;
+
+    @Test
+    public void linearMatchesExact() throws MolangException {
+        assertMatchesExact(curve(ParticleData.CurveType.LINEAR, 1.0f,
+            node(0.0f, 0.0f), node(0.25f, 4.0f), node(0.6f, -2.0f), node(1.0f, 1.0f)));
+    }
+
+    @Test
+    public void bezierMatchesExact() throws MolangException {
+        assertMatchesExact(curve(ParticleData.CurveType.BEZIER, 2.0f,
+            node(0.0f, 0.0f), node(0.33f, 3.0f), node(0.66f, -1.0f), node(1.0f, 1.0f)));
+    }
+
+    @Test
+    public void bezierChainMatchesExact() throws MolangException {
+        assertMatchesExact(curve(ParticleData.CurveType.BEZIER_CHAIN, 1.0f,
+            chainNode(0.0f, 0.0f, 0.0f, 2.0f),
+            chainNode(0.5f, 1.0f, 0.5f, -4.0f),
+            chainNode(1.0f, 0.0f, 0.0f, 0.0f)));
+    }
+
+    @Test
+    public void catmullRomMatchesExact() throws MolangException {
+        assertMatchesExact(curve(ParticleData.CurveType.CATMULL_ROM, 0.5f,
+            node(-0.2f, 0.0f), node(0.0f, 1.0f), node(0.3f, 5.0f), node(0.7f, 2.0f), node(1.0f, 0.0f), node(1.2f, 0.0f)));
+    }
+
+    @Test
+    public void runtimeNodesAreNotBaked() throws MolangException {
+        ParticleData.Curve curve = new ParticleData.Curve(ParticleData.CurveType.LINEAR,
+            new ParticleData.CurveNode[]{node(0.0f, 0.0f), new ParticleData.CurveNode(1.0f, compile("v.t * 2"))},
+            compile("v.t"), MolangExpression.of(1.0f));
+        assertNull(ParticleCurveLut.bake(curve, TOLERANCE));
+    }
+
+    @Test
+    public void nonPositiveToleranceDisablesBaking() throws MolangException {
+        ParticleData.Curve curve = curve(ParticleData.CurveType.LINEAR, 1.0f, node(0.0f, 0.0f), node(1.0f, 1.0f));
+        assertNull(ParticleCurveLut.bake(curve, 0.0f));
+        assertNull(ParticleCurveLut.bake(curve, -1.0f));
+    }
+
+    @Test
+    public void changingToleranceRebakesLoadedLayouts() throws MolangException {
+        ParticleData.Curve curve = curve(ParticleData.CurveType.BEZIER, 1.0f,
+            node(0.0f, 0.0f), node(0.33f, 30.0f), node(0.66f, -10.0f), node(1.0f, 1.0f));
+        ParticleData data = new ParticleData(null, Collections.singletonMap("variable.curve", curve), null, null, null);
+        float previous = ParticleCurveEvaluator.getLutTolerance();
+        try {
+            ParticleCurveEvaluator.setLutTolerance(1.0E-2f);
+            ParticleMolangLayout layout = ParticleMolangLayout.of(data);
+            ParticleCurveLut[] luts = layout.getCurveLuts();
+            assertNotNull(luts[0]);
+            int coarse = luts[0].getResolution();
+
+            ParticleCurveEvaluator.setLutTolerance(1.0E-5f);
+            assertSame(luts, layout.getCurveLuts());
+            assertNotNull(luts[0]);
+            assertTrue(luts[0].getResolution() > coarse, "finer tolerance should need more samples than " + coarse);
+
+            ParticleCurveEvaluator.setLutTolerance(0.0f);
+            assertNull(luts[0]);
+        } finally {
+            ParticleCurveEvaluator.setLutTolerance(previous);
+        }
+    }
+
+    private static void assertMatchesExact(ParticleData.Curve curve) throws MolangException {
+        ParticleCurveLut lut = ParticleCurveLut.bake(curve, TOLERANCE);
+        assertNotNull(lut, "curve with constant nodes should be baked");
+        float horizontalRange = curve.horizontalRange().getConstant();
+
+        float magnitude = 1.0f;
+        float[] exact = new float[SAMPLES + 1];
+        float[] baked = new float[SAMPLES + 1];
+        for (int i = 0; i <= SAMPLES; i++) {
+            // 覆盖节点范围前后各一半，范围外的输入应回退到精确计算
+            float input = (-0.5f + 2.0f * i / SAMPLES) * horizontalRange;
+            MolangEnvironment environment = MolangRuntime.runtime().setVariable("t", input).create();
+            exact[i] = ParticleCurveEvaluator.evaluateCurve(environment, curve);
+            baked[i] = ParticleCurveEvaluator.evaluateCurve(environment, curve, lut);
+            magnitude = Math.max(magnitude, Math.abs(exact[i]));
+        }
+        for (int i = 0; i <= SAMPLES; i++) {
+            float input = (-0.5f + 2.0f * i / SAMPLES) * horizontalRange;
+            float allowed = TOLERANCE * magnitude;
+            float error = Math.abs(exact[i] - baked[i]);
+            assertTrue(error <= allowed, curve.type() + " at " + input + ": exact " + exact[i] + ", baked " + baked[i] + ", allowed error " + allowed);
+        }
+        assertEquals(exact[0], baked[0], "inputs before the table use the exact curve");
+        assertEquals(exact[SAMPLES], baked[SAMPLES], "inputs after the table use the exact curve");
+    }
+
+    private static ParticleData.Curve curve(ParticleData.CurveType type, float horizontalRange, ParticleData.CurveNode... nodes) throws MolangException {
+        return new ParticleData.Curve(type, nodes, compile("v.t"), MolangExpression.of(horizontalRange));
+    }
+
+    private static ParticleData.CurveNode node(float time, float value) {
+        return new ParticleData.CurveNode(time, MolangExpression.of(value));
+    }
+
+    private static ParticleData.CurveNode chainNode(float time, float value, float leftSlope, float rightSlope) {
+        return new ParticleData.BezierChainCurveNode(time, MolangExpression.of(value), MolangExpression.of(value),
+            MolangExpression.of(leftSlope), MolangExpression.of(rightSlope));
+    }
+
+    private static MolangExpression compile(String expression) throws MolangException {
+        return MolangCompiler.create(MolangCompiler.OPTIMIZE_FLAG).compile(expression);
+    }
+}
@@ -0,0 +1,118 @@
+package org.mybad.minecraft.particle.render.gpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 检查环形缓冲区的段轮换、段内对齐分配、扩容和按 std430 步长打包
+ */
+public class ParticleRingLayoutTest {
+
+    @Test
+    public void framesRotateThroughSegments() {
+        ParticleRingLayout layout = new ParticleRingLayout(3);
+        layout.grow(1);
+        int segmentBytes = layout.getSegmentBytes();
+        assertEquals(3 * segmentBytes, layout.getTotalBytes());
+
+        int[] expected = {1, 2, 0, 1, 2, 0, 1};
+        for (int segment : expected) {
+            assertEquals(segment, layout.nextFrame());
+            assertEquals(segment, layout.getSegment());
+            // 每帧从所在段的开头分配
+            assertEquals(segment * segmentBytes, layout.allocate(32), "frame in segment " + segment);
+        }
+    }
+
+    @Test
+    public void singleSegmentAlwaysStartsAtZero() {
+        ParticleRingLayout layout = new ParticleRingLayout(1);
+        layout.grow(1);
+        for (int frame = 0; frame < 4; frame++) {
+            assertEquals(0, layout.nextFrame());
+            assertEquals(0, layout.allocate(100));
+            assertEquals(ParticleRingLayout.MIN_ALIGNMENT * 7, layout.allocate(4));
+        }
+    }
+
+    @Test
+    public void allocationsAreAlignedWithinSegment() {
+        ParticleRingLayout layout = new ParticleRingLayout(3);
+        layout.setAlignment(256);
+        layout.grow(1);
+        layout.nextFrame();
+        int base = layout.getSegmentBytes();
+
+        assertEquals(base, layout.allocate(4));
+        assertEquals(base + 256, layout.allocate(300));
+        assertEquals(base + 768, layout.allocate(1));
+        // 小于下限的对齐按 16 字节处理
+        layout.setAlignment(4);
+        assertEquals(base + 784, layout.allocate(1));
+
+        assertEquals(-1, layout.allocate(0));
+        assertEquals(-1, layout.allocate(layout.getSegmentBytes()), "allocation past the end of the segment");
+    }
+
+    @Test
+    public void growKeepsHeadroomAndRestartsFrame() {
+        ParticleRingLayout layout = new ParticleRingLayout(3);
+        assertEquals(-1, layout.allocate(16), "nothing fits before the first grow");
+        assertEquals(ParticleRingLayout.MIN_SEGMENT_BYTES, layout.grow(16));
+
+        layout.nextFrame();
+        int bytes = ParticleRingLayout.MIN_SEGMENT_BYTES;
+        assertTrue(layout.allocate(bytes / 2) >= 0);
+        assertEquals(-1, layout.allocate(bytes));
+        int grown = layout.grow(bytes);
+        // 已用一半加上新请求，再预留一半余量
+        assertEquals((bytes / 2 + bytes) * 3 / 2, grown);
+        assertEquals(0, grown % ParticleRingLayout.MIN_ALIGNMENT);
+        assertEquals(1, layout.getSegment(), "growing keeps the current segment");
+        assertEquals(grown, layout.allocate(bytes), "the frame restarts at the beginning of its segment");
+
+        // 段容量只增不减
+        assertEquals(grown, layout.grow(16));
+    }
+
+    @Test
+    public void packWritesParticlesAtOffsetWithStride() {
+        int stride = ParticleBatcher.FLOATS_PER_PARTICLE;
+        int particles = 5;
+        FloatBuffer src = FloatBuffer.allocate(particles * stride + 3);
+        src.position(3);
+        for (int i = 0; i < particles * stride; i++) {
+            src.put(i);
+        }
+        src.flip();
+        src.position(3);
+
+        ParticleRingLayout layout = new ParticleRingLayout(3);
+        layout.grow(particles * stride * Float.BYTES);
+        layout.nextFrame();
+        layout.allocate(20);
+        int offset = layout.allocate(particles * stride * Float.BYTES);
+        assertEquals(layout.getSegmentBytes() + 32, offset);
+
+        FloatBuffer mapped = ByteBuffer.allocateDirect(layout.getTotalBytes()).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mapped.position(7);
+        ParticleRingLayout.pack(src, mapped, offset);
+
+        assertEquals(3, src.position(), "source position is restored");
+        int first = offset / Float.BYTES;
+        for (int particle = 0; particle < particles; particle++) {
+            for (int component = 0; component < stride; component++) {
+                int index = particle * stride + component;
+                assertEquals((float) index, mapped.get(first + index), "particle " + particle + " component " + component);
+            }
+        }
+        assertEquals(0.0f, mapped.get(first - 1));
+        assertEquals(0.0f, mapped.get(first + particles * stride));
+    }
+}
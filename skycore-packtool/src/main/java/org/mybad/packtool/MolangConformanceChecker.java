@@ -0,0 +1,550 @@
+package org.mybad.packtool;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangExpression;
+import org.mybad.bedrockparticle.molang.api.MolangRuntime;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariablePolicy;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariables;
+import org.mybad.bedrockparticle.molang.api.exception.MolangException;
+import org.mybad.bedrockparticle.molang.api.object.MolangObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * CLI tool that checks the Molang compiler against a table of expressions with known results.
+ * <p>
+ * Every expression is evaluated through each compilation mode (compiled or interpreted, optimized or not) and must produce
+ * the expected value and leave the same variables behind. Randomly generated expressions are compared between the modes,
+ * and a resource pack can be scanned so every string in its JSON files is checked the same way.
+ * <p>
+ * Known defects of the compiler are listed in the table and reported without failing the run, every other difference fails.
+ * <p>
+ * Usage: {@code MolangConformanceChecker [--random <count>] [--seed <seed>] [--pack <dir>] [--bench]},
+ * or {@code gradlew :skycore-packtool:checkMolang -PmolangCheckArgs="--bench"}.
+ * Exits with status 1 when any check fails.
+ */
+public final class MolangConformanceChecker {
+
+    private static final float TOLERANCE = 1.0E-4F;
+    private static final String[] STATE_VARIABLES = {"x", "y", "cnt", "age", "r", "q", "a"};
+    private static final Mode[] MODES = {
+        new Mode("compiled", MolangCompiler.OPTIMIZE_FLAG),
+        new Mode("compiled-unoptimized", 0),
+        new Mode("interpreted", MolangCompiler.OPTIMIZE_FLAG | MolangCompiler.TIERED_FLAG),
+        new Mode("interpreted-unoptimized", MolangCompiler.TIERED_FLAG)
+    };
+
+    /**
+     * Expected results in the environment created by {@link #createRuntime()}:
+     * v.x = 1.5, v.y = 2.5, v.zero = 0, v.nan = NaN, v.cnt = 0, q.anim_time = 1.7, this = 2.
+     */
+    private static final Case[] CASES = {
+        // Literals and arithmetic
+        value("1", 1), value("1.5", 1.5F), value("-2", -2), value("1 + 2 * 3", 7), value("(1 + 2) * 3", 9),
+        value("10 - 4 - 3", 3), value("12 / 4 / 3", 1), value("2 * -v.x", -3),
+        value("v.x * -1 + -1 / v.y", -1.9F), value("-1 / v.y", -0.4F), value("-1 * v.y", -2.5F),
+        value("1 / v.zero", Float.POSITIVE_INFINITY), value("v.zero / v.zero", Float.NaN),
+        // Names
+        value("v.x", 1.5F), value("variable.x", 1.5F), value("q.anim_time", 1.7F),
+        value("query.anim_time * 2", 3.4F), value("this", 2), value("this * this + v.x", 5.5F),
+        value("v.missing", 0), value("v.missing + 2", 2),
+        // Comparison and logic
+        value("v.x > 1", 1), value("v.x < 1", 0), value("v.x >= 1.5", 1), value("v.x <= 1.4", 0),
+        value("v.x == 1.5", 1), value("v.x != 1.5", 0), value("v.x < v.nan", 0), value("v.nan == v.nan", 0),
+        value("v.nan != v.nan", 1), value("1 && 0", 0), value("1 && v.x", 1), value("0 || v.zero", 0),
+        value("0 && v.missing", 0), value("1 || v.missing", 1), value("v.nan && 1", 1),
+        // Reads skipped by a short circuit must be loaded again later
+        value("(v.zero && this) + this", 2), value("(1 || this) + this", 3), value("((math.lerp(v.zero && 9.87, 0, 1) || this) && this)", 1),
+        // Conditionals
+        value("1 ? v.x : v.y", 1.5F), value("0 ? v.x : v.y", 2.5F), value("(1 > 2) ? 3 : v.x * 1 + 0", 1.5F),
+        value("v.y > 1 ? math.pow(v.x, 2) + math.pow(v.x, 2) : 0", 4.5F),
+        value("v.x > 1 ? v.x = 3 : v.x = 4; return v.x;", 3), value("v.x > 2 ? v.x = 3 : v.x = 4; return v.x;", 4),
+        value("temp.t = this ? q.anim_time : v.zero; return temp.t * v.zero;", 0), value("(v.zero ? this : q.anim_time) + this", 3.7F),
+        // Null coalescing
+        value("v.missing ?? 7", 7), value("v.x ?? 7", 1.5F), value("temp.k = 2; return temp.k ?? 9;", 2), value("temp.k ?? 9", 9),
+        value("(v.missing ?? this) + this", 4), value("(v.x ?? this) * v.x + this", 4.25F),
+        // Statements and temporaries
+        value("temp.a = 5; temp.b = temp.a * 2; return temp.b + v.x;", 11.5F), value("temp.a = 5; temp.a = temp.a + 1; return temp.a;", 6),
+        value("v.q = v.x * v.y + 1; return v.q * 2;", 9.5F), value("v.x = v.x * 2 + v.x * 2; return v.x;", 6),
+        value("{v.age = 9; v.r = v.age;}; return v.r;", 9), value("v.a = 1; v.a = v.a + 1;", 2),
+        // Loops
+        value("temp.i = 0; loop(3, {temp.i = temp.i + 1;}); return temp.i;", 3), value("v.n = 0; loop(4, {v.n = v.n + 2;}); return v.n;", 8),
+        value("v.n = 0; loop(10, {v.n = v.n + 1; v.n > 3 ? break;}); return v.n;", 4),
+        value("loop(3, {return v.x;}); return 1;", 1.5F),
+        // Math library
+        value("math.abs(-v.x)", 1.5F), value("math.sin(90)", 1), value("math.cos(180)", -1), value("math.sqrt(16)", 4),
+        value("math.pow(2, 10)", 1024), value("math.floor(v.y)", 2), value("math.ceil(v.x)", 2), value("math.round(v.y)", 3),
+        value("math.trunc(-v.y)", -2), value("math.min(v.x, v.y)", 1.5F), value("math.max(v.x, v.y)", 2.5F),
+        value("math.clamp(v.y, 0, 2)", 2), value("math.mod(v.y, v.x)", 1), value("math.lerp(v.x, v.y, 0.5)", 2),
+        value("math.lerprotate(10, 350, 0.5)", 0), value("math.exp(0)", 1), value("math.ln(1)", 0),
+        value("math.hermite_blend(0.5)", 0.5F), value("math.atan2(1, 1)", 45), value("math.asin(1)", 90),
+        value("math.acos(1)", 0), value("math.atan(1)", 45), value("math.min_angle(370)", 10), value("math.pi", (float) Math.PI),
+        value("math.die_roll(0, 1, 1)", 0), value("math.random(2, 2)", 2), value("math.random_integer(3, 3)", 3),
+        value("math.die_roll_integer(2, 1, 1)", 2),
+        // Known defects of the compiler, reported as KNOWN until they are fixed
+        // Negating a parenthesized expression is rejected by the parser
+        knownIssue("-(v.x + v.y)", -4),
+        // Object names are case sensitive
+        knownIssue("V.X", 1.5F),
+        // Loops only see the value a variable had before the loop when it was not assigned in the expression first
+        knownIssue("loop(3, {v.cnt = v.cnt + 1;}); return v.cnt;", 3), knownIssue("loop(10, {v.cnt = v.cnt + 1; v.cnt > 3 ? break;}); return v.cnt;", 4),
+        // Loops run their body at least once
+        knownIssue("loop(0, {v.cnt = v.cnt + 1;}); return v.cnt;", 0), knownIssue("temp.s = 0; loop(0, {temp.s = 5;}); return temp.s;", 0),
+        // Nested loops can't be converted to bytecode
+        knownIssue("loop(2, {loop(3, {temp.i = temp.i + 1;});}); return temp.i;", 6),
+        // A conditional without an else branch can't be returned
+        knownIssue("v.x > 1 ? 10", 10),
+        // Syntax this compiler does not accept
+        syntaxError("!0"), syntaxError("1 +"), syntaxError("math.sin("), syntaxError("(1 + 2")
+    };
+
+    private static final Set<String> KNOWN_ISSUES = Arrays.stream(CASES)
+        .filter(testCase -> testCase.knownIssue)
+        .map(testCase -> testCase.expression)
+        .collect(Collectors.toSet());
+
+    /**
+     * Largest fraction of random expressions that may be rejected in every mode before the generator is considered broken.
+     */
+    private static final float MAX_SKIPPED = 0.05F;
+
+    private static final String[] BENCHMARKS = {
+        "v.particle_age / v.particle_lifetime",
+        "math.lerp(1, 0, v.particle_age / v.particle_lifetime) * (0.5 + v.particle_random_1 * 0.5)",
+        "v.emitter_age < 0.5 ? 10 : 0",
+        "math.sin(v.particle_age * 360 + v.particle_random_2 * 90) * 0.2",
+        "math.sin(q.anim_time * 360) * 15",
+        "math.clamp(q.ground_speed * 20, 0, 45)",
+        "q.is_on_ground ? 0 : math.cos(q.life_time * 180) * 5",
+        "temp.t = q.anim_time * 2; return math.sin(temp.t * 90) * math.cos(temp.t * 45);"
+    };
+
+    private int failures;
+    private int checks;
+    private int knownIssues;
+    private int skipped;
+
+    MolangConformanceChecker() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int random = 1000;
+        long seed = System.nanoTime();
+        Path pack = null;
+        boolean bench = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--random":
+                    random = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--pack":
+                    pack = Paths.get(args[++i]);
+                    break;
+                case "--bench":
+                    bench = true;
+                    break;
+                default:
+                    System.err.println("[MolangCheck] Unknown argument " + args[i]);
+                    System.exit(1);
+                    return;
+            }
+        }
+
+        configure();
+        MolangConformanceChecker checker = new MolangConformanceChecker();
+        checker.checkCases();
+        checker.checkRandom(random, seed);
+        if (pack != null) {
+            checker.checkPack(pack);
+        }
+        System.out.println("[MolangCheck] " + checker.checks + " checks, " + checker.failures + " failures, " + checker.knownIssues + " known issues, "
+            + checker.skipped + " skipped");
+        if (bench) {
+            benchmark();
+        }
+        if (checker.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Interpreted modes must stay interpreted, and unknown names read 0 without warnings.
+     */
+    static void configure() {
+        GlobalMolangCompiler.setPromotionThreshold(Integer.MAX_VALUE);
+        MolangUnknownVariables.setPolicy(MolangUnknownVariablePolicy.DEFAULT_ZERO);
+    }
+
+    int getFailures() {
+        return this.failures;
+    }
+
+    int getChecks() {
+        return this.checks;
+    }
+
+    void checkCases() {
+        for (Case testCase : CASES) {
+            Result[] results = evaluateAll(testCase.expression);
+            if (testCase.knownIssue) {
+                this.checkKnownIssue(testCase, results);
+                continue;
+            }
+            for (int i = 0; i < MODES.length; i++) {
+                Result result = results[i];
+                if (testCase.syntaxError) {
+                    this.expect(result.syntaxError, testCase.expression, MODES[i], "expected a syntax error but got " + result);
+                } else {
+                    this.expect(!result.syntaxError && result.error == null && matches(result.value, testCase.expected),
+                        testCase.expression, MODES[i], "expected " + testCase.expected + " but got " + result);
+                }
+            }
+            this.compareModes(testCase.expression, results);
+        }
+    }
+
+    /**
+     * Known issues are reported without failing the run, and flagged once they start passing so the case can become a regular one.
+     */
+    private void checkKnownIssue(Case testCase, Result[] results) {
+        boolean passes = true;
+        for (Result result : results) {
+            passes &= !result.syntaxError && result.error == null && matches(result.value, testCase.expected);
+        }
+        if (passes) {
+            System.out.println("[MolangCheck] FIXED " + testCase.expression + " - known issue passes in every mode now");
+        } else {
+            this.knownIssues++;
+            System.out.println("[MolangCheck] KNOWN " + testCase.expression + " - expected " + testCase.expected + " but got " + results[0]);
+        }
+    }
+
+    void checkRandom(int count, long seed) {
+        System.out.println("[MolangCheck] Random differential seed " + seed);
+        Random random = new Random(seed);
+        int skipped = 0;
+        for (int i = 0; i < count; i++) {
+            String expression = randomStatement(random);
+            Result[] results = evaluateAll(expression);
+            if (Arrays.stream(results).allMatch(result -> result.syntaxError)) {
+                skipped++;
+                continue;
+            }
+            this.compareModes(expression, results);
+        }
+        this.skipped += skipped;
+        // Only the generator can produce expressions no mode accepts, so many of them mean it stopped testing anything
+        this.expect(skipped <= count * MAX_SKIPPED, "random seed " + seed, MODES[0],
+            skipped + " of " + count + " generated expressions were rejected in every mode");
+    }
+
+    void checkPack(Path root) throws IOException {
+        Set<String> strings = new LinkedHashSet<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".json"))::iterator) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    collectStrings(new JsonParser().parse(reader), strings);
+                } catch (Exception e) {
+                    System.err.println("[MolangCheck] Failed to read " + file + " - " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("[MolangCheck] Checking " + strings.size() + " strings from " + root);
+        for (String expression : strings) {
+            // Texture paths and identifiers are checked too, they simply have to behave the same way in every mode
+            this.compareModes(expression, evaluateAll(expression));
+        }
+    }
+
+    private static void collectStrings(JsonElement element, Set<String> strings) {
+        if (element.isJsonPrimitive()) {
+            if (element.getAsJsonPrimitive().isString()) {
+                strings.add(element.getAsString());
+            }
+        } else if (element.isJsonArray()) {
+            element.getAsJsonArray().forEach(child -> collectStrings(child, strings));
+        } else if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                collectStrings(entry.getValue(), strings);
+            }
+        }
+    }
+
+    private void compareModes(String expression, Result[] results) {
+        // The interpreter must reproduce the generated code exactly, including its defects
+        for (int i = 2; i < results.length; i++) {
+            this.compare(expression, MODES[i - 2], results[i - 2], MODES[i], results[i]);
+        }
+        this.compare(expression, MODES[0], results[0], MODES[1], results[1]);
+    }
+
+    private void compare(String expression, Mode firstMode, Result first, Mode secondMode, Result second) {
+        if (first.equivalent(second)) {
+            this.checks++;
+            return;
+        }
+        if (KNOWN_ISSUES.contains(expression)) {
+            this.knownIssues++;
+            System.out.println("[MolangCheck] KNOWN " + expression + " - " + firstMode.name + ": " + first + " / " + secondMode.name + ": " + second);
+            return;
+        }
+        // This includes the bytecode compiler rejecting a tree the interpreter accepts, the fallback hides a compiler defect
+        this.expect(false, expression, secondMode, "differs from " + firstMode.name + ": " + first + " / " + second);
+    }
+
+    private void expect(boolean condition, String expression, Mode mode, String message) {
+        this.checks++;
+        if (!condition) {
+            this.failures++;
+            System.err.println("[MolangCheck] FAIL [" + mode.name + "] " + expression + " - " + message);
+        }
+    }
+
+    private static Result[] evaluateAll(String expression) {
+        Result[] results = new Result[MODES.length];
+        for (int i = 0; i < MODES.length; i++) {
+            results[i] = evaluate(MODES[i], expression);
+        }
+        return results;
+    }
+
+    private static Result evaluate(Mode mode, String expression) {
+        MolangExpression compiled;
+        try {
+            compiled = MolangCompiler.create(mode.flags, MolangConformanceChecker.class.getClassLoader()).compile(expression);
+        } catch (MolangException | RuntimeException e) {
+            return Result.syntaxError(e);
+        }
+        MolangRuntime runtime = createRuntime();
+        try {
+            float value = runtime.resolve(compiled);
+            return new Result(value, readState(runtime), null);
+        } catch (MolangException | RuntimeException e) {
+            return new Result(0, readState(runtime), e.toString());
+        }
+    }
+
+    private static MolangRuntime createRuntime() {
+        return MolangRuntime.runtime()
+            .setQuery("anim_time", 1.7F)
+            .setQuery("life_time", 3.2F)
+            .setQuery("ground_speed", 0.4F)
+            .setQuery("is_on_ground", 0.0F)
+            .setVariable("x", 1.5F)
+            .setVariable("y", 2.5F)
+            .setVariable("zero", 0.0F)
+            .setVariable("nan", Float.NaN)
+            .setVariable("cnt", 0.0F)
+            .setVariable("particle_age", 0.6F)
+            .setVariable("particle_lifetime", 2.0F)
+            .setVariable("particle_random_1", 0.25F)
+            .setVariable("particle_random_2", 0.75F)
+            .setVariable("emitter_age", 0.3F)
+            .create(2.0F);
+    }
+
+    private static String readState(MolangRuntime runtime) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            MolangObject variables = runtime.getVariable();
+            for (String name : STATE_VARIABLES) {
+                MolangExpression value = variables.find(name);
+                if (value != null) {
+                    builder.append(name).append('=').append(runtime.safeResolve(value)).append(' ');
+                }
+            }
+        } catch (MolangException e) {
+            builder.append(e);
+        }
+        return builder.toString();
+    }
+
+    private static boolean matches(float actual, float expected) {
+        if (Float.isNaN(expected) || Float.isNaN(actual)) {
+            return Float.isNaN(expected) && Float.isNaN(actual);
+        }
+        if (Float.isInfinite(expected) || Float.isInfinite(actual)) {
+            return expected == actual;
+        }
+        return Math.abs(actual - expected) <= TOLERANCE * Math.max(1.0F, Math.abs(expected));
+    }
+
+    private static String randomStatement(Random random) {
+        if (random.nextInt(5) == 0) {
+            return "temp.t = " + randomExpression(random, 3) + "; return temp.t * " + randomExpression(random, 2) + ";";
+        }
+        return randomExpression(random, 4);
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        if (depth <= 0 || random.nextInt(4) == 0) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    return Integer.toString(random.nextInt(10));
+                case 1:
+                    return String.format(Locale.ROOT, "%.2f", random.nextFloat() * 10.0F);
+                case 2:
+                    return random.nextBoolean() ? "v.x" : "v.y";
+                case 3:
+                    return "q.anim_time";
+                case 4:
+                    return random.nextBoolean() ? "v.zero" : "v.missing";
+                default:
+                    return "this";
+            }
+        }
+        String a = randomExpression(random, depth - 1);
+        String b = randomExpression(random, depth - 1);
+        switch (random.nextInt(9)) {
+            case 0:
+                return "(" + a + " " + pick(random, "+", "-", "*", "/") + " " + b + ")";
+            case 1:
+                return "(" + a + " " + pick(random, "<", "<=", ">", ">=", "==", "!=") + " " + b + ")";
+            case 2:
+                return "(" + a + " " + pick(random, "&&", "||") + " " + b + ")";
+            case 3:
+                return "(" + a + " ? " + b + " : " + randomExpression(random, depth - 1) + ")";
+            case 4:
+                return "math." + pick(random, "sin", "cos", "abs", "floor", "ceil", "round", "trunc", "hermite_blend") + "(" + a + ")";
+            case 5:
+                return "math." + pick(random, "min", "max", "mod", "atan2") + "(" + a + ", " + b + ")";
+            case 6:
+                return "math." + pick(random, "clamp", "lerp") + "(" + a + ", " + b + ", " + randomExpression(random, depth - 1) + ")";
+            case 7:
+                // The parser only negates names and literals, so "-(...)" is written as a subtraction
+                return "(0 - " + a + ")";
+            default:
+                // Only a name can be missing, so the left side of "??" must be one
+                return "(" + pick(random, "v.missing", "v.x", "v.zero", "q.anim_time") + " ?? " + b + ")";
+        }
+    }
+
+    private static String pick(Random random, String... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void benchmark() throws MolangException {
+        int warmup = 20_000;
+        int iterations = 500_000;
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%-90s", "expression (ns/eval)"));
+        for (Mode mode : MODES) {
+            header.append(String.format(Locale.ROOT, "%26s", mode.name));
+        }
+        System.out.println(header);
+        for (String expression : BENCHMARKS) {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-90s", expression));
+            for (Mode mode : MODES) {
+                MolangExpression compiled = MolangCompiler.create(mode.flags, MolangConformanceChecker.class.getClassLoader()).compile(expression);
+                MolangRuntime runtime = createRuntime();
+                float sink = 0;
+                for (int i = 0; i < warmup; i++) {
+                    sink += compiled.get(runtime);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += compiled.get(runtime);
+                }
+                double nanos = (double) (System.nanoTime() - start) / iterations;
+                line.append(String.format(Locale.ROOT, "%26.1f", nanos + (sink == Float.MIN_VALUE ? 1 : 0)));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static Case value(String expression, float expected) {
+        return new Case(expression, expected, false, false);
+    }
+
+    private static Case syntaxError(String expression) {
+        return new Case(expression, 0, true, false);
+    }
+
+    private static Case knownIssue(String expression, float expected) {
+        return new Case(expression, expected, false, true);
+    }
+
+    private static final class Mode {
+        final String name;
+        final int flags;
+
+        Mode(String name, int flags) {
+            this.name = name;
+            this.flags = flags;
+        }
+    }
+
+    private static final class Case {
+        final String expression;
+        final float expected;
+        final boolean syntaxError;
+        final boolean knownIssue;
+
+        Case(String expression, float expected, boolean syntaxError, boolean knownIssue) {
+            this.expression = expression;
+            this.expected = expected;
+            this.syntaxError = syntaxError;
+            this.knownIssue = knownIssue;
+        }
+    }
+
+    private static final class Result {
+        final float value;
+        final String state;
+        final String error;
+        final boolean syntaxError;
+
+        Result(float value, String state, String error) {
+            this(value, state, error, false);
+        }
+
+        private Result(float value, String state, String error, boolean syntaxError) {
+            this.value = value;
+            this.state = state;
+            this.error = error;
+            this.syntaxError = syntaxError;
+        }
+
+        static Result syntaxError(Exception e) {
+            return new Result(0, "", e.toString(), true);
+        }
+
+        boolean equivalent(Result other) {
+            if (this.syntaxError || other.syntaxError) {
+                return this.syntaxError == other.syntaxError;
+            }
+            if ((this.error == null) != (other.error == null)) {
+                return false;
+            }
+            return matches(other.value, this.value) && this.state.equals(other.state);
+        }
+
+        @Override
+        public String toString() {
+            if (this.syntaxError) {
+                return "syntax error " + this.error;
+            }
+            return (this.error != null ? "error " + this.error : Float.toString(this.value)) + (this.state.isEmpty() ? "" : " [" + this.state.trim() + "]");
+        }
+    }
+}
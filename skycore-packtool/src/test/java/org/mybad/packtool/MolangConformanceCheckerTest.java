@@ -0,0 +1,53 @@
+package org.mybad.packtool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mybad.bedrockparticle.molang.api.GlobalMolangCompiler;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariablePolicy;
+import org.mybad.bedrockparticle.molang.api.MolangUnknownVariables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the conformance table and a fixed set of random differential seeds as part of the build.
+ */
+public class MolangConformanceCheckerTest {
+
+    private static final long[] SEEDS = {1, 2, 3};
+    private static final int RANDOM_COUNT = 1000;
+
+    private static int promotionThreshold;
+    private static MolangUnknownVariablePolicy policy;
+
+    @BeforeAll
+    public static void configure() {
+        promotionThreshold = GlobalMolangCompiler.getPromotionThreshold();
+        policy = MolangUnknownVariables.getPolicy();
+        MolangConformanceChecker.configure();
+    }
+
+    @AfterAll
+    public static void restore() {
+        GlobalMolangCompiler.setPromotionThreshold(promotionThreshold);
+        MolangUnknownVariables.setPolicy(policy);
+    }
+
+    @Test
+    public void tableMatchesExpectedResults() {
+        MolangConformanceChecker checker = new MolangConformanceChecker();
+        checker.checkCases();
+        assertTrue(checker.getChecks() > 0, "no cases were checked");
+        assertEquals(0, checker.getFailures(), "failed cases are printed to stderr");
+    }
+
+    @Test
+    public void modesAgreeOnRandomExpressions() {
+        MolangConformanceChecker checker = new MolangConformanceChecker();
+        for (long seed : SEEDS) {
+            checker.checkRandom(RANDOM_COUNT, seed);
+        }
+        assertEquals(0, checker.getFailures(), "failed expressions are printed to stderr");
+    }
+}